@@ -0,0 +1,391 @@
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// Arquivo morto: contratos vencidos há mais de um prazo saem do arquivo principal e vão para
+// blocos comprimidos (Deflater) em <base>.acervo. Cada bloco tem até 256 contratos do mesmo
+// ano de término, em ordem de ID, no mesmo formato de linha do .txt (em UTF-8).
+// O índice <base>.acervo.indice guarda, por bloco, a posição, o tamanho, o ano e os IDs; ele só
+// é lido na primeira busca, então a abertura lê apenas o cabeçalho (com o maior ID arquivado).
+// - A busca por ID consulta o índice e descomprime um bloco (os últimos ficam em cache).
+// - A pesquisa percorre só os blocos do ano pedido (ou todos).
+// - Os blocos novos são acrescentados ao fim do .acervo e só então o índice é trocado de forma
+//   atômica: um acréscimo interrompido deixa bytes soltos depois do tamanho registrado, que são
+//   descartados no próximo. Um ID repetido (arquivado de novo) vale pelo bloco mais recente.
+public class AcervoContratos implements Closeable {
+    private static final int MAGICO = 0x43545241; // "CTRA"
+    private static final short VERSAO = 1;
+    private static final int CONTRATOS_POR_BLOCO = 256;
+    private static final int BLOCOS_EM_CACHE = 8;
+
+    private final Path arquivo;
+    private final Path arquivoIndice;
+    private int maiorId;
+    private long tamanhoDados;
+
+    // Carregados na primeira busca
+    private boolean indiceLido;
+    private final List<Bloco> blocos = new ArrayList<>();
+    private int[] ids = new int[0];      // em ordem crescente, sem repetição
+    private int[] blocoDoId = new int[0];
+    private int[] posicaoNoBloco = new int[0];
+    private FileChannel canal;
+    private final CarregadorContratos.Interpretador interpretador =
+        new CarregadorContratos.Interpretador(StandardCharsets.UTF_8, FormatoTexto::ler);
+    private final Map<Integer, contrato[]> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, contrato[]> maisAntigo) {
+            return size() > BLOCOS_EM_CACHE;
+        }
+    };
+
+    private static final class Bloco {
+        final long posicao;
+        final int comprimido;
+        final int original; // bytes das linhas descomprimidas
+        final int ano; // de término
+        final int[] ids;
+
+        Bloco(long posicao, int comprimido, int original, int ano, int[] ids) {
+            this.posicao = posicao;
+            this.comprimido = comprimido;
+            this.original = original;
+            this.ano = ano;
+            this.ids = ids;
+        }
+    }
+
+    public static final class Resultado {
+        public final int total;
+        public final List<contrato> contratos; // em ordem de término, até o limite pedido
+
+        Resultado(int total, List<contrato> contratos) {
+            this.total = total;
+            this.contratos = contratos;
+        }
+    }
+
+    private AcervoContratos(Path arquivo) {
+        this.arquivo = arquivo;
+        this.arquivoIndice = Path.of(arquivo + ".indice");
+    }
+
+    // Só o cabeçalho do índice: o maior ID arquivado (para não reaproveitar IDs)
+    public static AcervoContratos abrir(Path arquivo) throws IOException {
+        AcervoContratos acervo = new AcervoContratos(arquivo);
+        if (Files.exists(acervo.arquivoIndice)) {
+            try (DataInputStream entrada = new DataInputStream(Files.newInputStream(acervo.arquivoIndice))) {
+                acervo.lerCabecalho(entrada);
+            }
+        }
+        return acervo;
+    }
+
+    public synchronized int getMaiorId() {
+        return maiorId;
+    }
+
+    public synchronized int quantidade() throws IOException {
+        lerIndice();
+        return ids.length;
+    }
+
+    public synchronized boolean contem(int id) throws IOException {
+        lerIndice();
+        return Arrays.binarySearch(ids, id) >= 0;
+    }
+
+    public synchronized contrato buscar(int id) throws IOException {
+        lerIndice();
+        int i = Arrays.binarySearch(ids, id);
+        return i < 0 ? null : lerBloco(blocoDoId[i])[posicaoNoBloco[i]];
+    }
+
+    // Contratos arquivados com término no ano (null: todos) que passam no filtro, em ordem de
+    // término; o total conta todos os encontrados e a lista traz só os "limite" primeiros
+    public synchronized Resultado pesquisar(Integer ano, Predicate<contrato> filtro, int limite) throws IOException {
+        lerIndice();
+        List<contrato> encontrados = new ArrayList<>();
+        for (int b = 0; b < blocos.size(); b++) {
+            Bloco bloco = blocos.get(b);
+            if (ano != null && bloco.ano != ano) {
+                continue;
+            }
+            contrato[] contratos = lerBloco(b);
+            for (contrato contrato : contratos) {
+                // Versões antigas de um ID arquivado de novo ficam de fora
+                int i = Arrays.binarySearch(ids, contrato.getId());
+                if (blocoDoId[i] == b && filtro.test(contrato)) {
+                    encontrados.add(contrato);
+                }
+            }
+        }
+        encontrados.sort(Comparator.comparingInt(contrato::getTerminoDia).thenComparingInt(contrato::getId));
+        return new Resultado(encontrados.size(), new ArrayList<>(encontrados.subList(0, Math.min(limite, encontrados.size()))));
+    }
+
+    // Acrescenta os contratos em blocos novos; o .acervo é sincronizado em disco antes da troca do índice
+    public synchronized void acrescentar(List<contrato> contratos) throws IOException {
+        if (contratos.isEmpty()) {
+            return;
+        }
+        lerIndice();
+        TreeMap<Integer, List<contrato>> porAno = new TreeMap<>();
+        for (contrato contrato : contratos) {
+            porAno.computeIfAbsent(contrato.getTermino().getYear(), a -> new ArrayList<>()).add(contrato);
+        }
+
+        List<Bloco> novos = new ArrayList<>();
+        try (FileChannel saida = FileChannel.open(arquivo, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            saida.truncate(tamanhoDados); // sobra de um acréscimo interrompido
+            long posicao = tamanhoDados;
+            for (Map.Entry<Integer, List<contrato>> ano : porAno.entrySet()) {
+                List<contrato> doAno = ano.getValue();
+                doAno.sort(Comparator.comparingInt(contrato::getId));
+                for (int de = 0; de < doAno.size(); de += CONTRATOS_POR_BLOCO) {
+                    List<contrato> parte = doAno.subList(de, Math.min(doAno.size(), de + CONTRATOS_POR_BLOCO));
+                    byte[] linhas = linhas(parte);
+                    ByteBuffer dados = ByteBuffer.wrap(comprimir(linhas));
+                    int comprimido = dados.remaining();
+                    while (dados.hasRemaining()) {
+                        saida.write(dados, posicao + dados.position());
+                    }
+                    novos.add(new Bloco(posicao, comprimido, linhas.length, ano.getKey(), parte.stream().mapToInt(contrato::getId).toArray()));
+                    posicao += comprimido;
+                }
+            }
+            saida.force(true);
+            tamanhoDados = posicao;
+        }
+
+        blocos.addAll(novos);
+        for (contrato contrato : contratos) {
+            maiorId = Math.max(maiorId, contrato.getId());
+        }
+        gravarIndice();
+        montarMapaDeIds();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (canal != null) {
+            canal.close();
+            canal = null;
+        }
+        cache.clear();
+    }
+
+    // Uma linha por contrato, no formato do .txt, em UTF-8
+    private static byte[] linhas(List<contrato> contratos) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(contratos.size() * 128);
+        FormatoTexto.Codificador codificador = new FormatoTexto.Codificador(StandardCharsets.UTF_8);
+        for (contrato contrato : contratos) {
+            int tamanho = codificador.codificar(contrato);
+            bytes.write(codificador.bytes(), 0, tamanho);
+            bytes.write('\n');
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] comprimir(byte[] linhas) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(linhas.length / 4 + 64);
+        byte[] parte = new byte[1 << 16];
+        Deflater deflater = new Deflater();
+        try {
+            deflater.setInput(linhas);
+            deflater.finish();
+            while (!deflater.finished()) {
+                bytes.write(parte, 0, deflater.deflate(parte));
+            }
+        } finally {
+            deflater.end();
+        }
+        return bytes.toByteArray();
+    }
+
+    private contrato[] lerBloco(int b) throws IOException {
+        contrato[] lidos = cache.get(b);
+        if (lidos != null) {
+            return lidos;
+        }
+        Bloco bloco = blocos.get(b);
+        if (canal == null) {
+            canal = FileChannel.open(arquivo, StandardOpenOption.READ);
+        }
+        ByteBuffer dados = ByteBuffer.allocate(bloco.comprimido);
+        while (dados.hasRemaining()) {
+            if (canal.read(dados, bloco.posicao + dados.position()) < 0) {
+                throw new IOException("Arquivo morto truncado: " + arquivo);
+            }
+        }
+
+        byte[] linhas = new byte[bloco.original];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(dados.array());
+            if (inflater.inflate(linhas) != linhas.length || !inflater.finished()) {
+                throw new IOException("Bloco " + b + " do arquivo morto não confere com o índice");
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Bloco " + b + " do arquivo morto corrompido", e);
+        } finally {
+            inflater.end();
+        }
+
+        // Mesmo caminho rápido em bytes da carga do .txt
+        lidos = new contrato[bloco.ids.length];
+        int inicio = 0;
+        for (int i = 0; i < lidos.length; i++) {
+            int fim = inicio;
+            while (fim < linhas.length && linhas[fim] != '\n') {
+                fim++;
+            }
+            lidos[i] = fim == linhas.length ? null : interpretador.interpretar(linhas, inicio, fim - inicio);
+            if (lidos[i] == null || lidos[i].getId() != bloco.ids[i]) {
+                throw new IOException("Bloco " + b + " do arquivo morto não confere com o índice");
+            }
+            inicio = fim + 1;
+        }
+        cache.put(b, lidos);
+        return lidos;
+    }
+
+    // Cabeçalho: int "CTRA" | short versão | short reservado | int blocos | int maior ID | long tamanho do .acervo
+    // Bloco: long posição | int bytes comprimidos | int bytes originais | int quantidade | int ano;
+    // depois os IDs de cada bloco
+    private void gravarIndice() throws IOException {
+        Path temporario = Path.of(arquivoIndice + ".tmp");
+        try (DataOutputStream saida = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporario), 1 << 16))) {
+            saida.writeInt(MAGICO);
+            saida.writeShort(VERSAO);
+            saida.writeShort(0);
+            saida.writeInt(blocos.size());
+            saida.writeInt(maiorId);
+            saida.writeLong(tamanhoDados);
+            for (Bloco bloco : blocos) {
+                saida.writeLong(bloco.posicao);
+                saida.writeInt(bloco.comprimido);
+                saida.writeInt(bloco.original);
+                saida.writeInt(bloco.ids.length);
+                saida.writeInt(bloco.ano);
+            }
+            for (Bloco bloco : blocos) {
+                for (int id : bloco.ids) {
+                    saida.writeInt(id);
+                }
+            }
+        }
+        DiarioContratos.sincronizar(temporario);
+        Files.move(temporario, arquivoIndice, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private int lerCabecalho(DataInputStream entrada) throws IOException {
+        if (entrada.readInt() != MAGICO) {
+            throw new IOException("Índice do arquivo morto inválido: " + arquivoIndice);
+        }
+        short versao = entrada.readShort();
+        if (versao != VERSAO) {
+            throw new IOException("Versão do arquivo morto não suportada: " + versao);
+        }
+        entrada.readShort();
+        int quantidadeBlocos = entrada.readInt();
+        maiorId = entrada.readInt();
+        tamanhoDados = entrada.readLong();
+        return quantidadeBlocos;
+    }
+
+    private void lerIndice() throws IOException {
+        if (indiceLido) {
+            return;
+        }
+        if (Files.exists(arquivoIndice)) {
+            try (DataInputStream entrada = new DataInputStream(new BufferedInputStream(Files.newInputStream(arquivoIndice), 1 << 16))) {
+                int quantidadeBlocos = lerCabecalho(entrada);
+                long[] posicoes = new long[quantidadeBlocos];
+                int[] comprimidos = new int[quantidadeBlocos];
+                int[] originais = new int[quantidadeBlocos];
+                int[] quantidades = new int[quantidadeBlocos];
+                int[] anos = new int[quantidadeBlocos];
+                for (int b = 0; b < quantidadeBlocos; b++) {
+                    posicoes[b] = entrada.readLong();
+                    comprimidos[b] = entrada.readInt();
+                    originais[b] = entrada.readInt();
+                    quantidades[b] = entrada.readInt();
+                    anos[b] = entrada.readInt();
+                }
+                for (int b = 0; b < quantidadeBlocos; b++) {
+                    int[] doBloco = new int[quantidades[b]];
+                    for (int i = 0; i < doBloco.length; i++) {
+                        doBloco[i] = entrada.readInt();
+                    }
+                    blocos.add(new Bloco(posicoes[b], comprimidos[b], originais[b], anos[b], doBloco));
+                }
+            }
+        }
+        montarMapaDeIds();
+        indiceLido = true;
+    }
+
+    // ID -> (bloco, posição), ordenado por ID; um ID repetido fica com o bloco mais recente
+    private void montarMapaDeIds() {
+        int total = 0;
+        for (Bloco bloco : blocos) {
+            total += bloco.ids.length;
+        }
+        // ID nos 32 bits altos e a ordem de chegada nos baixos: a ordenação deixa a última versão por último
+        long[] chaves = new long[total];
+        int[] origem = new int[total * 2];
+        int n = 0;
+        for (int b = 0; b < blocos.size(); b++) {
+            int[] doBloco = blocos.get(b).ids;
+            for (int i = 0; i < doBloco.length; i++) {
+                chaves[n] = ((long) doBloco[i] << 32) | n;
+                origem[2 * n] = b;
+                origem[2 * n + 1] = i;
+                n++;
+            }
+        }
+        Arrays.sort(chaves);
+
+        int unicos = 0;
+        int[] novosIds = new int[total];
+        int[] novosBlocos = new int[total];
+        int[] novasPosicoes = new int[total];
+        for (int k = 0; k < total; k++) {
+            int id = (int) (chaves[k] >> 32);
+            int chegada = (int) chaves[k];
+            if (unicos > 0 && novosIds[unicos - 1] == id) {
+                unicos--; // substitui a versão anterior
+            }
+            novosIds[unicos] = id;
+            novosBlocos[unicos] = origem[2 * chegada];
+            novasPosicoes[unicos] = origem[2 * chegada + 1];
+            unicos++;
+        }
+        ids = Arrays.copyOf(novosIds, unicos);
+        blocoDoId = Arrays.copyOf(novosBlocos, unicos);
+        posicaoNoBloco = Arrays.copyOf(novasPosicoes, unicos);
+    }
+}
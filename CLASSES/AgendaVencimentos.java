@@ -0,0 +1,212 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Alertas de vencimento: para cada antecedência (ex.: 30, 7 e 1 dia), o contrato com termino
+// em hoje + antecedência entra no log de notificações. Não há varredura: a cada dia cada
+// antecedência é uma consulta de faixa no índice por termino do repositório (IndiceDatas,
+// O(log n + k), atualizado a cada criação, edição e exclusão).
+// - A thread "agenda-vencimentos" roda à meia-noite e, na partida, recupera os dias perdidos
+//   desde o último processado (guardado em <arquivo>.alertas.estado).
+// - Uma criação ou edição de termino cujo alerta já teria vencido no dia processado é
+//   notificada na hora, pela antecedência mais próxima.
+// O log é gravado antes do estado: uma queda entre os dois repete alertas, mas não os perde.
+public class AgendaVencimentos {
+    private static final DateTimeFormatter formatoData = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    private static final DateTimeFormatter formatoDataHora = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss");
+
+    private final RepositorioContratos repositorio;
+    private final int[] antecedencias; // em ordem crescente
+    private final Path arquivoLog;
+    private final Path arquivoEstado;
+    private final Clock relogio;
+    private final Charset charset = Charset.defaultCharset();
+    private final ScheduledExecutorService agendador = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "agenda-vencimentos");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // Só acessado pela thread da agenda
+    private LocalDate ultimoProcessado;
+
+    public AgendaVencimentos(RepositorioContratos repositorio, int[] antecedencias,
+                             Path arquivoLog, Path arquivoEstado, Clock relogio) {
+        this.repositorio = repositorio;
+        this.antecedencias = Arrays.stream(antecedencias).filter(d -> d >= 0).distinct().sorted().toArray();
+        this.arquivoLog = arquivoLog;
+        this.arquivoEstado = arquivoEstado;
+        this.relogio = relogio;
+    }
+
+    // "30,7,1" -> {30, 7, 1}; vazio, "nenhum" ou um valor inválido desativam os alertas
+    public static int[] lerAntecedencias(String texto) {
+        if (texto == null || texto.isBlank() || texto.trim().equalsIgnoreCase("nenhum")) {
+            return new int[0];
+        }
+        try {
+            return Arrays.stream(texto.split(",")).map(String::trim).mapToInt(Integer::parseInt).toArray();
+        } catch (NumberFormatException e) {
+            System.out.println("Antecedências de alerta inválidas (" + texto + "): alertas desativados.");
+            return new int[0];
+        }
+    }
+
+    public boolean ativa() {
+        return antecedencias.length > 0;
+    }
+
+    // Processa os dias pendentes já e depois a cada meia-noite; passa a observar as edições de termino
+    public void iniciar() {
+        if (!ativa()) {
+            return;
+        }
+        repositorio.aoAlterarTermino((anterior, atual) -> agendador.execute(() -> reavaliar(anterior, atual)));
+        agendador.execute(this::executarDiario);
+    }
+
+    // Execução única (comando "alertas"): devolve quantos alertas foram gravados
+    public int processarAgora() throws IOException {
+        try {
+            return agendador.submit(this::processarAteHoje).get();
+        } catch (ExecutionException e) {
+            Throwable causa = e.getCause();
+            throw causa instanceof IOException ? (IOException) causa : new IOException(causa);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Processamento interrompido", e);
+        }
+    }
+
+    public void parar() {
+        repositorio.aoAlterarTermino(null);
+        agendador.shutdown();
+        try {
+            agendador.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void executarDiario() {
+        try {
+            processarAteHoje();
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Erro ao processar alertas: " + e.getMessage());
+        }
+        LocalDateTime agora = LocalDateTime.now(relogio);
+        long ate = Duration.between(agora, agora.toLocalDate().plusDays(1).atStartOfDay()).toMillis();
+        if (!agendador.isShutdown()) {
+            agendador.schedule(this::executarDiario, Math.max(1, ate), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Dias (ultimoProcessado, hoje]: para cada antecedência, os contratos com termino nessa faixa deslocada
+    private int processarAteHoje() throws IOException {
+        LocalDate hoje = LocalDate.now(relogio);
+        if (ultimoProcessado == null) {
+            ultimoProcessado = lerEstado(hoje.minusDays(1));
+        }
+        if (!ultimoProcessado.isBefore(hoje)) {
+            return 0;
+        }
+
+        int alertas = 0;
+        try (Writer log = abrirLog()) {
+            for (int antecedencia : antecedencias) {
+                List<contrato> vencendo = repositorio.vencendoEntre(
+                    ultimoProcessado.plusDays(1 + antecedencia), hoje.plusDays(antecedencia));
+                for (contrato contrato : vencendo) {
+                    notificar(log, contrato, antecedencia, hoje);
+                    alertas++;
+                }
+            }
+        }
+        gravarEstado(hoje);
+        ultimoProcessado = hoje;
+        return alertas;
+    }
+
+    // Alterações feitas depois do processamento do dia: se o novo termino já deveria ter gerado
+    // um alerta (e o termino anterior não gerava o mesmo), notifica agora
+    private void reavaliar(contrato anterior, contrato atual) {
+        if (ultimoProcessado == null) {
+            return; // o processamento diário ainda vai encontrá-lo
+        }
+        int novo = antecedenciaVencida(atual);
+        if (novo < 0 || (anterior != null && antecedenciaVencida(anterior) >= 0
+                         && antecedenciaVencida(anterior) <= novo)) {
+            return;
+        }
+        try (Writer log = abrirLog()) {
+            notificar(log, atual, novo, LocalDate.now(relogio));
+        } catch (IOException e) {
+            System.out.println("Erro ao processar alertas: " + e.getMessage());
+        }
+    }
+
+    // Menor antecedência cujo dia de alerta já foi processado (ou -1 se nenhuma, ou se já venceu)
+    private int antecedenciaVencida(contrato contrato) {
+        long restantes = ChronoUnit.DAYS.between(ultimoProcessado, contrato.getTermino());
+        if (restantes < 0) {
+            return -1;
+        }
+        for (int antecedencia : antecedencias) {
+            if (antecedencia >= restantes) {
+                return antecedencia;
+            }
+        }
+        return -1;
+    }
+
+    private void notificar(Writer log, contrato contrato, int antecedencia, LocalDate hoje) throws IOException {
+        long restantes = ChronoUnit.DAYS.between(hoje, contrato.getTermino());
+        log.write(LocalDateTime.now(relogio).format(formatoDataHora)
+            + " | alerta de " + antecedencia + " dia(s)"
+            + " | vence em " + contrato.getTerminoFormatado()
+            + (restantes >= 0 ? " (" + restantes + " dia(s))" : " (vencido)")
+            + " | " + contrato + System.lineSeparator());
+    }
+
+    private Writer abrirLog() throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(arquivoLog.toFile(), true), charset));
+    }
+
+    private LocalDate lerEstado(LocalDate padrao) {
+        try {
+            if (Files.exists(arquivoEstado)) {
+                return LocalDate.parse(Files.readString(arquivoEstado, charset).trim(), formatoData);
+            }
+        } catch (IOException | DateTimeParseException e) {
+            System.out.println("Erro ao carregar estado dos alertas: " + e.getMessage());
+        }
+        return padrao;
+    }
+
+    // Troca atômica, como os snapshots do diário
+    private void gravarEstado(LocalDate dia) throws IOException {
+        Path temporario = Path.of(arquivoEstado + ".tmp");
+        Files.writeString(temporario, dia.format(formatoData) + System.lineSeparator(), charset);
+        DiarioContratos.sincronizar(temporario);
+        Files.move(temporario, arquivoEstado, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,211 @@
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Totais da carteira (valor e quantidade) por contratante, por contratado, por mês de
+// celebração e em vigor, mantidos a cada criação, edição e exclusão: a consulta de um total
+// não percorre os contratos. Valores somados em centavos, sem erro de arredondamento.
+// O recálculo completo (após o carregamento) divide os contratos entre as threads do ForkJoinPool.
+public class AgregadosContratos {
+    private static final int LIMIAR_PARALELO = 16384;
+
+    public static final class Total {
+        private long centavos;
+        private int quantidade;
+
+        public long getCentavos() {
+            return centavos;
+        }
+
+        public int getQuantidade() {
+            return quantidade;
+        }
+
+        private void somar(long centavos, int quantidade) {
+            this.centavos += centavos;
+            this.quantidade += quantidade;
+        }
+
+        private boolean vazio() {
+            return centavos == 0 && quantidade == 0;
+        }
+    }
+
+    private final Map<String, Total> porContratante = new HashMap<>();
+    private final Map<String, Total> porContratado = new HashMap<>();
+    private final TreeMap<Integer, Total> porMes = new TreeMap<>(); // chave: ano * 100 + mês
+    // Variação do valor em vigor por dia: entra no início e sai no dia seguinte ao término
+    private final TreeMap<Integer, Total> variacoes = new TreeMap<>();
+    private final Total geral = new Total();
+
+    // Valor em vigor no último dia consultado; outro dia só soma as variações entre os dois
+    private final Total emVigor = new Total();
+    private int diaReferencia;
+    private boolean referenciaValida;
+
+    // Deve ser chamado com os campos já preenchidos (após criar ou editar)
+    public void adicionar(contrato contrato) {
+        somar(contrato, 1);
+    }
+
+    // Deve ser chamado com os valores antigos (antes dos setters ou da exclusão)
+    public void remover(contrato contrato) {
+        somar(contrato, -1);
+    }
+
+    public void limpar() {
+        porContratante.clear();
+        porContratado.clear();
+        porMes.clear();
+        variacoes.clear();
+        geral.centavos = 0;
+        geral.quantidade = 0;
+        referenciaValida = false;
+    }
+
+    // Recálculo completo em paralelo; substitui os totais atuais
+    public void recalcular(Iterable<contrato> contratos) {
+        List<contrato> lista = new ArrayList<>();
+        contratos.forEach(lista::add);
+        AgregadosContratos calculado = ForkJoinPool.commonPool().invoke(new Calculo(lista, 0, lista.size()));
+        limpar();
+        juntar(calculado);
+    }
+
+    public Total getGeral() {
+        return geral;
+    }
+
+    public Total porContratante(String contratante) {
+        return porContratante.getOrDefault(contratante, new Total());
+    }
+
+    public Total porContratado(String contratado) {
+        return porContratado.getOrDefault(contratado, new Total());
+    }
+
+    public Total porMes(int ano, int mes) {
+        return porMes.getOrDefault(ano * 100 + mes, new Total());
+    }
+
+    public Map<String, Total> getPorContratante() {
+        return porContratante;
+    }
+
+    public Map<String, Total> getPorContratado() {
+        return porContratado;
+    }
+
+    public TreeMap<Integer, Total> getPorMes() {
+        return porMes;
+    }
+
+    // Contratos com inicio <= data <= termino; O(1) quando a data é a mesma da consulta anterior.
+    // Sincronizado porque atualiza a referência mesmo sendo uma consulta (leitores concorrentes)
+    public synchronized Total emVigor(LocalDate data) {
+        int dia = (int) data.toEpochDay();
+        if (!referenciaValida) {
+            emVigor.centavos = 0;
+            emVigor.quantidade = 0;
+            for (Total variacao : variacoes.headMap(dia, true).values()) {
+                emVigor.somar(variacao.centavos, variacao.quantidade);
+            }
+        } else if (dia > diaReferencia) {
+            for (Total variacao : variacoes.subMap(diaReferencia, false, dia, true).values()) {
+                emVigor.somar(variacao.centavos, variacao.quantidade);
+            }
+        } else if (dia < diaReferencia) {
+            for (Total variacao : variacoes.subMap(dia, false, diaReferencia, true).values()) {
+                emVigor.somar(-variacao.centavos, -variacao.quantidade);
+            }
+        }
+        diaReferencia = dia;
+        referenciaValida = true;
+
+        Total copia = new Total();
+        copia.somar(emVigor.centavos, emVigor.quantidade);
+        return copia;
+    }
+
+    private void somar(contrato contrato, int sinal) {
+        long centavos = sinal * contrato.getCentavos();
+        somar(porContratante, contrato.getContratante(), centavos, sinal);
+        somar(porContratado, contrato.getContratado(), centavos, sinal);
+        LocalDate celebracao = contrato.getCelebracao();
+        somar(porMes, celebracao.getYear() * 100 + celebracao.getMonthValue(), centavos, sinal);
+        geral.somar(centavos, sinal);
+
+        int inicio = contrato.getInicioDia();
+        int termino = contrato.getTerminoDia();
+        if (inicio > termino) {
+            return; // nunca está em vigor
+        }
+        somar(variacoes, inicio, centavos, sinal);
+        somar(variacoes, termino + 1, -centavos, -sinal);
+        if (referenciaValida && inicio <= diaReferencia && diaReferencia <= termino) {
+            emVigor.somar(centavos, sinal);
+        }
+    }
+
+    // Chaves que voltam a zero são retiradas (ex.: contratante sem contratos após a exclusão)
+    private static <K> void somar(Map<K, Total> mapa, K chave, long centavos, int quantidade) {
+        Total total = mapa.computeIfAbsent(chave, k -> new Total());
+        total.somar(centavos, quantidade);
+        if (total.vazio()) {
+            mapa.remove(chave);
+        }
+    }
+
+    private void juntar(AgregadosContratos outro) {
+        juntar(porContratante, outro.porContratante);
+        juntar(porContratado, outro.porContratado);
+        juntar(porMes, outro.porMes);
+        juntar(variacoes, outro.variacoes);
+        geral.somar(outro.geral.centavos, outro.geral.quantidade);
+        referenciaValida = false;
+    }
+
+    private static <K> void juntar(Map<K, Total> destino, Map<K, Total> origem) {
+        for (Map.Entry<K, Total> entrada : origem.entrySet()) {
+            somar(destino, entrada.getKey(), entrada.getValue().centavos, entrada.getValue().quantidade);
+        }
+    }
+
+    // Cada metade é somada em um AgregadosContratos próprio e os dois são unidos no retorno
+    private static final class Calculo extends RecursiveTask<AgregadosContratos> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<contrato> contratos;
+        private final int inicio;
+        private final int fim;
+
+        Calculo(List<contrato> contratos, int inicio, int fim) {
+            this.contratos = contratos;
+            this.inicio = inicio;
+            this.fim = fim;
+        }
+
+        @Override
+        protected AgregadosContratos compute() {
+            if (fim - inicio <= LIMIAR_PARALELO) {
+                AgregadosContratos parcial = new AgregadosContratos();
+                for (int i = inicio; i < fim; i++) {
+                    parcial.adicionar(contratos.get(i));
+                }
+                return parcial;
+            }
+            int meio = (inicio + fim) >>> 1;
+            Calculo esquerda = new Calculo(contratos, inicio, meio);
+            esquerda.fork();
+            AgregadosContratos direita = new Calculo(contratos, meio, fim).compute();
+            AgregadosContratos resultado = esquerda.join();
+            resultado.juntar(direita);
+            return resultado;
+        }
+    }
+}
@@ -1,39 +1,285 @@
 
 import java.util.Scanner;
 import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.time.Clock;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.IntFunction;
 
 public class Appcontrato {
-    private static final List<contrato> contratos = new ArrayList<>();
-    private static int proximoId = 1;
     private static final Scanner scanner = new Scanner(System.in);
-    private static final String ARQUIVO_DADOS = "contratos.txt";
+    // -Dcontratos.arquivo=... troca o arquivo de dados (o .bin fica ao lado, com a mesma base)
+    private static final String ARQUIVO_DADOS = System.getProperty("contratos.arquivo", "contratos.txt");
+    private static final String ARQUIVO_BINARIO = ARQUIVO_DADOS.replaceFirst("\\.txt$", "") + ".bin";
+    // -Dcontratos.formato=binario guarda o snapshot em contratos.bin em vez do .txt
+    private static final boolean FORMATO_BINARIO = "binario".equals(System.getProperty("contratos.formato"));
+    // -Dcontratos.formato=paginado mantém os contratos em disco (contratos.db), lidos sob demanda
+    // por um cache de -Dcontratos.cache=<MB> (padrão 64 MB)
+    private static final String ARQUIVO_PAGINADO = "paginado".equals(System.getProperty("contratos.formato"))
+        ? ARQUIVO_DADOS.replaceFirst("\\.txt$", "") + ".db" : null;
+    private static final int PAGINAS_EM_CACHE =
+        Integer.getInteger("contratos.cache", 64) * (1024 * 1024 / ArquivoPaginado.TAMANHO_PAGINA);
+    // -Dcontratos.carga=sob-demanda abre o .txt sem lê-lo: só um índice de posições por ID
+    // (contratos.txt.indice) e até -Dcontratos.cache.registros=N contratos interpretados em cache
+    private static final boolean CARGA_SOB_DEMANDA = "sob-demanda".equals(System.getProperty("contratos.carga"));
+    private static final int CONTRATOS_EM_CACHE = Integer.getInteger("contratos.cache.registros", 100_000);
+    // -Dcontratos.alertas=30,7,1 (padrão): dias de antecedência dos alertas de vencimento, gravados
+    // em contratos.alertas.log; "nenhum" desativa
+    private static final String ARQUIVO_BASE = ARQUIVO_DADOS.replaceFirst("\\.txt$", "");
+    private static final int[] ANTECEDENCIAS_ALERTA =
+        AgendaVencimentos.lerAntecedencias(System.getProperty("contratos.alertas", "30,7,1"));
+    // -Dcontratos.formato=particionado divide os contratos em um arquivo por ano de celebração
+    // (contratos.2024.txt, ...); na primeira execução o contratos.txt é dividido
+    private static final String BASE_PARTICOES =
+        "particionado".equals(System.getProperty("contratos.formato")) ? ARQUIVO_BASE : null;
+    // Contratos vencidos há mais de -Dcontratos.arquivamento.dias=N dias (padrão 365) vão para o
+    // arquivo morto comprimido (contratos.acervo) pelo comando "arquivar"
+    private static final int DIAS_PARA_ARQUIVAR = Integer.getInteger("contratos.arquivamento.dias", 365);
+    // Cada criação, edição, exclusão e arquivamento vai para contratos.auditoria.log;
+    // -Dcontratos.auditoria=nenhum desativa
+    private static final boolean AUDITORIA = !"nenhum".equalsIgnoreCase(System.getProperty("contratos.auditoria"));
+    private static final int ITENS_POR_PAGINA = 20;
+    private static final int RESULTADOS_POR_BUSCA = 50;
+    private static final int PORTA_PADRAO = 8080;
     private static final DateTimeFormatter formatoData = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    // O console é só mais um cliente do repositório (o servidor HTTP usa o mesmo)
+    private static final RepositorioContratos repositorio =
+        new RepositorioContratos(ARQUIVO_DADOS, ARQUIVO_BINARIO, FORMATO_BINARIO, ARQUIVO_PAGINADO, PAGINAS_EM_CACHE,
+                                 CARGA_SOB_DEMANDA, CONTRATOS_EM_CACHE, BASE_PARTICOES, ARQUIVO_BASE + ".acervo");
+    private static final AgendaVencimentos agenda =
+        new AgendaVencimentos(repositorio, ANTECEDENCIAS_ALERTA, Path.of(ARQUIVO_BASE + ".alertas.log"),
+                              Path.of(ARQUIVO_BASE + ".alertas.estado"), Clock.systemDefaultZone());
 
     public static void main(String[] args) {
+        if (args.length > 0) {
+            executarComando(args);
+            return;
+        }
+        
         try (scanner) {
+            Metricas.registrarJmx();
             carregarDados();
+            agenda.iniciar();
+            executarMenu();
+        } finally {
+            agenda.parar();
+            repositorio.fechar();
+        }
+    }
+    
+    private static void executarMenu() {
+        int opcao;
+        do {
+            exibirMenu();
+            opcao = lerInteiro("Escolha uma opção: ");
+            scanner.nextLine(); // Limpar buffer
             
-            int opcao;
-            do {
-                exibirMenu();
-                opcao = lerInteiro("Escolha uma opção: ");
-                scanner.nextLine(); // Limpar buffer
-                
-                switch (opcao) {
-                    case 1 -> criarContrato();
-                    case 2 -> listarContratos();
-                    case 3 -> buscarContrato();
-                    case 4 -> editarContrato();
-                    case 5 -> excluirContrato();
-                    case 6 -> System.out.println("Saindo do sistema...");
-                    default -> System.out.println("Opção inválida! Tente novamente.");
+            switch (opcao) {
+                case 1 -> criarContrato();
+                case 2 -> listarContratos();
+                case 3 -> buscarContrato();
+                case 4 -> editarContrato();
+                case 5 -> excluirContrato();
+                case 6 -> System.out.println("Saindo do sistema...");
+                case 7 -> buscarPorCpf();
+                case 8 -> buscarPorNumero();
+                case 9 -> buscarPorNome();
+                case 10 -> listarVigentes();
+                case 11 -> listarVencimentos();
+                case 12 -> exportarContratos();
+                case 13 -> exibirPainel();
+                case 14 -> buscarPorDescricao();
+                case 15 -> exibirMetricas();
+                case 16 -> consultarArquivados();
+                default -> System.out.println("Opção inválida! Tente novamente.");
+            }
+        } while (opcao != 6);
+    }
+    
+    // Servidor HTTP local com o console rodando ao lado, sobre o mesmo repositório.
+    // Sem console (entrada encerrada), o servidor segue até o processo ser interrompido.
+    private static void executarServidor(int porta) throws IOException {
+        Metricas.registrarJmx();
+        carregarDados();
+        agenda.iniciar();
+        ServidorContratos servidor = ServidorContratos.iniciar(repositorio, porta);
+        Thread encerramento = new Thread(() -> {
+            servidor.parar();
+            agenda.parar();
+            repositorio.fechar();
+        }, "encerramento-contratos");
+        Runtime.getRuntime().addShutdownHook(encerramento);
+        System.out.println("Servidor em http://localhost:" + servidor.getPorta() + "/contratos");
+        
+        try (scanner) {
+            executarMenu();
+        } catch (NoSuchElementException e) {
+            System.out.println("\nEntrada do console encerrada; o servidor continua até o processo ser interrompido.");
+            try {
+                new CountDownLatch(1).await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        Runtime.getRuntime().removeShutdownHook(encerramento);
+        encerramento.run();
+    }
+    
+    // Comandos de linha de comando (sem o menu interativo)
+    private static void executarComando(String[] args) {
+        String origem = args.length > 1 ? args[1] : null;
+        String destino = args.length > 2 ? args[2] : null;
+        try {
+            switch (args[0]) {
+                case "para-binario" -> {
+                    int total = FormatoBinario.textoParaBinario(
+                        Path.of(origem != null ? origem : ARQUIVO_DADOS),
+                        Path.of(destino != null ? destino : ARQUIVO_BINARIO),
+                        Charset.defaultCharset(), FormatoTexto::ler);
+                    System.out.println(total + " contrato(s) convertido(s) para o formato binário.");
+                }
+                case "para-texto" -> {
+                    int total = FormatoBinario.binarioParaTexto(
+                        Path.of(origem != null ? origem : ARQUIVO_BINARIO),
+                        Path.of(destino != null ? destino : ARQUIVO_DADOS),
+                        Charset.defaultCharset());
+                    System.out.println(total + " contrato(s) convertido(s) para o formato texto.");
+                }
+                case "exportar", "export" -> {
+                    if (origem == null || destino == null) {
+                        System.out.println("Uso: Appcontrato exportar <csv|jsonl> <destino> [--de DD/MM/AAAA]"
+                            + " [--ate DD/MM/AAAA] [--contratante nome] [--valor-min v] [--valor-max v]"
+                            + " [--campos id,contratante,...]");
+                        return;
+                    }
+                    ExportadorContratos.Formato formato = ExportadorContratos.formatoPorNome(origem);
+                    List<ExportadorContratos.Campo> campos = ExportadorContratos.camposPadrao(formato);
+                    ExportadorContratos.Filtro filtro = ExportadorContratos.lerOpcoes(args, 3, campos);
+                    carregarDados();
+                    try {
+                        long total = exportarContratos(formato, campos, filtro, Path.of(destino));
+                        System.out.println(total + " contrato(s) exportado(s) para " + destino + ".");
+                    } finally {
+                        repositorio.fechar();
+                    }
+                }
+                case "totais" -> {
+                    carregarDados();
+                    try {
+                        exibirPainel();
+                    } finally {
+                        repositorio.fechar();
+                    }
+                }
+                case "alertas" -> {
+                    // Execução avulsa (ex.: agendada pelo sistema): só os dias ainda não processados
+                    carregarDados();
+                    try {
+                        int total = agenda.processarAgora();
+                        System.out.println(total + " alerta(s) de vencimento gravado(s) em " + ARQUIVO_BASE + ".alertas.log.");
+                    } finally {
+                        agenda.parar();
+                        repositorio.fechar();
+                    }
+                }
+                case "arquivar" -> {
+                    int dias = origem != null ? Integer.parseInt(origem) : DIAS_PARA_ARQUIVAR;
+                    if (dias < 0) {
+                        System.out.println("O número de dias não pode ser negativo!");
+                        return;
+                    }
+                    carregarDados();
+                    try {
+                        LocalDate limite = LocalDate.now().minusDays(dias);
+                        int total = repositorio.arquivar(limite);
+                        System.out.println(total + " contrato(s) com término antes de " + limite.format(formatoData)
+                            + " levado(s) para " + ARQUIVO_BASE + ".acervo.");
+                    } finally {
+                        repositorio.fechar();
+                    }
+                }
+                case "servidor" -> executarServidor(origem != null ? Integer.parseInt(origem) : PORTA_PADRAO);
+                case "importar", "import" -> {
+                    if (origem == null) {
+                        System.out.println("Informe o arquivo CSV a importar.");
+                        return;
+                    }
+                    importarContratos(Path.of(origem));
+                }
+                default -> {
+                    System.out.println("Comando desconhecido: " + args[0]);
+                    System.out.println("Uso: Appcontrato [para-binario [origem.txt] [destino.bin]"
+                        + " | para-texto [origem.bin] [destino.txt] | importar arquivo.csv"
+                        + " | exportar <csv|jsonl> <destino> [opções] | totais | alertas | arquivar [dias]"
+                        + " | servidor [porta]]");
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Erro ao processar comando: " + e.getMessage());
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            System.out.println("Parâmetro inválido: " + e.getMessage());
+        }
+    }
+    
+    // Importação em lote: validação paralela por lote e uma única gravação no diário por lote
+    private static void importarContratos(Path origem) throws IOException {
+        // Sobre uma carga parcial os novos IDs poderiam colidir com os que não foram lidos
+        if (!carregarDados()) {
+            System.out.println("Importação cancelada: os dados atuais não foram carregados por inteiro.");
+            repositorio.fechar();
+            return;
+        }
+        
+        long inicio = System.nanoTime();
+        long importados = 0;
+        Path rejeitados = Path.of(origem + ".rejeitados");
+        try (ImportadorContratos importador = new ImportadorContratos(origem, rejeitados, Charset.defaultCharset())) {
+            List<ImportadorContratos.Candidato> lote;
+            while ((lote = importador.proximoLote()) != null) {
+                if (lote.isEmpty()) {
+                    continue;
+                }
+                List<IntFunction<contrato>> fabricas = new ArrayList<>(lote.size());
+                for (ImportadorContratos.Candidato candidato : lote) {
+                    fabricas.add(candidato::criar);
                 }
-            } while (opcao != 6);
+                importados += repositorio.criarTodos(fabricas).size();
+            }
+            
+            double segundos = (System.nanoTime() - inicio) / 1e9;
+            System.out.printf("%d linha(s) lida(s), %d contrato(s) importado(s), %d rejeitada(s) em %.2f s.%n",
+                importador.getLidas(), importados, importador.getRejeitadas(), segundos);
+            if (importador.getRejeitadas() > 0) {
+                System.out.println("Linhas rejeitadas e motivos em: " + rejeitados);
+            }
+        } finally {
+            repositorio.fechar();
+        }
+    }
+    
+    private static long exportarContratos(ExportadorContratos.Formato formato, List<ExportadorContratos.Campo> campos,
+                                          ExportadorContratos.Filtro filtro, Path destino) throws IOException {
+        ExportadorContratos exportador = new ExportadorContratos(formato, campos);
+        try (Writer writer = new BufferedWriter(
+                new OutputStreamWriter(new FileOutputStream(destino.toFile()), Charset.defaultCharset()), 1 << 16)) {
+            exportador.cabecalho(writer);
+            // Com filtro de contratante, o índice de nomes evita percorrer a base inteira
+            if (filtro.porContratante()) {
+                return exportador.exportar(repositorio.buscarPorNome(filtro.contratante), filtro, writer);
+            }
+            // Com partições por ano, o período de celebração limita os arquivos percorridos
+            long[] total = new long[1];
+            repositorio.percorrerCelebradosEntre(filtro.celebracaoDe, filtro.celebracaoAte,
+                contratos -> total[0] = exportador.exportar(contratos, filtro, writer));
+            return total[0];
         }
     }
     
@@ -45,6 +291,16 @@ public class Appcontrato {
         System.out.println("4. Editar contrato");
         System.out.println("5. Excluir contrato");
         System.out.println("6. Sair");
+        System.out.println("7. Buscar contratos por CPF");
+        System.out.println("8. Buscar contrato por número");
+        System.out.println("9. Buscar contratos por nome (contratante/contratado)");
+        System.out.println("10. Contratos vigentes em uma data");
+        System.out.println("11. Contratos que vencem nos próximos dias");
+        System.out.println("12. Exportar contratos (CSV ou JSON Lines)");
+        System.out.println("13. Painel de totais");
+        System.out.println("14. Buscar na descrição (texto livre)");
+        System.out.println("15. Métricas de desempenho (stats)");
+        System.out.println("16. Consultar arquivo morto (contratos vencidos)");
     }
     
     // Métodos auxiliares para validação
@@ -75,13 +331,9 @@ public class Appcontrato {
             System.out.print(mensagem);
             String entrada = scanner.nextLine().trim();
             
-            if (entrada.isEmpty()) {
-                System.out.println(campo + " não pode ser vazio!");
-                continue;
-            }
-            
-            if (!permitirNumeros && !entrada.matches("[a-zA-ZÀ-ú\\s]+")) {
-                System.out.println(campo + " deve conter apenas letras e espaços!");
+            String erro = RegrasContrato.validarTexto(entrada, campo, permitirNumeros);
+            if (erro != null) {
+                System.out.println(erro);
                 continue;
             }
             
@@ -94,7 +346,7 @@ public class Appcontrato {
             System.out.print(mensagem);
             String cpf = scanner.nextLine().trim();
             
-            if (ValidaCPF.validarCPF(cpf)) {
+            if (RegrasContrato.validarCPF(cpf) == null) {
                 return ValidaCPF.imprimeCPF(cpf);
             }
             System.out.println("CPF inválido! Digite novamente.");
@@ -115,10 +367,11 @@ public class Appcontrato {
     private static double lerValorContrato(String mensagem) {
         while (true) {
             double valor = lerDouble(mensagem);
-            if (valor > 0) {
+            String erro = RegrasContrato.validarValor(valor);
+            if (erro == null) {
                 return valor;
             }
-            System.out.println("O valor do contrato deve ser maior que zero!");
+            System.out.println(erro);
         }
     }
     
@@ -138,102 +391,373 @@ public class Appcontrato {
             inicio = lerData("Data de início (DD/MM/AAAA): ");
             termino = lerData("Data de término (DD/MM/AAAA): ");
             
-            if (celebracao.isAfter(termino)) {
-                System.out.println("Data de celebração não pode ser posterior à data de término!");
-            } else if (inicio.isAfter(termino)) {
-                System.out.println("Data de início não pode ser posterior à data de término!");
-            } else if (termino.isBefore(celebracao) || termino.isBefore(inicio)) {
-                System.out.println("Data de término não pode ser anterior às outras datas!");
-            } else {
+            String erro = RegrasContrato.validarDatas(celebracao, inicio, termino);
+            if (erro == null) {
                 break;
             }
+            System.out.println(erro);
             System.out.println("Por favor, insira as datas novamente.\n");
         } while (true);
         
         double valor = lerValorContrato("Valor do contrato: R$");
         
-        contrato novoContrato = new contrato(
-            proximoId++, contratante, contratado, numeroContrato, 
-            descricao, valor, celebracao, inicio, termino, cpf
-        );
-        
-        contratos.add(novoContrato);
-        salvarDados();
+        LocalDate dataCelebracao = celebracao, dataInicio = inicio, dataTermino = termino;
+        contrato novoContrato;
+        try {
+            novoContrato = repositorio.criar(id -> new contrato(
+                id, contratante, contratado, numeroContrato, 
+                descricao, valor, dataCelebracao, dataInicio, dataTermino, cpf
+            ));
+        } catch (IOException e) {
+            System.out.println("Erro ao salvar dados: " + e.getMessage());
+            return;
+        }
         System.out.println("\nContrato cadastrado com sucesso! ID: " + novoContrato.getId());
     }
     
     private static void listarContratos() {
         System.out.println("\n--- LISTA DE CONTRATOS ---");
         
-        if (contratos.isEmpty()) {
+        // Todas as páginas vêm do mesmo instantâneo: edições feitas enquanto a listagem espera o
+        // Enter não a deslocam nem aparecem pela metade
+        RepositorioContratos.Listagem listagem = repositorio.listagem();
+        int total = listagem.tamanho();
+        if (total == 0) {
             System.out.println("Nenhum contrato cadastrado.");
-        } else {
+            return;
+        }
+        
+        // Paginado: cada página é buscada na listagem (que não trava o repositório enquanto
+        // espera o Enter) e impressa de uma só vez
+        int totalPaginas = (total + ITENS_POR_PAGINA - 1) / ITENS_POR_PAGINA;
+        StringBuilder saida = new StringBuilder(ITENS_POR_PAGINA * 128);
+        for (int pagina = 1; ; pagina++) {
+            List<contrato> contratos = listagem.pagina(pagina, ITENS_POR_PAGINA);
+            saida.setLength(0);
             for (contrato contrato : contratos) {
-                System.out.println(contrato);
+                FormatoTexto.escrever(contrato, saida).append(System.lineSeparator());
+            }
+            System.out.print(saida);
+            if (contratos.size() < ITENS_POR_PAGINA || pagina >= totalPaginas) {
+                return;
+            }
+            System.out.print("Página " + pagina + " de " + totalPaginas
+                + " - Enter para continuar ou S para sair: ");
+            if (scanner.nextLine().trim().equalsIgnoreCase("S")) {
+                return;
             }
         }
     }
     
+    private static void exportarContratos() {
+        System.out.println("\n--- EXPORTAR CONTRATOS ---");
+        
+        System.out.print("Formato (CSV ou JSONL): ");
+        ExportadorContratos.Formato formato;
+        try {
+            formato = ExportadorContratos.formatoPorNome(scanner.nextLine());
+        } catch (IllegalArgumentException e) {
+            System.out.println("Formato inválido!");
+            return;
+        }
+        String arquivo = lerStringValidada("Arquivo de destino: ", "Arquivo de destino", true);
+        
+        try {
+            long total = exportarContratos(formato, ExportadorContratos.camposPadrao(formato),
+                                           new ExportadorContratos.Filtro(), Path.of(arquivo));
+            System.out.println(total + " contrato(s) exportado(s) para " + arquivo + ".");
+        } catch (IOException e) {
+            System.out.println("Erro ao exportar dados: " + e.getMessage());
+        }
+    }
+    
     private static void buscarContrato() {
         System.out.println("\n--- BUSCAR CONTRATO ---");
         
         int id = lerInteiro("Digite o ID do contrato: ");
+        contrato contrato = repositorio.buscar(id);
+        
+        if (contrato != null) {
+            System.out.println("Contrato encontrado:");
+            System.out.println(contrato);
+            return;
+        }
+        
+        System.out.println("Contrato com ID " + id + " não encontrado.");
+    }
+    
+    private static void buscarPorCpf() {
+        System.out.println("\n--- BUSCAR POR CPF ---");
+        
+        System.out.print("Digite o CPF: ");
+        exibirResultados(repositorio.buscarPorCpf(scanner.nextLine()));
+    }
+    
+    private static void buscarPorNumero() {
+        System.out.println("\n--- BUSCAR POR NÚMERO DO CONTRATO ---");
         
-        for (contrato contrato : contratos) {
-            if (contrato.getId() == id) {
-                System.out.println("Contrato encontrado:");
-                System.out.println(contrato);
+        System.out.print("Digite o número do contrato: ");
+        exibirResultados(repositorio.buscarPorNumero(scanner.nextLine()));
+    }
+    
+    private static void buscarPorNome() {
+        System.out.println("\n--- BUSCAR POR NOME ---");
+        
+        System.out.print("Digite o nome ou o início do nome: ");
+        String prefixo = scanner.nextLine().trim();
+        if (prefixo.isEmpty()) {
+            System.out.println("Nome não pode ser vazio!");
+            return;
+        }
+        exibirResultados(repositorio.buscarPorNome(prefixo));
+    }
+    
+    // Termos separados por espaço: todos devem aparecer; "ou" separa alternativas; "serv*" busca por prefixo
+    private static void buscarPorDescricao() {
+        System.out.println("\n--- BUSCAR NA DESCRIÇÃO ---");
+        System.out.println("Ex.: \"manutenção predial\", \"limpeza ou conservação\", \"serv*\"");
+
+        System.out.print("Digite os termos: ");
+        String consulta = scanner.nextLine().trim();
+        if (consulta.isEmpty()) {
+            System.out.println("Termos não podem ser vazios!");
+            return;
+        }
+        RepositorioContratos.ResultadoTexto resultado = repositorio.buscarPorDescricao(consulta, RESULTADOS_POR_BUSCA);
+        if (resultado.total == 0) {
+            System.out.println("Nenhum contrato encontrado.");
+            return;
+        }
+
+        System.out.println(resultado.total + " contrato(s) encontrado(s)"
+            + (resultado.total > resultado.contratos.size()
+               ? ", exibindo os " + resultado.contratos.size() + " mais relevantes:" : ":"));
+        for (contrato contrato : resultado.contratos) {
+            System.out.println(contrato);
+        }
+    }
+    
+    // Por ano de término e/ou início do nome do contratante ou do contratado (em branco: todos)
+    private static void consultarArquivados() {
+        System.out.println("\n--- ARQUIVO MORTO ---");
+
+        System.out.print("Ano de término (em branco para todos): ");
+        String textoAno = scanner.nextLine().trim();
+        Integer ano = null;
+        if (!textoAno.isEmpty()) {
+            try {
+                ano = Integer.parseInt(textoAno);
+            } catch (NumberFormatException e) {
+                System.out.println("Ano inválido!");
                 return;
             }
         }
+        System.out.print("Nome ou início do nome (em branco para todos): ");
+        String prefixo = IndicesSecundarios.normalizarNome(scanner.nextLine());
+
+        AcervoContratos.Resultado resultado;
+        try {
+            resultado = repositorio.pesquisarArquivados(ano, contrato -> prefixo.isEmpty()
+                || IndicesSecundarios.normalizarNome(contrato.getContratante()).startsWith(prefixo)
+                || IndicesSecundarios.normalizarNome(contrato.getContratado()).startsWith(prefixo),
+                RESULTADOS_POR_BUSCA);
+        } catch (IOException e) {
+            System.out.println("Erro ao carregar dados: " + e.getMessage());
+            return;
+        }
+        if (resultado.total == 0) {
+            System.out.println("Nenhum contrato encontrado.");
+            return;
+        }
+
+        System.out.println(resultado.total + " contrato(s) arquivado(s) encontrado(s)"
+            + (resultado.total > resultado.contratos.size()
+               ? ", exibindo os " + resultado.contratos.size() + " primeiros:" : ":"));
+        for (contrato contrato : resultado.contratos) {
+            System.out.println(contrato);
+        }
+    }
+
+    private static void listarVigentes() {
+        System.out.println("\n--- CONTRATOS VIGENTES ---");
         
-        System.out.println("Contrato com ID " + id + " não encontrado.");
+        LocalDate data = lerData("Data (DD/MM/AAAA): ");
+        exibirResultados(repositorio.vigentesEm(data));
+    }
+    
+    private static void listarVencimentos() {
+        System.out.println("\n--- CONTRATOS A VENCER ---");
+        
+        int dias = lerInteiro("Vencendo nos próximos quantos dias? ");
+        if (dias < 0) {
+            System.out.println("O número de dias não pode ser negativo!");
+            return;
+        }
+        LocalDate hoje = LocalDate.now();
+        exibirResultados(repositorio.vencendoEntre(hoje, hoje.plusDays(dias)));
+    }
+    
+    // Todos os números vêm dos agregados mantidos a cada alteração (sem percorrer os contratos)
+    private static void exibirPainel() {
+        System.out.println("\n--- PAINEL DE TOTAIS ---");
+        repositorio.consultarTotais(Appcontrato::exibirTotais);
+    }
+
+    private static void exibirTotais(AgregadosContratos agregados) {
+        AgregadosContratos.Total geral = agregados.getGeral();
+        System.out.println("Carteira: " + geral.getQuantidade() + " contrato(s), "
+            + valorFormatado(geral.getCentavos()));
+        AgregadosContratos.Total vigentes = agregados.emVigor(LocalDate.now());
+        System.out.println("Em vigor hoje: " + vigentes.getQuantidade() + " contrato(s), "
+            + valorFormatado(vigentes.getCentavos()));
+
+        System.out.println("\nPor mês de celebração (últimos 12 meses com contratos):");
+        int meses = 0;
+        for (Map.Entry<Integer, AgregadosContratos.Total> mes : agregados.getPorMes().descendingMap().entrySet()) {
+            if (meses++ == 12) {
+                break;
+            }
+            int chave = mes.getKey();
+            System.out.printf("  %02d/%d: %d contrato(s), %s%n", chave % 100, chave / 100,
+                mes.getValue().getQuantidade(), valorFormatado(mes.getValue().getCentavos()));
+        }
+
+        exibirMaiores("Maiores contratantes", agregados.getPorContratante());
+        exibirMaiores("Maiores contratados", agregados.getPorContratado());
+    }
+
+    private static void exibirMaiores(String titulo, Map<String, AgregadosContratos.Total> totais) {
+        System.out.println("\n" + titulo + " (por valor):");
+        totais.entrySet().stream()
+            .sorted((a, b) -> Long.compare(b.getValue().getCentavos(), a.getValue().getCentavos()))
+            .limit(10)
+            .forEach(e -> System.out.println("  " + e.getKey() + ": " + e.getValue().getQuantidade()
+                + " contrato(s), " + valorFormatado(e.getValue().getCentavos())));
+    }
+
+    // Latências em microssegundos; os mesmos números ficam no JMX (domínio "contratos")
+    private static void exibirMetricas() {
+        System.out.println("\n--- MÉTRICAS DE DESEMPENHO ---");
+        System.out.printf("%-18s %10s %10s %10s %10s %10s %10s %10s%n",
+            "Operação (µs)", "qtd", "média", "p50", "p90", "p99", "p99,9", "máx");
+        for (Metricas.Operacao operacao : Metricas.Operacao.values()) {
+            Metricas.Histograma latencia = operacao.getLatencia();
+            if (latencia.getQuantidade() > 0) {
+                System.out.printf("%-18s %10d %10.1f %10.1f %10.1f %10.1f %10.1f %10.1f%n", operacao.getNome(),
+                    latencia.getQuantidade(), latencia.getMedia() / 1000, latencia.getP50() / 1000.0,
+                    latencia.getP90() / 1000.0, latencia.getP99() / 1000.0, latencia.getP999() / 1000.0,
+                    latencia.getMaximo() / 1000.0);
+            }
+        }
+
+        exibirBytes("Diário", Metricas.BYTES_DIARIO);
+        exibirBytes("Snapshots", Metricas.BYTES_SNAPSHOT);
+        System.out.printf("Registros carregados: %d (última carga: %.0f registros/s)%n",
+            Metricas.getRegistrosCarregados(), Metricas.getRegistrosPorSegundo());
+
+        System.out.print("Rejeições de validação:");
+        for (Metricas.Rejeicao motivo : Metricas.Rejeicao.values()) {
+            System.out.print(" " + motivo.name().toLowerCase() + "=" + Metricas.getRejeicoes(motivo));
+        }
+        System.out.print("\nErros de leitura por campo:");
+        for (Metricas.Campo campo : Metricas.Campo.values()) {
+            System.out.print(" " + campo.name().toLowerCase() + "=" + Metricas.getErrosDeLeitura(campo));
+        }
+        System.out.println();
+    }
+
+    private static void exibirBytes(String titulo, Metricas.Histograma bytes) {
+        System.out.printf("%s: %d gravação(ões), %d bytes no total (média %.0f, p99 %d, máx %d)%n", titulo,
+            bytes.getQuantidade(), bytes.getSoma(), bytes.getMedia(), bytes.getP99(), bytes.getMaximo());
+    }
+
+    private static String valorFormatado(long centavos) {
+        return FormatoTexto.formatarValor(centavos, new StringBuilder(24)).toString();
+    }
+
+    private static void exibirResultados(List<contrato> encontrados) {
+        if (encontrados.isEmpty()) {
+            System.out.println("Nenhum contrato encontrado.");
+            return;
+        }
+        
+        System.out.println(encontrados.size() + " contrato(s) encontrado(s):");
+        for (contrato contrato : encontrados) {
+            System.out.println(contrato);
+        }
     }
     
     private static void editarContrato() {
         System.out.println("\n--- EDITAR CONTRATO ---");
         
         int id = lerInteiro("Digite o ID do contrato que deseja editar: ");
-        contrato contrato = contratos.stream().filter(c -> c.getId() == id).findFirst().orElse(null);
+        contrato atual = repositorio.buscar(id);
         
-        if (contrato == null) {
+        if (atual == null) {
             System.out.println("Contrato com ID " + id + " não encontrado.");
             return;
         }
+        if (repositorio.estaArquivado(id)) {
+            System.out.println("Contrato com ID " + id + " está no arquivo morto e não pode ser alterado.");
+            return;
+        }
         
         System.out.println("Editando contrato:");
-        System.out.println(contrato);
+        System.out.println(atual);
         System.out.println("\nDigite os novos dados (deixe em branco para manter o valor atual):");
         
+        // A edição é feita em uma cópia, gravada no repositório só no final
+        contrato contrato = atual.copiar();
+        
         // Editar campos
         System.out.print("Contratante (" + contrato.getContratante() + "): ");
         String contratante = scanner.nextLine();
         if (!contratante.isEmpty()) {
-            contrato.setContratante(contratante);
+            String erro = RegrasContrato.validarCaracteres(contratante, "Contratante");
+            if (erro == null) {
+                contrato.setContratante(contratante);
+            } else {
+                System.out.println(erro + " O campo não foi alterado.");
+            }
         }
         
         System.out.print("Contratado (" + contrato.getContratado() + "): ");
         String contratado = scanner.nextLine();
         if (!contratado.isEmpty()) {
-            contrato.setContratado(contratado);
+            String erro = RegrasContrato.validarCaracteres(contratado, "Contratado");
+            if (erro == null) {
+                contrato.setContratado(contratado);
+            } else {
+                System.out.println(erro + " O campo não foi alterado.");
+            }
         }
         
         System.out.print("Número do contrato (" + contrato.getNumeroContrato() + "): ");
         String numeroContrato = scanner.nextLine();
         if (!numeroContrato.isEmpty()) {
-            contrato.setNumeroContrato(numeroContrato);
+            String erro = RegrasContrato.validarCaracteres(numeroContrato, "Número do contrato");
+            if (erro == null) {
+                contrato.setNumeroContrato(numeroContrato);
+            } else {
+                System.out.println(erro + " O campo não foi alterado.");
+            }
         }
         
         System.out.print("Descrição (" + contrato.getDescricao() + "): ");
         String descricao = scanner.nextLine();
         if (!descricao.isEmpty()) {
-            contrato.setDescricao(descricao);
+            String erro = RegrasContrato.validarCaracteres(descricao, "Descrição");
+            if (erro == null) {
+                contrato.setDescricao(descricao);
+            } else {
+                System.out.println(erro + " O campo não foi alterado.");
+            }
         }
         
         System.out.print("CPF (" + contrato.getCpf() + "): ");
         String cpf = scanner.nextLine();
         if (!cpf.isEmpty()) {
-            if (ValidaCPF.validarCPF(cpf)) {
+            if (RegrasContrato.validarCPF(cpf) == null) {
                 contrato.setCpf(ValidaCPF.imprimeCPF(cpf));
             } else {
                 System.out.println("CPF inválido! Não foi alterado.");
@@ -288,7 +812,7 @@ public class Appcontrato {
         if (!valorStr.isEmpty()) {
             try {
                 double valor = Double.parseDouble(valorStr);
-                if (valor > 0) {
+                if (RegrasContrato.validarValor(valor) == null) {
                     contrato.setValor(valor);
                 } else {
                     System.out.println("Valor inválido! Não foi alterado.");
@@ -298,7 +822,15 @@ public class Appcontrato {
             }
         }
         
-        salvarDados();
+        try {
+            if (!repositorio.atualizar(contrato)) {
+                System.out.println("Contrato com ID " + id + " não encontrado.");
+                return;
+            }
+        } catch (IOException e) {
+            System.out.println("Erro ao salvar dados: " + e.getMessage());
+            return;
+        }
         System.out.println("Contrato atualizado com sucesso!");
     }
     
@@ -306,82 +838,43 @@ public class Appcontrato {
         System.out.println("\n--- EXCLUIR CONTRATO ---");
         
         int id = lerInteiro("Digite o ID do contrato que deseja excluir: ");
-        contrato contrato = contratos.stream().filter(c -> c.getId() == id).findFirst().orElse(null);
+        contrato contrato = repositorio.buscar(id);
         
         if (contrato == null) {
             System.out.println("Contrato com ID " + id + " não encontrado.");
             return;
         }
+        if (repositorio.estaArquivado(id)) {
+            System.out.println("Contrato com ID " + id + " está no arquivo morto e não pode ser excluído.");
+            return;
+        }
         
         System.out.println("Tem certeza que deseja excluir o contrato abaixo? (S/N)");
         System.out.println(contrato);
         String confirmacao = scanner.nextLine();
         
         if (confirmacao.equalsIgnoreCase("S")) {
-            contratos.remove(contrato);
-            salvarDados();
+            try {
+                if (!repositorio.excluir(contrato.getId())) {
+                    System.out.println("Contrato com ID " + id + " não encontrado.");
+                    return;
+                }
+            } catch (IOException e) {
+                System.out.println("Erro ao salvar dados: " + e.getMessage());
+                return;
+            }
             System.out.println("Contrato excluído com sucesso!");
         } else {
             System.out.println("Operação cancelada.");
         }
     }
     
-    // Persistência em arquivo
-    private static void carregarDados() {
-        File arquivo = new File(ARQUIVO_DADOS);
-        if (!arquivo.exists()) {
-            return;
-        }
-        
-        try (BufferedReader reader = new BufferedReader(new FileReader(ARQUIVO_DADOS))) {
-            String linha;
-            contratos.clear();
-            int maxId = 0;
-            
-            while ((linha = reader.readLine()) != null) {
-                String[] dados = linha.split("\\|");
-                if (dados.length >= 9) {
-                    int id = Integer.parseInt(dados[0].trim());
-                    String contratante = dados[1].trim();
-                    String contratado = dados[2].trim();
-                    String cpf = dados[3].trim();
-                    String numeroContrato = dados[4].trim();
-                    
-                    // Remover símbolos de moeda e converter valor
-                    String valorStr = dados[5].trim().replaceAll("[^\\d,]", "").replace(",", ".");
-                    double valor = Double.parseDouble(valorStr);
-                    
-                    LocalDate celebracao = LocalDate.parse(dados[6].trim(), formatoData);
-                    LocalDate inicio = LocalDate.parse(dados[7].trim(), formatoData);
-                    LocalDate termino = LocalDate.parse(dados[8].trim(), formatoData);
-                    
-                    String descricao = dados.length > 9 ? dados[9].trim() : "";
-                    
-                    contratos.add(new contrato(
-                        id, contratante, contratado, numeroContrato, 
-                        descricao, valor, celebracao, inicio, termino, cpf
-                    ));
-                    
-                    if (id > maxId) {
-                        maxId = id;
-                    }
-                }
-            }
-            
-            proximoId = maxId + 1;
-        } catch (IOException | NumberFormatException | DateTimeParseException e) {
-            System.out.println("Erro ao carregar dados: " + e.getMessage());
-        }
-    }
-    
-    private static void salvarDados() {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(ARQUIVO_DADOS))) {
-            for (contrato contrato : contratos) {
-                writer.write(contrato.toString());
-                writer.newLine();
-            }
-        } catch (IOException e) {
-            System.out.println("Erro ao salvar dados: " + e.getMessage());
+    // Persistência em arquivo (carregamento, diário e snapshots ficam no repositório)
+    private static boolean carregarDados() {
+        boolean completo = repositorio.carregar();
+        if (AUDITORIA) {
+            repositorio.assinar("auditoria", new AuditoriaContratos(Path.of(ARQUIVO_BASE + ".auditoria.log")));
         }
+        return completo;
     }
-}
\ No newline at end of file
+}
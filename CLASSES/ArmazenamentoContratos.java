@@ -0,0 +1,20 @@
+// Armazenamento principal dos contratos por ID: TabelaVersionada (tudo em memória, com instantâneos),
+// ArvoreContratos (B+tree em disco, com cache de páginas) ou TextoIndexado (o .txt lido
+// sob demanda por posição). Em memória o iterador segue a ordem de cadastro; na árvore e no
+// texto sob demanda, a de ID crescente (as duas só diferem se o arquivo não estava ordenado).
+// Nenhuma implementação é sincronizada: o RepositorioContratos controla o acesso.
+public interface ArmazenamentoContratos extends Iterable<contrato> {
+    int tamanho();
+
+    contrato buscar(int id);
+
+    boolean contem(int id);
+
+    // Insere ou substitui; devolve o contrato anterior de mesmo ID (ou null)
+    contrato gravar(contrato contrato);
+
+    // Devolve o contrato removido (ou null)
+    contrato remover(int id);
+
+    void limpar();
+}
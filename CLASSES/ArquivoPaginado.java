@@ -0,0 +1,364 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+// Arquivo de páginas de tamanho fixo acessado por FileChannel, com cache limitado de quadros
+// e substituição pelo algoritmo do relógio (CLOCK). Só as páginas sujas voltam ao disco.
+//
+// Página 0 (cabeçalho): int "CTRP" | short versão | short reservado | int tamanho da página
+//                       | int total de páginas | int primeira página livre | int[8] metadados
+// Páginas liberadas formam uma lista encadeada pelo primeiro int de cada uma.
+//
+// Páginas sujas não são despejadas: o arquivo em disco é sempre o último checkpoint completo
+// (o diário cobre o resto). Se todos os quadros estiverem sujos ou fixados, o cache cresce
+// além da capacidade até o próximo descarregar(). O checkpoint grava antes as páginas em um
+// arquivo à parte (".paginas"), então uma queda no meio da gravação no lugar é refeita na abertura.
+//
+// Os métodos são sincronizados: leitores concorrentes (trava de leitura do repositório) também
+// carregam e despejam quadros. O conteúdo de um quadro fixado pode ser lido sem a trava do cache.
+public class ArquivoPaginado implements Closeable {
+    public static final int TAMANHO_PAGINA = 8192;
+    public static final int METADADOS = 8;
+    private static final int MAGICO = 0x43545250; // "CTRP"
+    private static final short VERSAO = 1;
+    private static final int MAGICO_COPIA = 0x43545243; // "CTRC"
+    private static final int CAPACIDADE_MINIMA = 16;
+
+    // Quadro do cache: só pode ser usado entre fixar()/alocar() e liberar()
+    static final class Quadro {
+        final ByteBuffer dados = ByteBuffer.allocate(TAMANHO_PAGINA);
+        int numero;
+        private int fixacoes;
+        private boolean referenciado;
+        private boolean sujo;
+    }
+
+    private final Path arquivo;
+    private final Path arquivoCopia;
+    private final FileChannel canal;
+    private final int capacidade;
+    private final List<Quadro> quadros = new ArrayList<>();
+    private final Map<Integer, Quadro> porPagina = new HashMap<>();
+    private int ponteiro; // posição do relógio em "quadros"
+    private int sujos;
+
+    private int totalPaginas;
+    private int primeiraLivre;
+    private final int[] metadados = new int[METADADOS];
+    private boolean cabecalhoSujo;
+
+    // Capacidade em quadros (páginas de TAMANHO_PAGINA bytes)
+    public ArquivoPaginado(Path arquivo, int capacidade) throws IOException {
+        this.arquivo = arquivo;
+        this.arquivoCopia = Path.of(arquivo + ".paginas");
+        this.capacidade = Math.max(CAPACIDADE_MINIMA, capacidade);
+        this.canal = FileChannel.open(arquivo, StandardOpenOption.CREATE,
+                                      StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            refazerCheckpoint();
+            lerCabecalho();
+        } catch (IOException e) {
+            canal.close();
+            throw e;
+        }
+    }
+
+    public int getCapacidade() {
+        return capacidade;
+    }
+
+    public synchronized int getTotalPaginas() {
+        return totalPaginas;
+    }
+
+    public synchronized int metadado(int indice) {
+        return metadados[indice];
+    }
+
+    public synchronized void metadado(int indice, int valor) {
+        metadados[indice] = valor;
+        cabecalhoSujo = true;
+    }
+
+    // Página existente, fixada no cache até liberar()
+    synchronized Quadro fixar(int numero) {
+        Quadro quadro = porPagina.get(numero);
+        if (quadro == null) {
+            if (numero <= 0 || numero >= totalPaginas) {
+                throw new IllegalStateException("Página inexistente: " + numero + " em " + arquivo);
+            }
+            quadro = vitima();
+            ler(numero, quadro.dados);
+            ocupar(quadro, numero);
+        }
+        quadro.fixacoes++;
+        quadro.referenciado = true;
+        return quadro;
+    }
+
+    synchronized void liberar(Quadro quadro) {
+        quadro.fixacoes--;
+    }
+
+    synchronized void sujar(Quadro quadro) {
+        if (!quadro.sujo) {
+            quadro.sujo = true;
+            sujos++;
+        }
+    }
+
+    // Página nova (reaproveita a lista de livres), zerada, suja e fixada
+    synchronized Quadro alocar() {
+        int numero;
+        Quadro quadro;
+        if (primeiraLivre != 0) {
+            numero = primeiraLivre;
+            quadro = fixar(numero);
+            primeiraLivre = quadro.dados.getInt(0);
+        } else {
+            numero = totalPaginas++;
+            quadro = vitima();
+            ocupar(quadro, numero);
+            quadro.fixacoes++;
+            quadro.referenciado = true;
+        }
+        cabecalhoSujo = true;
+        zerar(quadro.dados);
+        sujar(quadro);
+        return quadro;
+    }
+
+    // Devolve a página à lista de livres
+    synchronized void descartar(int numero) {
+        Quadro quadro = fixar(numero);
+        zerar(quadro.dados);
+        quadro.dados.putInt(0, primeiraLivre);
+        primeiraLivre = numero;
+        cabecalhoSujo = true;
+        sujar(quadro);
+        liberar(quadro);
+    }
+
+    // Arquivo vazio: só o cabeçalho. As páginas antigas são sobrescritas no próximo checkpoint
+    synchronized void reiniciar() {
+        quadros.clear();
+        porPagina.clear();
+        ponteiro = 0;
+        sujos = 0;
+        totalPaginas = 1;
+        primeiraLivre = 0;
+        Arrays.fill(metadados, 0);
+        cabecalhoSujo = true;
+    }
+
+    // Hora de um checkpoint: metade do cache já não pode ser despejada
+    public synchronized boolean precisaDescarregar() {
+        return sujos > capacidade / 2;
+    }
+
+    // Checkpoint: grava as páginas sujas e o cabeçalho, primeiro na cópia e depois no lugar
+    public synchronized void descarregar() throws IOException {
+        List<Quadro> paraGravar = new ArrayList<>(sujos);
+        for (Quadro quadro : quadros) {
+            if (quadro.sujo) {
+                paraGravar.add(quadro);
+            }
+        }
+        if (paraGravar.isEmpty() && !cabecalhoSujo) {
+            return;
+        }
+        ByteBuffer cabecalho = montarCabecalho();
+
+        gravarCopia(cabecalho, paraGravar);
+        gravar(0, cabecalho);
+        for (Quadro quadro : paraGravar) {
+            gravar(quadro.numero, quadro.dados);
+        }
+        canal.force(true);
+        Files.delete(arquivoCopia);
+        // Cópia (cabeçalho, número e conteúdo de cada página e CRC) mais as páginas no lugar
+        Metricas.BYTES_SNAPSHOT.registrar(16 + (paraGravar.size() + 1L) * (2L * TAMANHO_PAGINA + 4));
+
+        for (Quadro quadro : paraGravar) {
+            quadro.sujo = false;
+        }
+        sujos = 0;
+        cabecalhoSujo = false;
+        encolher();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        canal.close();
+    }
+
+    // Quadro livre: novo enquanto houver capacidade, senão o primeiro limpo, não fixado e
+    // sem referência recente na volta do relógio
+    private Quadro vitima() {
+        if (quadros.size() < capacidade) {
+            Quadro novo = new Quadro();
+            quadros.add(novo);
+            return novo;
+        }
+        for (int passos = 0; passos < quadros.size() * 2; passos++) {
+            Quadro quadro = quadros.get(ponteiro);
+            ponteiro = (ponteiro + 1) % quadros.size();
+            if (quadro.fixacoes > 0 || quadro.sujo) {
+                continue;
+            }
+            if (quadro.referenciado) {
+                quadro.referenciado = false;
+                continue;
+            }
+            porPagina.remove(quadro.numero);
+            return quadro;
+        }
+        Quadro extra = new Quadro();
+        quadros.add(extra);
+        return extra;
+    }
+
+    private void ocupar(Quadro quadro, int numero) {
+        quadro.numero = numero;
+        quadro.sujo = false;
+        porPagina.put(numero, quadro);
+    }
+
+    // Depois do checkpoint, devolve os quadros extras criados com o cache cheio de páginas sujas
+    private void encolher() {
+        for (int i = quadros.size() - 1; i >= 0 && quadros.size() > capacidade; i--) {
+            Quadro quadro = quadros.get(i);
+            if (quadro.fixacoes == 0) {
+                porPagina.remove(quadro.numero);
+                quadros.remove(i);
+            }
+        }
+        ponteiro = 0;
+    }
+
+    private static void zerar(ByteBuffer dados) {
+        Arrays.fill(dados.array(), (byte) 0);
+    }
+
+    private void ler(int numero, ByteBuffer destino) {
+        try {
+            ByteBuffer alvo = destino.duplicate().clear();
+            long posicao = (long) numero * TAMANHO_PAGINA;
+            while (alvo.hasRemaining()) {
+                int lidos = canal.read(alvo, posicao + alvo.position());
+                if (lidos < 0) {
+                    throw new IOException("Página " + numero + " truncada em " + arquivo);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void gravar(int numero, ByteBuffer origem) throws IOException {
+        ByteBuffer fonte = origem.duplicate().clear();
+        long posicao = (long) numero * TAMANHO_PAGINA;
+        while (fonte.hasRemaining()) {
+            canal.write(fonte, posicao + fonte.position());
+        }
+    }
+
+    private void lerCabecalho() throws IOException {
+        if (canal.size() < TAMANHO_PAGINA) {
+            totalPaginas = 1;
+            cabecalhoSujo = true;
+            return;
+        }
+        ByteBuffer cabecalho = ByteBuffer.allocate(TAMANHO_PAGINA);
+        ler(0, cabecalho);
+        if (cabecalho.getInt(0) != MAGICO) {
+            throw new IOException("Arquivo paginado de contratos inválido: " + arquivo);
+        }
+        if (cabecalho.getShort(4) != VERSAO) {
+            throw new IOException("Versão do arquivo paginado não suportada: " + cabecalho.getShort(4));
+        }
+        if (cabecalho.getInt(8) != TAMANHO_PAGINA) {
+            throw new IOException("Tamanho de página incompatível: " + cabecalho.getInt(8));
+        }
+        totalPaginas = cabecalho.getInt(12);
+        primeiraLivre = cabecalho.getInt(16);
+        for (int i = 0; i < METADADOS; i++) {
+            metadados[i] = cabecalho.getInt(20 + i * 4);
+        }
+    }
+
+    private ByteBuffer montarCabecalho() {
+        ByteBuffer cabecalho = ByteBuffer.allocate(TAMANHO_PAGINA);
+        cabecalho.putInt(0, MAGICO).putShort(4, VERSAO).putInt(8, TAMANHO_PAGINA)
+                 .putInt(12, totalPaginas).putInt(16, primeiraLivre);
+        for (int i = 0; i < METADADOS; i++) {
+            cabecalho.putInt(20 + i * 4, metadados[i]);
+        }
+        return cabecalho;
+    }
+
+    // Cópia: int "CTRC" | int quantidade | (int número | página)... | long CRC32 de tudo antes
+    private void gravarCopia(ByteBuffer cabecalho, List<Quadro> paginas) throws IOException {
+        CRC32 crc = new CRC32();
+        try (FileChannel copia = FileChannel.open(arquivoCopia, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            escrever(copia, crc, ByteBuffer.allocate(8).putInt(MAGICO_COPIA).putInt(paginas.size() + 1).flip());
+            escrever(copia, crc, ByteBuffer.allocate(4).putInt(0).flip());
+            escrever(copia, crc, cabecalho.duplicate().clear());
+            for (Quadro quadro : paginas) {
+                escrever(copia, crc, ByteBuffer.allocate(4).putInt(quadro.numero).flip());
+                escrever(copia, crc, quadro.dados.duplicate().clear());
+            }
+            ByteBuffer soma = ByteBuffer.allocate(8).putLong(crc.getValue()).flip();
+            while (soma.hasRemaining()) {
+                copia.write(soma);
+            }
+            copia.force(true);
+        }
+    }
+
+    private static void escrever(FileChannel destino, CRC32 crc, ByteBuffer dados) throws IOException {
+        crc.update(dados.duplicate());
+        while (dados.hasRemaining()) {
+            destino.write(dados);
+        }
+    }
+
+    // Cópia íntegra: a gravação no lugar pode ter sido interrompida, então é refeita.
+    // Cópia incompleta: a queda foi antes da gravação no lugar e o arquivo está intacto.
+    private void refazerCheckpoint() throws IOException {
+        if (!Files.exists(arquivoCopia)) {
+            return;
+        }
+        ByteBuffer copia = ByteBuffer.wrap(Files.readAllBytes(arquivoCopia));
+        int registro = 4 + TAMANHO_PAGINA;
+        boolean integra = copia.remaining() >= 16 && copia.getInt(0) == MAGICO_COPIA;
+        int quantidade = integra ? copia.getInt(4) : 0;
+        long tamanhoDados = 8 + (long) quantidade * registro;
+        integra = integra && quantidade > 0 && copia.remaining() == tamanhoDados + 8;
+        if (integra) {
+            CRC32 crc = new CRC32();
+            crc.update(copia.array(), 0, (int) tamanhoDados);
+            integra = crc.getValue() == copia.getLong((int) tamanhoDados);
+        }
+        if (integra) {
+            for (int i = 0; i < quantidade; i++) {
+                int inicio = 8 + i * registro;
+                gravar(copia.getInt(inicio), copia.slice(inicio + 4, TAMANHO_PAGINA));
+            }
+            canal.force(true);
+        }
+        Files.delete(arquivoCopia);
+    }
+}
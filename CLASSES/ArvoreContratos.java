@@ -0,0 +1,569 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+// B+tree de contratos por ID sobre um ArquivoPaginado: só as páginas do caminho da raiz até a
+// folha passam pelo cache, então buscar, gravar e remover tocam O(log n) páginas e a memória
+// usada depende do tamanho do cache, não da quantidade de contratos.
+//
+// Interno:    byte tipo | short n | int filho0 | n × (int chave, int filho)
+//             (o filho i guarda os IDs >= chave i e < chave i+1)
+// Folha:      byte tipo | short n | int próxima folha | short início dos dados
+//             | n × (int id, short posição, short tamanho) em ordem de ID
+//             Os registros (FormatoBinario) ficam no fim da página, crescendo para o começo.
+// Transbordo: byte tipo | int próxima | short usados | dados
+//             Registros maiores que MAIOR_EM_LINHA vão para uma cadeia de transbordo; na folha
+//             fica só int primeira página | int tamanho, com o bit alto do tamanho ligado.
+//
+// IDs crescentes (o caso normal) dividem a folha e o nó interno da direita deixando o lado
+// esquerdo cheio. Exclusões não juntam folhas: uma folha vazia continua no encadeamento.
+// Quando metade do cache está suja, a própria gravação faz um checkpoint ao terminar (a árvore
+// está consistente entre duas operações), então a memória não cresce com a carga de dados.
+public class ArvoreContratos implements ArmazenamentoContratos, Closeable {
+    private static final int PAGINA = ArquivoPaginado.TAMANHO_PAGINA;
+    private static final byte INTERNO = 1;
+    private static final byte FOLHA = 2;
+    private static final byte TRANSBORDO = 3;
+
+    private static final int CAB_INTERNO = 7;
+    private static final int MAX_CHAVES = (PAGINA - CAB_INTERNO) / 8;
+    private static final int CAB_FOLHA = 9;
+    private static final int SLOT = 8;
+    private static final int CAB_TRANSBORDO = 7;
+    private static final int MAIOR_EM_LINHA = (PAGINA - CAB_FOLHA) / 4 - SLOT;
+    private static final int TRANSBORDADO = 0x8000;
+
+    // Metadados no cabeçalho do arquivo
+    private static final int RAIZ = 0;
+    private static final int QUANTIDADE = 1;
+
+    private final ArquivoPaginado arquivo;
+
+    // Registro de uma folha: bytes do contrato ou referência à cadeia de transbordo
+    private static final class Entrada {
+        final int id;
+        final byte[] bytes;
+        final boolean transbordo;
+
+        Entrada(int id, byte[] bytes, boolean transbordo) {
+            this.id = id;
+            this.bytes = bytes;
+            this.transbordo = transbordo;
+        }
+
+        int tamanho() {
+            return bytes.length + SLOT;
+        }
+    }
+
+    // Resultado da divisão de um filho: a chave e a página que sobem para o pai
+    private static final class Divisao {
+        final int chave;
+        final int pagina;
+
+        Divisao(int chave, int pagina) {
+            this.chave = chave;
+            this.pagina = pagina;
+        }
+    }
+
+    // Capacidade do cache em páginas de ArquivoPaginado.TAMANHO_PAGINA bytes
+    public ArvoreContratos(Path caminho, int paginasEmCache) throws IOException {
+        arquivo = new ArquivoPaginado(caminho, paginasEmCache);
+        if (arquivo.metadado(RAIZ) == 0) {
+            criarRaiz();
+        }
+    }
+
+    @Override
+    public int tamanho() {
+        return arquivo.metadado(QUANTIDADE);
+    }
+
+    @Override
+    public contrato buscar(int id) {
+        ArquivoPaginado.Quadro folha = descer(id);
+        try {
+            int i = localizar(folha.dados, id);
+            return i < 0 ? null : ler(folha.dados, i);
+        } finally {
+            arquivo.liberar(folha);
+        }
+    }
+
+    @Override
+    public boolean contem(int id) {
+        ArquivoPaginado.Quadro folha = descer(id);
+        try {
+            return localizar(folha.dados, id) >= 0;
+        } finally {
+            arquivo.liberar(folha);
+        }
+    }
+
+    @Override
+    public contrato gravar(contrato contrato) {
+        contrato[] anterior = new contrato[1];
+        int raiz = arquivo.metadado(RAIZ);
+        Divisao divisao = inserir(raiz, contrato, anterior);
+        if (divisao != null) {
+            // A raiz foi dividida: a árvore ganha um nível
+            ArquivoPaginado.Quadro novaRaiz = arquivo.alocar();
+            ByteBuffer p = novaRaiz.dados;
+            p.put(0, INTERNO).putShort(1, (short) 1).putInt(3, raiz);
+            p.putInt(CAB_INTERNO, divisao.chave).putInt(CAB_INTERNO + 4, divisao.pagina);
+            arquivo.metadado(RAIZ, novaRaiz.numero);
+            arquivo.liberar(novaRaiz);
+        }
+        if (anterior[0] == null) {
+            arquivo.metadado(QUANTIDADE, tamanho() + 1);
+        }
+        descarregarSeNecessario();
+        return anterior[0];
+    }
+
+    @Override
+    public contrato remover(int id) {
+        ArquivoPaginado.Quadro folha = descer(id);
+        try {
+            ByteBuffer p = folha.dados;
+            int i = localizar(p, id);
+            if (i < 0) {
+                return null;
+            }
+            contrato removido = ler(p, i);
+            liberarTransbordo(p, i);
+            removerSlot(p, i);
+            arquivo.sujar(folha);
+            arquivo.metadado(QUANTIDADE, tamanho() - 1);
+            return removido;
+        } finally {
+            arquivo.liberar(folha);
+            descarregarSeNecessario();
+        }
+    }
+
+    @Override
+    public void limpar() {
+        arquivo.reiniciar();
+        criarRaiz();
+    }
+
+    // Percorre as folhas encadeadas; cada folha é lida inteira e liberada antes de ser entregue
+    @Override
+    public Iterator<contrato> iterator() {
+        return new Iterator<>() {
+            private int proxima = primeiraFolha();
+            private final List<contrato> folha = new ArrayList<>();
+            private int posicao;
+
+            @Override
+            public boolean hasNext() {
+                while (posicao == folha.size() && proxima != 0) {
+                    carregarFolha();
+                }
+                return posicao < folha.size();
+            }
+
+            @Override
+            public contrato next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return folha.get(posicao++);
+            }
+
+            private void carregarFolha() {
+                folha.clear();
+                posicao = 0;
+                ArquivoPaginado.Quadro quadro = arquivo.fixar(proxima);
+                try {
+                    ByteBuffer p = quadro.dados;
+                    for (int i = 0; i < quantidade(p); i++) {
+                        folha.add(ler(p, i));
+                    }
+                    proxima = p.getInt(3);
+                } finally {
+                    arquivo.liberar(quadro);
+                }
+            }
+        };
+    }
+
+    // Checkpoint: grava no arquivo todas as páginas alteradas desde o anterior
+    public void descarregar() throws IOException {
+        arquivo.descarregar();
+    }
+
+    @Override
+    public void close() throws IOException {
+        arquivo.close();
+    }
+
+    private void descarregarSeNecessario() {
+        if (arquivo.precisaDescarregar()) {
+            try {
+                arquivo.descarregar();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private void criarRaiz() {
+        ArquivoPaginado.Quadro raiz = arquivo.alocar();
+        iniciarFolha(raiz.dados, 0);
+        arquivo.metadado(RAIZ, raiz.numero);
+        arquivo.metadado(QUANTIDADE, 0);
+        arquivo.liberar(raiz);
+    }
+
+    // Desce da raiz até a folha onde o ID está ou estaria; a folha volta fixada
+    private ArquivoPaginado.Quadro descer(int id) {
+        ArquivoPaginado.Quadro quadro = arquivo.fixar(arquivo.metadado(RAIZ));
+        while (quadro.dados.get(0) == INTERNO) {
+            int filho = filho(quadro.dados, indiceFilho(quadro.dados, id));
+            arquivo.liberar(quadro);
+            quadro = arquivo.fixar(filho);
+        }
+        if (quadro.dados.get(0) != FOLHA) {
+            arquivo.liberar(quadro);
+            throw new IllegalStateException("Página " + quadro.numero + " não é folha");
+        }
+        return quadro;
+    }
+
+    private int primeiraFolha() {
+        int pagina = arquivo.metadado(RAIZ);
+        while (true) {
+            ArquivoPaginado.Quadro quadro = arquivo.fixar(pagina);
+            try {
+                if (quadro.dados.get(0) != INTERNO) {
+                    return pagina;
+                }
+                pagina = filho(quadro.dados, 0);
+            } finally {
+                arquivo.liberar(quadro);
+            }
+        }
+    }
+
+    private Divisao inserir(int pagina, contrato contrato, contrato[] anterior) {
+        ArquivoPaginado.Quadro quadro = arquivo.fixar(pagina);
+        try {
+            ByteBuffer p = quadro.dados;
+            if (p.get(0) == FOLHA) {
+                return inserirNaFolha(quadro, contrato, anterior);
+            }
+            int indice = indiceFilho(p, contrato.getId());
+            Divisao divisao = inserir(filho(p, indice), contrato, anterior);
+            return divisao == null ? null : inserirNoInterno(quadro, indice, divisao);
+        } finally {
+            arquivo.liberar(quadro);
+        }
+    }
+
+    // Nós internos
+
+    private static int chaves(ByteBuffer p) {
+        return p.getShort(1) & 0xFFFF;
+    }
+
+    // Chave k, de 1 a n
+    private static int chave(ByteBuffer p, int k) {
+        return p.getInt(CAB_INTERNO + (k - 1) * 8);
+    }
+
+    // Filho c, de 0 a n
+    private static int filho(ByteBuffer p, int c) {
+        return c == 0 ? p.getInt(3) : p.getInt(CAB_INTERNO + (c - 1) * 8 + 4);
+    }
+
+    // Maior c com chave c <= id (0 se o ID é menor que todas as chaves)
+    private static int indiceFilho(ByteBuffer p, int id) {
+        int baixo = 1;
+        int alto = chaves(p);
+        while (baixo <= alto) {
+            int meio = (baixo + alto) >>> 1;
+            if (chave(p, meio) <= id) {
+                baixo = meio + 1;
+            } else {
+                alto = meio - 1;
+            }
+        }
+        return alto;
+    }
+
+    // A nova chave entra logo depois do filho "indice", que foi dividido
+    private Divisao inserirNoInterno(ArquivoPaginado.Quadro quadro, int indice, Divisao divisao) {
+        ByteBuffer p = quadro.dados;
+        int n = chaves(p);
+        arquivo.sujar(quadro);
+        if (n < MAX_CHAVES) {
+            int origem = CAB_INTERNO + indice * 8;
+            System.arraycopy(p.array(), origem, p.array(), origem + 8, (n - indice) * 8);
+            p.putInt(origem, divisao.chave).putInt(origem + 4, divisao.pagina);
+            p.putShort(1, (short) (n + 1));
+            return null;
+        }
+
+        int[] todasChaves = new int[n + 1];
+        int[] filhos = new int[n + 2];
+        filhos[0] = filho(p, 0);
+        for (int k = 0, destino = 0; k <= n; k++) {
+            if (k == indice) {
+                todasChaves[destino] = divisao.chave;
+                filhos[destino + 1] = divisao.pagina;
+                destino++;
+            }
+            if (k < n) {
+                todasChaves[destino] = chave(p, k + 1);
+                filhos[destino + 1] = filho(p, k + 1);
+                destino++;
+            }
+        }
+        // Inserção no fim (IDs crescentes): o lado esquerdo fica cheio
+        int meio = indice == n ? n : (n + 1) / 2;
+        escreverInterno(p, todasChaves, filhos, 0, meio);
+
+        ArquivoPaginado.Quadro direita = arquivo.alocar();
+        try {
+            escreverInterno(direita.dados, todasChaves, filhos, meio + 1, n + 1);
+            return new Divisao(todasChaves[meio], direita.numero);
+        } finally {
+            arquivo.liberar(direita);
+        }
+    }
+
+    // Chaves [de, ate) com os filhos [de, ate]
+    private static void escreverInterno(ByteBuffer p, int[] chaves, int[] filhos, int de, int ate) {
+        p.put(0, INTERNO).putShort(1, (short) (ate - de)).putInt(3, filhos[de]);
+        for (int k = de; k < ate; k++) {
+            int posicao = CAB_INTERNO + (k - de) * 8;
+            p.putInt(posicao, chaves[k]).putInt(posicao + 4, filhos[k + 1]);
+        }
+    }
+
+    // Folhas
+
+    private static void iniciarFolha(ByteBuffer p, int proxima) {
+        p.put(0, FOLHA).putShort(1, (short) 0).putInt(3, proxima).putShort(7, (short) PAGINA);
+    }
+
+    private static int quantidade(ByteBuffer p) {
+        return p.getShort(1) & 0xFFFF;
+    }
+
+    private static int inicioDados(ByteBuffer p) {
+        return p.getShort(7) & 0xFFFF;
+    }
+
+    private static int livre(ByteBuffer p) {
+        return inicioDados(p) - (CAB_FOLHA + quantidade(p) * SLOT);
+    }
+
+    private static int slotId(ByteBuffer p, int i) {
+        return p.getInt(CAB_FOLHA + i * SLOT);
+    }
+
+    private static int slotPosicao(ByteBuffer p, int i) {
+        return p.getShort(CAB_FOLHA + i * SLOT + 4) & 0xFFFF;
+    }
+
+    private static int slotTamanho(ByteBuffer p, int i) {
+        return p.getShort(CAB_FOLHA + i * SLOT + 6) & 0xFFFF;
+    }
+
+    // Posição do ID na folha, ou -(ponto de inserção) - 1
+    private static int localizar(ByteBuffer p, int id) {
+        int baixo = 0;
+        int alto = quantidade(p) - 1;
+        while (baixo <= alto) {
+            int meio = (baixo + alto) >>> 1;
+            int atual = slotId(p, meio);
+            if (atual < id) {
+                baixo = meio + 1;
+            } else if (atual > id) {
+                alto = meio - 1;
+            } else {
+                return meio;
+            }
+        }
+        return -(baixo + 1);
+    }
+
+    // Registro corrompido: como as falhas de leitura das páginas, sai como UncheckedIOException
+    private contrato ler(ByteBuffer p, int i) {
+        int posicao = slotPosicao(p, i);
+        int tamanho = slotTamanho(p, i);
+        try {
+            if ((tamanho & TRANSBORDADO) == 0) {
+                return FormatoBinario.decodificar(p.duplicate().position(posicao).limit(posicao + tamanho));
+            }
+            return FormatoBinario.decodificar(ByteBuffer.wrap(lerTransbordo(p.getInt(posicao), p.getInt(posicao + 4))));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Entrada entrada(ByteBuffer p, int i) {
+        int posicao = slotPosicao(p, i);
+        int tamanho = slotTamanho(p, i);
+        byte[] bytes = new byte[tamanho & ~TRANSBORDADO];
+        p.get(posicao, bytes);
+        return new Entrada(slotId(p, i), bytes, (tamanho & TRANSBORDADO) != 0);
+    }
+
+    private Divisao inserirNaFolha(ArquivoPaginado.Quadro quadro, contrato contrato, contrato[] anterior) {
+        ByteBuffer p = quadro.dados;
+        arquivo.sujar(quadro);
+        int id = contrato.getId();
+        Entrada nova = entrada(contrato);
+
+        int posicao = localizar(p, id);
+        if (posicao >= 0) {
+            anterior[0] = ler(p, posicao);
+            liberarTransbordo(p, posicao);
+            removerSlot(p, posicao);
+        } else {
+            posicao = -posicao - 1;
+        }
+
+        if (nova.tamanho() <= livre(p)) {
+            inserirSlot(p, posicao, nova);
+            return null;
+        }
+
+        List<Entrada> entradas = new ArrayList<>(quantidade(p) + 1);
+        int ocupado = 0;
+        for (int i = 0; i < quantidade(p); i++) {
+            Entrada existente = entrada(p, i);
+            entradas.add(existente);
+            ocupado += existente.tamanho();
+        }
+        entradas.add(posicao, nova);
+        ocupado += nova.tamanho();
+        int proxima = p.getInt(3);
+        if (CAB_FOLHA + ocupado <= PAGINA) {
+            escreverFolha(p, entradas, 0, entradas.size(), proxima); // só faltava juntar os buracos
+            return null;
+        }
+
+        // Divisão: no fim da última folha (IDs crescentes) o novo registro vai sozinho para a direita
+        int corte;
+        if (posicao == entradas.size() - 1 && proxima == 0) {
+            corte = posicao;
+        } else {
+            corte = 0;
+            for (int acumulado = 0; corte < entradas.size() - 1 && acumulado < ocupado / 2; corte++) {
+                acumulado += entradas.get(corte).tamanho();
+            }
+        }
+        ArquivoPaginado.Quadro direita = arquivo.alocar();
+        try {
+            escreverFolha(direita.dados, entradas, corte, entradas.size(), proxima);
+            escreverFolha(p, entradas, 0, corte, direita.numero);
+            return new Divisao(entradas.get(corte).id, direita.numero);
+        } finally {
+            arquivo.liberar(direita);
+        }
+    }
+
+    private Entrada entrada(contrato contrato) {
+        byte[] registro = FormatoBinario.codificar(contrato);
+        if (registro.length <= MAIOR_EM_LINHA) {
+            return new Entrada(contrato.getId(), registro, false);
+        }
+        int primeira = gravarTransbordo(registro);
+        byte[] referencia = ByteBuffer.allocate(8).putInt(primeira).putInt(registro.length).array();
+        return new Entrada(contrato.getId(), referencia, true);
+    }
+
+    private static void inserirSlot(ByteBuffer p, int i, Entrada entrada) {
+        int n = quantidade(p);
+        int inicio = inicioDados(p) - entrada.bytes.length;
+        p.put(inicio, entrada.bytes);
+        int origem = CAB_FOLHA + i * SLOT;
+        System.arraycopy(p.array(), origem, p.array(), origem + SLOT, (n - i) * SLOT);
+        int tamanho = entrada.bytes.length | (entrada.transbordo ? TRANSBORDADO : 0);
+        p.putInt(origem, entrada.id).putShort(origem + 4, (short) inicio).putShort(origem + 6, (short) tamanho);
+        p.putShort(1, (short) (n + 1)).putShort(7, (short) inicio);
+    }
+
+    // Os bytes do registro ficam como buraco até a próxima reescrita da folha
+    private static void removerSlot(ByteBuffer p, int i) {
+        int n = quantidade(p);
+        int origem = CAB_FOLHA + (i + 1) * SLOT;
+        System.arraycopy(p.array(), origem, p.array(), origem - SLOT, (n - i - 1) * SLOT);
+        p.putShort(1, (short) (n - 1));
+        if (n == 1) {
+            p.putShort(7, (short) PAGINA);
+        }
+    }
+
+    private static void escreverFolha(ByteBuffer p, List<Entrada> entradas, int de, int ate, int proxima) {
+        iniciarFolha(p, proxima);
+        for (int i = de; i < ate; i++) {
+            inserirSlot(p, i - de, entradas.get(i));
+        }
+    }
+
+    // Transbordo
+
+    private int gravarTransbordo(byte[] registro) {
+        int capacidade = PAGINA - CAB_TRANSBORDO;
+        ArquivoPaginado.Quadro anterior = null;
+        int primeira = 0;
+        for (int inicio = 0; inicio < registro.length; inicio += capacidade) {
+            int usados = Math.min(capacidade, registro.length - inicio);
+            ArquivoPaginado.Quadro quadro = arquivo.alocar();
+            quadro.dados.put(0, TRANSBORDO).putInt(1, 0).putShort(5, (short) usados)
+                        .put(CAB_TRANSBORDO, registro, inicio, usados);
+            if (anterior == null) {
+                primeira = quadro.numero;
+            } else {
+                anterior.dados.putInt(1, quadro.numero);
+                arquivo.liberar(anterior);
+            }
+            anterior = quadro;
+        }
+        arquivo.liberar(anterior);
+        return primeira;
+    }
+
+    private byte[] lerTransbordo(int pagina, int tamanho) {
+        byte[] registro = new byte[tamanho];
+        for (int lidos = 0; lidos < tamanho; ) {
+            ArquivoPaginado.Quadro quadro = arquivo.fixar(pagina);
+            try {
+                int usados = quadro.dados.getShort(5) & 0xFFFF;
+                quadro.dados.get(CAB_TRANSBORDO, registro, lidos, usados);
+                lidos += usados;
+                pagina = quadro.dados.getInt(1);
+            } finally {
+                arquivo.liberar(quadro);
+            }
+        }
+        return registro;
+    }
+
+    private void liberarTransbordo(ByteBuffer p, int i) {
+        if ((slotTamanho(p, i) & TRANSBORDADO) == 0) {
+            return;
+        }
+        int pagina = p.getInt(slotPosicao(p, i));
+        while (pagina != 0) {
+            ArquivoPaginado.Quadro quadro = arquivo.fixar(pagina);
+            int proxima = quadro.dados.getInt(1);
+            arquivo.liberar(quadro);
+            arquivo.descartar(pagina);
+            pagina = proxima;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+
+// Assinante do fluxo de eventos que registra cada alteração em <arquivo>.auditoria.log:
+//   sequência | data e hora | tipo | ID | contrato (ou, na alteração, "campo: antes -> depois; ...")
+// O arquivo fica aberto enquanto o fluxo durar e é esvaziado para o disco a cada lote.
+public class AuditoriaContratos implements FluxoEventos.Assinante {
+    private static final DateTimeFormatter formatoDataHora =
+        DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss").withZone(ZoneId.systemDefault());
+
+    private final Path arquivoLog;
+    private final Charset charset = Charset.defaultCharset();
+    private Writer log; // só a thread do assinante usa
+
+    public AuditoriaContratos(Path arquivoLog) {
+        this.arquivoLog = arquivoLog;
+    }
+
+    @Override
+    public void receber(List<EventoContrato> eventos) throws IOException {
+        if (log == null) {
+            log = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(arquivoLog.toFile(), true), charset));
+        }
+        StringBuilder linha = new StringBuilder(256);
+        for (EventoContrato evento : eventos) {
+            linha.setLength(0);
+            linha.append(evento.getSequencia())
+                .append(" | ").append(formatoDataHora.format(Instant.ofEpochMilli(evento.getInstante())))
+                .append(" | ").append(evento.getTipo().name().toLowerCase(Locale.ROOT))
+                .append(" | ").append(evento.getId())
+                .append(" | ");
+            if (evento.getTipo() == EventoContrato.Tipo.ALTERADO) {
+                List<EventoContrato.Mudanca> mudancas = evento.mudancas();
+                if (mudancas.isEmpty()) {
+                    linha.append("sem mudanças");
+                }
+                for (int i = 0; i < mudancas.size(); i++) {
+                    linha.append(i > 0 ? "; " : "").append(mudancas.get(i));
+                }
+            } else {
+                linha.append(evento.getAtual() != null ? evento.getAtual() : evento.getAnterior());
+            }
+            log.write(linha.append(System.lineSeparator()).toString());
+        }
+        log.flush();
+    }
+
+    @Override
+    public void encerrar() throws IOException {
+        if (log != null) {
+            log.close();
+            log = null;
+        }
+    }
+}
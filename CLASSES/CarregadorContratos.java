@@ -0,0 +1,389 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+// Carregador paralelo do contratos.txt: o arquivo é mapeado em memória, dividido em
+// fatias alinhadas em quebras de linha e cada fatia é interpretada no ForkJoinPool
+// com leitores diretos de '|', de valores "R$ 6.500,00" e de datas dd/MM/yyyy.
+// Qualquer linha fora do caminho rápido é entregue ao leitor padrão (o mesmo do
+// carregamento sequencial), então o resultado e as mensagens de erro são idênticos.
+public class CarregadorContratos {
+    private static final int TAMANHO_MINIMO_FATIA = 1 << 20;         // 1 MB
+    private static final int TAMANHO_MAXIMO_FATIA = 256 << 20;       // 256 MB
+    private static final int CAMPOS = 10;
+    private static final long CENTAVOS_MAXIMO = (long) (contrato.VALOR_MAXIMO * 100);
+    private static final double[] POTENCIAS_DE_10 = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    public static final class Resultado {
+        public final List<contrato> contratos = new ArrayList<>();
+        public int maxId;
+        // Erro da primeira linha inválida (como no carregamento sequencial, a leitura para nela)
+        public RuntimeException erro;
+    }
+
+    // Só é seguro procurar '|' e '\n' byte a byte em charsets compatíveis com ASCII
+    public static boolean suporta(Charset charset) {
+        return charset.equals(StandardCharsets.UTF_8)
+            || charset.equals(StandardCharsets.US_ASCII)
+            || charset.equals(StandardCharsets.ISO_8859_1);
+    }
+
+    public static Resultado carregar(Path arquivo, Charset charset, DiarioContratos.Leitor leitorPadrao)
+            throws IOException {
+        return carregar(List.of(arquivo), charset, leitorPadrao).get(0);
+    }
+
+    // Vários arquivos (as partições por ano) de uma vez: as fatias de todos vão juntas para o
+    // ForkJoinPool, então arquivos pequenos também são lidos em paralelo. Um resultado por arquivo
+    public static List<Resultado> carregar(List<Path> arquivos, Charset charset, DiarioContratos.Leitor leitorPadrao)
+            throws IOException {
+        List<Fatia> fatias = new ArrayList<>();
+        int[] fatiasPorArquivo = new int[arquivos.size()];
+        for (int a = 0; a < arquivos.size(); a++) {
+            try (FileChannel canal = FileChannel.open(arquivos.get(a), StandardOpenOption.READ)) {
+                List<Fatia> doArquivo = dividir(canal, canal.size(), charset, leitorPadrao);
+                fatiasPorArquivo[a] = doArquivo.size();
+                fatias.addAll(doArquivo);
+            }
+        }
+
+        List<Resultado> resultados = new ArrayList<>(arquivos.size());
+        try {
+            List<Future<Fatia>> tarefas = ForkJoinPool.commonPool().invokeAll(fatias);
+            int proxima = 0;
+            for (int a = 0; a < arquivos.size(); a++) {
+                Resultado resultado = new Resultado();
+                for (int f = 0; f < fatiasPorArquivo[a]; f++) {
+                    Fatia fatia = tarefas.get(proxima + f).get();
+                    if (resultado.erro != null) {
+                        continue;
+                    }
+                    resultado.contratos.addAll(fatia.contratos);
+                    resultado.maxId = Math.max(resultado.maxId, fatia.maxId);
+                    resultado.erro = fatia.erro;
+                }
+                proxima += fatiasPorArquivo[a];
+                resultados.add(resultado);
+            }
+        } catch (ExecutionException e) {
+            Throwable causa = e.getCause();
+            if (causa instanceof IOException) {
+                throw (IOException) causa;
+            }
+            if (causa instanceof RuntimeException) {
+                throw (RuntimeException) causa;
+            }
+            throw new IOException(causa);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Carregamento interrompido", e);
+        }
+        return resultados;
+    }
+
+    // Corta o arquivo em fatias que sempre terminam logo após um '\n'
+    private static List<Fatia> dividir(FileChannel canal, long tamanho, Charset charset,
+                                       DiarioContratos.Leitor leitorPadrao) throws IOException {
+        long alvo = tamanho / (ForkJoinPool.getCommonPoolParallelism() * 4L);
+        long tamanhoFatia = Math.min(TAMANHO_MAXIMO_FATIA, Math.max(TAMANHO_MINIMO_FATIA, alvo));
+
+        List<Fatia> fatias = new ArrayList<>();
+        ByteBuffer busca = ByteBuffer.allocate(8192);
+        long inicio = 0;
+        while (inicio < tamanho) {
+            long fim = Math.min(tamanho, inicio + tamanhoFatia);
+            if (fim < tamanho) {
+                fim = proximaQuebra(canal, fim - 1, tamanho, busca);
+            }
+            if (fim - inicio > Integer.MAX_VALUE) {
+                throw new IOException("Linha grande demais em " + inicio);
+            }
+            fatias.add(new Fatia(canal.map(FileChannel.MapMode.READ_ONLY, inicio, fim - inicio),
+                                 charset, leitorPadrao));
+            inicio = fim;
+        }
+        return fatias;
+    }
+
+    // Posição logo após o primeiro '\n' a partir de "de" (ou o fim do arquivo)
+    private static long proximaQuebra(FileChannel canal, long de, long tamanho, ByteBuffer busca)
+            throws IOException {
+        long posicao = de;
+        while (posicao < tamanho) {
+            busca.clear();
+            int lidos = canal.read(busca, posicao);
+            if (lidos <= 0) {
+                break;
+            }
+            for (int i = 0; i < lidos; i++) {
+                if (busca.get(i) == '\n') {
+                    return posicao + i + 1;
+                }
+            }
+            posicao += lidos;
+        }
+        return tamanho;
+    }
+
+    private static final class Fatia implements Callable<Fatia> {
+        private final MappedByteBuffer dados;
+        private final Interpretador interpretador;
+
+        final List<contrato> contratos = new ArrayList<>();
+        int maxId;
+        RuntimeException erro;
+
+        Fatia(MappedByteBuffer dados, Charset charset, DiarioContratos.Leitor leitorPadrao) {
+            this.dados = dados;
+            this.interpretador = new Interpretador(charset, leitorPadrao);
+        }
+
+        @Override
+        public Fatia call() {
+            int limite = dados.limit();
+            int i = 0;
+            while (i < limite) {
+                // Mesmos terminadores do BufferedReader.readLine: "\n", "\r" ou "\r\n"
+                int fim = i;
+                while (fim < limite && dados.get(fim) != '\n' && dados.get(fim) != '\r') {
+                    fim++;
+                }
+                int tamanho = fim - i;
+                dados.get(i, interpretador.reservar(tamanho), 0, tamanho);
+
+                if (fim < limite && dados.get(fim) == '\r' && fim + 1 < limite && dados.get(fim + 1) == '\n') {
+                    fim++;
+                }
+                i = fim + 1;
+
+                try {
+                    contrato contrato = interpretador.interpretar(tamanho);
+                    if (contrato != null) {
+                        contratos.add(contrato);
+                        maxId = Math.max(maxId, contrato.getId());
+                    }
+                } catch (IllegalArgumentException | DateTimeParseException e) {
+                    erro = e;
+                    break;
+                }
+            }
+            return this;
+        }
+    }
+
+    // Interpretação de uma linha já em bytes; também usada pelo TextoIndexado.
+    // Cada instância reaproveita seus vetores entre as linhas: uma por thread
+    static final class Interpretador {
+        private final Charset charset;
+        private final DiarioContratos.Leitor leitorPadrao;
+        private byte[] linha = new byte[512];
+        private final int[] inicioCampo = new int[CAMPOS];
+        private final int[] fimCampo = new int[CAMPOS];
+
+        Interpretador(Charset charset, DiarioContratos.Leitor leitorPadrao) {
+            this.charset = charset;
+            this.leitorPadrao = leitorPadrao;
+        }
+
+        // Buffer com espaço para a linha; ela deve ser copiada para o início dele
+        byte[] reservar(int tamanho) {
+            if (tamanho > linha.length) {
+                linha = new byte[Math.max(tamanho, linha.length * 2)];
+            }
+            return linha;
+        }
+
+        contrato interpretar(byte[] origem, int inicio, int tamanho) {
+            System.arraycopy(origem, inicio, reservar(tamanho), 0, tamanho);
+            return interpretar(tamanho);
+        }
+
+        // Linha nos primeiros "tamanho" bytes do buffer; null se faltarem campos
+        contrato interpretar(int tamanho) {
+            // Equivale a split("\\|") seguido do descarte dos campos vazios do final
+            int campos = 0;
+            int efetivos = 0;
+            int inicio = 0;
+            for (int p = 0; p <= tamanho; p++) {
+                if (p == tamanho || linha[p] == '|') {
+                    if (campos < CAMPOS) {
+                        inicioCampo[campos] = inicio;
+                        fimCampo[campos] = p;
+                    }
+                    campos++;
+                    if (p > inicio) {
+                        efetivos = campos;
+                    }
+                    inicio = p + 1;
+                }
+            }
+            if (efetivos < 9) {
+                if (tamanho > 0) {
+                    Metricas.erroDeLeitura(Metricas.Campo.CAMPOS);
+                }
+                return null;
+            }
+
+            long id = lerInteiro(0);
+            long centavos = lerCentavos(5);
+            int celebracao = lerData(6);
+            int inicioVigencia = lerData(7);
+            int termino = lerData(8);
+            if (id == Long.MIN_VALUE || centavos == Long.MIN_VALUE || celebracao == Integer.MIN_VALUE
+                    || inicioVigencia == Integer.MIN_VALUE || termino == Integer.MIN_VALUE) {
+                // Fora do caminho rápido: o leitor padrão decide (e lança a mesma exceção de antes)
+                return leitorPadrao.ler(new String(linha, 0, tamanho, charset));
+            }
+
+            // Já na forma compacta: o CPF no formato ddd.ddd.ddd-dd é empacotado sem virar String
+            int ini = aparadoInicio(3);
+            int fim = aparadoFim(3, ini);
+            long cpf = formatoPadrao(ini, fim) ? ValidaCPF.empacotar(linha, ini, fim) : ValidaCPF.INVALIDO;
+            return contrato.compacto(
+                (int) id, texto(1), texto(2), texto(4), efetivos > 9 ? texto(9) : "", centavos,
+                celebracao, inicioVigencia, termino, cpf, cpf == ValidaCPF.INVALIDO ? texto(3) : null
+            );
+        }
+
+        private boolean formatoPadrao(int ini, int fim) {
+            if (fim - ini != 14 || linha[ini + 3] != '.' || linha[ini + 7] != '.' || linha[ini + 11] != '-') {
+                return false;
+            }
+            for (int p = ini; p < fim; p++) {
+                int i = p - ini;
+                if (i != 3 && i != 7 && i != 11 && (linha[p] < '0' || linha[p] > '9')) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private String texto(int campo) {
+            int ini = aparadoInicio(campo);
+            int fim = aparadoFim(campo, ini);
+            return new String(linha, ini, fim - ini, charset);
+        }
+
+        // Integer.parseInt do campo aparado; Long.MIN_VALUE quando não for o caso simples
+        private long lerInteiro(int campo) {
+            int ini = aparadoInicio(campo);
+            int fim = aparadoFim(campo, ini);
+            boolean negativo = false;
+            if (ini < fim && (linha[ini] == '-' || linha[ini] == '+')) {
+                negativo = linha[ini] == '-';
+                ini++;
+            }
+            if (ini == fim || fim - ini > 10) {
+                return Long.MIN_VALUE;
+            }
+            long valor = 0;
+            for (int p = ini; p < fim; p++) {
+                int d = linha[p] - '0';
+                if (d < 0 || d > 9) {
+                    return Long.MIN_VALUE;
+                }
+                valor = valor * 10 + d;
+            }
+            valor = negativo ? -valor : valor;
+            return valor < Integer.MIN_VALUE || valor > Integer.MAX_VALUE ? Long.MIN_VALUE : valor;
+        }
+
+        // Mantém só dígitos e a vírgula decimal, como replaceAll("[^\\d,]", ""), e arredonda como
+        // contrato.paraCentavos; Long.MIN_VALUE fora do caso simples
+        private long lerCentavos(int campo) {
+            long mantissa = 0;
+            int significativos = 0;
+            int digitos = 0;
+            int decimais = 0;
+            boolean virgula = false;
+            for (int p = inicioCampo[campo]; p < fimCampo[campo]; p++) {
+                byte b = linha[p];
+                if (b >= '0' && b <= '9') {
+                    digitos++;
+                    if (mantissa != 0 || b != '0') {
+                        significativos++;
+                    }
+                    mantissa = mantissa * 10 + (b - '0');
+                    if (virgula) {
+                        decimais++;
+                    }
+                } else if (b == ',') {
+                    if (virgula) {
+                        return Long.MIN_VALUE;
+                    }
+                    virgula = true;
+                }
+            }
+            // Até 15 dígitos e 10^k exato: a divisão em double já é o arredondamento correto
+            if (digitos == 0 || significativos > 15 || decimais >= POTENCIAS_DE_10.length) {
+                return Long.MIN_VALUE;
+            }
+            // Até 2 casas os centavos são a própria mantissa (paraCentavos chegaria ao mesmo)
+            if (decimais <= 2) {
+                long centavos = decimais == 0 ? mantissa * 100 : decimais == 1 ? mantissa * 10 : mantissa;
+                if (centavos <= CENTAVOS_MAXIMO) {
+                    return centavos;
+                }
+            }
+            return contrato.paraCentavos(mantissa / POTENCIAS_DE_10[decimais]);
+        }
+
+        // dd/MM/yyyy com o ResolverStyle.SMART padrão (ex.: 31/04 vira 30/04), em dias desde a
+        // época; Integer.MIN_VALUE fora do caso simples
+        private int lerData(int campo) {
+            int ini = aparadoInicio(campo);
+            int fim = aparadoFim(campo, ini);
+            if (fim - ini != 10 || linha[ini + 2] != '/' || linha[ini + 5] != '/') {
+                return Integer.MIN_VALUE;
+            }
+            int dia = doisDigitos(ini);
+            int mes = doisDigitos(ini + 3);
+            int ano = doisDigitos(ini + 6) * 100 + doisDigitos(ini + 8);
+            if (dia < 1 || dia > 31 || mes < 1 || mes > 12 || ano < 1) {
+                return Integer.MIN_VALUE;
+            }
+            return FormatoTexto.diaDaEpoca(ano, mes, dia);
+        }
+
+        private int doisDigitos(int p) {
+            int a = linha[p] - '0';
+            int b = linha[p + 1] - '0';
+            if (a < 0 || a > 9 || b < 0 || b > 9) {
+                return -10000;
+            }
+            return a * 10 + b;
+        }
+
+        // Mesmo critério de String.trim(): remove bytes <= ' ' nas pontas
+        private int aparadoInicio(int campo) {
+            int p = inicioCampo[campo];
+            while (p < fimCampo[campo] && (linha[p] & 0xFF) <= ' ') {
+                p++;
+            }
+            return p;
+        }
+
+        private int aparadoFim(int campo, int ini) {
+            int p = fimCampo[campo];
+            while (p > ini && (linha[p - 1] & 0xFF) <= ' ') {
+                p--;
+            }
+            return p;
+        }
+    }
+}
@@ -0,0 +1,296 @@
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+// Diário (journal) de alterações: cada criação/edição grava uma linha "P|<contrato>"
+// e cada exclusão grava "D|<id>". O arquivo principal só é reescrito na compactação.
+public class DiarioContratos {
+    private static final String GRAVACAO = "P|";
+    private static final String EXCLUSAO = "D|";
+    private static final long LIMITE_MINIMO = 1024 * 1024; // 1 MB
+
+    private final File arquivoDados;
+    private final File arquivoDiario;
+    private final File arquivoCompactando;
+    private final File arquivoTemporario;
+    private final Charset charset = Charset.defaultCharset();
+    private final ExecutorService compactador = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "compactador-contratos");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private FileOutputStream saida;
+    private long tamanhoDiario;
+    private Future<?> compactacao;
+    // Falha da última compactação ou checkpoint (null se gravou): quem pediu o snapshot a consulta
+    private volatile IOException falha;
+
+    public interface Leitor {
+        contrato ler(String linha);
+    }
+
+    // Grava o estado completo no arquivo indicado (texto ou binário)
+    public interface Snapshot {
+        void gravar(File destino) throws IOException;
+    }
+
+    // Grava no lugar o estado completo de um armazenamento em disco (arquivo paginado)
+    public interface Checkpoint {
+        void gravar() throws IOException;
+    }
+
+    public DiarioContratos(String arquivoDados) {
+        this.arquivoDados = new File(arquivoDados);
+        this.arquivoDiario = new File(arquivoDados + ".diario");
+        this.arquivoCompactando = new File(arquivoDados + ".diario.1");
+        this.arquivoTemporario = new File(arquivoDados + ".tmp");
+    }
+
+    // Indica se sobrou diário de uma execução anterior (precisa compactar após reproduzir)
+    public boolean possuiPendencias() {
+        return arquivoDiario.exists() || arquivoCompactando.exists();
+    }
+
+    // Reaplica as alterações na ordem: primeiro a geração em compactação, depois a atual.
+    // Registros repetidos são inofensivos, pois gravação e exclusão são idempotentes por ID.
+    public void reproduzir(Leitor leitor, Consumer<contrato> gravacao,
+                           IntConsumer exclusao) throws IOException {
+        reproduzir(arquivoCompactando, leitor, gravacao, exclusao);
+        reproduzir(arquivoDiario, leitor, gravacao, exclusao);
+    }
+
+    private void reproduzir(File arquivo, Leitor leitor, Consumer<contrato> gravacao,
+                            IntConsumer exclusao) throws IOException {
+        if (!arquivo.exists()) {
+            return;
+        }
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(arquivo), charset))) {
+            String linha;
+            while ((linha = reader.readLine()) != null) {
+                try {
+                    if (linha.startsWith(GRAVACAO)) {
+                        contrato contrato = leitor.ler(linha.substring(GRAVACAO.length()));
+                        if (contrato != null) {
+                            gravacao.accept(contrato);
+                        }
+                    } else if (linha.startsWith(EXCLUSAO)) {
+                        exclusao.accept(Integer.parseInt(linha.substring(EXCLUSAO.length()).trim()));
+                    }
+                } catch (RuntimeException e) {
+                    // Registro truncado por uma queda durante a escrita: ignora e segue
+                    System.out.println("Erro ao carregar diário: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    public static String gravacao(contrato contrato) {
+        return FormatoTexto.escrever(contrato, new StringBuilder(160).append(GRAVACAO)).toString();
+    }
+
+    public static String exclusao(int id) {
+        return EXCLUSAO + id;
+    }
+
+    // Registros montados por gravacao()/exclusao(), todos em uma única chamada de write:
+    // o custo não depende do tamanho da base. Cada chamada é um commit em grupo: os bytes vão
+    // para o disco (force) antes de retornar, então sobrevivem também a uma queda do sistema
+    public void registrar(List<String> registros) throws IOException {
+        long inicio = System.nanoTime();
+        String quebra = System.lineSeparator();
+        StringBuilder bloco = new StringBuilder(registros.size() * 128);
+        for (String registro : registros) {
+            bloco.append(registro).append(quebra);
+        }
+        Metricas.BYTES_DIARIO.registrar(escreverBloco(bloco.toString()));
+        Metricas.Operacao.DIARIO.registrar(inicio);
+    }
+
+    // Grava um ou mais registros já terminados por quebra de linha; devolve os bytes gravados
+    private long escreverBloco(String bloco) throws IOException {
+        if (saida == null) {
+            boolean truncado = terminaSemQuebraDeLinha(arquivoDiario);
+            saida = new FileOutputStream(arquivoDiario, true);
+            tamanhoDiario = arquivoDiario.length();
+            if (truncado) {
+                bloco = System.lineSeparator() + bloco;
+            }
+        }
+        byte[] bytes = bloco.getBytes(charset);
+        saida.write(bytes);
+        saida.getChannel().force(false);
+        tamanhoDiario += bytes.length;
+        return bytes.length;
+    }
+
+    private static boolean terminaSemQuebraDeLinha(File arquivo) throws IOException {
+        if (arquivo.length() == 0) {
+            return false;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(arquivo, "r")) {
+            raf.seek(raf.length() - 1);
+            return raf.read() != '\n';
+        }
+    }
+
+    // Compacta quando o diário ultrapassa o tamanho do arquivo principal (custo amortizado constante)
+    public boolean precisaCompactar() {
+        return precisaCompactar(arquivoDados.length());
+    }
+
+    // Idem, comparando com o que a compactação vai regravar (as partições alteradas)
+    public boolean precisaCompactar(long tamanhoRegravado) {
+        if (compactacao != null && !compactacao.isDone()) {
+            return false;
+        }
+        return tamanhoDiario > Math.max(LIMITE_MINIMO, tamanhoRegravado);
+    }
+
+    // Rotaciona o diário e grava o snapshot em segundo plano, uma linha por contrato. Os
+    // contratos (um instantâneo imutável) já devem refletir todas as alterações registradas até aqui.
+    public void compactar(Iterable<contrato> contratos) {
+        compactar(destino -> gravarLinhas(contratos, destino));
+    }
+
+    public void compactar(Snapshot snapshot) {
+        compactarCom(() -> gravarSnapshot(snapshot));
+    }
+
+    // Para os arquivos por ano: o checkpoint regrava as partições alteradas (cada uma com sua
+    // troca atômica) em segundo plano, e a geração rotacionada só é apagada depois de todas
+    public void compactarParticoes(Checkpoint particoes) {
+        compactarCom(() -> {
+            long inicio = System.nanoTime();
+            particoes.gravar();
+            Files.deleteIfExists(arquivoCompactando.toPath());
+            Metricas.Operacao.SNAPSHOT.registrar(inicio);
+        });
+    }
+
+    private void compactarCom(Checkpoint gravacao) {
+        aguardarCompactacao();
+        falha = null;
+        try {
+            fecharSaida();
+            if (arquivoCompactando.exists()) {
+                // Sobra de uma compactação interrompida: as duas gerações já estão nas linhas,
+                // então grava de forma síncrona antes de aceitar novos registros
+                gravacao.gravar();
+                Files.deleteIfExists(arquivoDiario.toPath());
+                return;
+            }
+            if (arquivoDiario.exists()) {
+                Files.move(arquivoDiario.toPath(), arquivoCompactando.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            }
+        } catch (IOException e) {
+            registrarFalha(e);
+            return;
+        }
+
+        compactacao = compactador.submit(() -> {
+            try {
+                gravacao.gravar();
+            } catch (IOException e) {
+                registrarFalha(e);
+            }
+        });
+    }
+
+    // Para o arquivo paginado, atualizado no lugar: o checkpoint já contém tudo o que foi
+    // registrado, então as gerações do diário são apagadas logo depois dele (de forma síncrona)
+    public void descartar(Checkpoint checkpoint) {
+        aguardarCompactacao();
+        falha = null;
+        long inicio = System.nanoTime();
+        try {
+            fecharSaida();
+            checkpoint.gravar();
+            Files.deleteIfExists(arquivoCompactando.toPath());
+            Files.deleteIfExists(arquivoDiario.toPath());
+            Metricas.Operacao.SNAPSHOT.registrar(inicio);
+        } catch (IOException e) {
+            registrarFalha(e);
+        }
+    }
+
+    private void gravarLinhas(Iterable<contrato> contratos, File destino) throws IOException {
+        FormatoTexto.Codificador codificador = new FormatoTexto.Codificador(charset);
+        try (OutputStream saida = new BufferedOutputStream(new FileOutputStream(destino), 1 << 16)) {
+            for (contrato contrato : contratos) {
+                codificador.escrever(contrato, saida);
+            }
+        }
+    }
+
+    private void gravarSnapshot(Snapshot snapshot) throws IOException {
+        long inicio = System.nanoTime();
+        snapshot.gravar(arquivoTemporario);
+        sincronizar(arquivoTemporario.toPath());
+        Metricas.BYTES_SNAPSHOT.registrar(arquivoTemporario.length());
+        // Troca atômica: uma queda no meio da gravação nunca corrompe o arquivo principal
+        Files.move(arquivoTemporario.toPath(), arquivoDados.toPath(),
+                   StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        // Só descarta as gerações do diário que já estão contidas no snapshot
+        Files.deleteIfExists(arquivoCompactando.toPath());
+        Metricas.Operacao.SNAPSHOT.registrar(inicio);
+    }
+
+    // Leva ao disco um arquivo já gravado e fechado, antes de ele substituir outro por uma troca
+    // atômica: sem isso, depois de uma queda de energia a troca pode aparecer com o conteúdo vazio
+    static void sincronizar(Path arquivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.WRITE)) {
+            canal.force(true);
+        }
+    }
+
+    public void aguardarCompactacao() {
+        if (compactacao == null) {
+            return;
+        }
+        try {
+            compactacao.get();
+        } catch (Exception e) {
+            registrarFalha(new IOException(e.getMessage(), e));
+        }
+    }
+
+    public IOException getFalha() {
+        return falha;
+    }
+
+    private void registrarFalha(IOException e) {
+        falha = e;
+        System.out.println("Erro ao salvar dados: " + e.getMessage());
+    }
+
+    private void fecharSaida() throws IOException {
+        if (saida != null) {
+            saida.close();
+            saida = null;
+        }
+        tamanhoDiario = 0;
+    }
+
+    public void fechar() {
+        aguardarCompactacao();
+        compactador.shutdown();
+        try {
+            fecharSaida();
+        } catch (IOException e) {
+            System.out.println("Erro ao salvar dados: " + e.getMessage());
+        }
+    }
+}
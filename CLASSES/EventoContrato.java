@@ -0,0 +1,112 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
+// Alteração confirmada no repositório (já gravada no diário), publicada no FluxoEventos.
+// A sequência cresce de 1 em 1 na ordem em que as alterações foram aplicadas (recomeça a cada
+// abertura do repositório). Os contratos são as versões publicadas, que nunca mudam no lugar:
+// o evento guarda só as referências e as diferenças por campo são calculadas por quem as pede.
+public final class EventoContrato {
+    public enum Tipo { CRIADO, ALTERADO, EXCLUIDO, ARQUIVADO }
+
+    // Campos comparados na alteração, no formato da listagem
+    public enum Campo {
+        CONTRATANTE("contratante", contrato::getContratante),
+        CONTRATADO("contratado", contrato::getContratado),
+        CPF("cpf", contrato::getCpf),
+        NUMERO("numeroContrato", contrato::getNumeroContrato),
+        VALOR("valor", contrato::getValorFormatado),
+        CELEBRACAO("celebracao", contrato::getCelebracaoFormatada),
+        INICIO("inicio", contrato::getInicioFormatado),
+        TERMINO("termino", contrato::getTerminoFormatado),
+        DESCRICAO("descricao", contrato::getDescricao);
+
+        private final String nome;
+        private final Function<contrato, String> leitor;
+
+        Campo(String nome, Function<contrato, String> leitor) {
+            this.nome = nome;
+            this.leitor = leitor;
+        }
+
+        public String getNome() {
+            return nome;
+        }
+
+        public String ler(contrato contrato) {
+            return leitor.apply(contrato);
+        }
+    }
+
+    public static final class Mudanca {
+        public final Campo campo;
+        public final String antes;
+        public final String depois;
+
+        Mudanca(Campo campo, String antes, String depois) {
+            this.campo = campo;
+            this.antes = antes;
+            this.depois = depois;
+        }
+
+        @Override
+        public String toString() {
+            return campo.getNome() + ": " + antes + " -> " + depois;
+        }
+    }
+
+    private final long sequencia;
+    private final Tipo tipo;
+    private final long instante; // System.currentTimeMillis() da alteração
+    private final contrato anterior; // null na criação
+    private final contrato atual; // null na exclusão e no arquivamento
+
+    EventoContrato(long sequencia, Tipo tipo, contrato anterior, contrato atual) {
+        this.sequencia = sequencia;
+        this.tipo = tipo;
+        this.instante = System.currentTimeMillis();
+        this.anterior = anterior;
+        this.atual = atual;
+    }
+
+    public long getSequencia() {
+        return sequencia;
+    }
+
+    public Tipo getTipo() {
+        return tipo;
+    }
+
+    public long getInstante() {
+        return instante;
+    }
+
+    public int getId() {
+        return atual != null ? atual.getId() : anterior.getId();
+    }
+
+    public contrato getAnterior() {
+        return anterior;
+    }
+
+    public contrato getAtual() {
+        return atual;
+    }
+
+    // Campos com valor diferente entre as duas versões (vazio fora das alterações)
+    public List<Mudanca> mudancas() {
+        List<Mudanca> mudancas = new ArrayList<>();
+        if (anterior == null || atual == null) {
+            return mudancas;
+        }
+        for (Campo campo : Campo.values()) {
+            String antes = campo.ler(anterior);
+            String depois = campo.ler(atual);
+            if (!Objects.equals(antes, depois)) {
+                mudancas.add(new Mudanca(campo, antes, depois));
+            }
+        }
+        return mudancas;
+    }
+}
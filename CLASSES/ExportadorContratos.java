@@ -0,0 +1,292 @@
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Predicate;
+
+// Exportação em fluxo para CSV (';', mesmas colunas aceitas pela importação) ou JSON Lines.
+// Cada registro é montado em um único StringBuilder reaproveitado e enviado ao mesmo
+// Writer com buffer, então a memória usada não depende da quantidade de contratos.
+public class ExportadorContratos {
+    private static final DateTimeFormatter formatoData = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    public enum Formato { CSV, JSONL }
+
+    public enum Campo {
+        ID("id"), CONTRATANTE("contratante"), CONTRATADO("contratado"), NUMERO("numeroContrato"),
+        DESCRICAO("descricao"), CPF("cpf"), CELEBRACAO("celebracao"), INICIO("inicio"),
+        TERMINO("termino"), VALOR("valor");
+
+        final String nome;
+
+        Campo(String nome) {
+            this.nome = nome;
+        }
+
+        public static Campo porNome(String nome) {
+            for (Campo campo : values()) {
+                if (campo.nome.equalsIgnoreCase(nome.trim())) {
+                    return campo;
+                }
+            }
+            throw new IllegalArgumentException("Campo desconhecido: " + nome);
+        }
+    }
+
+    // No CSV, as colunas padrão são exatamente as da importação (o arquivo pode ser reimportado)
+    private static final List<Campo> CAMPOS_IMPORTACAO = List.of(
+        Campo.CONTRATANTE, Campo.CONTRATADO, Campo.NUMERO, Campo.DESCRICAO, Campo.CPF,
+        Campo.CELEBRACAO, Campo.INICIO, Campo.TERMINO, Campo.VALOR);
+
+    // Filtros opcionais (null = sem restrição); datas se referem à celebração
+    public static final class Filtro implements Predicate<contrato> {
+        LocalDate celebracaoDe;
+        LocalDate celebracaoAte;
+        String contratante; // prefixo, já normalizado
+        Double valorMin;
+        Double valorMax;
+
+        public boolean porContratante() {
+            return contratante != null;
+        }
+
+        @Override
+        public boolean test(contrato contrato) {
+            if (celebracaoDe != null && contrato.getCelebracao().isBefore(celebracaoDe)) {
+                return false;
+            }
+            if (celebracaoAte != null && contrato.getCelebracao().isAfter(celebracaoAte)) {
+                return false;
+            }
+            if (valorMin != null && contrato.getValor() < valorMin) {
+                return false;
+            }
+            if (valorMax != null && contrato.getValor() > valorMax) {
+                return false;
+            }
+            return contratante == null
+                || IndicesSecundarios.normalizarNome(contrato.getContratante()).startsWith(contratante);
+        }
+    }
+
+    private final Formato formato;
+    private final List<Campo> campos;
+    private final StringBuilder registro = new StringBuilder(256);
+
+    public ExportadorContratos(Formato formato, List<Campo> campos) {
+        this.formato = formato;
+        this.campos = campos;
+    }
+
+    // Opções no formato "--de 01/01/2025 --ate 31/12/2025 --contratante ana --valor-min 100
+    // --valor-max 5000 --campos id,contratante,valor"
+    public static Filtro lerOpcoes(String[] args, int inicio, List<Campo> camposEscolhidos) {
+        Filtro filtro = new Filtro();
+        for (int i = inicio; i < args.length; i += 2) {
+            if (i + 1 == args.length) {
+                throw new IllegalArgumentException("Falta o valor da opção " + args[i]);
+            }
+            String valor = args[i + 1];
+            switch (args[i]) {
+                case "--de" -> filtro.celebracaoDe = LocalDate.parse(valor, formatoData);
+                case "--ate" -> filtro.celebracaoAte = LocalDate.parse(valor, formatoData);
+                case "--contratante" -> filtro.contratante = IndicesSecundarios.normalizarNome(valor);
+                case "--valor-min" -> filtro.valorMin = Double.parseDouble(valor);
+                case "--valor-max" -> filtro.valorMax = Double.parseDouble(valor);
+                case "--campos" -> {
+                    camposEscolhidos.clear();
+                    for (String nome : valor.split(",")) {
+                        camposEscolhidos.add(Campo.porNome(nome));
+                    }
+                }
+                default -> throw new IllegalArgumentException("Opção desconhecida: " + args[i]);
+            }
+        }
+        return filtro;
+    }
+
+    public static List<Campo> camposPadrao(Formato formato) {
+        if (formato == Formato.CSV) {
+            return new ArrayList<>(CAMPOS_IMPORTACAO);
+        }
+        return new ArrayList<>(List.of(Campo.values()));
+    }
+
+    public static Formato formatoPorNome(String nome) {
+        return Formato.valueOf(nome.trim().toUpperCase(Locale.ROOT));
+    }
+
+    public void cabecalho(Writer destino) throws IOException {
+        if (formato != Formato.CSV) {
+            return;
+        }
+        registro.setLength(0);
+        for (int i = 0; i < campos.size(); i++) {
+            if (i > 0) {
+                registro.append(';');
+            }
+            registro.append(campos.get(i).nome);
+        }
+        registro.append('\n');
+        destino.append(registro);
+    }
+
+    // Devolve quantos contratos foram exportados
+    public long exportar(Iterable<contrato> contratos, Predicate<contrato> filtro, Writer destino)
+            throws IOException {
+        long total = 0;
+        for (contrato contrato : contratos) {
+            if (contrato != null && filtro.test(contrato)) {
+                registro.setLength(0);
+                if (formato == Formato.CSV) {
+                    csv(contrato);
+                } else {
+                    json(contrato);
+                }
+                registro.append('\n');
+                destino.append(registro);
+                total++;
+            }
+        }
+        return total;
+    }
+
+    private void csv(contrato contrato) {
+        for (int i = 0; i < campos.size(); i++) {
+            if (i > 0) {
+                registro.append(';');
+            }
+            Campo campo = campos.get(i);
+            switch (campo) {
+                case ID -> registro.append(contrato.getId());
+                case VALOR -> valor(contrato.getCentavos());
+                case CELEBRACAO -> data(contrato.getCelebracao());
+                case INICIO -> data(contrato.getInicio());
+                case TERMINO -> data(contrato.getTermino());
+                default -> textoCsv(texto(contrato, campo));
+            }
+        }
+    }
+
+    private void json(contrato contrato) {
+        registro.append('{');
+        for (int i = 0; i < campos.size(); i++) {
+            if (i > 0) {
+                registro.append(',');
+            }
+            Campo campo = campos.get(i);
+            registro.append('"').append(campo.nome).append("\":");
+            switch (campo) {
+                case ID -> registro.append(contrato.getId());
+                case VALOR -> valor(contrato.getCentavos());
+                case CELEBRACAO -> dataIso(contrato.getCelebracao());
+                case INICIO -> dataIso(contrato.getInicio());
+                case TERMINO -> dataIso(contrato.getTermino());
+                default -> textoJson(texto(contrato, campo));
+            }
+        }
+        registro.append('}');
+    }
+
+    private static String texto(contrato contrato, Campo campo) {
+        return switch (campo) {
+            case CONTRATANTE -> contrato.getContratante();
+            case CONTRATADO -> contrato.getContratado();
+            case NUMERO -> contrato.getNumeroContrato();
+            case DESCRICAO -> contrato.getDescricao();
+            case CPF -> contrato.getCpf();
+            default -> throw new IllegalArgumentException(campo.nome);
+        };
+    }
+
+    // Valor em ponto decimal com duas casas (ex.: 6500.00), sem NumberFormat
+    private void valor(long centavos) {
+        if (centavos < 0) {
+            registro.append('-');
+            centavos = -centavos;
+        }
+        registro.append(centavos / 100).append('.');
+        long resto = centavos % 100;
+        if (resto < 10) {
+            registro.append('0');
+        }
+        registro.append(resto);
+    }
+
+    // dd/MM/yyyy, o mesmo formato aceito pela importação
+    private void data(LocalDate data) {
+        doisDigitos(data.getDayOfMonth());
+        registro.append('/');
+        doisDigitos(data.getMonthValue());
+        registro.append('/');
+        ano(data.getYear());
+    }
+
+    private void dataIso(LocalDate data) {
+        registro.append('"');
+        ano(data.getYear());
+        registro.append('-');
+        doisDigitos(data.getMonthValue());
+        registro.append('-');
+        doisDigitos(data.getDayOfMonth());
+        registro.append('"');
+    }
+
+    private void ano(int ano) {
+        if (ano >= 0 && ano < 1000) {
+            registro.append(ano < 10 ? "000" : ano < 100 ? "00" : "0");
+        }
+        registro.append(ano);
+    }
+
+    private void doisDigitos(int valor) {
+        registro.append((char) ('0' + valor / 10)).append((char) ('0' + valor % 10));
+    }
+
+    // Aspas apenas quando necessário (';', aspas ou quebra de linha)
+    private void textoCsv(String valor) {
+        boolean precisaAspas = false;
+        for (int i = 0; i < valor.length() && !precisaAspas; i++) {
+            char c = valor.charAt(i);
+            precisaAspas = c == ';' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!precisaAspas) {
+            registro.append(valor);
+            return;
+        }
+        registro.append('"');
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            if (c == '"') {
+                registro.append('"');
+            }
+            registro.append(c);
+        }
+        registro.append('"');
+    }
+
+    private void textoJson(String valor) {
+        registro.append('"');
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            switch (c) {
+                case '"' -> registro.append("\\\"");
+                case '\\' -> registro.append("\\\\");
+                case '\n' -> registro.append("\\n");
+                case '\r' -> registro.append("\\r");
+                case '\t' -> registro.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        registro.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        registro.append(c);
+                    }
+                }
+            }
+        }
+        registro.append('"');
+    }
+}
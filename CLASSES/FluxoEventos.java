@@ -0,0 +1,168 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Entrega dos eventos do repositório a assinantes assíncronos por um anel de tamanho fixo.
+// Há um único produtor (o gravador do repositório) e cada assinante tem uma thread e um cursor
+// próprios: ela copia até loteMaximo eventos do anel de uma vez e os entrega fora da trava.
+// Com o anel cheio o produtor espera o assinante mais atrasado (contrapressão): as alterações
+// seguem sendo aplicadas na memória, mas a gravação seguinte no diário aguarda.
+// Um assinante novo recebe só os eventos publicados depois de assinar.
+public class FluxoEventos {
+    // Recebe os lotes em ordem de sequência, sempre pela mesma thread
+    public interface Assinante {
+        void receber(List<EventoContrato> eventos) throws IOException;
+
+        // Depois do último lote, no fechamento do fluxo
+        default void encerrar() throws IOException {
+        }
+    }
+
+    private final EventoContrato[] anel;
+    private final int mascara;
+    private final int loteMaximo;
+    private final ReentrantLock trava = new ReentrantLock();
+    private final Condition naoCheio = trava.newCondition();
+    private final Condition naoVazio = trava.newCondition();
+    private final List<Assinatura> assinaturas = new ArrayList<>();
+    private long publicados; // total de eventos já postos no anel
+    private boolean fechado;
+
+    private final class Assinatura implements Runnable {
+        final String nome;
+        final Assinante assinante;
+        final Thread thread;
+        long lidos; // guardado pela trava
+
+        Assinatura(String nome, Assinante assinante) {
+            this.nome = nome;
+            this.assinante = assinante;
+            this.lidos = publicados;
+            this.thread = new Thread(this, "assinante-" + nome);
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            List<EventoContrato> lote;
+            while ((lote = proximoLote(this)) != null) {
+                try {
+                    assinante.receber(lote);
+                } catch (IOException | RuntimeException e) {
+                    // Um lote perdido não para o assinante (nem o produtor)
+                    System.out.println("Erro no assinante " + nome + ": " + e.getMessage());
+                }
+            }
+            try {
+                assinante.encerrar();
+            } catch (IOException | RuntimeException e) {
+                System.out.println("Erro no assinante " + nome + ": " + e.getMessage());
+            }
+        }
+    }
+
+    // capacidade é arredondada para a potência de 2 seguinte
+    public FluxoEventos(int capacidade, int loteMaximo) {
+        int tamanho = Integer.highestOneBit(Math.max(2, capacidade - 1)) << 1;
+        this.anel = new EventoContrato[tamanho];
+        this.mascara = tamanho - 1;
+        this.loteMaximo = Math.max(1, loteMaximo);
+    }
+
+    public void assinar(String nome, Assinante assinante) {
+        Assinatura assinatura;
+        trava.lock();
+        try {
+            if (fechado) {
+                throw new IllegalStateException("Fluxo de eventos fechado");
+            }
+            assinatura = new Assinatura(nome, assinante);
+            assinaturas.add(assinatura);
+        } finally {
+            trava.unlock();
+        }
+        assinatura.thread.start();
+    }
+
+    // Só o produtor chama; bloqueia enquanto o assinante mais atrasado não abrir espaço
+    public void publicar(List<EventoContrato> eventos) {
+        trava.lock();
+        try {
+            for (EventoContrato evento : eventos) {
+                while (!fechado && publicados - menorLido() > mascara) {
+                    naoVazio.signalAll();
+                    naoCheio.awaitUninterruptibly();
+                }
+                if (fechado) {
+                    return;
+                }
+                anel[(int) (publicados & mascara)] = evento;
+                publicados++;
+            }
+            naoVazio.signalAll();
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    // Com a trava; sem assinantes não há quem esperar
+    private long menorLido() {
+        long menor = publicados;
+        for (Assinatura assinatura : assinaturas) {
+            menor = Math.min(menor, assinatura.lidos);
+        }
+        return menor;
+    }
+
+    // Próximo lote do assinante, ou null quando o fluxo fechou e ele já leu tudo
+    private List<EventoContrato> proximoLote(Assinatura assinatura) {
+        trava.lock();
+        try {
+            while (assinatura.lidos == publicados) {
+                if (fechado) {
+                    return null;
+                }
+                naoVazio.awaitUninterruptibly();
+            }
+            int quantidade = (int) Math.min(publicados - assinatura.lidos, loteMaximo);
+            List<EventoContrato> lote = new ArrayList<>(quantidade);
+            for (int i = 0; i < quantidade; i++) {
+                lote.add(anel[(int) ((assinatura.lidos + i) & mascara)]);
+            }
+            assinatura.lidos += quantidade;
+            naoCheio.signalAll();
+            return lote;
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    // Entrega o que já foi publicado e espera os assinantes encerrarem
+    public void fechar() {
+        List<Assinatura> ativas;
+        trava.lock();
+        try {
+            fechado = true;
+            naoVazio.signalAll();
+            naoCheio.signalAll();
+            ativas = new ArrayList<>(assinaturas);
+        } finally {
+            trava.unlock();
+        }
+        boolean interrompido = false;
+        for (Assinatura assinatura : ativas) {
+            while (assinatura.thread.isAlive()) {
+                try {
+                    assinatura.thread.join();
+                } catch (InterruptedException e) {
+                    interrompido = true;
+                }
+            }
+        }
+        if (interrompido) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,283 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Formato binário versionado do arquivo de contratos, lido e gravado por FileChannel/ByteBuffer.
+//
+// Cabeçalho: int "CTRB" | short versão | short reservado | int quantidade
+// Registro:  int id | long centavos | int celebração | int início | int término (dias desde a época)
+//            | long CPF empacotado (-1 se o texto do CPF não for "ddd.ddd.ddd-dd")
+//            | contratante | contratado | número | descrição [| CPF em texto]
+// Textos: int com o tamanho em bytes seguido do conteúdo em UTF-8.
+public class FormatoBinario {
+    private static final int MAGICO = 0x43545242; // "CTRB"
+    private static final short VERSAO = 1;
+    private static final int TAMANHO_CABECALHO = 12;
+    private static final int TAMANHO_FIXO = 4 + 8 + 4 + 4 + 4 + 8;
+    private static final int TAMANHO_BUFFER = 1 << 20;
+
+    // Um único registro, sem cabeçalho (usado pelas páginas do ArquivoPaginado)
+    static byte[] codificar(contrato contrato) {
+        Codificador codificador = new Codificador(160);
+        codificador.registro(contrato);
+        ByteBuffer buffer = codificador.buffer.flip();
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    // Lê um registro inteiro já presente em "origem", a partir da posição atual
+    static contrato decodificar(ByteBuffer origem) throws IOException {
+        int id = origem.getInt();
+        long centavos = origem.getLong();
+        int celebracao = origem.getInt();
+        int inicio = origem.getInt();
+        int termino = origem.getInt();
+        long cpf = origem.getLong();
+        String contratante = texto(origem);
+        String contratado = texto(origem);
+        String numeroContrato = texto(origem);
+        String descricao = texto(origem);
+        String cpfTexto = cpf == ValidaCPF.INVALIDO ? texto(origem) : null;
+
+        return contrato.compacto(
+            id, contratante, contratado, numeroContrato,
+            descricao, centavos, celebracao, inicio, termino, cpf, cpfTexto
+        );
+    }
+
+    private static String texto(ByteBuffer origem) throws IOException {
+        int tamanho = origem.getInt();
+        if (tamanho < 0 || tamanho > origem.remaining()) {
+            throw corrompido(tamanho);
+        }
+        byte[] bytes = new byte[tamanho];
+        origem.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Grava em blocos de TAMANHO_BUFFER: a memória usada não depende do tamanho da base
+    public static void salvar(Iterable<contrato> contratos, Path destino) throws IOException {
+        try (FileChannel canal = FileChannel.open(destino, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            Codificador codificador = new Codificador(TAMANHO_BUFFER);
+            codificador.cabecalho();
+            int quantidade = 0;
+            for (contrato contrato : contratos) {
+                codificador.registro(contrato);
+                quantidade++;
+                if (codificador.buffer.position() >= TAMANHO_BUFFER) {
+                    descarregar(canal, codificador.buffer);
+                }
+            }
+            descarregar(canal, codificador.buffer);
+
+            // A quantidade só é conhecida no fim: corrige o cabeçalho
+            ByteBuffer total = ByteBuffer.allocate(4).putInt(0, quantidade);
+            canal.write(total, 8);
+        }
+    }
+
+    public static List<contrato> carregar(Path origem) throws IOException {
+        List<contrato> contratos = new ArrayList<>();
+        carregar(origem, contratos::add);
+        return contratos;
+    }
+
+    public static void carregar(Path origem, Consumer<contrato> destino) throws IOException {
+        try (FileChannel canal = FileChannel.open(origem, StandardOpenOption.READ)) {
+            Decodificador decodificador = new Decodificador(canal);
+            decodificador.garantir(TAMANHO_CABECALHO);
+            ByteBuffer buffer = decodificador.buffer;
+            if (buffer.getInt() != MAGICO) {
+                throw new IOException("Arquivo binário de contratos inválido: " + origem);
+            }
+            short versao = buffer.getShort();
+            if (versao != VERSAO) {
+                throw new IOException("Versão do arquivo binário não suportada: " + versao);
+            }
+            buffer.getShort();
+            int quantidade = buffer.getInt();
+
+            for (int i = 0; i < quantidade; i++) {
+                destino.accept(decodificador.registro());
+            }
+        }
+    }
+
+    // Conversores entre os dois formatos
+    public static int textoParaBinario(Path texto, Path binario, Charset charset, DiarioContratos.Leitor leitor)
+            throws IOException {
+        CarregadorContratos.Resultado resultado = CarregadorContratos.carregar(texto, charset, leitor);
+        if (resultado.erro != null) {
+            throw new IOException(resultado.erro.getMessage(), resultado.erro);
+        }
+        salvar(resultado.contratos, binario);
+        return resultado.contratos.size();
+    }
+
+    public static int binarioParaTexto(Path binario, Path texto, Charset charset) throws IOException {
+        int[] quantidade = {0};
+        try (FileChannel canal = FileChannel.open(texto, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(TAMANHO_BUFFER);
+            byte[] quebra = System.lineSeparator().getBytes(charset);
+            FormatoTexto.Codificador codificador = new FormatoTexto.Codificador(charset);
+            IOException[] falha = {null};
+            carregar(binario, contrato -> {
+                if (falha[0] != null) {
+                    return;
+                }
+                try {
+                    int tamanho = codificador.codificar(contrato);
+                    byte[] linha = codificador.bytes();
+                    if (buffer.remaining() < tamanho + quebra.length) {
+                        descarregar(canal, buffer);
+                    }
+                    if (buffer.remaining() < tamanho + quebra.length) {
+                        canal.write(ByteBuffer.wrap(linha, 0, tamanho));
+                        canal.write(ByteBuffer.wrap(quebra));
+                    } else {
+                        buffer.put(linha, 0, tamanho).put(quebra);
+                    }
+                    quantidade[0]++;
+                } catch (IOException e) {
+                    falha[0] = e;
+                }
+            });
+            if (falha[0] != null) {
+                throw falha[0];
+            }
+            descarregar(canal, buffer);
+        }
+        return quantidade[0];
+    }
+
+    private static IOException corrompido(int tamanho) {
+        return new IOException("Arquivo binário de contratos corrompido: texto com " + tamanho + " bytes");
+    }
+
+    private static void descarregar(FileChannel canal, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            canal.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static final class Codificador {
+        ByteBuffer buffer;
+
+        Codificador(int capacidade) {
+            buffer = ByteBuffer.allocate(capacidade);
+        }
+
+        void cabecalho() {
+            buffer.putInt(MAGICO).putShort(VERSAO).putShort((short) 0).putInt(0);
+        }
+
+        void registro(contrato contrato) {
+            garantir(TAMANHO_FIXO);
+            // Mesma forma compacta da memória: nenhum campo precisa ser convertido
+            long cpf = contrato.getCpfEmpacotado();
+            buffer.putInt(contrato.getId())
+                  .putLong(contrato.getCentavos())
+                  .putInt(contrato.getCelebracaoDia())
+                  .putInt(contrato.getInicioDia())
+                  .putInt(contrato.getTerminoDia())
+                  .putLong(cpf);
+            texto(contrato.getContratante());
+            texto(contrato.getContratado());
+            texto(contrato.getNumeroContrato());
+            texto(contrato.getDescricao());
+            if (cpf == ValidaCPF.INVALIDO) {
+                texto(contrato.getCpf());
+            }
+        }
+
+        private void texto(String valor) {
+            byte[] bytes = valor.getBytes(StandardCharsets.UTF_8);
+            garantir(4 + bytes.length);
+            buffer.putInt(bytes.length).put(bytes);
+        }
+
+        private void garantir(int necessario) {
+            if (buffer.remaining() < necessario) {
+                ByteBuffer maior = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + necessario));
+                buffer.flip();
+                maior.put(buffer);
+                buffer = maior;
+            }
+        }
+    }
+
+    private static final class Decodificador {
+        private final FileChannel canal;
+        ByteBuffer buffer = ByteBuffer.allocate(TAMANHO_BUFFER).flip();
+
+        Decodificador(FileChannel canal) {
+            this.canal = canal;
+        }
+
+        contrato registro() throws IOException {
+            garantir(TAMANHO_FIXO);
+            int id = buffer.getInt();
+            long centavos = buffer.getLong();
+            int celebracao = buffer.getInt();
+            int inicio = buffer.getInt();
+            int termino = buffer.getInt();
+            long cpf = buffer.getLong();
+            String contratante = texto();
+            String contratado = texto();
+            String numeroContrato = texto();
+            String descricao = texto();
+            String cpfTexto = cpf == ValidaCPF.INVALIDO ? texto() : null;
+
+            return contrato.compacto(
+                id, contratante, contratado, numeroContrato,
+                descricao, centavos, celebracao, inicio, termino, cpf, cpfTexto
+            );
+        }
+
+        private String texto() throws IOException {
+            garantir(4);
+            int tamanho = buffer.getInt();
+            // Um tamanho lido de um arquivo corrompido não pode virar uma alocação qualquer
+            if (tamanho < 0 || tamanho > buffer.remaining() + canal.size() - canal.position()) {
+                throw corrompido(tamanho);
+            }
+            garantir(tamanho);
+            String valor = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), tamanho,
+                                      StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + tamanho);
+            return valor;
+        }
+
+        // Recarrega o buffer do canal até haver "necessario" bytes disponíveis
+        void garantir(int necessario) throws IOException {
+            if (buffer.remaining() >= necessario) {
+                return;
+            }
+            if (buffer.capacity() < necessario) {
+                ByteBuffer maior = ByteBuffer.allocate(necessario);
+                maior.put(buffer);
+                buffer = maior;
+            } else {
+                buffer.compact();
+            }
+            while (buffer.position() < necessario) {
+                if (canal.read(buffer) < 0) {
+                    throw new IOException("Arquivo binário de contratos truncado");
+                }
+            }
+            buffer.flip();
+        }
+    }
+}
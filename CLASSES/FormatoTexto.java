@@ -0,0 +1,486 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+// Formato de linha do contratos.txt (o mesmo da listagem e do diário):
+//   id|contratante|contratado|cpf|numeroContrato|R$ 6.500,00|dd/MM/yyyy|dd/MM/yyyy|dd/MM/yyyy|descricao
+// O valor e as datas são escritos à mão a partir da forma compacta do contrato (centavos e
+// dias desde a época), com o mesmo texto do NumberFormat pt-BR e do DateTimeFormatter, espaço
+// rígido depois do "R$" incluído. A escrita vai direto para um StringBuilder ou, nos
+// charsets compatíveis com ASCII, para bytes em um buffer reaproveitado, sem Strings no meio.
+// A leitura byte a byte fica no CarregadorContratos.Interpretador, com as conversões daqui;
+// a de uma linha já em String (diário, cargas sequenciais e reserva do Interpretador) é o ler.
+public final class FormatoTexto {
+    private static final char ESPACO_RIGIDO = '\u00A0'; // o NumberFormat pt-BR usa espaço rígido
+    private static final long[] POTENCIAS_DE_10 = {
+        1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L,
+        1_000_000_000L, 10_000_000_000L, 100_000_000_000L, 1_000_000_000_000L, 10_000_000_000_000L,
+        100_000_000_000_000L, 1_000_000_000_000_000L, 10_000_000_000_000_000L, 100_000_000_000_000_000L,
+        1_000_000_000_000_000_000L
+    };
+    // Dias de 0000-03-01 a 1970-01-01 e o intervalo dos anos 1..9999 (fora dele fica o DateTimeFormatter)
+    private static final long DIAS_0000_A_1970 = 719_528L;
+    private static final int PRIMEIRO_DIA = -719_162;  // 01/01/0001
+    private static final int ULTIMO_DIA = 2_932_896;   // 31/12/9999
+    private static final int CAMPOS = 10;
+    private static final long CENTAVOS_MAXIMO = (long) (contrato.VALOR_MAXIMO * 100);
+
+    private FormatoTexto() {
+    }
+
+    // Texto
+
+    // Acrescenta a linha do contrato (sem quebra de linha)
+    public static StringBuilder escrever(contrato contrato, StringBuilder destino) {
+        destino.append(contrato.getId()).append('|')
+               .append(contrato.getContratante()).append('|')
+               .append(contrato.getContratado()).append('|');
+        long cpf = contrato.getCpfEmpacotado();
+        if (cpf == ValidaCPF.INVALIDO) {
+            destino.append(contrato.getCpf());
+        } else {
+            ValidaCPF.formatar(cpf, destino);
+        }
+        destino.append('|').append(contrato.getNumeroContrato()).append('|');
+        formatarValor(contrato.getCentavos(), destino).append('|');
+        formatarData(contrato.getCelebracaoDia(), destino).append('|');
+        formatarData(contrato.getInicioDia(), destino).append('|');
+        formatarData(contrato.getTerminoDia(), destino).append('|');
+        return destino.append(contrato.getDescricao());
+    }
+
+    // Mesmo texto do NumberFormat.getCurrencyInstance(pt-BR): "R$ 6.500,00", "-R$ 0,50"
+    public static StringBuilder formatarValor(long centavos, StringBuilder destino) {
+        if (centavos < 0) {
+            destino.append('-');
+            centavos = -centavos;
+        }
+        destino.append('R').append('$').append(ESPACO_RIGIDO);
+        long reais = centavos / 100;
+        for (int casa = digitos(reais) - 1; casa >= 0; casa--) {
+            destino.append((char) ('0' + reais / POTENCIAS_DE_10[casa] % 10));
+            if (casa > 0 && casa % 3 == 0) {
+                destino.append('.');
+            }
+        }
+        int resto = (int) (centavos % 100);
+        return destino.append(',').append((char) ('0' + resto / 10)).append((char) ('0' + resto % 10));
+    }
+
+    // dd/MM/yyyy; anos fora de 1..9999 ficam com o DateTimeFormatter (sinal, era)
+    public static StringBuilder formatarData(int dia, StringBuilder destino) {
+        if (dia < PRIMEIRO_DIA || dia > ULTIMO_DIA) {
+            return destino.append(LocalDate.ofEpochDay(dia).format(contrato.FORMATO_DATA));
+        }
+        int data = civil(dia);
+        int ano = data >>> 9;
+        doisDigitos(data & 0x1F, destino).append('/');
+        doisDigitos((data >>> 5) & 0xF, destino).append('/');
+        doisDigitos(ano / 100, destino);
+        return doisDigitos(ano % 100, destino);
+    }
+
+    private static StringBuilder doisDigitos(int valor, StringBuilder destino) {
+        return destino.append((char) ('0' + valor / 10)).append((char) ('0' + valor % 10));
+    }
+
+    private static int digitos(long valor) {
+        int n = 1;
+        while (n < POTENCIAS_DE_10.length && valor >= POTENCIAS_DE_10[n]) {
+            n++;
+        }
+        return n;
+    }
+
+    // Datas sem LocalDate (mesmas contas de LocalDate.ofEpochDay/toEpochDay, anos 1..9999)
+
+    // ano << 9 | mês << 5 | dia
+    private static int civil(int diaDaEpoca) {
+        long zero = diaDaEpoca + DIAS_0000_A_1970 - 60; // a partir de 01/03/0000
+        long ano = (400 * zero + 591) / 146097;
+        long diaDoAno = zero - (365 * ano + ano / 4 - ano / 100 + ano / 400);
+        if (diaDoAno < 0) {
+            ano--;
+            diaDoAno = zero - (365 * ano + ano / 4 - ano / 100 + ano / 400);
+        }
+        int mesDesdeMarco = (int) ((diaDoAno * 5 + 2) / 153);
+        int mes = (mesDesdeMarco + 2) % 12 + 1;
+        int dia = (int) (diaDoAno - (mesDesdeMarco * 306 + 5) / 10 + 1);
+        ano += mesDesdeMarco / 10;
+        return (int) ano << 9 | mes << 5 | dia;
+    }
+
+    // Dias desde a época de uma data válida; o dia além do fim do mês vira o último dia, como o
+    // ResolverStyle.SMART do DateTimeFormatter (31/04 -> 30/04)
+    static int diaDaEpoca(int ano, int mes, int dia) {
+        boolean bissexto = (ano & 3) == 0 && (ano % 100 != 0 || ano % 400 == 0);
+        int ultimo = mes == 2 ? (bissexto ? 29 : 28) : mes == 4 || mes == 6 || mes == 9 || mes == 11 ? 30 : 31;
+        dia = Math.min(dia, ultimo);
+        long total = 365L * ano + (ano + 3) / 4 - (ano + 99) / 100 + (ano + 399) / 400
+                     + (367 * mes - 362) / 12 + dia - 1;
+        if (mes > 2) {
+            total -= bissexto ? 1 : 2;
+        }
+        return (int) (total - DIAS_0000_A_1970);
+    }
+
+    // Leitura
+
+    // Linha para contrato (null se faltarem campos), com o mesmo resultado e as mesmas exceções
+    // do split("\\|") seguido de trim(), Integer.parseInt, replaceAll("[^\\d,]", "") no valor e
+    // LocalDate.parse nas datas, mas em uma passada pela linha e sem Strings intermediárias além
+    // dos campos de texto. Valores e datas fora do caso simples ficam com o Double.parseDouble
+    // e o DateTimeFormatter. A exceção de um campo inválido é contada nas métricas pelo campo e relançada.
+    public static contrato ler(String linha) {
+        // Equivale a split("\\|") seguido do descarte dos campos vazios do final
+        int[] inicioCampo = new int[CAMPOS];
+        int[] fimCampo = new int[CAMPOS];
+        int campos = 0;
+        int efetivos = 0;
+        int inicio = 0;
+        int n = linha.length();
+        for (int p = 0; p <= n; p++) {
+            if (p == n || linha.charAt(p) == '|') {
+                if (campos < CAMPOS) {
+                    inicioCampo[campos] = inicio;
+                    fimCampo[campos] = p;
+                }
+                campos++;
+                if (p > inicio) {
+                    efetivos = campos;
+                }
+                inicio = p + 1;
+            }
+        }
+        if (efetivos < 9) {
+            if (n > 0) {
+                Metricas.erroDeLeitura(Metricas.Campo.CAMPOS);
+            }
+            return null;
+        }
+
+        Metricas.Campo campo = Metricas.Campo.ID;
+        int id;
+        long centavos;
+        double valor = 0;
+        int celebracao, inicioVigencia, termino;
+        try {
+            int ini = aparadoInicio(linha, inicioCampo[0], fimCampo[0]);
+            id = Integer.parseInt(linha, ini, aparadoFim(linha, ini, fimCampo[0]), 10);
+
+            campo = Metricas.Campo.VALOR;
+            centavos = lerCentavos(linha, inicioCampo[5], fimCampo[5]);
+            if (centavos == Long.MIN_VALUE) {
+                valor = Double.parseDouble(soDigitos(linha, inicioCampo[5], fimCampo[5]));
+            }
+
+            campo = Metricas.Campo.CELEBRACAO;
+            celebracao = lerData(linha, inicioCampo[6], fimCampo[6]);
+            campo = Metricas.Campo.INICIO;
+            inicioVigencia = lerData(linha, inicioCampo[7], fimCampo[7]);
+            campo = Metricas.Campo.TERMINO;
+            termino = lerData(linha, inicioCampo[8], fimCampo[8]);
+        } catch (RuntimeException e) {
+            Metricas.erroDeLeitura(campo);
+            throw e;
+        }
+        if (centavos == Long.MIN_VALUE) {
+            centavos = contrato.paraCentavos(valor); // fora do intervalo: IllegalArgumentException
+        }
+
+        return contrato.compacto(
+            id, texto(linha, inicioCampo[1], fimCampo[1]), texto(linha, inicioCampo[2], fimCampo[2]),
+            texto(linha, inicioCampo[4], fimCampo[4]), efetivos > 9 ? texto(linha, inicioCampo[9], fimCampo[9]) : "",
+            centavos, celebracao, inicioVigencia, termino, texto(linha, inicioCampo[3], fimCampo[3])
+        );
+    }
+
+    // Só dígitos e a vírgula decimal nos centavos, como no Interpretador; Long.MIN_VALUE fora
+    // do caso simples (até 15 algarismos significativos e 2 casas)
+    private static long lerCentavos(String linha, int inicio, int fim) {
+        long mantissa = 0;
+        int significativos = 0;
+        int digitos = 0;
+        int decimais = 0;
+        boolean virgula = false;
+        for (int p = inicio; p < fim; p++) {
+            char c = linha.charAt(p);
+            if (c >= '0' && c <= '9') {
+                digitos++;
+                if (mantissa != 0 || c != '0') {
+                    significativos++;
+                }
+                mantissa = mantissa * 10 + (c - '0');
+                if (virgula) {
+                    decimais++;
+                }
+            } else if (c == ',') {
+                if (virgula) {
+                    return Long.MIN_VALUE;
+                }
+                virgula = true;
+            }
+        }
+        if (digitos == 0 || significativos > 15 || decimais > 2) {
+            return Long.MIN_VALUE;
+        }
+        long centavos = decimais == 0 ? mantissa * 100 : decimais == 1 ? mantissa * 10 : mantissa;
+        return centavos <= CENTAVOS_MAXIMO ? centavos : Long.MIN_VALUE;
+    }
+
+    // O texto do replaceAll("[^\\d,]", "").replace(",", ".") para o Double.parseDouble
+    private static String soDigitos(String linha, int inicio, int fim) {
+        StringBuilder numero = new StringBuilder(fim - inicio);
+        for (int p = inicio; p < fim; p++) {
+            char c = linha.charAt(p);
+            if (c >= '0' && c <= '9') {
+                numero.append(c);
+            } else if (c == ',') {
+                numero.append('.');
+            }
+        }
+        return numero.toString();
+    }
+
+    // dd/MM/yyyy em dias desde a época, como no Interpretador; o resto vai para o LocalDate.parse
+    private static int lerData(String linha, int inicio, int fim) {
+        int ini = aparadoInicio(linha, inicio, fim);
+        fim = aparadoFim(linha, ini, fim);
+        if (fim - ini == 10 && linha.charAt(ini + 2) == '/' && linha.charAt(ini + 5) == '/') {
+            int dia = doisDigitos(linha, ini);
+            int mes = doisDigitos(linha, ini + 3);
+            int ano = doisDigitos(linha, ini + 6) * 100 + doisDigitos(linha, ini + 8);
+            if (dia >= 1 && dia <= 31 && mes >= 1 && mes <= 12 && ano >= 1) {
+                return diaDaEpoca(ano, mes, dia);
+            }
+        }
+        return (int) LocalDate.parse(linha.substring(ini, fim), contrato.FORMATO_DATA).toEpochDay();
+    }
+
+    private static int doisDigitos(String linha, int p) {
+        int a = linha.charAt(p) - '0';
+        int b = linha.charAt(p + 1) - '0';
+        if (a < 0 || a > 9 || b < 0 || b > 9) {
+            return -10000;
+        }
+        return a * 10 + b;
+    }
+
+    private static String texto(String linha, int inicio, int fim) {
+        int ini = aparadoInicio(linha, inicio, fim);
+        return linha.substring(ini, aparadoFim(linha, ini, fim));
+    }
+
+    // Mesmo critério de String.trim(): remove caracteres <= ' ' nas pontas
+    private static int aparadoInicio(String linha, int inicio, int fim) {
+        while (inicio < fim && linha.charAt(inicio) <= ' ') {
+            inicio++;
+        }
+        return inicio;
+    }
+
+    private static int aparadoFim(String linha, int inicio, int fim) {
+        while (fim > inicio && linha.charAt(fim - 1) <= ' ') {
+            fim--;
+        }
+        return fim;
+    }
+
+    // Bytes
+
+    // Codifica linhas em um buffer reaproveitado. Nos charsets do CarregadorContratos.suporta os
+    // bytes são montados aqui (números e datas já são ASCII); nos demais a linha passa pelo
+    // String.getBytes, sem a marca de ordem de bytes que charsets como o UTF-16 põem em cada
+    // chamada (no meio do arquivo ela viraria um caractere da linha; sem ela, o UTF-16 é lido
+    // como big-endian, que é o que o codificador dele grava). Não é seguro entre threads: um por gravação.
+    public static final class Codificador {
+        private final Charset charset;
+        private final boolean direto;
+        private final boolean utf8;
+        private final int marca; // bytes da marca de ordem no início de cada getBytes (0 na maioria)
+        private final byte[] quebra;
+        private final byte[] prefixoReal; // "R$" + espaço rígido no charset
+        private final StringBuilder texto; // só fora do caminho direto
+        private byte[] bytes = new byte[256];
+        private int tamanho;
+
+        public Codificador(Charset charset) {
+            this.charset = charset;
+            this.direto = CarregadorContratos.suporta(charset);
+            this.utf8 = charset.equals(StandardCharsets.UTF_8);
+            this.marca = 2 * "|".getBytes(charset).length - "||".getBytes(charset).length;
+            this.quebra = semMarca(System.lineSeparator());
+            this.prefixoReal = ("R$" + ESPACO_RIGIDO).getBytes(charset);
+            this.texto = direto ? null : new StringBuilder(160);
+        }
+
+        // Bytes da última linha codificada: os "tamanho" primeiros
+        public byte[] bytes() {
+            return bytes;
+        }
+
+        // Codifica a linha (sem quebra de linha) e devolve quantos bytes ela tem
+        public int codificar(contrato contrato) {
+            tamanho = 0;
+            if (!direto) {
+                texto.setLength(0);
+                byte[] linha = semMarca(FormatoTexto.escrever(contrato, texto).toString());
+                garantir(linha.length);
+                System.arraycopy(linha, 0, bytes, 0, linha.length);
+                tamanho = linha.length;
+                return tamanho;
+            }
+            inteiro(contrato.getId());
+            separador();
+            texto(contrato.getContratante());
+            separador();
+            texto(contrato.getContratado());
+            separador();
+            long cpf = contrato.getCpfEmpacotado();
+            if (cpf == ValidaCPF.INVALIDO) {
+                texto(contrato.getCpf());
+            } else {
+                cpf(cpf);
+            }
+            separador();
+            texto(contrato.getNumeroContrato());
+            separador();
+            valor(contrato.getCentavos());
+            separador();
+            data(contrato.getCelebracaoDia());
+            separador();
+            data(contrato.getInicioDia());
+            separador();
+            data(contrato.getTerminoDia());
+            separador();
+            texto(contrato.getDescricao());
+            return tamanho;
+        }
+
+        // Linha seguida da quebra de linha do sistema; devolve os bytes escritos
+        public int escrever(contrato contrato, OutputStream saida) throws IOException {
+            int linha = codificar(contrato);
+            saida.write(bytes, 0, linha);
+            saida.write(quebra);
+            return linha + quebra.length;
+        }
+
+        public int getTamanhoQuebra() {
+            return quebra.length;
+        }
+
+        private byte[] semMarca(String texto) {
+            byte[] codificado = texto.getBytes(charset);
+            return marca == 0 ? codificado : Arrays.copyOfRange(codificado, marca, codificado.length);
+        }
+
+        private void separador() {
+            garantir(1);
+            bytes[tamanho++] = '|';
+        }
+
+        private void inteiro(int valor) {
+            garantir(11);
+            long resto = valor;
+            if (resto < 0) {
+                bytes[tamanho++] = '-';
+                resto = -resto;
+            }
+            algarismos(resto, digitos(resto));
+        }
+
+        private void algarismos(long valor, int quantidade) {
+            for (int casa = quantidade - 1; casa >= 0; casa--) {
+                bytes[tamanho++] = (byte) ('0' + valor / POTENCIAS_DE_10[casa] % 10);
+            }
+        }
+
+        // ddd.ddd.ddd-dd
+        private void cpf(long cpf) {
+            garantir(14);
+            algarismos(cpf / 100_000_000, 3);
+            bytes[tamanho++] = '.';
+            algarismos(cpf / 100_000 % 1000, 3);
+            bytes[tamanho++] = '.';
+            algarismos(cpf / 100 % 1000, 3);
+            bytes[tamanho++] = '-';
+            algarismos(cpf % 100, 2);
+        }
+
+        private void valor(long centavos) {
+            garantir(1 + prefixoReal.length + 26 + 3);
+            if (centavos < 0) {
+                bytes[tamanho++] = '-';
+                centavos = -centavos;
+            }
+            System.arraycopy(prefixoReal, 0, bytes, tamanho, prefixoReal.length);
+            tamanho += prefixoReal.length;
+            long reais = centavos / 100;
+            for (int casa = digitos(reais) - 1; casa >= 0; casa--) {
+                bytes[tamanho++] = (byte) ('0' + reais / POTENCIAS_DE_10[casa] % 10);
+                if (casa > 0 && casa % 3 == 0) {
+                    bytes[tamanho++] = '.';
+                }
+            }
+            bytes[tamanho++] = ',';
+            algarismos(centavos % 100, 2);
+        }
+
+        private void data(int dia) {
+            if (dia < PRIMEIRO_DIA || dia > ULTIMO_DIA) {
+                texto(LocalDate.ofEpochDay(dia).format(contrato.FORMATO_DATA));
+                return;
+            }
+            garantir(10);
+            int data = civil(dia);
+            algarismos(data & 0x1F, 2);
+            bytes[tamanho++] = '/';
+            algarismos((data >>> 5) & 0xF, 2);
+            bytes[tamanho++] = '/';
+            algarismos(data >>> 9, 4);
+        }
+
+        // Mesmos bytes do String.getBytes(charset): caractere sem representação vira '?'
+        private void texto(String valor) {
+            int n = valor.length();
+            garantir(utf8 ? n * 3 : n);
+            for (int i = 0; i < n; i++) {
+                char c = valor.charAt(i);
+                if (c < 0x80) {
+                    bytes[tamanho++] = (byte) c;
+                } else if (!utf8) {
+                    if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(valor.charAt(i + 1))) {
+                        i++; // o par inteiro é um único caractere
+                    }
+                    bytes[tamanho++] = c < 0x100 && charset.equals(StandardCharsets.ISO_8859_1) ? (byte) c : (byte) '?';
+                } else if (c < 0x800) {
+                    bytes[tamanho++] = (byte) (0xC0 | c >> 6);
+                    bytes[tamanho++] = (byte) (0x80 | c & 0x3F);
+                } else if (!Character.isSurrogate(c)) {
+                    bytes[tamanho++] = (byte) (0xE0 | c >> 12);
+                    bytes[tamanho++] = (byte) (0x80 | c >> 6 & 0x3F);
+                    bytes[tamanho++] = (byte) (0x80 | c & 0x3F);
+                } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(valor.charAt(i + 1))) {
+                    int ponto = Character.toCodePoint(c, valor.charAt(++i));
+                    bytes[tamanho++] = (byte) (0xF0 | ponto >> 18);
+                    bytes[tamanho++] = (byte) (0x80 | ponto >> 12 & 0x3F);
+                    bytes[tamanho++] = (byte) (0x80 | ponto >> 6 & 0x3F);
+                    bytes[tamanho++] = (byte) (0x80 | ponto & 0x3F);
+                } else {
+                    bytes[tamanho++] = '?';
+                }
+            }
+        }
+
+        private void garantir(int necessario) {
+            if (tamanho + necessario > bytes.length) {
+                byte[] maior = new byte[Math.max(bytes.length * 2, tamanho + necessario)];
+                System.arraycopy(bytes, 0, maior, 0, tamanho);
+                bytes = maior;
+            }
+        }
+    }
+}
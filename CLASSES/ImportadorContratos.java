@@ -0,0 +1,309 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+// Importação em lote de um CSV separado por ';' (aspas duplas opcionais), com as colunas:
+// contratante;contratado;numeroContrato;descricao;cpf;celebracao;inicio;termino;valor
+// As linhas são lidas em lotes e validadas em paralelo com as mesmas regras do cadastro
+// interativo; as rejeitadas vão para um arquivo à parte com o motivo. Bytes inválidos na
+// codificação não interrompem a importação: só a linha em que aparecem é rejeitada.
+public class ImportadorContratos implements Closeable {
+    public static final int TAMANHO_LOTE = 16384;
+    private static final int COLUNAS = 9;
+    private static final DateTimeFormatter formatoData = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    private static final char SUBSTITUTO = '\uFFFD'; // posto pelo decodificador no lugar de bytes inválidos
+
+    private final BufferedReader reader;
+    private final Path arquivoRejeitados;
+    private final Charset charset;
+    private BufferedWriter rejeitados;
+    private long numeroLinha;
+    private long lidas;
+    private long rejeitadas;
+
+    // Linha aprovada: o ID só é atribuído depois, na ordem do arquivo
+    public static final class Candidato {
+        final String contratante;
+        final String contratado;
+        final String numeroContrato;
+        final String descricao;
+        final String cpf;
+        final LocalDate celebracao;
+        final LocalDate inicio;
+        final LocalDate termino;
+        final double valor;
+
+        Candidato(String[] campos, LocalDate celebracao, LocalDate inicio, LocalDate termino, double valor) {
+            this.contratante = campos[0];
+            this.contratado = campos[1];
+            this.numeroContrato = campos[2];
+            this.descricao = campos[3];
+            this.cpf = ValidaCPF.formatar(ValidaCPF.empacotar(campos[4]));
+            this.celebracao = celebracao;
+            this.inicio = inicio;
+            this.termino = termino;
+            this.valor = valor;
+        }
+
+        public contrato criar(int id) {
+            return new contrato(id, contratante, contratado, numeroContrato,
+                                descricao, valor, celebracao, inicio, termino, cpf);
+        }
+    }
+
+    // Uma única linha no formato da importação (usado pelo servidor); lança a exceção com o motivo
+    public static Candidato interpretar(String linha) {
+        Resultado resultado = validar(linha);
+        if (resultado.candidato == null) {
+            throw new IllegalArgumentException(resultado.motivo);
+        }
+        return resultado.candidato;
+    }
+
+    private static final class Resultado {
+        Candidato candidato;
+        String motivo;
+    }
+
+    public ImportadorContratos(Path origem, Path arquivoRejeitados, Charset charset) throws IOException {
+        this.reader = new BufferedReader(new InputStreamReader(Files.newInputStream(origem),
+            charset.newDecoder().onMalformedInput(CodingErrorAction.REPLACE)
+                                .onUnmappableCharacter(CodingErrorAction.REPLACE)));
+        this.arquivoRejeitados = arquivoRejeitados;
+        this.charset = charset;
+    }
+
+    public long getLidas() {
+        return lidas;
+    }
+
+    public long getRejeitadas() {
+        return rejeitadas;
+    }
+
+    // Próximo lote de linhas válidas (pode vir vazio se todas foram rejeitadas); null no fim do arquivo
+    public List<Candidato> proximoLote() throws IOException {
+        String[] linhas = new String[TAMANHO_LOTE];
+        long[] numeros = new long[TAMANHO_LOTE];
+        int n = 0;
+        String linha;
+        while (n < TAMANHO_LOTE && (linha = reader.readLine()) != null) {
+            numeroLinha++;
+            if (linha.isBlank() || (numeroLinha == 1 && ehCabecalho(linha))) {
+                continue;
+            }
+            linhas[n] = linha;
+            numeros[n++] = numeroLinha;
+        }
+        if (n == 0) {
+            return null;
+        }
+
+        // Cada posição é escrita por uma única tarefa: sem disputa entre as threads
+        Resultado[] resultados = new Resultado[n];
+        IntStream.range(0, n).parallel().forEach(i -> resultados[i] = linhas[i].indexOf(SUBSTITUTO) >= 0
+            ? malformada() : validar(linhas[i]));
+
+        List<Candidato> validos = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            if (resultados[i].candidato != null) {
+                validos.add(resultados[i].candidato);
+            } else {
+                rejeitar(numeros[i], resultados[i].motivo, linhas[i]);
+            }
+        }
+        lidas += n;
+        return validos;
+    }
+
+    private void rejeitar(long numero, String motivo, String linha) throws IOException {
+        if (rejeitados == null) {
+            // Motivos com acentos ou linhas com o caractere substituto não podem abortar a gravação
+            rejeitados = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(arquivoRejeitados),
+                charset.newEncoder().onMalformedInput(CodingErrorAction.REPLACE)
+                                    .onUnmappableCharacter(CodingErrorAction.REPLACE)));
+        }
+        rejeitados.write("linha " + numero + ": " + motivo + " -> " + linha);
+        rejeitados.newLine();
+        rejeitadas++;
+    }
+
+    private static boolean ehCabecalho(String linha) {
+        String[] campos = separar(linha);
+        return campos != null && campos[0].equalsIgnoreCase("contratante");
+    }
+
+    private Resultado malformada() {
+        Metricas.rejeitar(Metricas.Rejeicao.TEXTO);
+        Resultado resultado = new Resultado();
+        resultado.motivo = "A linha contém bytes inválidos em " + charset.name() + "!";
+        return resultado;
+    }
+
+    private static Resultado validar(String linha) {
+        Resultado resultado = new Resultado();
+        String[] campos = separar(linha);
+        if (campos == null) {
+            resultado.motivo = "A linha deve ter " + COLUNAS + " colunas separadas por ';'!";
+            return resultado;
+        }
+
+        String erro = RegrasContrato.validarTexto(campos[0], "Contratante", false);
+        if (erro == null) {
+            erro = RegrasContrato.validarTexto(campos[1], "Contratado", false);
+        }
+        if (erro == null) {
+            erro = RegrasContrato.validarTexto(campos[2], "Número do contrato", true);
+        }
+        if (erro == null) {
+            erro = RegrasContrato.validarTexto(campos[3], "Descrição", true);
+        }
+        if (erro == null) {
+            erro = RegrasContrato.validarCPF(campos[4]);
+        }
+        if (erro != null) {
+            resultado.motivo = erro;
+            return resultado;
+        }
+
+        LocalDate celebracao, inicio, termino;
+        try {
+            celebracao = lerData(campos[5]);
+            inicio = lerData(campos[6]);
+            termino = lerData(campos[7]);
+        } catch (DateTimeParseException e) {
+            Metricas.rejeitar(Metricas.Rejeicao.DATAS);
+            resultado.motivo = "Data inválida! Use o formato DD/MM/AAAA.";
+            return resultado;
+        }
+        erro = RegrasContrato.validarDatas(celebracao, inicio, termino);
+        if (erro != null) {
+            resultado.motivo = erro;
+            return resultado;
+        }
+
+        double valor;
+        try {
+            valor = Double.parseDouble(campos[8]);
+        } catch (NumberFormatException e) {
+            Metricas.rejeitar(Metricas.Rejeicao.VALOR);
+            resultado.motivo = "Valor inválido!";
+            return resultado;
+        }
+        erro = RegrasContrato.validarValor(valor);
+        if (erro != null) {
+            resultado.motivo = erro;
+            return resultado;
+        }
+
+        resultado.candidato = new Candidato(campos, celebracao, inicio, termino, valor);
+        return resultado;
+    }
+
+    // DD/MM/AAAA com dois, dois e quatro dígitos é lido direto, com o mesmo resultado do
+    // formatoData (dia além do fim do mês vai para o último dia); o resto passa pelo formatoData
+    static LocalDate lerData(String texto) {
+        if (texto.length() == 10 && texto.charAt(2) == '/' && texto.charAt(5) == '/') {
+            int dia = digitos(texto, 0, 2);
+            int mes = digitos(texto, 3, 5);
+            int ano = digitos(texto, 6, 10);
+            if (dia >= 1 && dia <= 31 && mes >= 1 && mes <= 12 && ano >= 1) {
+                return LocalDate.of(ano, mes, Math.min(dia, YearMonth.of(ano, mes).lengthOfMonth()));
+            }
+        }
+        return LocalDate.parse(texto, formatoData);
+    }
+
+    // Valor dos dígitos em [de, ate), ou -1 se houver outro caractere
+    private static int digitos(String texto, int de, int ate) {
+        int valor = 0;
+        for (int i = de; i < ate; i++) {
+            char c = texto.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            valor = valor * 10 + (c - '0');
+        }
+        return valor;
+    }
+
+    // Separa os campos por ';' respeitando aspas ("" dentro de aspas é uma aspa); null se faltar coluna
+    static String[] separar(String linha) {
+        if (linha.indexOf('"') < 0) {
+            return separarSemAspas(linha);
+        }
+        String[] campos = new String[COLUNAS];
+        StringBuilder atual = new StringBuilder();
+        int coluna = 0;
+        boolean aspas = false;
+        for (int i = 0; i < linha.length(); i++) {
+            char c = linha.charAt(i);
+            if (aspas) {
+                if (c == '"' && i + 1 < linha.length() && linha.charAt(i + 1) == '"') {
+                    atual.append('"');
+                    i++;
+                } else if (c == '"') {
+                    aspas = false;
+                } else {
+                    atual.append(c);
+                }
+            } else if (c == '"') {
+                aspas = true;
+            } else if (c == ';') {
+                if (coluna == COLUNAS - 1) {
+                    return null;
+                }
+                campos[coluna++] = atual.toString().trim();
+                atual.setLength(0);
+            } else {
+                atual.append(c);
+            }
+        }
+        if (coluna != COLUNAS - 1) {
+            return null;
+        }
+        campos[coluna] = atual.toString().trim();
+        return campos;
+    }
+
+    // Caso comum: sem aspas, cada campo é um trecho entre dois ';'
+    private static String[] separarSemAspas(String linha) {
+        String[] campos = new String[COLUNAS];
+        int inicio = 0;
+        for (int coluna = 0; coluna < COLUNAS - 1; coluna++) {
+            int fim = linha.indexOf(';', inicio);
+            if (fim < 0) {
+                return null;
+            }
+            campos[coluna] = linha.substring(inicio, fim).trim();
+            inicio = fim + 1;
+        }
+        if (linha.indexOf(';', inicio) >= 0) {
+            return null;
+        }
+        campos[COLUNAS - 1] = linha.substring(inicio).trim();
+        return campos;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+        if (rejeitados != null) {
+            rejeitados.close();
+        }
+    }
+}
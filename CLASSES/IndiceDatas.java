@@ -0,0 +1,239 @@
+import java.time.LocalDate;
+import java.util.Arrays;
+
+// Índices de datas em dias desde a época (int), sem comparar LocalDate registro a registro:
+// - árvore de intervalos [inicio, termino] para "vigentes em uma data";
+// - árvore ordenada por termino para "vencem entre duas datas".
+// Ambas as consultas custam O(log n + k).
+public class IndiceDatas {
+    private final ArvoreIntervalos porVigencia = new ArvoreIntervalos();
+    private final ArvoreIntervalos porTermino = new ArvoreIntervalos();
+
+    // Deve ser chamado com as datas já preenchidas (após criar ou editar)
+    public void adicionar(contrato contrato) {
+        int inicio = contrato.getInicioDia();
+        int termino = contrato.getTerminoDia();
+        porVigencia.inserir(inicio, termino, contrato.getId());
+        porTermino.inserir(termino, termino, contrato.getId());
+    }
+
+    // Deve ser chamado com as datas antigas (antes de setInicio/setTermino ou da exclusão)
+    public void remover(contrato contrato) {
+        porVigencia.remover(contrato.getInicioDia(), contrato.getId());
+        porTermino.remover(contrato.getTerminoDia(), contrato.getId());
+    }
+
+    public void limpar() {
+        porVigencia.limpar();
+        porTermino.limpar();
+    }
+
+    // Contratos com inicio <= data <= termino, ordenados por ID
+    public int[] vigentesEm(LocalDate data) {
+        int[] ids = porVigencia.contendo(dia(data));
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    // Contratos com termino entre as datas (inclusive), em ordem de vencimento
+    public int[] vencendoEntre(LocalDate de, LocalDate ate) {
+        return porTermino.comChaveEntre(dia(de), dia(ate));
+    }
+
+    // Contratos com termino antes da data, em ordem de vencimento (arquivamento)
+    public int[] vencidosAntes(LocalDate data) {
+        return porTermino.comChaveEntre(Integer.MIN_VALUE, dia(data) - 1);
+    }
+
+    private static int dia(LocalDate data) {
+        return (int) data.toEpochDay();
+    }
+
+    // Treap ordenada por (chave, id) e aumentada com o maior "fim" de cada subárvore
+    static final class ArvoreIntervalos {
+        private No raiz;
+        private int semente = 0x2545F491;
+
+        private static final class No {
+            final int chave;
+            final int fim;
+            final int id;
+            final int prioridade;
+            int maxFim;
+            No esq;
+            No dir;
+
+            No(int chave, int fim, int id, int prioridade) {
+                this.chave = chave;
+                this.fim = fim;
+                this.id = id;
+                this.prioridade = prioridade;
+                this.maxFim = fim;
+            }
+        }
+
+        void inserir(int chave, int fim, int id) {
+            raiz = inserir(raiz, new No(chave, fim, id, proximaPrioridade()));
+        }
+
+        void remover(int chave, int id) {
+            raiz = remover(raiz, chave, id);
+        }
+
+        void limpar() {
+            raiz = null;
+        }
+
+        int[] contendo(int ponto) {
+            Coletor coletor = new Coletor();
+            contendo(raiz, ponto, coletor);
+            return coletor.resultado();
+        }
+
+        int[] comChaveEntre(int de, int ate) {
+            Coletor coletor = new Coletor();
+            comChaveEntre(raiz, de, ate, coletor);
+            return coletor.resultado();
+        }
+
+        private static int comparar(int chave, int id, No no) {
+            int c = Integer.compare(chave, no.chave);
+            return c != 0 ? c : Integer.compare(id, no.id);
+        }
+
+        private static No inserir(No no, No novo) {
+            if (no == null) {
+                return novo;
+            }
+            if (comparar(novo.chave, novo.id, no) < 0) {
+                no.esq = inserir(no.esq, novo);
+                if (no.esq.prioridade > no.prioridade) {
+                    no = girarDireita(no);
+                }
+            } else {
+                no.dir = inserir(no.dir, novo);
+                if (no.dir.prioridade > no.prioridade) {
+                    no = girarEsquerda(no);
+                }
+            }
+            atualizar(no);
+            return no;
+        }
+
+        private static No remover(No no, int chave, int id) {
+            if (no == null) {
+                return null;
+            }
+            int c = comparar(chave, id, no);
+            if (c < 0) {
+                no.esq = remover(no.esq, chave, id);
+            } else if (c > 0) {
+                no.dir = remover(no.dir, chave, id);
+            } else {
+                return unir(no.esq, no.dir);
+            }
+            atualizar(no);
+            return no;
+        }
+
+        // Une duas treaps em que todas as chaves de "a" são menores que as de "b"
+        private static No unir(No a, No b) {
+            if (a == null) {
+                return b;
+            }
+            if (b == null) {
+                return a;
+            }
+            if (a.prioridade > b.prioridade) {
+                a.dir = unir(a.dir, b);
+                atualizar(a);
+                return a;
+            }
+            b.esq = unir(a, b.esq);
+            atualizar(b);
+            return b;
+        }
+
+        private static void contendo(No no, int ponto, Coletor coletor) {
+            // Nenhum intervalo desta subárvore termina depois do ponto
+            if (no == null || no.maxFim < ponto) {
+                return;
+            }
+            contendo(no.esq, ponto, coletor);
+            if (no.chave <= ponto) {
+                if (no.fim >= ponto) {
+                    coletor.adicionar(no.id);
+                }
+                contendo(no.dir, ponto, coletor);
+            }
+        }
+
+        private static void comChaveEntre(No no, int de, int ate, Coletor coletor) {
+            if (no == null) {
+                return;
+            }
+            if (no.chave >= de) {
+                comChaveEntre(no.esq, de, ate, coletor);
+            }
+            if (no.chave >= de && no.chave <= ate) {
+                coletor.adicionar(no.id);
+            }
+            if (no.chave <= ate) {
+                comChaveEntre(no.dir, de, ate, coletor);
+            }
+        }
+
+        private static No girarDireita(No no) {
+            No esq = no.esq;
+            no.esq = esq.dir;
+            esq.dir = no;
+            atualizar(no);
+            atualizar(esq);
+            return esq;
+        }
+
+        private static No girarEsquerda(No no) {
+            No dir = no.dir;
+            no.dir = dir.esq;
+            dir.esq = no;
+            atualizar(no);
+            atualizar(dir);
+            return dir;
+        }
+
+        private static void atualizar(No no) {
+            int max = no.fim;
+            if (no.esq != null && no.esq.maxFim > max) {
+                max = no.esq.maxFim;
+            }
+            if (no.dir != null && no.dir.maxFim > max) {
+                max = no.dir.maxFim;
+            }
+            no.maxFim = max;
+        }
+
+        // xorshift: prioridades pseudoaleatórias sem alocar Random
+        private int proximaPrioridade() {
+            semente ^= semente << 13;
+            semente ^= semente >>> 17;
+            semente ^= semente << 5;
+            return semente;
+        }
+    }
+
+    private static final class Coletor {
+        private int[] ids = new int[16];
+        private int tamanho;
+
+        void adicionar(int id) {
+            if (tamanho == ids.length) {
+                ids = Arrays.copyOf(ids, tamanho * 2);
+            }
+            ids[tamanho++] = id;
+        }
+
+        int[] resultado() {
+            return Arrays.copyOf(ids, tamanho);
+        }
+    }
+}
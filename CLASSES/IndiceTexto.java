@@ -0,0 +1,668 @@
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+// Índice invertido da descrição: cada termo (minúsculo e sem acentos) aponta para a lista dos
+// IDs que o contêm, em ordem, com a frequência do termo em cada descrição.
+// As listas são divididas em blocos de até 128 postagens em varint (diferença para o ID
+// anterior e frequência): uma alteração só recodifica o bloco do ID e a interseção pula
+// blocos inteiros pelo primeiro ID de cada um.
+// Consulta: termos separados por espaço devem aparecer todos (E), grupos separados por "ou"
+// são alternativas (OU) e "termo*" busca por prefixo. O resultado é ordenado pela soma das
+// frequências dos termos (a maior entre os grupos que casaram) e depois por ID.
+public class IndiceTexto {
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}");
+    private static final String[] SEM_TERMOS = new String[0];
+
+    private final TreeMap<String, ListaPostagens> termos = new TreeMap<>();
+
+    public static final class Resultado {
+        public final int total;     // quantos contratos casaram
+        public final int[] ids;     // os mais relevantes, até o limite pedido
+        public final int[] pontos;  // soma das frequências de cada um
+
+        Resultado(int total, int[] ids, int[] pontos) {
+            this.total = total;
+            this.ids = ids;
+            this.pontos = pontos;
+        }
+    }
+
+    // Deve ser chamado com a descrição já preenchida (após criar ou editar)
+    public void adicionar(contrato contrato) {
+        String[] palavras = termos(contrato.getDescricao());
+        for (int i = 0; i < palavras.length; ) {
+            int fim = fimDaSequencia(palavras, i);
+            termos.computeIfAbsent(palavras[i], t -> new ListaPostagens()).adicionar(contrato.getId(), fim - i);
+            i = fim;
+        }
+    }
+
+    // Lote de contratos novos em ordem crescente de ID, com os termos de cada um já calculados
+    // (termos(), que pode rodar em paralelo): cada termo repetido no lote é procurado uma só
+    // vez no mapa ordenado; as demais ocorrências usam um hash do próprio lote
+    public void adicionarTodos(List<contrato> lote, String[][] termosDoLote) {
+        Map<String, ListaPostagens> listasDoLote = new HashMap<>();
+        for (int c = 0; c < termosDoLote.length; c++) {
+            String[] palavras = termosDoLote[c];
+            for (int i = 0; i < palavras.length; ) {
+                int fim = fimDaSequencia(palavras, i);
+                ListaPostagens lista = listasDoLote.get(palavras[i]);
+                if (lista == null) {
+                    lista = termos.computeIfAbsent(palavras[i], t -> new ListaPostagens());
+                    listasDoLote.put(palavras[i], lista);
+                }
+                lista.adicionar(lote.get(c).getId(), fim - i);
+                i = fim;
+            }
+        }
+    }
+
+    // Deve ser chamado com a descrição antiga (antes de setDescricao ou da exclusão)
+    public void remover(contrato contrato) {
+        String[] palavras = termos(contrato.getDescricao());
+        for (int i = 0; i < palavras.length; i = fimDaSequencia(palavras, i)) {
+            ListaPostagens lista = termos.get(palavras[i]);
+            if (lista != null && lista.remover(contrato.getId()) && lista.quantidade == 0) {
+                termos.remove(palavras[i]);
+            }
+        }
+    }
+
+    public void limpar() {
+        termos.clear();
+    }
+
+    public int quantidadeDeTermos() {
+        return termos.size();
+    }
+
+    public Resultado buscar(String consulta, int limite) {
+        Postagens encontrados = null;
+        for (List<String> grupo : interpretar(consulta)) {
+            Postagens doGrupo = buscarGrupo(grupo);
+            encontrados = encontrados == null ? doGrupo : Postagens.unir(List.of(encontrados, doGrupo), false);
+        }
+        if (encontrados == null) {
+            return new Resultado(0, new int[0], new int[0]);
+        }
+        return classificar(encontrados, limite);
+    }
+
+    // Grupos (separados por "ou") de termos normalizados; "*" no fim marca um prefixo
+    static List<List<String>> interpretar(String consulta) {
+        List<List<String>> grupos = new ArrayList<>();
+        List<String> grupo = new ArrayList<>();
+        for (String palavra : consulta.trim().split("\\s+")) {
+            String minuscula = palavra.toLowerCase(Locale.ROOT);
+            if (minuscula.equals("ou") || minuscula.equals("or")) {
+                if (!grupo.isEmpty()) {
+                    grupos.add(grupo);
+                    grupo = new ArrayList<>();
+                }
+                continue;
+            }
+            boolean prefixo = palavra.endsWith("*");
+            List<String> partes = separar(palavra);
+            for (int i = 0; i < partes.size(); i++) {
+                grupo.add(prefixo && i == partes.size() - 1 ? partes.get(i) + "*" : partes.get(i));
+            }
+        }
+        if (!grupo.isEmpty()) {
+            grupos.add(grupo);
+        }
+        return grupos;
+    }
+
+    // Interseção a partir da menor lista; as demais só avançam até os IDs que ainda restam
+    private Postagens buscarGrupo(List<String> grupo) {
+        List<Fonte> fontes = new ArrayList<>(grupo.size());
+        for (String termo : grupo) {
+            Fonte fonte = fonte(termo);
+            if (fonte == null) {
+                return Postagens.VAZIA;
+            }
+            fontes.add(fonte);
+        }
+        fontes.sort((a, b) -> Integer.compare(a.quantidade(), b.quantidade()));
+
+        Postagens resultado = fontes.get(0).materializar();
+        for (int f = 1; f < fontes.size() && resultado.tamanho > 0; f++) {
+            Cursor cursor = fontes.get(f).cursor();
+            int mantidos = 0;
+            for (int i = 0; i < resultado.tamanho; i++) {
+                int id = resultado.ids[i];
+                if (cursor.avancarPara(id) == id) {
+                    resultado.ids[mantidos] = id;
+                    resultado.pontos[mantidos++] = resultado.pontos[i] + cursor.frequencia();
+                }
+            }
+            resultado.tamanho = mantidos;
+        }
+        return resultado;
+    }
+
+    // A lista do termo ou, para um prefixo, a união das listas de todos os termos que começam com ele
+    private Fonte fonte(String termo) {
+        if (!termo.endsWith("*")) {
+            return termos.get(termo);
+        }
+        String prefixo = termo.substring(0, termo.length() - 1);
+        Map<String, ListaPostagens> faixa = termos.subMap(prefixo, true, prefixo + Character.MAX_VALUE, false);
+        if (faixa.isEmpty()) {
+            return null;
+        }
+        if (faixa.size() == 1) {
+            return faixa.values().iterator().next();
+        }
+        List<Postagens> partes = new ArrayList<>(faixa.size());
+        for (ListaPostagens lista : faixa.values()) {
+            partes.add(lista.materializar());
+        }
+        return Postagens.unir(partes, true);
+    }
+
+    // Os "limite" de maior pontuação (empate: menor ID primeiro) com um heap de mínimo.
+    // Chave: pontos nos 32 bits altos e o ID invertido nos baixos
+    private static Resultado classificar(Postagens encontrados, int limite) {
+        int k = Math.min(limite, encontrados.tamanho);
+        long[] heap = new long[k];
+        int n = 0;
+        for (int i = 0; i < encontrados.tamanho; i++) {
+            long chave = ((long) encontrados.pontos[i] << 32) | (~encontrados.ids[i] & 0xFFFFFFFFL);
+            if (n < k) {
+                heap[n] = chave;
+                subir(heap, n++);
+            } else if (k > 0 && chave > heap[0]) {
+                heap[0] = chave;
+                descer(heap, k);
+            }
+        }
+        Arrays.sort(heap);
+        int[] ids = new int[k];
+        int[] pontos = new int[k];
+        for (int i = 0; i < k; i++) {
+            long chave = heap[k - 1 - i];
+            ids[i] = ~(int) chave;
+            pontos[i] = (int) (chave >>> 32);
+        }
+        return new Resultado(encontrados.tamanho, ids, pontos);
+    }
+
+    private static void subir(long[] heap, int i) {
+        while (i > 0 && heap[(i - 1) / 2] > heap[i]) {
+            trocar(heap, i, (i - 1) / 2);
+            i = (i - 1) / 2;
+        }
+    }
+
+    private static void descer(long[] heap, int n) {
+        int i = 0;
+        while (true) {
+            int menor = i;
+            int esq = 2 * i + 1;
+            int dir = esq + 1;
+            if (esq < n && heap[esq] < heap[menor]) {
+                menor = esq;
+            }
+            if (dir < n && heap[dir] < heap[menor]) {
+                menor = dir;
+            }
+            if (menor == i) {
+                return;
+            }
+            trocar(heap, i, menor);
+            i = menor;
+        }
+    }
+
+    private static void trocar(long[] heap, int a, int b) {
+        long t = heap[a];
+        heap[a] = heap[b];
+        heap[b] = t;
+    }
+
+    // Termos em ordem alfabética, com repetições (para contar a frequência)
+    static String[] termos(String texto) {
+        String[] resultado = separar(texto).toArray(SEM_TERMOS);
+        Arrays.sort(resultado);
+        return resultado;
+    }
+
+    // Termos na ordem do texto: minúsculas, sem acentos, separados por qualquer caractere que
+    // não seja letra ou dígito
+    static List<String> separar(String texto) {
+        List<String> encontrados = new ArrayList<>();
+        if (texto == null || texto.isEmpty()) {
+            return encontrados;
+        }
+        String normalizado = texto;
+        for (int i = 0; i < texto.length(); i++) {
+            if (texto.charAt(i) >= 0x80) {
+                normalizado = MARCAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+                break;
+            }
+        }
+        normalizado = normalizado.toLowerCase(Locale.ROOT);
+
+        int inicio = -1;
+        for (int i = 0; i <= normalizado.length(); i++) {
+            boolean parte = i < normalizado.length() && Character.isLetterOrDigit(normalizado.charAt(i));
+            if (parte && inicio < 0) {
+                inicio = i;
+            } else if (!parte && inicio >= 0) {
+                encontrados.add(normalizado.substring(inicio, i));
+                inicio = -1;
+            }
+        }
+        return encontrados;
+    }
+
+    private static int fimDaSequencia(String[] palavras, int i) {
+        int fim = i + 1;
+        while (fim < palavras.length && palavras[fim].equals(palavras[i])) {
+            fim++;
+        }
+        return fim;
+    }
+
+    private interface Fonte {
+        int quantidade();
+
+        Postagens materializar();
+
+        Cursor cursor();
+    }
+
+    private interface Cursor {
+        int FIM = Integer.MAX_VALUE;
+
+        // Primeiro ID >= alvo (ou FIM); os alvos devem ser crescentes
+        int avancarPara(int alvo);
+
+        // Frequência do ID devolvido pelo último avancarPara
+        int frequencia();
+    }
+
+    // Resultado intermediário já decodificado: IDs crescentes e pontos de cada um
+    private static final class Postagens implements Fonte {
+        static final Postagens VAZIA = new Postagens(new int[0], new int[0], 0);
+
+        final int[] ids;
+        final int[] pontos;
+        int tamanho;
+
+        Postagens(int[] ids, int[] pontos, int tamanho) {
+            this.ids = ids;
+            this.pontos = pontos;
+            this.tamanho = tamanho;
+        }
+
+        // União por ID; os pontos de um mesmo ID são somados (prefixo) ou o maior fica (grupos)
+        static Postagens unir(List<Postagens> partes, boolean somar) {
+            int total = 0;
+            int menor = Integer.MAX_VALUE;
+            int maior = Integer.MIN_VALUE;
+            for (Postagens parte : partes) {
+                total += parte.tamanho;
+                if (parte.tamanho > 0) {
+                    menor = Math.min(menor, parte.ids[0]);
+                    maior = Math.max(maior, parte.ids[parte.tamanho - 1]);
+                }
+            }
+            if (total == 0) {
+                return VAZIA;
+            }
+            // Faixa de IDs densa: acumula direto por ID em vez de ordenar
+            if ((long) maior - menor < 4L * total) {
+                return unirPorFaixa(partes, somar, menor, maior);
+            }
+
+            long[] pares = new long[total];
+            int n = 0;
+            for (Postagens parte : partes) {
+                for (int i = 0; i < parte.tamanho; i++) {
+                    pares[n++] = ((long) parte.ids[i] << 32) | parte.pontos[i];
+                }
+            }
+            Arrays.sort(pares);
+            int[] ids = new int[total];
+            int[] pontos = new int[total];
+            int m = -1;
+            for (long par : pares) {
+                int id = (int) (par >>> 32);
+                int p = (int) par;
+                if (m >= 0 && ids[m] == id) {
+                    pontos[m] = somar ? pontos[m] + p : Math.max(pontos[m], p);
+                } else {
+                    ids[++m] = id;
+                    pontos[m] = p;
+                }
+            }
+            return new Postagens(ids, pontos, m + 1);
+        }
+
+        private static Postagens unirPorFaixa(List<Postagens> partes, boolean somar, int menor, int maior) {
+            int[] acumulado = new int[maior - menor + 1]; // 0: ID ausente (os pontos são sempre >= 1)
+            int distintos = 0;
+            for (Postagens parte : partes) {
+                for (int i = 0; i < parte.tamanho; i++) {
+                    int j = parte.ids[i] - menor;
+                    if (acumulado[j] == 0) {
+                        distintos++;
+                    }
+                    acumulado[j] = somar ? acumulado[j] + parte.pontos[i] : Math.max(acumulado[j], parte.pontos[i]);
+                }
+            }
+            int[] ids = new int[distintos];
+            int[] pontos = new int[distintos];
+            int m = 0;
+            for (int j = 0; j < acumulado.length; j++) {
+                if (acumulado[j] != 0) {
+                    ids[m] = menor + j;
+                    pontos[m++] = acumulado[j];
+                }
+            }
+            return new Postagens(ids, pontos, m);
+        }
+
+        @Override
+        public int quantidade() {
+            return tamanho;
+        }
+
+        @Override
+        public Postagens materializar() {
+            return new Postagens(Arrays.copyOf(ids, tamanho), Arrays.copyOf(pontos, tamanho), tamanho);
+        }
+
+        // Busca exponencial a partir da posição atual
+        @Override
+        public Cursor cursor() {
+            return new Cursor() {
+                private int pos;
+
+                @Override
+                public int avancarPara(int alvo) {
+                    int passo = 1;
+                    int alto = pos;
+                    while (alto < tamanho && ids[alto] < alvo) {
+                        pos = alto + 1;
+                        alto += passo;
+                        passo <<= 1;
+                    }
+                    int fim = Math.min(alto, tamanho);
+                    int i = Arrays.binarySearch(ids, pos, fim, alvo);
+                    pos = i >= 0 ? i : -i - 1;
+                    return pos < tamanho ? ids[pos] : FIM;
+                }
+
+                @Override
+                public int frequencia() {
+                    return pontos[pos];
+                }
+            };
+        }
+    }
+
+    // Lista de postagens de um termo, em blocos codificados separadamente.
+    // Cabeçalho de cada bloco: primeiro ID, quantidade de postagens e bytes usados
+    static final class ListaPostagens implements Fonte {
+        private static final int TAMANHO_BLOCO = 128;
+
+        int quantidade;
+        private int ultimoId;
+        private int blocos;
+        private int[] cabecalhos = new int[3];
+        private byte[][] dados = new byte[1][];
+
+        void adicionar(int id, int frequencia) {
+            if (blocos == 0 || id > ultimoId) {
+                acrescentar(id, frequencia);
+                return;
+            }
+            int b = blocoDe(id);
+            int[] ids = new int[contagem(b) + 1];
+            int[] frequencias = new int[ids.length];
+            int n = decodificar(b, ids, frequencias);
+            int i = Arrays.binarySearch(ids, 0, n, id);
+            if (i >= 0) {
+                frequencias[i] = frequencia;
+            } else {
+                i = -i - 1;
+                System.arraycopy(ids, i, ids, i + 1, n - i);
+                System.arraycopy(frequencias, i, frequencias, i + 1, n - i);
+                ids[i] = id;
+                frequencias[i] = frequencia;
+                n++;
+                quantidade++;
+            }
+            if (n > 2 * TAMANHO_BLOCO) {
+                abrirBloco(b + 1);
+                codificar(b, ids, frequencias, 0, TAMANHO_BLOCO);
+                codificar(b + 1, ids, frequencias, TAMANHO_BLOCO, n);
+            } else {
+                codificar(b, ids, frequencias, 0, n);
+            }
+        }
+
+        boolean remover(int id) {
+            if (blocos == 0 || id > ultimoId) {
+                return false;
+            }
+            int b = blocoDe(id);
+            int[] ids = new int[contagem(b)];
+            int[] frequencias = new int[ids.length];
+            int n = decodificar(b, ids, frequencias);
+            int i = Arrays.binarySearch(ids, 0, n, id);
+            if (i < 0) {
+                return false;
+            }
+            System.arraycopy(ids, i + 1, ids, i, n - i - 1);
+            System.arraycopy(frequencias, i + 1, frequencias, i, n - i - 1);
+            n--;
+            quantidade--;
+            if (n == 0) {
+                fecharBloco(b);
+            } else {
+                codificar(b, ids, frequencias, 0, n);
+            }
+            if (b >= blocos - 1 && blocos > 0) {
+                ultimoId = ultimoDoBloco(blocos - 1);
+            }
+            return true;
+        }
+
+        @Override
+        public int quantidade() {
+            return quantidade;
+        }
+
+        @Override
+        public Postagens materializar() {
+            int[] ids = new int[quantidade];
+            int[] frequencias = new int[quantidade];
+            int n = 0;
+            for (int b = 0; b < blocos; b++) {
+                n += decodificar(b, ids, frequencias, n);
+            }
+            return new Postagens(ids, frequencias, n);
+        }
+
+        @Override
+        public Cursor cursor() {
+            return new Cursor() {
+                private int bloco = -1;
+                private final int[] ids = new int[2 * TAMANHO_BLOCO];
+                private final int[] frequencias = new int[2 * TAMANHO_BLOCO];
+                private int tamanho;
+                private int pos;
+
+                @Override
+                public int avancarPara(int alvo) {
+                    if (bloco >= blocos) {
+                        return FIM;
+                    }
+                    if (bloco < 0 || ids[tamanho - 1] < alvo) {
+                        // Pula direto para o bloco que pode conter o alvo
+                        int b = Math.max(bloco + 1, blocoDe(alvo));
+                        if (b >= blocos) {
+                            bloco = blocos;
+                            tamanho = 0;
+                            pos = 0;
+                            return FIM;
+                        }
+                        bloco = b;
+                        tamanho = decodificar(b, ids, frequencias, 0);
+                        pos = 0;
+                        if (ids[tamanho - 1] < alvo) {
+                            return avancarPara(alvo);
+                        }
+                    }
+                    while (ids[pos] < alvo) {
+                        pos++;
+                    }
+                    return ids[pos];
+                }
+
+                @Override
+                public int frequencia() {
+                    return frequencias[pos];
+                }
+            };
+        }
+
+        // Caso comum (IDs novos são sempre maiores): escreve no fim do último bloco
+        private void acrescentar(int id, int frequencia) {
+            int b = blocos - 1;
+            if (b < 0 || contagem(b) >= TAMANHO_BLOCO) {
+                b = blocos;
+                abrirBloco(b);
+                cabecalhos[3 * b] = id;
+                cabecalhos[3 * b + 1] = 0;
+                dados[b] = new byte[8];
+                cabecalhos[3 * b + 2] = escrever(dados[b], 0, frequencia);
+            } else {
+                byte[] bloco = dados[b];
+                int usados = cabecalhos[3 * b + 2];
+                if (usados + 10 > bloco.length) {
+                    bloco = dados[b] = Arrays.copyOf(bloco, Math.max(usados + 10, bloco.length * 2));
+                }
+                usados = escrever(bloco, usados, id - ultimoId);
+                cabecalhos[3 * b + 2] = escrever(bloco, usados, frequencia);
+            }
+            cabecalhos[3 * b + 1]++;
+            ultimoId = id;
+            quantidade++;
+        }
+
+        // Último bloco cujo primeiro ID é <= id (o primeiro bloco se não houver)
+        private int blocoDe(int id) {
+            int baixo = 0;
+            int alto = blocos - 1;
+            while (baixo < alto) {
+                int meio = (baixo + alto + 1) >>> 1;
+                if (cabecalhos[3 * meio] <= id) {
+                    baixo = meio;
+                } else {
+                    alto = meio - 1;
+                }
+            }
+            return baixo;
+        }
+
+        private int contagem(int b) {
+            return cabecalhos[3 * b + 1];
+        }
+
+        private int ultimoDoBloco(int b) {
+            int[] ids = new int[contagem(b)];
+            decodificar(b, ids, new int[ids.length]);
+            return ids[ids.length - 1];
+        }
+
+        private void abrirBloco(int b) {
+            if (blocos == dados.length) {
+                dados = Arrays.copyOf(dados, blocos * 2);
+                cabecalhos = Arrays.copyOf(cabecalhos, blocos * 6);
+            }
+            System.arraycopy(dados, b, dados, b + 1, blocos - b);
+            System.arraycopy(cabecalhos, 3 * b, cabecalhos, 3 * (b + 1), 3 * (blocos - b));
+            blocos++;
+        }
+
+        private void fecharBloco(int b) {
+            System.arraycopy(dados, b + 1, dados, b, blocos - b - 1);
+            System.arraycopy(cabecalhos, 3 * (b + 1), cabecalhos, 3 * b, 3 * (blocos - b - 1));
+            blocos--;
+            dados[blocos] = null;
+        }
+
+        private void codificar(int b, int[] ids, int[] frequencias, int de, int ate) {
+            byte[] bloco = new byte[(ate - de) * 10];
+            int usados = escrever(bloco, 0, frequencias[de]);
+            for (int i = de + 1; i < ate; i++) {
+                usados = escrever(bloco, usados, ids[i] - ids[i - 1]);
+                usados = escrever(bloco, usados, frequencias[i]);
+            }
+            dados[b] = Arrays.copyOf(bloco, usados);
+            cabecalhos[3 * b] = ids[de];
+            cabecalhos[3 * b + 1] = ate - de;
+            cabecalhos[3 * b + 2] = usados;
+            if (b == blocos - 1) {
+                ultimoId = ids[ate - 1];
+            }
+        }
+
+        private int decodificar(int b, int[] ids, int[] frequencias) {
+            return decodificar(b, ids, frequencias, 0);
+        }
+
+        // Decodifica o bloco nas posições a partir de "de"; devolve quantas postagens havia
+        private int decodificar(int b, int[] ids, int[] frequencias, int de) {
+            byte[] bloco = dados[b];
+            int n = contagem(b);
+            int id = cabecalhos[3 * b];
+            int p = 0;
+            for (int i = 0; i < n; i++) {
+                if (i > 0) {
+                    int delta = 0;
+                    for (int desloc = 0; ; desloc += 7) {
+                        byte x = bloco[p++];
+                        delta |= (x & 0x7F) << desloc;
+                        if (x >= 0) {
+                            break;
+                        }
+                    }
+                    id += delta;
+                }
+                int frequencia = 0;
+                for (int desloc = 0; ; desloc += 7) {
+                    byte x = bloco[p++];
+                    frequencia |= (x & 0x7F) << desloc;
+                    if (x >= 0) {
+                        break;
+                    }
+                }
+                ids[de + i] = id;
+                frequencias[de + i] = frequencia;
+            }
+            return n;
+        }
+
+        private static int escrever(byte[] destino, int p, int valor) {
+            while ((valor & ~0x7F) != 0) {
+                destino[p++] = (byte) ((valor & 0x7F) | 0x80);
+                valor >>>= 7;
+            }
+            destino[p++] = (byte) valor;
+            return p;
+        }
+    }
+}
@@ -0,0 +1,225 @@
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+// Índices secundários mantidos junto com a tabela de contratos:
+// - hash por CPF (empacotado em long) e por número do contrato;
+// - mapa ordenado por nome (contratante e contratado) para busca por prefixo.
+// Os índices guardam apenas IDs; o contrato é resolvido no armazenamento.
+public class IndicesSecundarios {
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}");
+
+    private final Map<Long, ListaIds> porCpf = new HashMap<>();
+    private final Map<String, ListaIds> porNumero = new HashMap<>();
+    private final TreeMap<String, ListaIds> porNome = new TreeMap<>();
+
+    // Deve ser chamado com os campos já preenchidos (após criar ou editar)
+    public void adicionar(contrato contrato) {
+        int id = contrato.getId();
+        long cpf = cpfEmpacotado(contrato);
+        if (cpf != ValidaCPF.INVALIDO) {
+            inserir(porCpf, cpf, id);
+        }
+        inserir(porNumero, normalizarNumero(contrato.getNumeroContrato()), id);
+        inserir(porNome, normalizarNome(contrato.getContratante()), id);
+        inserir(porNome, normalizarNome(contrato.getContratado()), id);
+    }
+
+    // Chaves de um contrato nos índices; calculadas fora de adicionarTodos (podem ser em paralelo)
+    public static final class Chaves {
+        final int id;
+        final long cpf;
+        final String numero;
+        final String contratante;
+        final String contratado;
+
+        Chaves(contrato contrato) {
+            this.id = contrato.getId();
+            this.cpf = cpfEmpacotado(contrato);
+            this.numero = normalizarNumero(contrato.getNumeroContrato());
+            this.contratante = normalizarNome(contrato.getContratante());
+            this.contratado = normalizarNome(contrato.getContratado());
+        }
+    }
+
+    public static Chaves chaves(contrato contrato) {
+        return new Chaves(contrato);
+    }
+
+    // Lote de contratos novos (importação): cada nome repetido no lote é procurado uma só vez
+    // no mapa ordenado; as demais ocorrências usam um hash do próprio lote
+    public void adicionarTodos(Chaves[] lote) {
+        Map<String, ListaIds> nomesDoLote = new HashMap<>();
+        for (Chaves chaves : lote) {
+            if (chaves.cpf != ValidaCPF.INVALIDO) {
+                inserir(porCpf, chaves.cpf, chaves.id);
+            }
+            inserir(porNumero, chaves.numero, chaves.id);
+            listaDoNome(nomesDoLote, chaves.contratante).adicionar(chaves.id);
+            listaDoNome(nomesDoLote, chaves.contratado).adicionar(chaves.id);
+        }
+    }
+
+    private ListaIds listaDoNome(Map<String, ListaIds> nomesDoLote, String nome) {
+        ListaIds ids = nomesDoLote.get(nome);
+        if (ids == null) {
+            ids = porNome.computeIfAbsent(nome, k -> new ListaIds());
+            nomesDoLote.put(nome, ids);
+        }
+        return ids;
+    }
+
+    // Deve ser chamado com os valores antigos (antes dos setters ou da exclusão)
+    public void remover(contrato contrato) {
+        int id = contrato.getId();
+        long cpf = cpfEmpacotado(contrato);
+        if (cpf != ValidaCPF.INVALIDO) {
+            retirar(porCpf, cpf, id);
+        }
+        retirar(porNumero, normalizarNumero(contrato.getNumeroContrato()), id);
+        retirar(porNome, normalizarNome(contrato.getContratante()), id);
+        retirar(porNome, normalizarNome(contrato.getContratado()), id);
+    }
+
+    // O contrato já guarda o CPF empacotado; só os textos fora do padrão precisam ser lidos
+    private static long cpfEmpacotado(contrato contrato) {
+        long cpf = contrato.getCpfEmpacotado();
+        return cpf != ValidaCPF.INVALIDO ? cpf : ValidaCPF.empacotar(contrato.getCpf());
+    }
+
+    public void limpar() {
+        porCpf.clear();
+        porNumero.clear();
+        porNome.clear();
+    }
+
+    public int[] buscarPorCpf(String cpf) {
+        return copiar(porCpf.get(ValidaCPF.empacotar(cpf)));
+    }
+
+    public int[] buscarPorNumero(String numeroContrato) {
+        return copiar(porNumero.get(normalizarNumero(numeroContrato)));
+    }
+
+    // Todos os contratos em que o contratante ou o contratado começa com o prefixo
+    public int[] buscarPorNome(String prefixo) {
+        String chave = normalizarNome(prefixo);
+        Map<String, ListaIds> faixa = porNome.subMap(chave, true, chave + Character.MAX_VALUE, false);
+
+        int total = 0;
+        for (ListaIds ids : faixa.values()) {
+            total += ids.tamanho;
+        }
+        int[] resultado = new int[total];
+        int n = 0;
+        for (ListaIds ids : faixa.values()) {
+            System.arraycopy(ids.valores, 0, resultado, n, ids.tamanho);
+            n += ids.tamanho;
+        }
+
+        // Um mesmo contrato pode casar pelos dois nomes: ordena e remove repetidos
+        Arrays.sort(resultado);
+        int unicos = 0;
+        for (int i = 0; i < resultado.length; i++) {
+            if (i == 0 || resultado[i] != resultado[i - 1]) {
+                resultado[unicos++] = resultado[i];
+            }
+        }
+        return Arrays.copyOf(resultado, unicos);
+    }
+
+    public static String normalizarNumero(String numeroContrato) {
+        return numeroContrato.trim().toUpperCase(Locale.ROOT);
+    }
+
+    // Minúsculas, sem acentos e com espaços simples: "João  Silva" -> "joao silva".
+    // Texto só em ASCII não passa pela decomposição (que não o mudaria)
+    public static String normalizarNome(String nome) {
+        String semAcentos = nome.trim();
+        for (int i = 0; i < semAcentos.length(); i++) {
+            if (semAcentos.charAt(i) >= 0x80) {
+                semAcentos = MARCAS.matcher(Normalizer.normalize(semAcentos, Normalizer.Form.NFD)).replaceAll("");
+                break;
+            }
+        }
+        return espacosSimples(semAcentos).toLowerCase(Locale.ROOT);
+    }
+
+    // Cada sequência de espaços vira um único espaço (como replaceAll("\\s+", " "))
+    private static String espacosSimples(String texto) {
+        StringBuilder resultado = null;
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (!ehEspaco(c)) {
+                if (resultado != null) {
+                    resultado.append(c);
+                }
+                continue;
+            }
+            int fim = i + 1;
+            while (fim < texto.length() && ehEspaco(texto.charAt(fim))) {
+                fim++;
+            }
+            if (resultado == null && (c != ' ' || fim > i + 1)) {
+                resultado = new StringBuilder(texto.length()).append(texto, 0, i);
+            }
+            if (resultado != null) {
+                resultado.append(' ');
+            }
+            i = fim - 1;
+        }
+        return resultado == null ? texto : resultado.toString();
+    }
+
+    // Os espaços de \s: ' ' e de '\t' a '\r' (\t, \n, tabulação vertical, \f, \r)
+    static boolean ehEspaco(char c) {
+        return c == ' ' || (c >= '\t' && c <= '\r');
+    }
+
+    private static <K> void inserir(Map<K, ListaIds> indice, K chave, int id) {
+        indice.computeIfAbsent(chave, k -> new ListaIds()).adicionar(id);
+    }
+
+    private static <K> void retirar(Map<K, ListaIds> indice, K chave, int id) {
+        ListaIds ids = indice.get(chave);
+        if (ids != null && ids.remover(id) && ids.tamanho == 0) {
+            indice.remove(chave);
+        }
+    }
+
+    private static int[] copiar(ListaIds ids) {
+        if (ids == null) {
+            return new int[0];
+        }
+        int[] resultado = Arrays.copyOf(ids.valores, ids.tamanho);
+        Arrays.sort(resultado);
+        return resultado;
+    }
+
+    // Lista de IDs sem boxing; cada chave costuma ter poucos contratos
+    static final class ListaIds {
+        int[] valores = new int[2];
+        int tamanho;
+
+        void adicionar(int id) {
+            if (tamanho == valores.length) {
+                valores = Arrays.copyOf(valores, tamanho * 2);
+            }
+            valores[tamanho++] = id;
+        }
+
+        boolean remover(int id) {
+            for (int i = 0; i < tamanho; i++) {
+                if (valores[i] == id) {
+                    valores[i] = valores[--tamanho];
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
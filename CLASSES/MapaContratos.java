@@ -0,0 +1,357 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+// Mapa persistente (imutável, com compartilhamento de estrutura) de ID para contrato, percorrido
+// na ordem de cadastro. São tries de 32 posições por nó indexadas pelos bits da chave: uma da
+// sequência de cadastro para o contrato (dá a ordem do percurso e da paginação) e outra do ID
+// para o contrato, cujas folhas guardam também a sequência em um int[] (a busca por ID é uma
+// única descida, sem Integer); IDs negativos ficam em uma terceira, pelo complemento (~id).
+// Substituir um contrato mantém a sequência, então ele não muda de lugar na ordem.
+// Gravar ou remover devolve um mapa novo que copia só os caminhos até as folhas (O(log32 n)
+// nós); o mapa anterior continua válido e inalterado, então quem o guardou pode percorrê-lo
+// sem trava enquanto outras versões são publicadas. Cada nó guarda a quantidade de entradas
+// abaixo dele, o que dá o tamanho em O(1) e o n-ésimo contrato em O(log32 n) (paginação).
+//
+// Em um lote (ver TabelaVersionada) os nós criados pelo próprio lote são alterados no lugar,
+// como nos "transients" do Clojure: só são publicados no fim, então nenhum leitor os vê mudar.
+public final class MapaContratos implements Iterable<contrato> {
+    private static final int BITS = 5;
+    private static final int LARGURA = 1 << BITS;
+    private static final int MASCARA = LARGURA - 1;
+    private static final int DESLOCAMENTO_MAXIMO = 30; // 7 níveis cobrem os 31 bits de uma chave positiva
+
+    public static final MapaContratos VAZIO = new MapaContratos(Trie.VAZIA, Trie.VAZIA_IDS, Trie.VAZIA_IDS, 0);
+
+    // Folha: filhos são os valores (e, nas tries de ID, "sequencias" a sequência de cada um);
+    // interno: filhos são nós. "dono" é o lote que pode alterá-lo
+    private static final class No {
+        final Object[] filhos;
+        final int[] sequencias;
+        final Object dono;
+        int quantidade;
+
+        No(Object[] filhos, int[] sequencias, int quantidade, Object dono) {
+            this.filhos = filhos;
+            this.sequencias = sequencias;
+            this.quantidade = quantidade;
+            this.dono = dono;
+        }
+
+        No editavel(Object lote) {
+            return lote != null && dono == lote
+                ? this
+                : new No(filhos.clone(), sequencias == null ? null : sequencias.clone(), quantidade, lote);
+        }
+    }
+
+    // Trie imutável de chave não negativa; deslocamento são os bits abaixo do nível da raiz (0: a raiz é folha)
+    private static final class Trie {
+        static final Trie VAZIA = new Trie(null, 0, false);
+        static final Trie VAZIA_IDS = new Trie(null, 0, true);
+
+        final No raiz;
+        final int deslocamento;
+        final boolean comSequencias;
+
+        Trie(No raiz, int deslocamento, boolean comSequencias) {
+            this.raiz = raiz;
+            this.deslocamento = deslocamento;
+            this.comSequencias = comSequencias;
+        }
+
+        int quantidade() {
+            return MapaContratos.quantidade(raiz);
+        }
+
+        Object buscar(int chave) {
+            No folha = folha(raiz, deslocamento, chave);
+            return folha == null ? null : folha.filhos[chave & MASCARA];
+        }
+
+        // Só nas tries de ID: a sequência guardada com a chave, ou -1 se ela não existe
+        int sequencia(int chave) {
+            No folha = folha(raiz, deslocamento, chave);
+            return folha == null || folha.filhos[chave & MASCARA] == null ? -1 : folha.sequencias[chave & MASCARA];
+        }
+
+        // acrescimo: 1 se a chave é nova, 0 se o valor dela é substituído
+        Trie gravar(int chave, Object valor, int sequencia, int acrescimo, Object lote) {
+            No novaRaiz = raiz;
+            int novoDeslocamento = deslocamento;
+            if (novaRaiz == null) {
+                novaRaiz = novo(0, comSequencias, lote);
+                novoDeslocamento = 0;
+            }
+            while (foraDoAlcance(chave, novoDeslocamento)) {
+                No nova = new No(new Object[LARGURA], null, novaRaiz.quantidade, lote);
+                nova.filhos[0] = novaRaiz;
+                novaRaiz = nova;
+                novoDeslocamento += BITS;
+            }
+            return new Trie(MapaContratos.gravar(novaRaiz, novoDeslocamento, chave, valor, sequencia,
+                                                 acrescimo, comSequencias, lote),
+                            novoDeslocamento, comSequencias);
+        }
+
+        // A chave deve existir
+        Trie remover(int chave, Object lote) {
+            return new Trie(MapaContratos.remover(raiz, deslocamento, chave, lote), deslocamento, comSequencias);
+        }
+    }
+
+    private final Trie porSequencia; // sequência de cadastro -> contrato
+    private final Trie positivos;    // ID -> contrato (e sequência)
+    private final Trie negativos;    // ~ID -> contrato (e sequência)
+    private final int proximaSequencia;
+
+    private MapaContratos(Trie porSequencia, Trie positivos, Trie negativos, int proximaSequencia) {
+        this.porSequencia = porSequencia;
+        this.positivos = positivos;
+        this.negativos = negativos;
+        this.proximaSequencia = proximaSequencia;
+    }
+
+    public int tamanho() {
+        return porSequencia.quantidade();
+    }
+
+    public contrato buscar(int id) {
+        return (contrato) (id >= 0 ? positivos.buscar(id) : negativos.buscar(~id));
+    }
+
+    public boolean contem(int id) {
+        return buscar(id) != null;
+    }
+
+    // Versão com o contrato incluído no fim da ordem (ou substituído no lugar, se o ID já existe)
+    public MapaContratos gravar(contrato contrato) {
+        return gravar(contrato, null);
+    }
+
+    public MapaContratos remover(int id) {
+        return remover(id, null);
+    }
+
+    // Com lote != null, os nós desse lote são reaproveitados em vez de copiados
+    MapaContratos gravar(contrato contrato, Object lote) {
+        int id = contrato.getId();
+        int chave = id >= 0 ? id : ~id;
+        Trie ids = id >= 0 ? positivos : negativos;
+        int sequencia = ids.sequencia(chave);
+        if (sequencia >= 0) {
+            return comIds(id, porSequencia.gravar(sequencia, contrato, 0, 0, lote),
+                          ids.gravar(chave, contrato, sequencia, 0, lote), proximaSequencia);
+        }
+        if (proximaSequencia == Integer.MAX_VALUE) {
+            return renumerado().gravar(contrato, lote);
+        }
+        return comIds(id, porSequencia.gravar(proximaSequencia, contrato, 0, 1, lote),
+                      ids.gravar(chave, contrato, proximaSequencia, 1, lote), proximaSequencia + 1);
+    }
+
+    MapaContratos remover(int id, Object lote) {
+        int chave = id >= 0 ? id : ~id;
+        Trie ids = id >= 0 ? positivos : negativos;
+        int sequencia = ids.sequencia(chave);
+        if (sequencia < 0) {
+            return this;
+        }
+        if (tamanho() == 1) {
+            return VAZIO;
+        }
+        return comIds(id, porSequencia.remover(sequencia, lote), ids.remover(chave, lote), proximaSequencia);
+    }
+
+    // A trie de ID alterada substitui a dos positivos ou a dos negativos, conforme o sinal do ID
+    private MapaContratos comIds(int id, Trie ordem, Trie ids, int proxima) {
+        return id >= 0
+            ? new MapaContratos(ordem, ids, negativos, proxima)
+            : new MapaContratos(ordem, positivos, ids, proxima);
+    }
+
+    // O contrato na posição indicada (a partir de 0) na ordem de cadastro, ou null fora do mapa
+    public contrato naPosicao(int posicao) {
+        if (posicao < 0 || posicao >= tamanho()) {
+            return null;
+        }
+        return (contrato) naPosicao(porSequencia.raiz, porSequencia.deslocamento, posicao);
+    }
+
+    // Percurso na ordem de cadastro
+    @Override
+    public Iterator<contrato> iterator() {
+        return new Percurso(porSequencia, false);
+    }
+
+    // Os mesmos contratos em ordem de ID, direto das folhas das tries de ID
+    public Iterable<contrato> emOrdemDeId() {
+        return () -> {
+            Percurso crescente = new Percurso(positivos, false);
+            if (negativos.raiz == null) {
+                return crescente;
+            }
+            // A trie dos negativos, pelo complemento, é percorrida ao contrário
+            Percurso decrescente = new Percurso(negativos, true);
+            return new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    return decrescente.hasNext() || crescente.hasNext();
+                }
+
+                @Override
+                public contrato next() {
+                    return decrescente.hasNext() ? decrescente.next() : crescente.next();
+                }
+            };
+        };
+    }
+
+    // Só depois de 2^31 inclusões no mesmo mapa: os contratos recebem sequências novas, na mesma ordem
+    private MapaContratos renumerado() {
+        Object lote = new Object();
+        MapaContratos renumerado = VAZIO;
+        for (contrato contrato : this) {
+            renumerado = renumerado.gravar(contrato, lote);
+        }
+        return renumerado;
+    }
+
+    private static int quantidade(No no) {
+        return no == null ? 0 : no.quantidade;
+    }
+
+    private static boolean foraDoAlcance(int chave, int deslocamento) {
+        return deslocamento < DESLOCAMENTO_MAXIMO && (chave >>> (deslocamento + BITS)) != 0;
+    }
+
+    private static No novo(int deslocamento, boolean comSequencias, Object lote) {
+        return new No(new Object[LARGURA], deslocamento == 0 && comSequencias ? new int[LARGURA] : null, 0, lote);
+    }
+
+    // A folha em que a chave ficaria, ou null se o caminho até ela não existe
+    private static No folha(No no, int deslocamento, int chave) {
+        if (no == null || foraDoAlcance(chave, deslocamento)) {
+            return null;
+        }
+        for (int d = deslocamento; d > 0 && no != null; d -= BITS) {
+            no = (No) no.filhos[(chave >>> d) & MASCARA];
+        }
+        return no;
+    }
+
+    private static No gravar(No no, int deslocamento, int chave, Object valor, int sequencia,
+                             int acrescimo, boolean comSequencias, Object lote) {
+        No copia = no.editavel(lote);
+        copia.quantidade += acrescimo;
+        int posicao = (chave >>> deslocamento) & MASCARA;
+        if (deslocamento == 0) {
+            copia.filhos[posicao] = valor;
+            if (copia.sequencias != null) {
+                copia.sequencias[posicao] = sequencia;
+            }
+        } else {
+            No filho = (No) copia.filhos[posicao];
+            if (filho == null) {
+                filho = novo(deslocamento - BITS, comSequencias, lote);
+            }
+            copia.filhos[posicao] = gravar(filho, deslocamento - BITS, chave, valor, sequencia,
+                                           acrescimo, comSequencias, lote);
+        }
+        return copia;
+    }
+
+    // A chave existe; nós que ficam vazios são retirados
+    private static No remover(No no, int deslocamento, int chave, Object lote) {
+        if (no.quantidade == 1) {
+            return null;
+        }
+        No copia = no.editavel(lote);
+        copia.quantidade--;
+        int posicao = (chave >>> deslocamento) & MASCARA;
+        copia.filhos[posicao] = deslocamento == 0
+            ? null
+            : remover((No) copia.filhos[posicao], deslocamento - BITS, chave, lote);
+        return copia;
+    }
+
+    private static Object naPosicao(No no, int deslocamento, int posicao) {
+        while (deslocamento > 0) {
+            for (Object filho : no.filhos) {
+                int abaixo = quantidade((No) filho);
+                if (posicao < abaixo) {
+                    no = (No) filho;
+                    break;
+                }
+                posicao -= abaixo;
+            }
+            deslocamento -= BITS;
+        }
+        for (Object filho : no.filhos) {
+            if (filho != null && posicao-- == 0) {
+                return filho;
+            }
+        }
+        throw new IllegalStateException("Quantidade inconsistente no mapa de contratos");
+    }
+
+    // Percurso em profundidade com uma pilha de (nó, próxima posição) por nível
+    private static final class Percurso implements Iterator<contrato> {
+        private final No[] nos = new No[DESLOCAMENTO_MAXIMO / BITS + 1];
+        private final int[] posicoes = new int[nos.length];
+        private final boolean decrescente;
+        private int nivel = -1; // topo da pilha; o nível 0 é a raiz
+        private final int folha;
+        private contrato proximo;
+
+        Percurso(Trie trie, boolean decrescente) {
+            this.decrescente = decrescente;
+            this.folha = trie.deslocamento / BITS;
+            if (trie.raiz != null) {
+                empilhar(trie.raiz);
+            }
+            avancar();
+        }
+
+        private void empilhar(No no) {
+            nivel++;
+            nos[nivel] = no;
+            posicoes[nivel] = decrescente ? MASCARA : 0;
+        }
+
+        private void avancar() {
+            proximo = null;
+            while (nivel >= 0) {
+                int p = posicoes[nivel];
+                if (p < 0 || p > MASCARA) {
+                    nos[nivel--] = null;
+                    continue;
+                }
+                posicoes[nivel] = decrescente ? p - 1 : p + 1;
+                Object filho = nos[nivel].filhos[p];
+                if (filho == null) {
+                    continue;
+                }
+                if (nivel == folha) {
+                    proximo = (contrato) filho;
+                    return;
+                }
+                empilhar((No) filho);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return proximo != null;
+        }
+
+        @Override
+        public contrato next() {
+            if (proximo == null) {
+                throw new NoSuchElementException();
+            }
+            contrato atual = proximo;
+            avancar();
+            return atual;
+        }
+    }
+}
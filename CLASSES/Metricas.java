@@ -0,0 +1,331 @@
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+// Métricas de desempenho sempre ligadas: latência de cada operação (CRUD, consultas, carga,
+// diário e snapshots), bytes gravados, registros carregados por segundo, rejeições de
+// validação e erros de leitura por campo. Registrar não aloca nem trava: só incrementos
+// atômicos em vetores criados na inicialização. Expostas no menu (opção 15) e por JMX
+// (domínio "contratos", ex.: jconsole).
+public final class Metricas {
+    private Metricas() {
+    }
+
+    // Operações cronometradas (em nanossegundos)
+    public enum Operacao {
+        CARREGAR("carregar"),
+        SNAPSHOT("snapshot"),
+        DIARIO("diario"),
+        BUSCAR_ID("buscar-id"),
+        BUSCAR_CPF("buscar-cpf"),
+        BUSCAR_NUMERO("buscar-numero"),
+        BUSCAR_NOME("buscar-nome"),
+        BUSCAR_DATAS("buscar-datas"),
+        BUSCAR_DESCRICAO("buscar-descricao"),
+        CRIAR("criar"),
+        ATUALIZAR("atualizar"),
+        EXCLUIR("excluir"),
+        VALIDAR_CPF("validar-cpf");
+
+        private final String nome;
+        private final Histograma latencia = new Histograma();
+
+        Operacao(String nome) {
+            this.nome = nome;
+        }
+
+        public String getNome() {
+            return nome;
+        }
+
+        public Histograma getLatencia() {
+            return latencia;
+        }
+
+        // Uso: long inicio = System.nanoTime(); ... ; Operacao.X.registrar(inicio);
+        public void registrar(long inicio) {
+            latencia.registrar(System.nanoTime() - inicio);
+        }
+    }
+
+    // Motivos de rejeição das regras de validação (cadastro, edição e importação)
+    public enum Rejeicao { TEXTO, CPF, VALOR, DATAS }
+
+    // Campo que impediu a leitura de uma linha do .txt ou do diário
+    public enum Campo { CAMPOS, ID, VALOR, CELEBRACAO, INICIO, TERMINO }
+
+    public static final Histograma BYTES_DIARIO = new Histograma();   // por gravação do diário
+    public static final Histograma BYTES_SNAPSHOT = new Histograma(); // por snapshot ou checkpoint
+
+    private static final AtomicLongArray rejeicoes = new AtomicLongArray(Rejeicao.values().length);
+    private static final AtomicLongArray errosDeLeitura = new AtomicLongArray(Campo.values().length);
+    private static final AtomicLong registrosCarregados = new AtomicLong();
+    private static final AtomicLong nanosDeCarga = new AtomicLong();
+    private static volatile double registrosPorSegundo;
+
+    public static void rejeitar(Rejeicao motivo) {
+        rejeicoes.incrementAndGet(motivo.ordinal());
+    }
+
+    public static long getRejeicoes(Rejeicao motivo) {
+        return rejeicoes.get(motivo.ordinal());
+    }
+
+    public static void erroDeLeitura(Campo campo) {
+        errosDeLeitura.incrementAndGet(campo.ordinal());
+    }
+
+    public static long getErrosDeLeitura(Campo campo) {
+        return errosDeLeitura.get(campo.ordinal());
+    }
+
+    // Uma carga completa (ou a montagem dos índices na carga sob demanda)
+    public static void registrarCarga(long registros, long nanos) {
+        registrosCarregados.addAndGet(registros);
+        nanosDeCarga.addAndGet(nanos);
+        registrosPorSegundo = nanos > 0 ? registros * 1e9 / nanos : 0;
+    }
+
+    public static long getRegistrosCarregados() {
+        return registrosCarregados.get();
+    }
+
+    // Taxa da última carga
+    public static double getRegistrosPorSegundo() {
+        return registrosPorSegundo;
+    }
+
+    // Histograma log-linear no estilo do HdrHistogram: valores até 127 têm faixa própria e,
+    // acima disso, cada potência de 2 é dividida em 64 faixas (erro relativo abaixo de 1,6%).
+    // Valores acima de 2^42 (73 minutos em ns, 4 TiB em bytes) caem na última faixa.
+    public static final class Histograma implements HistogramaMBean {
+        private static final int SUBFAIXAS = 64;
+        private static final int BITS_SUBFAIXA = 6;
+        private static final long LIMITE = (1L << 42) - 1;
+        private static final int FAIXAS = indice(LIMITE) + 1;
+
+        private final AtomicLongArray contagens = new AtomicLongArray(FAIXAS);
+        private final AtomicLong quantidade = new AtomicLong();
+        private final AtomicLong soma = new AtomicLong();
+        private final AtomicLong maximo = new AtomicLong();
+
+        static int indice(long valor) {
+            int expoente = Math.max(0, 57 - Long.numberOfLeadingZeros(valor));
+            return (expoente << BITS_SUBFAIXA) + (int) (valor >>> expoente);
+        }
+
+        // Maior valor que cai na faixa
+        static long limiteSuperior(int indice) {
+            if (indice < 2 * SUBFAIXAS) {
+                return indice;
+            }
+            int expoente = (indice >>> BITS_SUBFAIXA) - 1;
+            long base = (long) (indice - (expoente << BITS_SUBFAIXA)) << expoente;
+            return base + (1L << expoente) - 1;
+        }
+
+        public void registrar(long valor) {
+            valor = Math.max(0, Math.min(valor, LIMITE));
+            contagens.incrementAndGet(indice(valor));
+            quantidade.incrementAndGet();
+            soma.addAndGet(valor);
+            long atual = maximo.get();
+            while (valor > atual && !maximo.compareAndSet(atual, valor)) {
+                atual = maximo.get();
+            }
+        }
+
+        @Override
+        public long getQuantidade() {
+            return quantidade.get();
+        }
+
+        @Override
+        public long getSoma() {
+            return soma.get();
+        }
+
+        @Override
+        public double getMedia() {
+            long n = quantidade.get();
+            return n == 0 ? 0 : (double) soma.get() / n;
+        }
+
+        @Override
+        public long getMaximo() {
+            return maximo.get();
+        }
+
+        // Limite superior da faixa que contém o percentil (0 a 100), sem passar do máximo visto
+        public long percentil(double percentil) {
+            long total = 0;
+            for (int i = 0; i < FAIXAS; i++) {
+                total += contagens.get(i);
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long alvo = Math.max(1, (long) (percentil / 100 * total + 0.5)); // arredondado, como no HdrHistogram
+            long acumulado = 0;
+            for (int i = 0; i < FAIXAS; i++) {
+                acumulado += contagens.get(i);
+                if (acumulado >= alvo) {
+                    return Math.min(limiteSuperior(i), maximo.get());
+                }
+            }
+            return maximo.get();
+        }
+
+        @Override
+        public long getP50() {
+            return percentil(50);
+        }
+
+        @Override
+        public long getP90() {
+            return percentil(90);
+        }
+
+        @Override
+        public long getP99() {
+            return percentil(99);
+        }
+
+        @Override
+        public long getP999() {
+            return percentil(99.9);
+        }
+    }
+
+    // Atributos de cada histograma no JMX (latências em ns)
+    public interface HistogramaMBean {
+        long getQuantidade();
+        long getSoma();
+        double getMedia();
+        long getMaximo();
+        long getP50();
+        long getP90();
+        long getP99();
+        long getP999();
+    }
+
+    public interface ContadoresMBean {
+        long getRegistrosCarregados();
+        double getRegistrosPorSegundo();
+        long getSegundosDeCarga();
+        long getRejeicoesTexto();
+        long getRejeicoesCpf();
+        long getRejeicoesValor();
+        long getRejeicoesDatas();
+        long getErrosLeituraCampos();
+        long getErrosLeituraId();
+        long getErrosLeituraValor();
+        long getErrosLeituraCelebracao();
+        long getErrosLeituraInicio();
+        long getErrosLeituraTermino();
+    }
+
+    private static final class Contadores implements ContadoresMBean {
+        @Override
+        public long getRegistrosCarregados() {
+            return Metricas.getRegistrosCarregados();
+        }
+
+        @Override
+        public double getRegistrosPorSegundo() {
+            return Metricas.getRegistrosPorSegundo();
+        }
+
+        @Override
+        public long getSegundosDeCarga() {
+            return TimeUnit.NANOSECONDS.toSeconds(nanosDeCarga.get());
+        }
+
+        @Override
+        public long getRejeicoesTexto() {
+            return getRejeicoes(Rejeicao.TEXTO);
+        }
+
+        @Override
+        public long getRejeicoesCpf() {
+            return getRejeicoes(Rejeicao.CPF);
+        }
+
+        @Override
+        public long getRejeicoesValor() {
+            return getRejeicoes(Rejeicao.VALOR);
+        }
+
+        @Override
+        public long getRejeicoesDatas() {
+            return getRejeicoes(Rejeicao.DATAS);
+        }
+
+        @Override
+        public long getErrosLeituraCampos() {
+            return getErrosDeLeitura(Campo.CAMPOS);
+        }
+
+        @Override
+        public long getErrosLeituraId() {
+            return getErrosDeLeitura(Campo.ID);
+        }
+
+        @Override
+        public long getErrosLeituraValor() {
+            return getErrosDeLeitura(Campo.VALOR);
+        }
+
+        @Override
+        public long getErrosLeituraCelebracao() {
+            return getErrosDeLeitura(Campo.CELEBRACAO);
+        }
+
+        @Override
+        public long getErrosLeituraInicio() {
+            return getErrosDeLeitura(Campo.INICIO);
+        }
+
+        @Override
+        public long getErrosLeituraTermino() {
+            return getErrosDeLeitura(Campo.TERMINO);
+        }
+    }
+
+    // contratos:type=Latencia,name=<operação>, contratos:type=Bytes,name=<diario|snapshot>
+    // e contratos:type=Contadores. Pode ser chamado mais de uma vez. Subir o servidor de MBeans
+    // leva centenas de ms: é feito em segundo plano para não atrasar a abertura do menu
+    public static void registrarJmx() {
+        Thread registro = new Thread(Metricas::registrarMBeans, "metricas-jmx");
+        registro.setDaemon(true);
+        registro.start();
+    }
+
+    private static synchronized void registrarMBeans() {
+        MBeanServer servidor = ManagementFactory.getPlatformMBeanServer();
+        try {
+            for (Operacao operacao : Operacao.values()) {
+                registrar(servidor, "contratos:type=Latencia,name=" + operacao.getNome(),
+                          operacao.getLatencia(), HistogramaMBean.class);
+            }
+            registrar(servidor, "contratos:type=Bytes,name=diario", BYTES_DIARIO, HistogramaMBean.class);
+            registrar(servidor, "contratos:type=Bytes,name=snapshot", BYTES_SNAPSHOT, HistogramaMBean.class);
+            registrar(servidor, "contratos:type=Contadores", new Contadores(), ContadoresMBean.class);
+        } catch (JMException e) {
+            System.out.println("Erro ao registrar métricas no JMX: " + e.getMessage());
+        }
+    }
+
+    private static <T> void registrar(MBeanServer servidor, String nome, T objeto, Class<T> interfaceMBean)
+            throws JMException {
+        ObjectName objectName = new ObjectName(nome);
+        if (!servidor.isRegistered(objectName)) {
+            servidor.registerMBean(new StandardMBean(objeto, interfaceMBean), objectName);
+        }
+    }
+}
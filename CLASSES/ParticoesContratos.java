@@ -0,0 +1,257 @@
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Contratos divididos em arquivos por ano de celebração: <base>.<ano>.txt, no formato do .txt.
+// Cada ano guarda um MapaContratos próprio (os contratos são os mesmos da tabela principal) e
+// as alterações marcam os anos afetados; o snapshot regrava só os arquivos desses anos, cada um
+// pela troca atômica de um temporário. Um contrato que muda de ano marca os dois de uma vez,
+// e o registro do diário que o moveu só é descartado depois que os dois foram trocados.
+// Não é sincronizada (exceto as falhas de gravação): o RepositorioContratos controla o acesso.
+public class ParticoesContratos {
+    private static final Pattern NOME_PARTICAO = Pattern.compile("\\.(-?\\d{1,9})\\.txt$");
+
+    private final String base;
+    private final Charset charset;
+    private final TreeMap<Integer, MapaContratos> porAno = new TreeMap<>();
+    private final Map<Integer, Long> tamanhos = new ConcurrentHashMap<>(); // bytes de cada arquivo em disco
+    private final Set<Integer> alterados = new HashSet<>();
+    private final Set<Integer> falhas = new HashSet<>(); // anos de uma gravação que não terminou
+    private volatile long tamanhoAlterados; // lido pelo gravador sem a trava
+    private Object lote;
+
+    public ParticoesContratos(String base, Charset charset) {
+        this.base = base;
+        this.charset = charset;
+    }
+
+    public static int ano(contrato contrato) {
+        return LocalDate.ofEpochDay(contrato.getCelebracaoDia()).getYear();
+    }
+
+    public Path arquivo(int ano) {
+        return Path.of(base + "." + ano + ".txt");
+    }
+
+    // Arquivos de partição existentes, por ano
+    public TreeMap<Integer, Path> existentes() throws IOException {
+        TreeMap<Integer, Path> arquivos = new TreeMap<>();
+        Path prefixo = Path.of(base).toAbsolutePath();
+        Path diretorio = prefixo.getParent();
+        String nome = prefixo.getFileName().toString();
+        try (DirectoryStream<Path> conteudo = Files.newDirectoryStream(diretorio, nome + ".*.txt")) {
+            for (Path arquivo : conteudo) {
+                Matcher ano = NOME_PARTICAO.matcher(arquivo.getFileName().toString().substring(nome.length()));
+                if (ano.matches()) {
+                    arquivos.put(Integer.parseInt(ano.group(1)), arquivo);
+                }
+            }
+        }
+        return arquivos;
+    }
+
+    // Tamanho em disco dos arquivos lidos na abertura (estimativa do custo de regravá-los)
+    public void registrarTamanho(int ano, long tamanho) {
+        tamanhos.put(ano, tamanho);
+    }
+
+    public void limpar() {
+        porAno.clear();
+        alterados.clear();
+        tamanhoAlterados = 0;
+    }
+
+    // Em um lote os nós criados pelo próprio lote são alterados no lugar (ver TabelaVersionada)
+    public void iniciarLote() {
+        lote = new Object();
+    }
+
+    public void concluirLote() {
+        lote = null;
+    }
+
+    // Chamado com o contrato anterior de mesmo ID (ou null) depois de gravado na tabela principal
+    public void gravar(contrato anterior, contrato contrato) {
+        int ano = ano(contrato);
+        if (anterior != null && ano(anterior) != ano) {
+            remover(anterior);
+        }
+        porAno.put(ano, porAno.getOrDefault(ano, MapaContratos.VAZIO).gravar(contrato, lote));
+        marcar(ano);
+    }
+
+    public void remover(contrato contrato) {
+        int ano = ano(contrato);
+        MapaContratos mapa = porAno.get(ano);
+        if (mapa == null) {
+            return;
+        }
+        MapaContratos restante = mapa.remover(contrato.getId(), lote);
+        if (restante.tamanho() == 0) {
+            porAno.remove(ano);
+        } else {
+            porAno.put(ano, restante);
+        }
+        marcar(ano);
+    }
+
+    public void marcar(int ano) {
+        if (alterados.add(ano)) {
+            tamanhoAlterados += tamanhos.getOrDefault(ano, 0L);
+        }
+    }
+
+    // Depois da carga: os arquivos já estão como a memória
+    public void descartarAlteracoes() {
+        alterados.clear();
+        tamanhoAlterados = 0;
+    }
+
+    public void marcarTodos() {
+        porAno.keySet().forEach(this::marcar);
+    }
+
+    public boolean possuiAlteracoes() {
+        return !alterados.isEmpty();
+    }
+
+    // Bytes dos arquivos que o próximo snapshot vai regravar
+    public long getTamanhoAlterados() {
+        return tamanhoAlterados;
+    }
+
+    // Versões atuais dos anos alterados (vazias para os anos que ficaram sem contratos) e limpa
+    // as marcas; imutáveis daqui em diante, então podem ser gravadas sem a trava
+    public TreeMap<Integer, MapaContratos> retirarAlterados() {
+        synchronized (falhas) {
+            alterados.addAll(falhas);
+            falhas.clear();
+        }
+        TreeMap<Integer, MapaContratos> versoes = new TreeMap<>();
+        for (int ano : alterados) {
+            versoes.put(ano, porAno.getOrDefault(ano, MapaContratos.VAZIO));
+        }
+        alterados.clear();
+        tamanhoAlterados = 0;
+        if (lote != null) {
+            lote = new Object();
+        }
+        return versoes;
+    }
+
+    // Grava cada ano em um temporário e troca o arquivo; um ano sem contratos tem o arquivo
+    // apagado. Se algum falhar, todos voltam a ser marcados para o próximo snapshot
+    public long gravar(TreeMap<Integer, MapaContratos> versoes) throws IOException {
+        long bytes = 0;
+        try {
+            for (Map.Entry<Integer, MapaContratos> particao : versoes.entrySet()) {
+                bytes += gravar(particao.getKey(), particao.getValue());
+            }
+            Metricas.BYTES_SNAPSHOT.registrar(bytes);
+        } catch (IOException | RuntimeException e) {
+            synchronized (falhas) {
+                falhas.addAll(versoes.keySet());
+            }
+            throw e;
+        }
+        return bytes;
+    }
+
+    private long gravar(int ano, MapaContratos contratos) throws IOException {
+        Path destino = arquivo(ano);
+        if (contratos.tamanho() == 0) {
+            Files.deleteIfExists(destino);
+            return 0;
+        }
+        Path temporario = Path.of(destino + ".tmp");
+        FormatoTexto.Codificador codificador = new FormatoTexto.Codificador(charset);
+        long tamanho = 0;
+        try (OutputStream saida = new BufferedOutputStream(Files.newOutputStream(temporario), 1 << 16)) {
+            for (contrato contrato : contratos) {
+                tamanho += codificador.escrever(contrato, saida);
+            }
+        }
+        DiarioContratos.sincronizar(temporario);
+        Files.move(temporario, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        tamanhos.put(ano, tamanho);
+        return tamanho;
+    }
+
+    // Contratos celebrados entre os anos (inclusive; null: sem limite), em ordem de ID: só os
+    // mapas desses anos são percorridos. Os mapas são tomados agora (chamar com a trava) e
+    // podem ser percorridos depois sem ela
+    public Iterable<contrato> celebradosEntre(Integer de, Integer ate) {
+        Map<Integer, MapaContratos> faixa = de == null && ate == null ? porAno
+            : de == null ? porAno.headMap(ate, true)
+            : ate == null ? porAno.tailMap(de, true)
+            : de > ate ? Map.of() : porAno.subMap(de, true, ate, true);
+        List<MapaContratos> mapas = new ArrayList<>(faixa.values());
+        return () -> new Intercalacao(mapas);
+    }
+
+    // Intercalação por ID dos percursos de cada ano (cada mapa percorrido em ordem de ID)
+    private static final class Intercalacao implements Iterator<contrato> {
+        private final PriorityQueue<Cabeca> fila = new PriorityQueue<>();
+
+        private static final class Cabeca implements Comparable<Cabeca> {
+            final Iterator<contrato> resto;
+            contrato atual;
+
+            Cabeca(Iterator<contrato> resto) {
+                this.resto = resto;
+                this.atual = resto.next();
+            }
+
+            @Override
+            public int compareTo(Cabeca outra) {
+                return Integer.compare(atual.getId(), outra.atual.getId());
+            }
+        }
+
+        Intercalacao(List<MapaContratos> mapas) {
+            for (MapaContratos mapa : mapas) {
+                Iterator<contrato> percurso = mapa.emOrdemDeId().iterator();
+                if (percurso.hasNext()) {
+                    fila.add(new Cabeca(percurso));
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !fila.isEmpty();
+        }
+
+        @Override
+        public contrato next() {
+            Cabeca menor = fila.poll();
+            if (menor == null) {
+                throw new NoSuchElementException();
+            }
+            contrato proximo = menor.atual;
+            if (menor.resto.hasNext()) {
+                menor.atual = menor.resto.next();
+                fila.add(menor);
+            }
+            return proximo;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+import java.time.LocalDate;
+
+// Regras de validação dos campos de um contrato, compartilhadas entre o cadastro
+// interativo e a importação em lote. Cada método devolve a mensagem de erro ou null;
+// cada rejeição é contada nas métricas pelo motivo.
+public class RegrasContrato {
+    // A entrada já deve vir aparada (trim)
+    public static String validarTexto(String entrada, String campo, boolean permitirNumeros) {
+        if (entrada.isEmpty()) {
+            return rejeitar(Metricas.Rejeicao.TEXTO, campo + " não pode ser vazio!");
+        }
+        String erro = validarCaracteres(entrada, campo);
+        if (erro != null) {
+            return erro;
+        }
+        if (!permitirNumeros && !apenasLetras(entrada)) {
+            return rejeitar(Metricas.Rejeicao.TEXTO, campo + " deve conter apenas letras e espaços!");
+        }
+        return null;
+    }
+
+    // O arquivo e o diário guardam uma linha por contrato com os campos separados por '|':
+    // nenhum texto pode conter o separador, quebras de linha ou outros caracteres de controle
+    public static String validarCaracteres(String entrada, String campo) {
+        if (!caracteresPermitidos(entrada)) {
+            return rejeitar(Metricas.Rejeicao.TEXTO, campo + " não pode conter '|', quebras de linha nem caracteres de controle!");
+        }
+        return null;
+    }
+
+    private static boolean caracteresPermitidos(String entrada) {
+        for (int i = 0; i < entrada.length(); i++) {
+            char c = entrada.charAt(i);
+            if (c == '|' || Character.isISOControl(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // O mesmo que [a-zA-ZÀ-ú\s]+, sem regex (a validação roda para cada linha importada)
+    private static boolean apenasLetras(String entrada) {
+        for (int i = 0; i < entrada.length(); i++) {
+            char c = entrada.charAt(i);
+            boolean letra = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= 'À' && c <= 'ú');
+            if (!letra && !IndicesSecundarios.ehEspaco(c)) {
+                return false;
+            }
+        }
+        return !entrada.isEmpty();
+    }
+
+    public static String validarCPF(String cpf) {
+        // Os dígitos bastam para o ValidaCPF; o texto digitado também não pode quebrar a linha
+        return ValidaCPF.validarCPF(cpf) && caracteresPermitidos(cpf) ? null : rejeitar(Metricas.Rejeicao.CPF, "CPF inválido!");
+    }
+
+    public static String validarValor(double valor) {
+        if (!(valor > 0)) {
+            return rejeitar(Metricas.Rejeicao.VALOR, "O valor do contrato deve ser maior que zero!");
+        }
+        if (valor > contrato.VALOR_MAXIMO) {
+            return rejeitar(Metricas.Rejeicao.VALOR, "O valor do contrato deve ser no máximo R$ 10.000.000.000.000,00!");
+        }
+        return null;
+    }
+
+    public static String validarDatas(LocalDate celebracao, LocalDate inicio, LocalDate termino) {
+        if (celebracao.isAfter(termino)) {
+            return rejeitar(Metricas.Rejeicao.DATAS, "Data de celebração não pode ser posterior à data de término!");
+        } else if (inicio.isAfter(termino)) {
+            return rejeitar(Metricas.Rejeicao.DATAS, "Data de início não pode ser posterior à data de término!");
+        } else if (termino.isBefore(celebracao) || termino.isBefore(inicio)) {
+            return rejeitar(Metricas.Rejeicao.DATAS, "Data de término não pode ser anterior às outras datas!");
+        }
+        return null;
+    }
+
+    private static String rejeitar(Metricas.Rejeicao motivo, String mensagem) {
+        Metricas.rejeitar(motivo);
+        return mensagem;
+    }
+}
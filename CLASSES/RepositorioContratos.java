@@ -0,0 +1,1369 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+// Repositório de contratos compartilhado entre o console e o servidor.
+// - Índices e totais são protegidos por um StampedLock: as consultas usam a trava de leitura
+//   e as alterações, a de escrita.
+// - Em memória os contratos ficam em uma TabelaVersionada: cada alteração publica uma versão
+//   nova de um mapa persistente. Busca por ID, tamanho, listagem, exportação e snapshot leem
+//   um instantâneo (O(1)) sem trava, então relatórios longos não seguram as edições.
+// - Um contrato publicado nunca é alterado no lugar: a edição grava uma cópia.
+// - O diário só é escrito pela thread "gravador-contratos", que junta as alterações pendentes
+//   em uma única escrita (group commit); quem alterou espera o lote ser gravado.
+// - No modo paginado os contratos ficam em uma ArvoreContratos em disco (só os índices e os
+//   totais ficam em memória) e o snapshot passa a ser o checkpoint das páginas alteradas.
+// - Na carga sob demanda o .txt não é lido na abertura (TextoIndexado): os índices e os
+//   totais são montados pela thread "indexador-contratos" e as consultas por eles esperam.
+// - Contratos vencidos há mais de um prazo podem ser levados ao arquivo morto (AcervoContratos):
+//   saem do armazenamento, dos índices e dos totais, e a busca por ID os encontra lá.
+// - Com partições (ParticoesContratos) os contratos em memória também são separados por ano de
+//   celebração, um arquivo por ano: a carga lê os arquivos em paralelo, o snapshot regrava só os
+//   anos alterados e a exportação por período de celebração percorre só os anos da faixa.
+public class RepositorioContratos {
+    private static final int LOTE_MAXIMO = 4096;
+    private static final int TRECHO_INDEXACAO = 16384;
+    private static final int CAPACIDADE_EVENTOS = 8192;
+    private static final int LOTE_EVENTOS = 512;
+
+    private ArmazenamentoContratos contratos = new TabelaVersionada();
+    private ArvoreContratos arvore; // o próprio "contratos" no modo paginado
+    private TextoIndexado texto; // o próprio "contratos" na carga sob demanda
+    private IndicesSecundarios indices = new IndicesSecundarios();
+    private IndiceDatas datas = new IndiceDatas();
+    private IndiceTexto textos = new IndiceTexto();
+    private AgregadosContratos agregados = new AgregadosContratos();
+    // Falso enquanto o indexador monta índices e totais novos (os atuais ficam vazios)
+    private volatile boolean indexado = true;
+    private volatile CompletableFuture<Void> indexacao = CompletableFuture.completedFuture(null);
+    private volatile boolean encerrando; // interrompe o indexador no fechar()
+    private final StampedLock trava = new StampedLock();
+    // Avisado (com a trava de escrita) quando um contrato é criado ou tem o termino alterado
+    private volatile BiConsumer<contrato, contrato> observadorTermino;
+    private int proximoId = 1;
+    // Criado na primeira assinatura: sem assinantes nenhum evento é montado
+    private volatile FluxoEventos fluxo;
+    private long sequenciaEventos; // com a trava de escrita
+    // Durante o carregamento os totais não são somados um a um: são recalculados em paralelo no fim
+    private boolean carregando;
+    // Falso se algum arquivo não pôde ser lido por inteiro na última carga
+    private boolean cargaCompleta;
+
+    private final String arquivoDados;
+    private final String arquivoBinario;
+    private final boolean formatoBinario;
+    private final String arquivoPaginado; // null: contratos em memória
+    private final int paginasEmCache;
+    private final boolean sobDemanda;
+    private final int contratosEmCache;
+    private final DiarioContratos diario;
+    private final ParticoesContratos particoes; // null: um único arquivo
+    private final String arquivoAcervo;
+    private AcervoContratos acervo; // aberto no carregar()
+    private final LinkedBlockingQueue<Alteracao> pendentes = new LinkedBlockingQueue<>();
+    private Thread gravador;
+
+    // Uma entrada da fila do gravador: contratos gravados, um ID excluído ou um pedido de snapshot
+    // (com os IDs levados ao arquivo morto, se houver), com os eventos a publicar depois da
+    // gravação (null sem assinantes)
+    private static final class Alteracao {
+        static final Alteracao FIM = new Alteracao(null, 0, null);
+
+        final List<contrato> gravacoes;
+        final int exclusao;
+        final int[] arquivados;
+        final List<EventoContrato> eventos;
+        final CompletableFuture<Void> gravada = new CompletableFuture<>();
+
+        Alteracao(List<contrato> gravacoes, int exclusao, List<EventoContrato> eventos) {
+            this(gravacoes, exclusao, null, eventos);
+        }
+
+        Alteracao(List<contrato> gravacoes, int exclusao, int[] arquivados, List<EventoContrato> eventos) {
+            this.gravacoes = gravacoes;
+            this.exclusao = exclusao;
+            this.arquivados = arquivados;
+            this.eventos = eventos;
+        }
+
+        boolean snapshot() {
+            return gravacoes == null && exclusao == 0;
+        }
+    }
+
+    public RepositorioContratos(String arquivoDados, String arquivoBinario, boolean formatoBinario,
+                                String arquivoPaginado, int paginasEmCache,
+                                boolean sobDemanda, int contratosEmCache, String baseParticoes,
+                                String arquivoAcervo) {
+        this.arquivoDados = arquivoDados;
+        this.arquivoBinario = arquivoBinario;
+        this.formatoBinario = formatoBinario;
+        this.arquivoPaginado = arquivoPaginado;
+        this.paginasEmCache = paginasEmCache;
+        this.sobDemanda = sobDemanda;
+        this.contratosEmCache = contratosEmCache;
+        this.arquivoAcervo = arquivoAcervo;
+        this.particoes = baseParticoes != null ? new ParticoesContratos(baseParticoes, Charset.defaultCharset()) : null;
+        this.diario = new DiarioContratos(arquivoPaginado != null ? arquivoPaginado
+                                          : baseParticoes != null ? baseParticoes + ".particoes"
+                                          : formatoBinario ? arquivoBinario : arquivoDados);
+    }
+
+    // Consultas
+
+    public contrato buscar(int id) {
+        long inicio = System.nanoTime();
+        MapaContratos mapa = instantaneo();
+        contrato encontrado;
+        if (mapa != null) {
+            encontrado = mapa.buscar(id);
+        } else {
+            // Árvore e texto carregam páginas e linhas no cache durante a busca: trava de leitura
+            long carimbo = trava.readLock();
+            try {
+                encontrado = contratos.buscar(id);
+            } finally {
+                trava.unlockRead(carimbo);
+            }
+        }
+        if (encontrado == null) {
+            encontrado = buscarArquivado(id);
+        }
+        Metricas.Operacao.BUSCAR_ID.registrar(inicio);
+        return encontrado;
+    }
+
+    // Contratos arquivados são só de leitura: atualizar e excluir devolvem false para eles
+    public boolean estaArquivado(int id) {
+        AcervoContratos atual = acervo;
+        try {
+            return atual != null && atual.contem(id) && !estaAtivo(id);
+        } catch (IOException e) {
+            System.out.println("Erro ao carregar dados: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private contrato buscarArquivado(int id) {
+        AcervoContratos atual = acervo;
+        if (atual == null) {
+            return null;
+        }
+        try {
+            return atual.buscar(id);
+        } catch (IOException e) {
+            System.out.println("Erro ao carregar dados: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private boolean estaAtivo(int id) {
+        MapaContratos mapa = instantaneo();
+        if (mapa != null) {
+            return mapa.contem(id);
+        }
+        long carimbo = trava.readLock();
+        try {
+            return contratos.contem(id);
+        } finally {
+            trava.unlockRead(carimbo);
+        }
+    }
+
+    // Contratos arquivados com término no ano (null: todos) que passam no filtro. Um arquivamento
+    // interrompido antes do snapshot deixa o contrato nos dois lugares: vale o ativo.
+    public AcervoContratos.Resultado pesquisarArquivados(Integer ano, Predicate<contrato> filtro, int limite)
+            throws IOException {
+        if (acervo == null) {
+            return new AcervoContratos.Resultado(0, List.of());
+        }
+        // Os ativos são descartados fora do monitor do acervo (arquivar() trava na ordem inversa)
+        List<contrato> encontrados = new ArrayList<>(acervo.pesquisar(ano, filtro, Integer.MAX_VALUE).contratos);
+        encontrados.removeIf(contrato -> estaAtivo(contrato.getId()));
+        return new AcervoContratos.Resultado(encontrados.size(),
+                                             encontrados.subList(0, Math.min(limite, encontrados.size())));
+    }
+
+    public int tamanho() {
+        MapaContratos mapa = instantaneo();
+        if (mapa != null) {
+            return mapa.tamanho();
+        }
+        long carimbo = trava.readLock();
+        try {
+            return contratos.tamanho();
+        } finally {
+            trava.unlockRead(carimbo);
+        }
+    }
+
+    // Versão publicada dos contratos em memória, imutável e percorrível sem trava; null no modo
+    // paginado e na carga sob demanda (os contratos estão em disco e são lidos com a trava)
+    public MapaContratos instantaneo() {
+        ArmazenamentoContratos atual = contratos;
+        return atual instanceof TabelaVersionada ? ((TabelaVersionada) atual).instantaneo() : null;
+    }
+
+    // Cópia da lista na ordem do armazenamento (ver ArmazenamentoContratos): pode ser percorrida
+    // sem segurar a trava
+    public List<contrato> todos() {
+        MapaContratos mapa = instantaneo();
+        if (mapa != null) {
+            List<contrato> copia = new ArrayList<>(mapa.tamanho());
+            mapa.forEach(copia::add);
+            return copia;
+        }
+        long carimbo = trava.readLock();
+        try {
+            List<contrato> copia = new ArrayList<>(contratos.tamanho());
+            for (contrato contrato : contratos) {
+                copia.add(contrato);
+            }
+            return copia;
+        } finally {
+            trava.unlockRead(carimbo);
+        }
+    }
+
+    // Todos os contratos na ordem do armazenamento. Em memória o percurso é sobre um instantâneo
+    // (sem trava e sem cópia: as alterações feitas durante ele não aparecem); no modo paginado e
+    // na carga sob demanda não há instantâneo, então o percurso segura a trava de leitura
+    public void percorrer(Percurso percurso) throws IOException {
+        MapaContratos mapa = instantaneo();
+        if (mapa != null) {
+            percurso.percorrer(mapa);
+            return;
+        }
+        long carimbo = trava.readLock();
+        try {
+            percurso.percorrer(contratos);
+        } finally {
+            trava.unlockRead(carimbo);
+        }
+    }
+
+    // Como percorrer(), mas só com os contratos celebrados entre as datas (null: sem limite) e
+    // os que os filtros do percurso aceitarem. Com partições só os anos da faixa são lidos;
+    // sem elas o percurso recebe todos e o filtro descarta os de fora
+    public void percorrerCelebradosEntre(LocalDate de, LocalDate ate, Percurso percurso) throws IOException {
+        if (particoes == null) {
+            percorrer(percurso);
+            return;
+        }
+        Iterable<contrato> faixa;
+        long carimbo = trava.readLock();
+        try {
+            faixa = particoes.celebradosEntre(de != null ? de.getYear() : null, ate != null ? ate.getYear() : null);
+        } finally {
+            trava.unlockRead(carimbo);
+        }
+        percurso.percorrer(faixa);
+    }
+
+    public interface Percurso {
+        void percorrer(Iterable<contrato> contratos) throws IOException;
+    }
+
+    // Página (a partir de 1) na ordem do armazenamento
+    public List<contrato> pagina(int pagina, int itensPorPagina) {
+        MapaContratos mapa = instantaneo();
+        if (mapa != null) {
+            return pagina(mapa, pagina, itensPorPagina);
+        }
+        long carimbo = trava.readLock();
+        try {
+            List<contrato> resultado = new ArrayList<>(itensPorPagina);
+            long pular = (long) (pagina - 1) * itensPorPagina;
+            for (contrato contrato : contratos) {
+                if (pular > 0) {
+                    pular--;
+                } else if (resultado.size() < itensPorPagina) {
+                    resultado.add(contrato);
+                } else {
+                    break;
+                }
+            }
+            return resultado;
+        } finally {
+            trava.unlockRead(carimbo);
+        }
+    }
+
+    // Em memória: O(log n) até o primeiro da página, pela quantidade guardada em cada nó do mapa
+    private static List<contrato> pagina(MapaContratos mapa, int pagina, int itensPorPagina) {
+        long primeiro = (long) (pagina - 1) * itensPorPagina;
+        int fim = (int) Math.min(mapa.tamanho(), primeiro + itensPorPagina);
+        List<contrato> resultado = new ArrayList<>(Math.max(0, fim - (int) Math.min(primeiro, fim)));
+        for (long i = primeiro; i < fim; i++) {
+            resultado.add(mapa.naPosicao((int) i));
+        }
+        return resultado;
+    }
+
+    // Listagem em várias páginas: em memória todas vêm do mesmo instantâneo (um contrato
+    // criado ou excluído no meio não desloca as páginas seguintes)
+    public Listagem listagem() {
+        return new Listagem(instantaneo());
+    }
+
+    public final class Listagem {
+        private final MapaContratos mapa; // null: cada página é lida do armazenamento, com a trava
+
+        private Listagem(MapaContratos mapa) {
+            this.mapa = mapa;
+        }
+
+        public int tamanho() {
+            return mapa != null ? mapa.tamanho() : RepositorioContratos.this.tamanho();
+        }
+
+        public List<contrato> pagina(int pagina, int itensPorPagina) {
+            return mapa != null
+                ? RepositorioContratos.pagina(mapa, pagina, itensPorPagina)
+                : RepositorioContratos.this.pagina(pagina, itensPorPagina);
+        }
+    }
+
+    public List<contrato> buscarPorCpf(String cpf) {
+        aguardarIndexacao();
+        long inicio = System.nanoTime();
+        long carimbo = trava.readLock();
+        try {
+            return resolver(indices.buscarPorCpf(cpf));
+        } finally {
+            trava.unlockRead(carimbo);
+            Metricas.Operacao.BUSCAR_CPF.registrar(inicio);
+        }
+    }
+
+    public List<contrato> buscarPorNumero(String numeroContrato) {
+        aguardarIndexacao();
+        long inicio = System.nanoTime();
+        long carimbo = trava.readLock();
+        try {
+            return resolver(indices.buscarPorNumero(numeroContrato));
+        } finally {
+            trava.unlockRead(carimbo);
+            Metricas.Operacao.BUSCAR_NUMERO.registrar(inicio);
+        }
+    }
+
+    public List<contrato> buscarPorNome(String prefixo) {
+        aguardarIndexacao();
+        long inicio = System.nanoTime();
+        long carimbo = trava.readLock();
+        try {
+            return resolver(indices.buscarPorNome(prefixo));
+        } finally {
+            trava.unlockRead(carimbo);
+            Metricas.Operacao.BUSCAR_NOME.registrar(inicio);
+        }
+    }
+
+    public List<contrato> vigentesEm(LocalDate data) {
+        aguardarIndexacao();
+        long inicio = System.nanoTime();
+        long carimbo = trava.readLock();
+        try {
+            return resolver(datas.vigentesEm(data));
+        } finally {
+            trava.unlockRead(carimbo);
+            Metricas.Operacao.BUSCAR_DATAS.registrar(inicio);
+        }
+    }
+
+    // Busca textual na descrição (ver IndiceTexto): os "limite" mais relevantes e o total encontrado
+    public ResultadoTexto buscarPorDescricao(String consulta, int limite) {
+        aguardarIndexacao();
+        long inicio = System.nanoTime();
+        long carimbo = trava.readLock();
+        try {
+            IndiceTexto.Resultado resultado = textos.buscar(consulta, limite);
+            return new ResultadoTexto(resultado.total, resolver(resultado.ids));
+        } finally {
+            trava.unlockRead(carimbo);
+            Metricas.Operacao.BUSCAR_DESCRICAO.registrar(inicio);
+        }
+    }
+
+    public static final class ResultadoTexto {
+        public final int total;
+        public final List<contrato> contratos; // em ordem de relevância
+
+        ResultadoTexto(int total, List<contrato> contratos) {
+            this.total = total;
+            this.contratos = contratos;
+        }
+    }
+
+    public List<contrato> vencendoEntre(LocalDate de, LocalDate ate) {
+        aguardarIndexacao();
+        long inicio = System.nanoTime();
+        long carimbo = trava.readLock();
+        try {
+            return resolver(datas.vencendoEntre(de, ate));
+        } finally {
+            trava.unlockRead(carimbo);
+            Metricas.Operacao.BUSCAR_DATAS.registrar(inicio);
+        }
+    }
+
+    // Executa a leitura dos totais com a trava de leitura (os mapas não podem escapar dela)
+    public void consultarTotais(Consumer<AgregadosContratos> leitura) {
+        aguardarIndexacao();
+        long carimbo = trava.readLock();
+        try {
+            leitura.accept(agregados);
+        } finally {
+            trava.unlockRead(carimbo);
+        }
+    }
+
+    private void aguardarIndexacao() {
+        indexacao.join();
+    }
+
+    private List<contrato> resolver(int[] ids) {
+        List<contrato> resultado = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            resultado.add(contratos.buscar(id));
+        }
+        return resultado;
+    }
+
+    // Alterações: aplicadas na memória com a trava de escrita e depois aguardadas no diário
+
+    // O ID é atribuído aqui, na ordem em que as criações chegam
+    public contrato criar(IntFunction<contrato> fabrica) throws IOException {
+        long inicio = System.nanoTime();
+        contrato novo;
+        Alteracao alteracao;
+        long carimbo = trava.writeLock();
+        try {
+            novo = fabrica.apply(proximoId++);
+            gravarEmMemoria(novo);
+            alteracao = agendar(List.of(novo), 0, evento(EventoContrato.Tipo.CRIADO, null, novo));
+        } finally {
+            trava.unlockWrite(carimbo);
+        }
+        aguardar(alteracao);
+        Metricas.Operacao.CRIAR.registrar(inicio);
+        return novo;
+    }
+
+    // Lote inteiro com IDs consecutivos e um único registro no diário
+    public List<contrato> criarTodos(List<? extends IntFunction<contrato>> fabricas) throws IOException {
+        List<contrato> novos = new ArrayList<>(fabricas.size());
+        Alteracao alteracao;
+        long carimbo = trava.writeLock();
+        iniciarLote();
+        try {
+            List<EventoContrato> eventos = fluxo != null ? new ArrayList<>(fabricas.size()) : null;
+            for (IntFunction<contrato> fabrica : fabricas) {
+                contrato novo = fabrica.apply(proximoId++);
+                armazenar(novo); // IDs novos: não há contrato anterior a desindexar
+                novos.add(novo);
+                if (eventos != null) {
+                    eventos.add(new EventoContrato(++sequenciaEventos, EventoContrato.Tipo.CRIADO, null, novo));
+                }
+            }
+            indexarTodos(novos);
+            alteracao = agendar(novos, 0, eventos);
+        } finally {
+            concluirLote();
+            trava.unlockWrite(carimbo);
+        }
+        aguardar(alteracao);
+        return novos;
+    }
+
+    // Substitui o contrato de mesmo ID (uma cópia editada); false se ele não existe mais
+    public boolean atualizar(contrato editado) throws IOException {
+        long inicio = System.nanoTime();
+        Alteracao alteracao;
+        long carimbo = trava.writeLock();
+        try {
+            if (!contratos.contem(editado.getId())) {
+                return false;
+            }
+            contrato anterior = gravarEmMemoria(editado);
+            alteracao = agendar(List.of(editado), 0, evento(EventoContrato.Tipo.ALTERADO, anterior, editado));
+        } finally {
+            trava.unlockWrite(carimbo);
+        }
+        aguardar(alteracao);
+        Metricas.Operacao.ATUALIZAR.registrar(inicio);
+        return true;
+    }
+
+    public boolean excluir(int id) throws IOException {
+        long inicio = System.nanoTime();
+        Alteracao alteracao;
+        long carimbo = trava.writeLock();
+        try {
+            contrato removido = excluirDaMemoria(id);
+            if (removido == null) {
+                return false;
+            }
+            alteracao = agendar(null, id, evento(EventoContrato.Tipo.EXCLUIDO, removido, null));
+        } finally {
+            trava.unlockWrite(carimbo);
+        }
+        aguardar(alteracao);
+        Metricas.Operacao.EXCLUIR.registrar(inicio);
+        return true;
+    }
+
+    // Snapshot completo pelo gravador, já incluindo tudo que estava na fila
+    public void salvar() throws IOException {
+        aguardar(agendar(null, 0, null));
+    }
+
+    // Leva ao arquivo morto os contratos com término antes do limite e devolve quantos foram.
+    // O acervo é gravado (e sincronizado) antes de os contratos saírem do armazenamento; depois
+    // o diário recebe as exclusões e um snapshot tira-os do arquivo principal, então carga e
+    // snapshot passam a depender só dos ativos. Uma falha no diário ou no snapshot volta como IOException.
+    public int arquivar(LocalDate limite) throws IOException {
+        if (acervo == null) {
+            throw new IOException("Arquivo morto indisponível: " + arquivoAcervo);
+        }
+        aguardarIndexacao();
+        Alteracao alteracao;
+        int arquivados;
+        long carimbo = trava.writeLock();
+        try {
+            int[] vencidos = datas.vencidosAntes(limite);
+            if (vencidos.length == 0) {
+                return 0;
+            }
+            List<contrato> movidos = resolver(vencidos);
+            acervo.acrescentar(movidos);
+            iniciarLote();
+            try {
+                for (int id : vencidos) {
+                    excluirDaMemoria(id);
+                }
+            } finally {
+                concluirLote();
+            }
+            arquivados = vencidos.length;
+            List<EventoContrato> eventos = null;
+            if (fluxo != null) {
+                eventos = new ArrayList<>(movidos.size());
+                for (contrato movido : movidos) {
+                    eventos.add(new EventoContrato(++sequenciaEventos, EventoContrato.Tipo.ARQUIVADO, movido, null));
+                }
+            }
+            alteracao = agendar(new Alteracao(null, 0, vencidos, eventos));
+        } finally {
+            trava.unlockWrite(carimbo);
+        }
+        aguardar(alteracao);
+        return arquivados;
+    }
+
+    // Chamado com a trava de escrita: a ordem da fila é a ordem em que as alterações foram aplicadas
+    private Alteracao agendar(List<contrato> gravacoes, int exclusao, List<EventoContrato> eventos) {
+        return agendar(new Alteracao(gravacoes, exclusao, eventos));
+    }
+
+    private Alteracao agendar(Alteracao alteracao) {
+        pendentes.add(alteracao);
+        return alteracao;
+    }
+
+    // Também com a trava de escrita, para a sequência seguir a ordem da fila
+    private List<EventoContrato> evento(EventoContrato.Tipo tipo, contrato anterior, contrato atual) {
+        if (fluxo == null) {
+            return null;
+        }
+        return List.of(new EventoContrato(++sequenciaEventos, tipo, anterior, atual));
+    }
+
+    // O assinante recebe, em lotes e na sua própria thread, cada criação, alteração, exclusão e
+    // arquivamento feitos daqui em diante, já gravados no diário (a carga não gera eventos).
+    // Um assinante lento atrasa as gravações seguintes quando o anel de eventos enche.
+    public void assinar(String nome, FluxoEventos.Assinante assinante) {
+        long carimbo = trava.writeLock();
+        try {
+            if (fluxo == null) {
+                fluxo = new FluxoEventos(CAPACIDADE_EVENTOS, LOTE_EVENTOS);
+            }
+            fluxo.assinar(nome, assinante);
+        } finally {
+            trava.unlockWrite(carimbo);
+        }
+    }
+
+    private static void aguardar(Alteracao alteracao) throws IOException {
+        try {
+            alteracao.gravada.get();
+        } catch (ExecutionException e) {
+            Throwable causa = e.getCause();
+            throw causa instanceof IOException ? (IOException) causa : new IOException(causa);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Gravação interrompida", e);
+        }
+    }
+
+    // Com a trava de escrita: alterações em massa sem uma versão publicada por contrato
+    private void iniciarLote() {
+        if (contratos instanceof TabelaVersionada) {
+            ((TabelaVersionada) contratos).iniciarLote();
+        }
+        if (particoes != null) {
+            particoes.iniciarLote();
+        }
+    }
+
+    private void concluirLote() {
+        if (contratos instanceof TabelaVersionada) {
+            ((TabelaVersionada) contratos).concluirLote();
+        }
+        if (particoes != null) {
+            particoes.concluirLote();
+        }
+    }
+
+    // Mantém a tabela, os índices e os totais em sincronia; devolve o contrato substituído (ou null).
+    // O próximo ID fica sempre acima dos já gravados, mesmo depois de uma carga interrompida: uma
+    // criação nunca substitui um contrato existente
+    private contrato gravarEmMemoria(contrato contrato) {
+        contrato anterior = armazenar(contrato);
+        indexar(contrato);
+        return anterior;
+    }
+
+    // Tudo de gravarEmMemoria menos a inclusão do contrato novo nos índices
+    private contrato armazenar(contrato contrato) {
+        proximoId = Math.max(proximoId, contrato.getId() + 1);
+        contrato anterior = contratos.gravar(contrato);
+        if (anterior != null) {
+            desindexar(anterior);
+        }
+        if (particoes != null) {
+            particoes.gravar(anterior, contrato); // muda de arquivo se o ano de celebração mudou
+        }
+        BiConsumer<contrato, contrato> observador = observadorTermino;
+        if (observador != null && (anterior == null || anterior.getTerminoDia() != contrato.getTerminoDia())) {
+            observador.accept(anterior, contrato);
+        }
+        return anterior;
+    }
+
+    // O observador recebe (anterior ou null, atual) e não deve bloquear; null remove
+    public void aoAlterarTermino(BiConsumer<contrato, contrato> observador) {
+        observadorTermino = observador;
+    }
+
+    private contrato excluirDaMemoria(int id) {
+        contrato removido = contratos.remover(id);
+        if (removido == null) {
+            return null;
+        }
+        desindexar(removido);
+        if (particoes != null) {
+            particoes.remover(removido);
+        }
+        return removido;
+    }
+
+    private void indexar(contrato contrato) {
+        if (!indexado) {
+            return; // o indexador reconcilia os alterados ao publicar
+        }
+        indices.adicionar(contrato);
+        datas.adicionar(contrato);
+        textos.adicionar(contrato);
+        if (!carregando) {
+            agregados.adicionar(contrato);
+        }
+    }
+
+    // Lote da importação: as chaves e os termos de cada contrato (normalização, o trabalho mais
+    // caro) são calculados em paralelo; a inserção segue nesta thread, em lote
+    private void indexarTodos(List<contrato> novos) {
+        if (!indexado) {
+            return;
+        }
+        IndicesSecundarios.Chaves[] chaves = new IndicesSecundarios.Chaves[novos.size()];
+        String[][] termos = new String[novos.size()][];
+        // Cada posição é escrita por uma única tarefa
+        IntStream.range(0, novos.size()).parallel().forEach(i -> {
+            chaves[i] = IndicesSecundarios.chaves(novos.get(i));
+            termos[i] = IndiceTexto.termos(novos.get(i).getDescricao());
+        });
+        indices.adicionarTodos(chaves);
+        textos.adicionarTodos(novos, termos);
+        for (contrato contrato : novos) {
+            datas.adicionar(contrato);
+            if (!carregando) {
+                agregados.adicionar(contrato);
+            }
+        }
+    }
+
+    private void desindexar(contrato contrato) {
+        if (!indexado) {
+            return;
+        }
+        indices.remover(contrato);
+        datas.remover(contrato);
+        textos.remover(contrato);
+        if (!carregando) {
+            agregados.remover(contrato);
+        }
+    }
+
+    // Gravador: única thread que escreve no diário
+
+    private void gravarLotes() {
+        List<Alteracao> lote = new ArrayList<>();
+        List<String> registros = new ArrayList<>();
+        while (true) {
+            try {
+                lote.add(pendentes.take());
+            } catch (InterruptedException e) {
+                continue; // só termina pelo FIM, para não perder alterações da fila
+            }
+            pendentes.drainTo(lote, LOTE_MAXIMO - 1);
+
+            boolean fim = false;
+            boolean snapshot = false;
+            for (Alteracao alteracao : lote) {
+                if (alteracao == Alteracao.FIM) {
+                    fim = true;
+                } else if (alteracao.gravacoes != null) {
+                    adicionarGravacoes(registros, alteracao.gravacoes);
+                } else if (alteracao.exclusao != 0) {
+                    registros.add(DiarioContratos.exclusao(alteracao.exclusao));
+                } else {
+                    if (alteracao.arquivados != null) {
+                        for (int id : alteracao.arquivados) {
+                            registros.add(DiarioContratos.exclusao(id));
+                        }
+                    }
+                    snapshot = true;
+                }
+            }
+
+            IOException erro = null;
+            try {
+                if (!registros.isEmpty()) {
+                    diario.registrar(registros);
+                }
+            } catch (IOException e) {
+                erro = e;
+            }
+            IOException falhaSnapshot = null;
+            if (snapshot) {
+                salvarDados();
+                diario.aguardarCompactacao();
+                falhaSnapshot = diario.getFalha();
+            } else {
+                compactarSeNecessario();
+            }
+            for (Alteracao alteracao : lote) {
+                // Quem pediu o snapshot também fica sabendo se ele não foi gravado
+                IOException falha = erro == null && alteracao.snapshot() ? falhaSnapshot : erro;
+                if (falha == null) {
+                    alteracao.gravada.complete(null);
+                } else {
+                    alteracao.gravada.completeExceptionally(falha);
+                }
+            }
+            publicarEventos(lote);
+            lote.clear();
+            registros.clear();
+            if (fim) {
+                return;
+            }
+        }
+    }
+
+    // Depois de liberar quem aguardava a gravação. Mesmo com erro no diário os eventos saem: a
+    // alteração já está na memória e o próximo snapshot a grava
+    private void publicarEventos(List<Alteracao> lote) {
+        FluxoEventos destino = fluxo;
+        if (destino == null) {
+            return;
+        }
+        List<EventoContrato> eventos = new ArrayList<>();
+        for (Alteracao alteracao : lote) {
+            if (alteracao.eventos != null) {
+                eventos.addAll(alteracao.eventos);
+            }
+        }
+        if (!eventos.isEmpty()) {
+            destino.publicar(eventos);
+        }
+    }
+
+    // Lotes grandes (importação) são formatados em paralelo
+    private static void adicionarGravacoes(List<String> registros, List<contrato> gravacoes) {
+        if (gravacoes.size() < 1024) {
+            for (contrato contrato : gravacoes) {
+                registros.add(DiarioContratos.gravacao(contrato));
+            }
+        } else {
+            registros.addAll(gravacoes.parallelStream().map(DiarioContratos::gravacao).toList());
+        }
+    }
+
+    private void iniciarGravador() {
+        if (gravador == null) {
+            gravador = new Thread(this::gravarLotes, "gravador-contratos");
+            gravador.setDaemon(true);
+            gravador.start();
+        }
+    }
+
+    // Grava o que estiver na fila, espera a compactação em andamento e libera o diário
+    public void fechar() {
+        if (gravador != null) {
+            pendentes.add(Alteracao.FIM);
+            boolean interrompido = false;
+            while (gravador.isAlive()) {
+                try {
+                    gravador.join();
+                } catch (InterruptedException e) {
+                    interrompido = true;
+                }
+            }
+            gravador = null;
+            if (interrompido) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        FluxoEventos eventos = fluxo;
+        if (eventos != null) {
+            fluxo = null;
+            eventos.fechar(); // depois do gravador: todos os eventos já foram publicados
+        }
+        if (texto != null) {
+            encerrando = true;
+            try {
+                texto.close();
+            } catch (IOException e) {
+                System.out.println("Erro ao salvar dados: " + e.getMessage());
+            }
+            texto = null;
+            contratos = new TabelaVersionada();
+        }
+        if (arvore != null) {
+            salvarDados();
+            try {
+                arvore.close();
+            } catch (IOException e) {
+                System.out.println("Erro ao salvar dados: " + e.getMessage());
+            }
+            arvore = null;
+            contratos = new TabelaVersionada();
+        }
+        diario.fechar();
+        if (acervo != null) {
+            try {
+                acervo.close();
+            } catch (IOException e) {
+                System.out.println("Erro ao salvar dados: " + e.getMessage());
+            }
+            acervo = null;
+        }
+    }
+
+    // Persistência em arquivo
+
+    // Deve ser chamado antes de qualquer alteração (no início da aplicação); o diário é usado
+    // por esta thread até o gravador começar. Retorna false se algum arquivo não foi lido por
+    // inteiro: o que foi lido fica disponível, mas importações em lote não devem prosseguir
+    public boolean carregar() {
+        long inicio = System.nanoTime();
+        long carimbo = trava.writeLock();
+        try {
+            cargaCompleta = true;
+            if (arquivoPaginado != null) {
+                carregarPaginado();
+            } else if (sobDemanda && !formatoBinario && particoes == null && new File(arquivoDados).exists()
+                       && CarregadorContratos.suporta(Charset.defaultCharset())) {
+                carregarSobDemanda();
+            } else {
+                carregando = true;
+                iniciarLote();
+                try {
+                    carregarArquivos();
+                } finally {
+                    carregando = false;
+                    agregados.recalcular(contratos);
+                    concluirLote();
+                }
+            }
+            if (texto == null) { // na carga sob demanda a taxa é a da montagem dos índices
+                Metricas.registrarCarga(contratos.tamanho(), System.nanoTime() - inicio);
+            }
+            abrirAcervo();
+        } finally {
+            trava.unlockWrite(carimbo);
+        }
+        Metricas.Operacao.CARREGAR.registrar(inicio);
+        iniciarGravador();
+        return cargaCompleta;
+    }
+
+    private void falhaNaCarga(String mensagem) {
+        System.out.println(mensagem);
+        cargaCompleta = false;
+    }
+
+    // Só o cabeçalho do índice é lido: os IDs arquivados não voltam a ser atribuídos
+    private void abrirAcervo() {
+        try {
+            if (acervo == null) {
+                acervo = AcervoContratos.abrir(Path.of(arquivoAcervo));
+            }
+            proximoId = Math.max(proximoId, acervo.getMaiorId() + 1);
+        } catch (IOException e) {
+            falhaNaCarga("Erro ao carregar dados: " + e.getMessage());
+        }
+    }
+
+    // A árvore já é o armazenamento: só os índices e os totais são montados, percorrendo as
+    // folhas uma vez. Na primeira execução os contratos vêm do .bin ou do .txt.
+    private void carregarPaginado() {
+        try {
+            if (arvore == null) {
+                arvore = new ArvoreContratos(Path.of(arquivoPaginado), paginasEmCache);
+                contratos = arvore;
+            }
+        } catch (IOException e) {
+            falhaNaCarga("Erro ao carregar dados: " + e.getMessage());
+            return;
+        }
+
+        indices.limpar();
+        datas.limpar();
+        textos.limpar();
+        agregados.limpar();
+        if (contratos.tamanho() == 0
+                && (new File(arquivoBinario).exists() || new File(arquivoDados).exists())) {
+            if (!migrarParaPaginado()) {
+                return;
+            }
+        } else {
+            int maxId = 0;
+            for (contrato contrato : contratos) {
+                indexar(contrato);
+                maxId = Math.max(maxId, contrato.getId());
+            }
+            proximoId = Math.max(proximoId, maxId + 1);
+        }
+        carregarDiario(true);
+    }
+
+    // Só o índice de posições é lido (ou montado); o diário é reaplicado sobre as alterações em
+    // memória, sem compactar, para não reescrever o .txt antes de o menu estar disponível
+    private void carregarSobDemanda() {
+        try {
+            if (texto == null) {
+                texto = TextoIndexado.abrir(Path.of(arquivoDados), Charset.defaultCharset(), contratosEmCache);
+                contratos = texto;
+            }
+        } catch (IOException | RuntimeException e) {
+            falhaNaCarga("Erro ao carregar dados: " + e.getMessage());
+            return;
+        }
+
+        indexado = false;
+        proximoId = Math.max(proximoId, texto.getMaiorId() + 1);
+        carregarDiario(false);
+        indexacao = new CompletableFuture<>();
+        encerrando = false;
+        Thread indexador = new Thread(this::montarIndices, "indexador-contratos");
+        indexador.setDaemon(true);
+        indexador.start();
+    }
+
+    // Monta índices e totais novos a partir do .txt, sem a trava (a base não muda enquanto
+    // !indexado), e os publica com a trava de escrita, corrigindo os contratos alterados nesse meio tempo
+    private void montarIndices() {
+        long inicioIndexacao = System.nanoTime();
+        try {
+            IndicesSecundarios novosIndices = new IndicesSecundarios();
+            IndiceDatas novasDatas = new IndiceDatas();
+            IndiceTexto novosTextos = new IndiceTexto();
+            AgregadosContratos novosAgregados = new AgregadosContratos();
+            // Os trechos são interpretados em paralelo, um lote por vez (a base inteira não fica na
+            // memória); a inserção nos índices segue em ordem, nesta thread
+            int quantidade = texto.quantidadeNaBase();
+            int lote = TRECHO_INDEXACAO * ForkJoinPool.getCommonPoolParallelism();
+            for (int inicio = 0; inicio < quantidade && !encerrando; inicio += lote) {
+                int de = inicio;
+                int ate = Math.min(quantidade, inicio + lote);
+                List<List<contrato>> trechos = IntStream.range(0, (ate - de + TRECHO_INDEXACAO - 1) / TRECHO_INDEXACAO)
+                    .parallel()
+                    .mapToObj(t -> {
+                        List<contrato> trecho = new ArrayList<>(TRECHO_INDEXACAO);
+                        texto.base(de + t * TRECHO_INDEXACAO, Math.min(ate, de + (t + 1) * TRECHO_INDEXACAO))
+                             .forEach(trecho::add);
+                        return trecho;
+                    })
+                    .toList();
+                for (List<contrato> trecho : trechos) {
+                    for (contrato contrato : trecho) {
+                        novosIndices.adicionar(contrato);
+                        novasDatas.adicionar(contrato);
+                        novosTextos.adicionar(contrato);
+                        novosAgregados.adicionar(contrato);
+                    }
+                }
+            }
+            if (encerrando) {
+                return;
+            }
+
+            long carimbo = trava.writeLock();
+            try {
+                for (int id : texto.idsAlterados()) {
+                    contrato original = texto.buscarNaBase(id);
+                    if (original != null) {
+                        novosIndices.remover(original);
+                        novasDatas.remover(original);
+                        novosTextos.remover(original);
+                        novosAgregados.remover(original);
+                    }
+                    contrato atual = texto.buscar(id);
+                    if (atual != null) {
+                        novosIndices.adicionar(atual);
+                        novasDatas.adicionar(atual);
+                        novosTextos.adicionar(atual);
+                        novosAgregados.adicionar(atual);
+                    }
+                }
+                indices = novosIndices;
+                datas = novasDatas;
+                textos = novosTextos;
+                agregados = novosAgregados;
+                indexado = true;
+            } finally {
+                trava.unlockWrite(carimbo);
+            }
+            Metricas.registrarCarga(quantidade, System.nanoTime() - inicioIndexacao);
+        } catch (RuntimeException e) {
+            // As buscas seguem sem resultados e o .txt não é reescrito; o diário preserva as alterações
+            if (!encerrando) {
+                System.out.println("Erro ao indexar contratos: " + e.getMessage());
+            }
+        } finally {
+            indexacao.complete(null);
+        }
+    }
+
+    // A árvore é montada em um arquivo temporário e só então trocada pela vazia: uma queda no
+    // meio da migração não deixa uma árvore pela metade, que não seria migrada de novo
+    private boolean migrarParaPaginado() {
+        Path destino = Path.of(arquivoPaginado);
+        Path temporario = Path.of(arquivoPaginado + ".tmp");
+        boolean migrado = false;
+        try {
+            arvore.close();
+            Files.deleteIfExists(temporario);
+            arvore = new ArvoreContratos(temporario, paginasEmCache);
+            contratos = arvore;
+            migrado = new File(arquivoBinario).exists() ? carregarDadosBinario() : carregarDadosSequencial();
+            arvore.descarregar();
+            arvore.close();
+            if (migrado) {
+                Files.move(temporario, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } else {
+                Files.deleteIfExists(temporario);
+            }
+            arvore = new ArvoreContratos(destino, paginasEmCache);
+            contratos = arvore;
+        } catch (IOException e) {
+            falhaNaCarga("Erro ao carregar dados: " + e.getMessage());
+            migrado = false;
+        }
+        if (!migrado) {
+            indices.limpar();
+            datas.limpar();
+            textos.limpar();
+            agregados.limpar();
+        }
+        return migrado;
+    }
+
+    private void carregarArquivos() {
+        if (particoes != null) {
+            carregarParticoes();
+            return;
+        }
+        File arquivo = new File(arquivoDados);
+        boolean migrarParaBinario = false;
+        if (formatoBinario && new File(arquivoBinario).exists()) {
+            if (!carregarDadosBinario()) {
+                return;
+            }
+        } else if (arquivo.exists()) {
+            boolean carregado = CarregadorContratos.suporta(Charset.defaultCharset())
+                ? carregarDadosParalelo()
+                : carregarDadosSequencial();
+            if (!carregado) {
+                return; // não reaplica o diário sobre uma carga incompleta
+            }
+            migrarParaBinario = formatoBinario;
+        }
+
+        carregarDiario(true);
+        if (migrarParaBinario) {
+            montarSnapshot().run(); // primeira execução no modo binário: gera o contratos.bin
+        }
+    }
+
+    // Um arquivo por ano, lidos todos de uma vez pelo carregador paralelo. Na primeira execução
+    // os contratos vêm do .txt e o snapshot já os grava divididos por ano
+    private void carregarParticoes() {
+        TreeMap<Integer, Path> arquivos;
+        try {
+            arquivos = particoes.existentes();
+        } catch (IOException e) {
+            falhaNaCarga("Erro ao carregar dados: " + e.getMessage());
+            return;
+        }
+        if (arquivos.isEmpty()) {
+            if (new File(arquivoDados).exists()) {
+                boolean carregado = CarregadorContratos.suporta(Charset.defaultCharset())
+                    ? carregarDadosParalelo()
+                    : carregarDadosSequencial();
+                if (!carregado) {
+                    return;
+                }
+            }
+            carregarDiario(true);
+            if (particoes.possuiAlteracoes() && !diario.possuiPendencias()) {
+                montarSnapshot().run();
+            }
+            return;
+        }
+
+        limparMemoria();
+        int carregados = 0;
+        try {
+            List<Path> caminhos = new ArrayList<>(arquivos.values());
+            List<Integer> anos = new ArrayList<>(arquivos.keySet());
+            List<CarregadorContratos.Resultado> resultados = CarregadorContratos.suporta(Charset.defaultCharset())
+                ? CarregadorContratos.carregar(caminhos, Charset.defaultCharset(), FormatoTexto::ler)
+                : carregarSequencial(caminhos);
+            List<Integer> foraDoAno = new ArrayList<>();
+            for (int i = 0; i < resultados.size(); i++) {
+                CarregadorContratos.Resultado resultado = resultados.get(i);
+                for (contrato contrato : resultado.contratos) {
+                    gravarEmMemoria(contrato);
+                    if (ParticoesContratos.ano(contrato) != anos.get(i)) {
+                        foraDoAno.add(anos.get(i)); // editado fora da aplicação: volta ao arquivo certo
+                    }
+                }
+                if (resultado.erro != null) {
+                    falhaNaCarga("Erro ao carregar dados: " + resultado.erro.getMessage());
+                    return; // não reaplica o diário sobre uma carga incompleta
+                }
+                carregados += resultado.contratos.size();
+                particoes.registrarTamanho(anos.get(i), Files.size(caminhos.get(i)));
+            }
+            particoes.descartarAlteracoes();
+            foraDoAno.forEach(particoes::marcar);
+        } catch (IOException | IllegalArgumentException | DateTimeParseException e) {
+            falhaNaCarga("Erro ao carregar dados: " + e.getMessage());
+            return;
+        }
+        if (carregados != contratos.tamanho()) {
+            // O mesmo ID em dois anos (queda entre as trocas de uma mudança de ano): o diário, reaplicado
+            // em seguida, decide qual versão vale, e todos os anos são regravados
+            particoes.marcarTodos();
+        }
+
+        carregarDiario(true);
+        if (particoes.possuiAlteracoes() && !diario.possuiPendencias()) {
+            montarSnapshot().run();
+        }
+    }
+
+    // Para charsets em que o carregador paralelo não procura '|' byte a byte
+    private static List<CarregadorContratos.Resultado> carregarSequencial(List<Path> arquivos) throws IOException {
+        List<CarregadorContratos.Resultado> resultados = new ArrayList<>(arquivos.size());
+        for (Path arquivo : arquivos) {
+            CarregadorContratos.Resultado resultado = new CarregadorContratos.Resultado();
+            try (BufferedReader reader = Files.newBufferedReader(arquivo, Charset.defaultCharset())) {
+                String linha;
+                while ((linha = reader.readLine()) != null) {
+                    contrato contrato = FormatoTexto.ler(linha);
+                    if (contrato != null) {
+                        resultado.contratos.add(contrato);
+                        resultado.maxId = Math.max(resultado.maxId, contrato.getId());
+                    }
+                }
+            }
+            resultados.add(resultado);
+        }
+        return resultados;
+    }
+
+    private void limparMemoria() {
+        if (particoes != null) {
+            particoes.limpar();
+        }
+        contratos.limpar();
+        indices.limpar();
+        datas.limpar();
+        textos.limpar();
+    }
+
+    private boolean carregarDadosBinario() {
+        try {
+            limparMemoria();
+            FormatoBinario.carregar(Path.of(arquivoBinario), this::gravarEmMemoria);
+            return true;
+        } catch (IOException e) {
+            falhaNaCarga("Erro ao carregar dados: " + e.getMessage());
+            return false;
+        }
+    }
+
+    // Arquivo mapeado em memória e interpretado em fatias no ForkJoinPool
+    private boolean carregarDadosParalelo() {
+        try {
+            CarregadorContratos.Resultado resultado = CarregadorContratos.carregar(
+                Path.of(arquivoDados), Charset.defaultCharset(), FormatoTexto::ler);
+
+            limparMemoria();
+            for (contrato contrato : resultado.contratos) {
+                gravarEmMemoria(contrato);
+            }
+
+            if (resultado.erro != null) {
+                falhaNaCarga("Erro ao carregar dados: " + resultado.erro.getMessage());
+                return false;
+            }
+            return true;
+        } catch (IOException e) {
+            falhaNaCarga("Erro ao carregar dados: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private boolean carregarDadosSequencial() {
+        try (BufferedReader reader = new BufferedReader(new FileReader(arquivoDados))) {
+            String linha;
+            limparMemoria();
+
+            while ((linha = reader.readLine()) != null) {
+                contrato contrato = FormatoTexto.ler(linha);
+                if (contrato != null) {
+                    gravarEmMemoria(contrato);
+                }
+            }
+            return true;
+        } catch (IOException | IllegalArgumentException | DateTimeParseException e) {
+            falhaNaCarga("Erro ao carregar dados: " + e.getMessage());
+            return false;
+        }
+    }
+
+    // Reaplica o diário sobre o snapshot e, se havia alterações pendentes (e compactar), compacta
+    private void carregarDiario(boolean compactar) {
+        if (!diario.possuiPendencias()) {
+            return;
+        }
+
+        try {
+            diario.reproduzir(FormatoTexto::ler, this::gravarEmMemoria, this::excluirDaMemoria);
+        } catch (IOException e) {
+            falhaNaCarga("Erro ao carregar diário: " + e.getMessage());
+            return; // mantém o diário intacto para nova tentativa
+        }
+        if (compactar) {
+            montarSnapshot().run();
+        }
+    }
+
+    // O diário só cresce até o limite; depois o arquivo completo é reescrito
+    private void compactarSeNecessario() {
+        if (particoes != null ? diario.precisaCompactar(particoes.getTamanhoAlterados()) : diario.precisaCompactar()) {
+            salvarDados();
+        }
+    }
+
+    // Snapshot completo: o instantâneo é tomado com a trava de leitura e gravado em segundo plano
+    // pelo diário, sem segurar as alterações. Só o gravador escreve no diário, então nada entra
+    // nele entre a tomada do instantâneo e a rotação.
+    private void salvarDados() {
+        if (texto != null) {
+            salvarTexto();
+            return;
+        }
+        Runnable compactacao;
+        // Com partições a tomada também limpa as marcas dos anos alterados: trava de escrita
+        long carimbo = particoes != null ? trava.writeLock() : trava.readLock();
+        try {
+            compactacao = montarSnapshot();
+        } finally {
+            trava.unlock(carimbo);
+        }
+        compactacao.run();
+    }
+
+    // A regravação troca a base do TextoIndexado, então precisa da trava de escrita. Antes de
+    // os índices ficarem prontos o indexador ainda lê a base: o diário só cresce até lá
+    private void salvarTexto() {
+        if (!indexado) {
+            return;
+        }
+        long carimbo = trava.writeLock();
+        try {
+            if (texto.possuiAlteracoes() || diario.possuiPendencias()) {
+                diario.descartar(texto::regravar);
+            }
+        } finally {
+            trava.unlockWrite(carimbo);
+        }
+    }
+
+    // Deve ser chamado com a trava (de leitura ou de escrita); devolve a compactação a executar
+    private Runnable montarSnapshot() {
+        if (arvore != null) {
+            // Checkpoint das páginas da própria árvore: precisa ser gravado ainda com a trava
+            diario.descartar(arvore::descarregar);
+            return () -> { };
+        }
+        if (particoes != null) {
+            // Só os anos alterados desde o último snapshot, gravados em segundo plano
+            TreeMap<Integer, MapaContratos> alterados = particoes.retirarAlterados();
+            return () -> diario.compactarParticoes(() -> particoes.gravar(alterados));
+        }
+        // Versão corrente (inclui o lote da carga, ainda não publicado); imutável daqui em diante
+        MapaContratos mapa = ((TabelaVersionada) contratos).versaoAtual();
+        if (formatoBinario) {
+            return () -> diario.compactar(destino -> FormatoBinario.salvar(mapa, destino.toPath()));
+        }
+        return () -> diario.compactar(mapa);
+    }
+}
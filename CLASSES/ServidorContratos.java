@@ -0,0 +1,231 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// Serviço HTTP local (só na interface de loopback) sobre o mesmo repositório do console.
+// Respostas em texto simples, uma linha por contrato no mesmo formato da listagem; o corpo de
+// POST e PUT é uma linha no formato da importação CSV, validada com as mesmas regras.
+//   GET    /contratos?pagina=1&itens=20   página da listagem
+//   GET    /contratos/{id}                 um contrato
+//   POST   /contratos                      cria; responde 201 com o contrato e o ID atribuído
+//   PUT    /contratos/{id}                 substitui todos os campos do contrato
+//   DELETE /contratos/{id}                 exclui
+// GET de um ID também encontra contratos do arquivo morto; PUT e DELETE deles respondem 409.
+// Cada requisição roda em uma thread própria (virtual, quando a JVM oferece).
+public class ServidorContratos {
+    private static final String CAMINHO = "/contratos";
+    private static final int ITENS_PADRAO = 20;
+    private static final int ITENS_MAXIMO = 1000;
+    private static final int TAMANHO_CORPO_MAXIMO = 64 * 1024;
+
+    private final RepositorioContratos repositorio;
+    private final HttpServer servidor;
+    private final ExecutorService executor;
+    private boolean parado;
+
+    private ServidorContratos(RepositorioContratos repositorio, HttpServer servidor, ExecutorService executor) {
+        this.repositorio = repositorio;
+        this.servidor = servidor;
+        this.executor = executor;
+    }
+
+    public static ServidorContratos iniciar(RepositorioContratos repositorio, int porta) throws IOException {
+        HttpServer servidor = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), porta), 0);
+        ExecutorService executor = criarExecutor();
+        ServidorContratos contratos = new ServidorContratos(repositorio, servidor, executor);
+        servidor.createContext(CAMINHO, contratos::atender);
+        servidor.setExecutor(executor);
+        servidor.start();
+        return contratos;
+    }
+
+    // A porta de fato (com a porta 0 o sistema escolhe uma livre)
+    public int getPorta() {
+        return servidor.getAddress().getPort();
+    }
+
+    // Chamado pelo fim do menu e pelo gancho de encerramento: só o primeiro para de fato
+    public synchronized void parar() {
+        if (parado) {
+            return;
+        }
+        parado = true;
+        servidor.stop(1);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Threads virtuais a partir do Java 21; antes disso, um pool que cresce conforme a demanda
+    private static ExecutorService criarExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    private void atender(HttpExchange troca) throws IOException {
+        try (troca) {
+            try {
+                rotear(troca);
+            } catch (IllegalArgumentException e) {
+                responder(troca, 400, e.getMessage());
+            } catch (IOException e) {
+                // O detalhe (caminhos, mensagens do sistema) fica só no console do servidor
+                System.out.println("Erro ao salvar dados: " + e.getMessage());
+                responder(troca, 500, "Erro interno ao gravar os dados.");
+            }
+        }
+    }
+
+    private void rotear(HttpExchange troca) throws IOException {
+        String metodo = troca.getRequestMethod();
+        String caminho = troca.getRequestURI().getPath();
+        if (caminho.equals(CAMINHO) || caminho.equals(CAMINHO + "/")) {
+            switch (metodo) {
+                case "GET" -> listar(troca);
+                case "POST" -> criar(troca);
+                default -> metodoNaoPermitido(troca, "GET, POST");
+            }
+            return;
+        }
+        int id;
+        try {
+            id = Integer.parseInt(caminho.substring(CAMINHO.length() + 1));
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            responder(troca, 404, "Recurso não encontrado: " + caminho);
+            return;
+        }
+        switch (metodo) {
+            case "GET" -> buscar(troca, id);
+            case "PUT" -> atualizar(troca, id);
+            case "DELETE" -> excluir(troca, id);
+            default -> metodoNaoPermitido(troca, "GET, PUT, DELETE");
+        }
+    }
+
+    private void listar(HttpExchange troca) throws IOException {
+        URI uri = troca.getRequestURI();
+        int pagina = parametro(uri, "pagina", 1);
+        int itens = Math.min(parametro(uri, "itens", ITENS_PADRAO), ITENS_MAXIMO);
+        if (pagina < 1 || itens < 1) {
+            throw new IllegalArgumentException("pagina e itens devem ser positivos");
+        }
+        // Página e total do mesmo instantâneo
+        RepositorioContratos.Listagem listagem = repositorio.listagem();
+        List<contrato> encontrados = listagem.pagina(pagina, itens);
+        StringBuilder corpo = new StringBuilder(encontrados.size() * 128 + 16);
+        for (contrato contrato : encontrados) {
+            corpo.append(contrato).append('\n');
+        }
+        troca.getResponseHeaders().set("X-Total-Contratos", Integer.toString(listagem.tamanho()));
+        responder(troca, 200, corpo.toString());
+    }
+
+    private void buscar(HttpExchange troca, int id) throws IOException {
+        contrato contrato = repositorio.buscar(id);
+        if (contrato == null) {
+            naoEncontrado(troca, id);
+            return;
+        }
+        responder(troca, 200, contrato + "\n");
+    }
+
+    private void criar(HttpExchange troca) throws IOException {
+        ImportadorContratos.Candidato candidato = ImportadorContratos.interpretar(lerCorpo(troca));
+        contrato novoContrato = repositorio.criar(candidato::criar);
+        troca.getResponseHeaders().set("Location", CAMINHO + "/" + novoContrato.getId());
+        responder(troca, 201, novoContrato + "\n");
+    }
+
+    private void atualizar(HttpExchange troca, int id) throws IOException {
+        contrato editado = ImportadorContratos.interpretar(lerCorpo(troca)).criar(id);
+        if (!repositorio.atualizar(editado)) {
+            naoEncontradoOuArquivado(troca, id);
+            return;
+        }
+        responder(troca, 200, editado + "\n");
+    }
+
+    private void excluir(HttpExchange troca, int id) throws IOException {
+        if (!repositorio.excluir(id)) {
+            naoEncontradoOuArquivado(troca, id);
+            return;
+        }
+        responder(troca, 204, null);
+    }
+
+    private static int parametro(URI uri, String nome, int padrao) {
+        String consulta = uri.getQuery();
+        if (consulta == null) {
+            return padrao;
+        }
+        for (String par : consulta.split("&")) {
+            int igual = par.indexOf('=');
+            if (igual > 0 && par.substring(0, igual).equals(nome)) {
+                try {
+                    return Integer.parseInt(par.substring(igual + 1));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Parâmetro inválido: " + nome);
+                }
+            }
+        }
+        return padrao;
+    }
+
+    // Uma única linha CSV; quebras de linha no fim (curl, editores) são descartadas
+    private static String lerCorpo(HttpExchange troca) throws IOException {
+        try (InputStream entrada = troca.getRequestBody()) {
+            byte[] corpo = entrada.readNBytes(TAMANHO_CORPO_MAXIMO + 1);
+            if (corpo.length > TAMANHO_CORPO_MAXIMO) {
+                throw new IllegalArgumentException("Corpo da requisição muito grande");
+            }
+            return new String(corpo, StandardCharsets.UTF_8).strip();
+        }
+    }
+
+    private static void naoEncontrado(HttpExchange troca, int id) throws IOException {
+        responder(troca, 404, "Contrato com ID " + id + " não encontrado.");
+    }
+
+    // Contratos do arquivo morto são só de leitura: PUT e DELETE respondem 409
+    private void naoEncontradoOuArquivado(HttpExchange troca, int id) throws IOException {
+        if (repositorio.estaArquivado(id)) {
+            responder(troca, 409, "Contrato com ID " + id + " está no arquivo morto (somente leitura).");
+            return;
+        }
+        naoEncontrado(troca, id);
+    }
+
+    private static void metodoNaoPermitido(HttpExchange troca, String permitidos) throws IOException {
+        troca.getResponseHeaders().set("Allow", permitidos);
+        responder(troca, 405, "Método não permitido");
+    }
+
+    private static void responder(HttpExchange troca, int status, String texto) throws IOException {
+        if (texto == null) {
+            troca.sendResponseHeaders(status, -1);
+            return;
+        }
+        byte[] corpo = (texto.endsWith("\n") ? texto : texto + "\n").getBytes(StandardCharsets.UTF_8);
+        troca.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        troca.sendResponseHeaders(status, corpo.length);
+        try (OutputStream saida = troca.getResponseBody()) {
+            saida.write(corpo);
+        }
+    }
+}
@@ -0,0 +1,205 @@
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+// Tabela de contratos indexada por ID: hash de endereçamento aberto (sondagem linear)
+// sobre int[] — sem Integer — apontando para um vetor que mantém a ordem de inserção.
+// Busca, gravação e exclusão por ID são O(1); a listagem segue a ordem de cadastro.
+// Não é sincronizada, mas buscar() tolera leitura otimista durante uma alteração: pode lançar
+// exceção ou devolver lixo (descartado por quem validou a leitura), nunca fica em laço infinito.
+public class TabelaContratos implements ArmazenamentoContratos {
+    private static final int LIVRE = -1;
+    private static final int CAPACIDADE_INICIAL = 16;
+
+    private int[] chaves;
+    private int[] posicoes; // posição em "ordem" ou LIVRE
+    private int mascara;
+
+    private contrato[] ordem = new contrato[CAPACIDADE_INICIAL];
+    private int fim;        // próxima posição livre em "ordem"
+    private int tamanho;
+
+    public TabelaContratos() {
+        alocarHash(CAPACIDADE_INICIAL * 2);
+    }
+
+    @Override
+    public int tamanho() {
+        return tamanho;
+    }
+
+    public boolean estaVazia() {
+        return tamanho == 0;
+    }
+
+    @Override
+    public contrato buscar(int id) {
+        int slot = localizar(id);
+        return slot < 0 ? null : ordem[posicoes[slot]];
+    }
+
+    @Override
+    public boolean contem(int id) {
+        return localizar(id) >= 0;
+    }
+
+    // Insere no fim da ordem ou substitui, na mesma posição, o contrato de mesmo ID
+    @Override
+    public contrato gravar(contrato contrato) {
+        int id = contrato.getId();
+        int slot = slotInicial(id);
+        while (posicoes[slot] != LIVRE) {
+            if (chaves[slot] == id) {
+                contrato anterior = ordem[posicoes[slot]];
+                ordem[posicoes[slot]] = contrato;
+                return anterior;
+            }
+            slot = (slot + 1) & mascara;
+        }
+
+        if (fim == ordem.length) {
+            if (tamanho < fim / 2) {
+                compactarOrdem();
+                gravar(contrato);
+                return null;
+            }
+            ordem = Arrays.copyOf(ordem, ordem.length * 2);
+        }
+        ordem[fim] = contrato;
+        chaves[slot] = id;
+        posicoes[slot] = fim++;
+        tamanho++;
+
+        if (tamanho * 2 > chaves.length) {
+            reconstruirHash(chaves.length * 2);
+        }
+        return null;
+    }
+
+    @Override
+    public contrato remover(int id) {
+        int slot = localizar(id);
+        if (slot < 0) {
+            return null;
+        }
+        contrato removido = ordem[posicoes[slot]];
+        ordem[posicoes[slot]] = null;
+        tamanho--;
+        apagarSlot(slot);
+
+        // Buracos demais na ordem: compacta (custo amortizado O(1) por exclusão)
+        if (fim - tamanho > CAPACIDADE_INICIAL && fim - tamanho > tamanho) {
+            compactarOrdem();
+        }
+        return removido;
+    }
+
+    @Override
+    public void limpar() {
+        ordem = new contrato[CAPACIDADE_INICIAL];
+        fim = 0;
+        tamanho = 0;
+        alocarHash(CAPACIDADE_INICIAL * 2);
+    }
+
+    @Override
+    public Iterator<contrato> iterator() {
+        return new Iterator<>() {
+            private int i = avancar(0);
+
+            private int avancar(int de) {
+                while (de < fim && ordem[de] == null) {
+                    de++;
+                }
+                return de;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return i < fim;
+            }
+
+            @Override
+            public contrato next() {
+                if (i >= fim) {
+                    throw new NoSuchElementException();
+                }
+                contrato atual = ordem[i];
+                i = avancar(i + 1);
+                return atual;
+            }
+        };
+    }
+
+    // A sondagem é limitada ao tamanho do hash: uma leitura otimista pode ver os vetores pela metade
+    private int localizar(int id) {
+        int slot = slotInicial(id);
+        for (int sondagens = 0; sondagens <= mascara && posicoes[slot] != LIVRE; sondagens++) {
+            if (chaves[slot] == id) {
+                return slot;
+            }
+            slot = (slot + 1) & mascara;
+        }
+        return -1;
+    }
+
+    private int slotInicial(int id) {
+        int h = id * 0x9E3779B9; // espalhamento de Fibonacci
+        return (h ^ (h >>> 16)) & mascara;
+    }
+
+    // Remoção por deslocamento para trás: mantém as cadeias de sondagem sem lápides
+    private void apagarSlot(int slot) {
+        int vazio = slot;
+        int atual = (slot + 1) & mascara;
+        while (posicoes[atual] != LIVRE) {
+            int ideal = slotInicial(chaves[atual]);
+            // Move se o slot ideal não estiver no intervalo cíclico (vazio, atual]
+            boolean mover = vazio <= atual
+                ? ideal <= vazio || ideal > atual
+                : ideal <= vazio && ideal > atual;
+            if (mover) {
+                chaves[vazio] = chaves[atual];
+                posicoes[vazio] = posicoes[atual];
+                vazio = atual;
+            }
+            atual = (atual + 1) & mascara;
+        }
+        posicoes[vazio] = LIVRE;
+    }
+
+    private void compactarOrdem() {
+        int destino = 0;
+        for (int i = 0; i < fim; i++) {
+            if (ordem[i] != null) {
+                ordem[destino++] = ordem[i];
+            }
+        }
+        Arrays.fill(ordem, destino, fim, null);
+        fim = destino;
+        reconstruirHash(chaves.length);
+    }
+
+    private void reconstruirHash(int capacidade) {
+        alocarHash(capacidade);
+        for (int i = 0; i < fim; i++) {
+            if (ordem[i] != null) {
+                int slot = slotInicial(ordem[i].getId());
+                while (posicoes[slot] != LIVRE) {
+                    slot = (slot + 1) & mascara;
+                }
+                chaves[slot] = ordem[i].getId();
+                posicoes[slot] = i;
+            }
+        }
+    }
+
+    // Os vetores só são publicados já preenchidos com LIVRE
+    private void alocarHash(int capacidade) {
+        int[] novasPosicoes = new int[capacidade];
+        Arrays.fill(novasPosicoes, LIVRE);
+        chaves = new int[capacidade];
+        posicoes = novasPosicoes;
+        mascara = capacidade - 1;
+    }
+}
@@ -0,0 +1,86 @@
+import java.util.Iterator;
+
+// Armazenamento em memória sobre o MapaContratos: cada alteração publica uma versão nova do
+// mapa (escrita volátil) e instantaneo() devolve a versão atual em O(1). Quem guardou um
+// instantâneo o percorre sem trava e sem cópia (listagem, exportação, snapshot em disco)
+// enquanto as alterações seguem; contratos publicados nunca são alterados no lugar.
+// As alterações continuam exigindo exclusão mútua (a trava de escrita do repositório).
+//
+// Entre iniciarLote() e concluirLote() (carga do arquivo, importação) os nós criados pelo
+// lote são reaproveitados e a versão só é publicada no fim: os leitores veem a anterior.
+public class TabelaVersionada implements ArmazenamentoContratos {
+    private volatile MapaContratos publicado = MapaContratos.VAZIO;
+    private MapaContratos atual = MapaContratos.VAZIO; // difere do publicado só durante um lote
+    private Object lote;
+
+    // Versão publicada: imutável, pode ser lida por qualquer thread sem trava
+    public MapaContratos instantaneo() {
+        return publicado;
+    }
+
+    // Versão corrente para quem tem a trava (inclui o lote em andamento). Os nós que o lote já
+    // criou deixam de ser alteráveis no lugar, então a versão devolvida também é imutável
+    public MapaContratos versaoAtual() {
+        if (lote != null) {
+            lote = new Object();
+        }
+        return atual;
+    }
+
+    public void iniciarLote() {
+        lote = new Object();
+    }
+
+    public void concluirLote() {
+        lote = null;
+        publicado = atual;
+    }
+
+    @Override
+    public int tamanho() {
+        return atual.tamanho();
+    }
+
+    @Override
+    public contrato buscar(int id) {
+        return atual.buscar(id);
+    }
+
+    @Override
+    public boolean contem(int id) {
+        return atual.contem(id);
+    }
+
+    @Override
+    public contrato gravar(contrato contrato) {
+        contrato anterior = atual.buscar(contrato.getId());
+        publicar(atual.gravar(contrato, lote));
+        return anterior;
+    }
+
+    @Override
+    public contrato remover(int id) {
+        contrato removido = atual.buscar(id);
+        if (removido != null) {
+            publicar(atual.remover(id, lote));
+        }
+        return removido;
+    }
+
+    @Override
+    public void limpar() {
+        publicar(MapaContratos.VAZIO);
+    }
+
+    @Override
+    public Iterator<contrato> iterator() {
+        return atual.iterator();
+    }
+
+    private void publicar(MapaContratos versao) {
+        atual = versao;
+        if (lote == null) {
+            publicado = versao;
+        }
+    }
+}
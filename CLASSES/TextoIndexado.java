@@ -0,0 +1,521 @@
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+// contratos.txt acessado sob demanda: na abertura só se conhece, para cada ID, a posição e o
+// tamanho da sua linha (índice de posições gravado ao lado, em contratos.txt.indice). Cada
+// contrato é interpretado no primeiro acesso e guardado em um cache LRU limitado.
+//
+// Índice: int "CTRI" | short versão | short reservado | long tamanho do .txt | long data de
+//         modificação do .txt (ms) | int quantidade | int maior ID
+//         | long posições[n] | int IDs[n] | int tamanhos[n]   (em ordem de ID)
+// O índice só é usado se o tamanho e a data de modificação baterem com os do .txt; senão o
+// arquivo é varrido de novo (só '\n', '|' e os dígitos do ID, sem montar contratos).
+// O arquivo é mapeado em memória, então abrir um índice existente não lê nada adiantado.
+//
+// Alterações feitas depois da abertura ficam em memória (tabela de alterados e conjunto de
+// excluídos) até regravar(), que reescreve o .txt e o índice.
+public class TextoIndexado implements ArmazenamentoContratos, Closeable {
+    private static final int MAGICO = 0x43545249; // "CTRI"
+    private static final short VERSAO = 1;
+    private static final int TAMANHO_CABECALHO = 32;
+    private static final int TAMANHO_BLOCO = 1 << 20;
+
+    private final Path arquivo;
+    private final Path arquivoIndice;
+    private final Charset charset;
+    private final Map<Integer, contrato> cache;
+
+    // Base: o .txt como estava na abertura (ou na última regravação)
+    private FileChannel canal;
+    private int quantidade;
+    private int maiorId;
+    private LongBuffer posicoes;
+    private IntBuffer ids;
+    private IntBuffer tamanhos;
+
+    private final TabelaContratos alterados = new TabelaContratos();
+    private final BitSet excluidos = new BitSet();
+    private int tamanho;
+
+    private TextoIndexado(Path arquivo, Charset charset, int contratosEmCache) {
+        this.arquivo = arquivo;
+        this.arquivoIndice = Path.of(arquivo + ".indice");
+        this.charset = charset;
+        // LRU por ordem de acesso; sincronizado porque leitores concorrentes também o alteram
+        this.cache = Collections.synchronizedMap(
+            new LinkedHashMap<>(Math.min(contratosEmCache, 1 << 16), 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, contrato> maisAntigo) {
+                    return size() > contratosEmCache;
+                }
+            });
+    }
+
+    // Só charsets compatíveis com ASCII (ver CarregadorContratos.suporta)
+    public static TextoIndexado abrir(Path arquivo, Charset charset, int contratosEmCache) throws IOException {
+        TextoIndexado texto = new TextoIndexado(arquivo, charset, contratosEmCache);
+        texto.abrirBase();
+        return texto;
+    }
+
+    public int getMaiorId() {
+        return Math.max(maiorId, alterados.tamanho() == 0 ? 0 : ultimoAlterado());
+    }
+
+    @Override
+    public int tamanho() {
+        return tamanho;
+    }
+
+    @Override
+    public contrato buscar(int id) {
+        contrato alterado = alterados.buscar(id);
+        if (alterado != null || excluidos.get(id)) {
+            return alterado;
+        }
+        return buscarNaBase(id);
+    }
+
+    @Override
+    public boolean contem(int id) {
+        return alterados.contem(id) || (!excluidos.get(id) && indiceNaBase(id) >= 0);
+    }
+
+    @Override
+    public contrato gravar(contrato contrato) {
+        contrato anterior = buscar(contrato.getId());
+        alterados.gravar(contrato);
+        excluidos.clear(contrato.getId());
+        if (anterior == null) {
+            tamanho++;
+        }
+        return anterior;
+    }
+
+    @Override
+    public contrato remover(int id) {
+        contrato removido = buscar(id);
+        if (removido == null) {
+            return null;
+        }
+        alterados.remover(id);
+        if (indiceNaBase(id) >= 0) {
+            excluidos.set(id);
+            cache.remove(id);
+        }
+        tamanho--;
+        return removido;
+    }
+
+    @Override
+    public void limpar() {
+        alterados.limpar();
+        excluidos.clear();
+        cache.clear();
+        quantidade = 0;
+        maiorId = 0;
+        tamanho = 0;
+    }
+
+    // Contrato como está no .txt, ignorando as alterações posteriores
+    public contrato buscarNaBase(int id) {
+        int i = indiceNaBase(id);
+        if (i < 0) {
+            return null;
+        }
+        contrato emCache = cache.get(id);
+        if (emCache != null) {
+            return emCache;
+        }
+        int tamanhoLinha = tamanhos.get(i);
+        ByteBuffer linha = ByteBuffer.allocate(tamanhoLinha);
+        ler(linha, posicoes.get(i));
+        contrato lido = interpretar(novoInterpretador(), linha.array(), 0, tamanhoLinha);
+        cache.put(id, lido);
+        return lido;
+    }
+
+    public boolean possuiAlteracoes() {
+        return alterados.tamanho() > 0 || !excluidos.isEmpty();
+    }
+
+    // IDs gravados ou excluídos depois da abertura
+    public int[] idsAlterados() {
+        int[] resultado = new int[alterados.tamanho() + excluidos.cardinality()];
+        int n = 0;
+        for (contrato contrato : alterados) {
+            resultado[n++] = contrato.getId();
+        }
+        for (int id = excluidos.nextSetBit(0); id >= 0; id = excluidos.nextSetBit(id + 1)) {
+            resultado[n++] = id;
+        }
+        return resultado;
+    }
+
+    // Estado atual: a base com as alterações aplicadas e, no fim, os contratos novos
+    @Override
+    public Iterator<contrato> iterator() {
+        Iterator<contrato> base = base().iterator();
+        Iterator<contrato> novos = alterados.iterator();
+        return new Iterator<>() {
+            private contrato proximo = avancar();
+
+            private contrato avancar() {
+                while (base.hasNext()) {
+                    contrato contrato = base.next();
+                    if (excluidos.get(contrato.getId())) {
+                        continue;
+                    }
+                    contrato alterado = alterados.buscar(contrato.getId());
+                    return alterado != null ? alterado : contrato;
+                }
+                while (novos.hasNext()) {
+                    contrato contrato = novos.next();
+                    if (indiceNaBase(contrato.getId()) < 0) {
+                        return contrato;
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return proximo != null;
+            }
+
+            @Override
+            public contrato next() {
+                if (proximo == null) {
+                    throw new NoSuchElementException();
+                }
+                contrato atual = proximo;
+                proximo = avancar();
+                return atual;
+            }
+        };
+    }
+
+    public int quantidadeNaBase() {
+        return quantidade;
+    }
+
+    // Percorre só a base, em blocos lidos em sequência (não passa pelo cache)
+    public Iterable<contrato> base() {
+        return base(0, quantidade);
+    }
+
+    // Trecho [de, ate) da base em ordem de ID; trechos distintos podem ser lidos em paralelo
+    public Iterable<contrato> base(int de, int ate) {
+        return () -> new Iterator<>() {
+            private int i = de;
+            private ByteBuffer bloco = ByteBuffer.allocate(0);
+            private long inicioBloco;
+            private final CarregadorContratos.Interpretador interpretador = novoInterpretador();
+
+            @Override
+            public boolean hasNext() {
+                return i < ate;
+            }
+
+            @Override
+            public contrato next() {
+                if (i >= ate) {
+                    throw new NoSuchElementException();
+                }
+                long posicao = posicoes.get(i);
+                int tamanhoLinha = tamanhos.get(i++);
+                if (posicao < inicioBloco || posicao + tamanhoLinha > inicioBloco + bloco.limit()) {
+                    if (bloco.capacity() < tamanhoLinha) {
+                        bloco = ByteBuffer.allocate(Math.max(TAMANHO_BLOCO, tamanhoLinha));
+                    }
+                    inicioBloco = posicao;
+                    ler(bloco, posicao);
+                }
+                int deslocamento = (int) (posicao - inicioBloco);
+                return interpretar(interpretador, bloco.array(), deslocamento, tamanhoLinha);
+            }
+        };
+    }
+
+    // Reescreve o .txt com o estado atual (via arquivo temporário) e refaz o índice
+    public void regravar() throws IOException {
+        Path temporario = Path.of(arquivo + ".tmp");
+        long[] novasPosicoes = new long[tamanho];
+        int[] novosIds = new int[tamanho];
+        int[] novosTamanhos = new int[tamanho];
+        FormatoTexto.Codificador codificador = new FormatoTexto.Codificador(charset);
+        int n = 0;
+        boolean ordenado = true;
+        try (OutputStream saida = new BufferedOutputStream(Files.newOutputStream(temporario), TAMANHO_BLOCO)) {
+            long posicao = 0;
+            for (contrato contrato : this) {
+                int escritos = codificador.escrever(contrato, saida);
+                novasPosicoes[n] = posicao;
+                novosIds[n] = contrato.getId();
+                novosTamanhos[n] = escritos - codificador.getTamanhoQuebra();
+                ordenado &= n == 0 || novosIds[n - 1] < novosIds[n];
+                posicao += escritos;
+                n++;
+            }
+            Metricas.BYTES_SNAPSHOT.registrar(posicao);
+        }
+        DiarioContratos.sincronizar(temporario);
+        Files.move(temporario, arquivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        if (!ordenado) {
+            ordenarPorId(novasPosicoes, novosIds, novosTamanhos, n);
+        }
+        canal.close();
+        gravarIndice(novasPosicoes, novosIds, novosTamanhos, n);
+        alterados.limpar();
+        excluidos.clear();
+        cache.clear();
+        abrirBase();
+    }
+
+    @Override
+    public void close() throws IOException {
+        canal.close();
+    }
+
+    private void abrirBase() throws IOException {
+        canal = FileChannel.open(arquivo, StandardOpenOption.READ);
+        if (!indiceValido()) {
+            construirIndice();
+        }
+        try (FileChannel indice = FileChannel.open(arquivoIndice, StandardOpenOption.READ)) {
+            MappedByteBuffer mapa = indice.map(FileChannel.MapMode.READ_ONLY, 0, indice.size());
+            quantidade = mapa.getInt(24);
+            maiorId = mapa.getInt(28);
+            posicoes = mapa.slice(TAMANHO_CABECALHO, quantidade * 8).asLongBuffer();
+            ids = mapa.slice(TAMANHO_CABECALHO + quantidade * 8, quantidade * 4).asIntBuffer();
+            tamanhos = mapa.slice(TAMANHO_CABECALHO + quantidade * 12, quantidade * 4).asIntBuffer();
+        }
+        tamanho = quantidade;
+    }
+
+    private boolean indiceValido() throws IOException {
+        if (!Files.exists(arquivoIndice) || Files.size(arquivoIndice) < TAMANHO_CABECALHO) {
+            return false;
+        }
+        try (FileChannel indice = FileChannel.open(arquivoIndice, StandardOpenOption.READ)) {
+            ByteBuffer cabecalho = ByteBuffer.allocate(TAMANHO_CABECALHO);
+            while (cabecalho.hasRemaining() && indice.read(cabecalho) >= 0) {
+                // lê o cabeçalho inteiro
+            }
+            return cabecalho.getInt(0) == MAGICO
+                && cabecalho.getShort(4) == VERSAO
+                && cabecalho.getLong(8) == canal.size()
+                && cabecalho.getLong(16) == Files.getLastModifiedTime(arquivo).toMillis()
+                && indice.size() == TAMANHO_CABECALHO + 16L * cabecalho.getInt(24);
+        }
+    }
+
+    // Varre o .txt em blocos: por linha, só a posição, o tamanho e o ID. Linhas com menos de
+    // 9 campos são ignoradas, como no carregamento completo; "\r\n" deixa uma linha vazia entre
+    // o '\r' e o '\n', que também é ignorada
+    private void construirIndice() throws IOException {
+        long[] novasPosicoes = new long[1024];
+        int[] novosIds = new int[1024];
+        int[] novosTamanhos = new int[1024];
+        int n = 0;
+        boolean ordenado = true;
+
+        ByteBuffer bloco = ByteBuffer.allocate(TAMANHO_BLOCO * 4);
+        long inicioLinha = 0;
+        long posicao = 0;
+        int id = 0;
+        boolean lendoId = true;
+        boolean temDigito = false;
+        int separadores = 0;
+        boolean fim = false;
+        while (!fim) {
+            bloco.clear();
+            fim = canal.read(bloco, posicao) < 0;
+            bloco.flip();
+            int limite = bloco.limit();
+            byte[] dados = bloco.array();
+            for (int i = 0; i <= limite; i++) {
+                byte b;
+                if (i < limite) {
+                    b = dados[i];
+                } else if (fim && posicao + i > inicioLinha) {
+                    b = '\n'; // última linha sem quebra
+                } else {
+                    break;
+                }
+                if (b == '\n' || b == '\r') {
+                    long fimLinha = posicao + i;
+                    if (separadores >= 8 && temDigito) {
+                        if (n == novosIds.length) {
+                            novasPosicoes = Arrays.copyOf(novasPosicoes, n * 2);
+                            novosIds = Arrays.copyOf(novosIds, n * 2);
+                            novosTamanhos = Arrays.copyOf(novosTamanhos, n * 2);
+                        }
+                        novasPosicoes[n] = inicioLinha;
+                        novosIds[n] = id;
+                        novosTamanhos[n] = (int) (fimLinha - inicioLinha);
+                        ordenado &= n == 0 || novosIds[n - 1] < id;
+                        n++;
+                    }
+                    inicioLinha = fimLinha + 1;
+                    id = 0;
+                    lendoId = true;
+                    temDigito = false;
+                    separadores = 0;
+                } else if (b == '|') {
+                    separadores++;
+                    lendoId = false;
+                } else if (lendoId && b >= '0' && b <= '9') {
+                    id = id * 10 + (b - '0');
+                    temDigito = true;
+                }
+            }
+            posicao += limite;
+        }
+
+        if (!ordenado) {
+            n = ordenarPorId(novasPosicoes, novosIds, novosTamanhos, n);
+        }
+        gravarIndice(novasPosicoes, novosIds, novosTamanhos, n);
+    }
+
+    // Ordena pelo ID; se um ID se repete, vale a última linha (como no carregamento completo).
+    // Devolve a nova quantidade
+    private static int ordenarPorId(long[] posicoes, int[] ids, int[] tamanhos, int n) {
+        long[] chaves = new long[n];
+        for (int i = 0; i < n; i++) {
+            chaves[i] = ((long) ids[i] << 32) | i;
+        }
+        Arrays.parallelSort(chaves);
+        long[] copiaPosicoes = Arrays.copyOf(posicoes, n);
+        int[] copiaTamanhos = Arrays.copyOf(tamanhos, n);
+        int destino = 0;
+        for (int k = 0; k < n; k++) {
+            int id = (int) (chaves[k] >>> 32);
+            if (k + 1 < n && (int) (chaves[k + 1] >>> 32) == id) {
+                continue; // fica a última ocorrência
+            }
+            int origem = (int) chaves[k];
+            posicoes[destino] = copiaPosicoes[origem];
+            ids[destino] = id;
+            tamanhos[destino] = copiaTamanhos[origem];
+            destino++;
+        }
+        return destino;
+    }
+
+    private void gravarIndice(long[] novasPosicoes, int[] novosIds, int[] novosTamanhos, int n) throws IOException {
+        int maior = n == 0 ? 0 : novosIds[n - 1];
+        Path temporario = Path.of(arquivoIndice + ".tmp");
+        try (FileChannel indice = FileChannel.open(temporario, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(TAMANHO_BLOCO);
+            buffer.putInt(MAGICO).putShort(VERSAO).putShort((short) 0)
+                  .putLong(Files.size(arquivo)).putLong(Files.getLastModifiedTime(arquivo).toMillis())
+                  .putInt(n).putInt(maior);
+            for (int i = 0; i < n; i++) {
+                garantir(indice, buffer, 8);
+                buffer.putLong(novasPosicoes[i]);
+            }
+            for (int i = 0; i < n; i++) {
+                garantir(indice, buffer, 4);
+                buffer.putInt(novosIds[i]);
+            }
+            for (int i = 0; i < n; i++) {
+                garantir(indice, buffer, 4);
+                buffer.putInt(novosTamanhos[i]);
+            }
+            garantir(indice, buffer, buffer.capacity());
+        }
+        DiarioContratos.sincronizar(temporario);
+        Files.move(temporario, arquivoIndice, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void garantir(FileChannel destino, ByteBuffer buffer, int necessario) throws IOException {
+        if (buffer.remaining() < necessario) {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                destino.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+
+    private int indiceNaBase(int id) {
+        if (id > maiorId) {
+            return -1;
+        }
+        int baixo = 0;
+        int alto = quantidade - 1;
+        while (baixo <= alto) {
+            int meio = (baixo + alto) >>> 1;
+            int atual = ids.get(meio);
+            if (atual < id) {
+                baixo = meio + 1;
+            } else if (atual > id) {
+                alto = meio - 1;
+            } else {
+                return meio;
+            }
+        }
+        return -1;
+    }
+
+    private int ultimoAlterado() {
+        int maior = 0;
+        for (contrato contrato : alterados) {
+            maior = Math.max(maior, contrato.getId());
+        }
+        return maior;
+    }
+
+    // Leitura posicional (segura entre threads); o buffer fica pronto para ser lido
+    private void ler(ByteBuffer destino, long posicao) {
+        try {
+            destino.clear();
+            while (destino.hasRemaining()) {
+                if (canal.read(destino, posicao + destino.position()) < 0) {
+                    break;
+                }
+            }
+            destino.flip();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Mesmo leitor do carregamento paralelo (caminho rápido em bytes, com o FormatoTexto.ler de reserva)
+    private CarregadorContratos.Interpretador novoInterpretador() {
+        return new CarregadorContratos.Interpretador(charset, FormatoTexto::ler);
+    }
+
+    private contrato interpretar(CarregadorContratos.Interpretador interpretador, byte[] dados, int inicio, int tamanhoLinha) {
+        contrato contrato = interpretador.interpretar(dados, inicio, tamanhoLinha);
+        if (contrato == null) {
+            throw new IllegalStateException("Linha inválida no arquivo de contratos: "
+                                            + new String(dados, inicio, tamanhoLinha, charset));
+        }
+        return contrato;
+    }
+}
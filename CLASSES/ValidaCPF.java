@@ -1,50 +1,191 @@
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
+// Validação de CPF em uma única passada, sem regex e sem alocar Strings.
+// O CPF é representado de forma compacta como um long com os 11 dígitos
+// (ex.: "105.799.916-44" -> 10579991644); -1 indica que não há exatamente 11 dígitos.
 public class ValidaCPF {
+    public static final long INVALIDO = -1L;
+
+    // Entrada do cadastro, da edição e da importação: cronometrada nas métricas
     public static boolean validarCPF(String cpf) {
-        // Remove caracteres não numéricos
-        cpf = cpf.replaceAll("\\D", "");
+        long inicio = System.nanoTime();
+        boolean valido = validarCPF(cpf, 0, cpf.length());
+        Metricas.Operacao.VALIDAR_CPF.registrar(inicio);
+        return valido;
+    }
+
+    public static boolean validarCPF(CharSequence cpf, int inicio, int fim) {
+        return validarEmpacotado(empacotar(cpf, inicio, fim));
+    }
+
+    public static boolean validarCPF(char[] cpf, int inicio, int fim) {
+        return validarEmpacotado(empacotar(cpf, inicio, fim));
+    }
+
+    // Bytes em ASCII/UTF-8 (caso das linhas lidas diretamente do arquivo)
+    public static boolean validarCPF(byte[] cpf, int inicio, int fim) {
+        return validarEmpacotado(empacotar(cpf, inicio, fim));
+    }
+
+    public static long empacotar(CharSequence cpf) {
+        return empacotar(cpf, 0, cpf.length());
+    }
 
-        // Verifica se o CPF tem 11 dígitos
-        if (cpf.length() != 11) {
+    // Ignora tudo que não for dígito, como o antigo replaceAll("\\D", "")
+    public static long empacotar(CharSequence cpf, int inicio, int fim) {
+        long valor = 0;
+        int digitos = 0;
+        for (int i = inicio; i < fim; i++) {
+            int d = cpf.charAt(i) - '0';
+            if (d >= 0 && d <= 9) {
+                if (++digitos > 11) {
+                    return INVALIDO;
+                }
+                valor = valor * 10 + d;
+            }
+        }
+        return digitos == 11 ? valor : INVALIDO;
+    }
+
+    public static long empacotar(char[] cpf, int inicio, int fim) {
+        long valor = 0;
+        int digitos = 0;
+        for (int i = inicio; i < fim; i++) {
+            int d = cpf[i] - '0';
+            if (d >= 0 && d <= 9) {
+                if (++digitos > 11) {
+                    return INVALIDO;
+                }
+                valor = valor * 10 + d;
+            }
+        }
+        return digitos == 11 ? valor : INVALIDO;
+    }
+
+    public static long empacotar(byte[] cpf, int inicio, int fim) {
+        long valor = 0;
+        int digitos = 0;
+        for (int i = inicio; i < fim; i++) {
+            int d = cpf[i] - '0';
+            if (d >= 0 && d <= 9) {
+                if (++digitos > 11) {
+                    return INVALIDO;
+                }
+                valor = valor * 10 + d;
+            }
+        }
+        return digitos == 11 ? valor : INVALIDO;
+    }
+
+    // Mesmas regras de sempre: 11 dígitos, não todos iguais e os dois dígitos verificadores
+    public static boolean validarEmpacotado(long cpf) {
+        if (cpf < 0) {
             return false;
         }
 
+        // Percorre do último dígito (posição 10) para o primeiro (posição 0)
+        int primeiroDV = (int) (cpf % 10);
+        long resto = cpf / 10;
+        int segundoDV = primeiroDV;
+        primeiroDV = (int) (resto % 10);
+        resto /= 10;
+
+        int soma1 = 0;
+        int soma2 = primeiroDV * 2;
+        boolean todosIguais = primeiroDV == segundoDV;
+        for (int i = 8; i >= 0; i--) {
+            int d = (int) (resto % 10);
+            resto /= 10;
+            soma1 += d * (10 - i);
+            soma2 += d * (11 - i);
+            todosIguais &= d == segundoDV;
+        }
+
         // Verifica se todos os dígitos são iguais (ex.: 111.111.111-11)
-        if (cpf.matches("(\\d)\\1{10}")) {
+        if (todosIguais) {
             return false;
         }
 
-        try {
-            // Cálculo do primeiro dígito verificador
-            int soma = 0;
-            for (int i = 0; i < 9; i++) {
-                soma += Character.getNumericValue(cpf.charAt(i)) * (10 - i);
-            }
-            int primeiroDigito = 11 - (soma % 11);
-            if (primeiroDigito >= 10) {
-                primeiroDigito = 0;
-            }
+        // Cálculo do primeiro dígito verificador
+        int primeiroDigito = 11 - (soma1 % 11);
+        if (primeiroDigito >= 10) {
+            primeiroDigito = 0;
+        }
+
+        // Cálculo do segundo dígito verificador
+        int segundoDigito = 11 - (soma2 % 11);
+        if (segundoDigito >= 10) {
+            segundoDigito = 0;
+        }
 
-            // Cálculo do segundo dígito verificador
-            soma = 0;
-            for (int i = 0; i < 10; i++) {
-                soma += Character.getNumericValue(cpf.charAt(i)) * (11 - i);
+        return primeiroDigito == primeiroDV && segundoDigito == segundoDV;
+    }
+
+    // Escreve "ddd.ddd.ddd-dd" sem Strings intermediárias
+    public static StringBuilder formatar(long cpf, StringBuilder destino) {
+        int base = destino.length();
+        destino.append("000.000.000-00");
+        for (int pos = base + 13; pos >= base; pos--) {
+            char c = destino.charAt(pos);
+            if (c == '0') {
+                destino.setCharAt(pos, (char) ('0' + cpf % 10));
+                cpf /= 10;
             }
-            int segundoDigito = 11 - (soma % 11);
-            if (segundoDigito >= 10) {
-                segundoDigito = 0;
+        }
+        return destino;
+    }
+
+    public static String formatar(long cpf) {
+        return formatar(cpf, new StringBuilder(14)).toString();
+    }
+
+    // Valida um lote e devolve um BitSet com as posições inválidas.
+    // Em paralelo, cada tarefa cuida de palavras de 64 posições (sem disputa de escrita).
+    public static BitSet validarLote(CharSequence[] cpfs, boolean paralelo) {
+        long[] palavras = new long[(cpfs.length + 63) >>> 6];
+        IntStream blocos = IntStream.range(0, palavras.length);
+        (paralelo ? blocos.parallel() : blocos).forEach(p -> {
+            long bits = 0;
+            int fim = Math.min(cpfs.length, (p + 1) << 6);
+            for (int i = p << 6; i < fim; i++) {
+                CharSequence cpf = cpfs[i];
+                if (cpf == null || !validarCPF(cpf, 0, cpf.length())) {
+                    bits |= 1L << (i & 63);
+                }
             }
+            palavras[p] = bits;
+        });
+        return BitSet.valueOf(palavras);
+    }
 
-            // Verifica se os dígitos calculados correspondem aos dígitos do CPF
-            return primeiroDigito == Character.getNumericValue(cpf.charAt(9)) &&
-                   segundoDigito == Character.getNumericValue(cpf.charAt(10));
-        } catch (NumberFormatException e) {
-            return false; // Caso ocorra algum erro de conversão
+    // Valida um fluxo em ordem, avisando cada CPF inválido com sua posição; devolve o total de inválidos
+    public static int validarLote(Stream<? extends CharSequence> cpfs, ObjIntConsumer<CharSequence> invalido) {
+        int posicao = 0;
+        int invalidos = 0;
+        Iterator<? extends CharSequence> it = cpfs.iterator();
+        while (it.hasNext()) {
+            CharSequence cpf = it.next();
+            if (cpf == null || !validarCPF(cpf, 0, cpf.length())) {
+                invalido.accept(cpf, posicao);
+                invalidos++;
+            }
+            posicao++;
         }
+        return invalidos;
     }
 
         public static String imprimeCPF (String CPF){
-            return (CPF.substring(0, 3) + "." + CPF.substring(3, 6) + "." +
-            CPF.substring(6, 9) + "-" + CPF.substring(9, 11));
+            // Mesmo resultado de substring(0, 3) + "." + ... + substring(9, 11), com uma única alocação
+            char[] formatado = {
+                CPF.charAt(0), CPF.charAt(1), CPF.charAt(2), '.',
+                CPF.charAt(3), CPF.charAt(4), CPF.charAt(5), '.',
+                CPF.charAt(6), CPF.charAt(7), CPF.charAt(8), '-',
+                CPF.charAt(9), CPF.charAt(10)
+            };
+            return new String(formatado);
         }
 }
@@ -1,150 +1,279 @@
-
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
-import java.text.NumberFormat;
-import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
 
+// Representação compacta para manter milhões de contratos em memória: valor em centavos,
+// datas em dias desde a época, CPF empacotado em um long e nomes das partes compartilhados
+// entre contratos. Getters, setters e toString() devolvem o mesmo de antes, exceto getValor():
+// guardado em centavos, o valor volta arredondado a duas casas (HALF_EVEN, o mesmo arredondamento
+// que a listagem já mostrava), e não mais com as casas extras que tivesse ao ser informado. Pelo
+// mesmo motivo, um valor negativo que arredonda a zero aparece como "R$ 0,00", sem o sinal.
 public class contrato {
+    // Até aqui os centavos são exatos em double
+    public static final double VALOR_MAXIMO = 10_000_000_000_000.0;
+
+    // Recursos de formatação compartilhados (imutáveis, seguros entre threads)
+    static final DateTimeFormatter FORMATO_DATA = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    // Nomes das partes compartilhados entre contratos (ver compartilhar)
+    private static final int NOMES_MAXIMO = 1 << 18;
+    private static final ConcurrentHashMap<String, String> NOMES = new ConcurrentHashMap<>();
+
     private int id;
     private String contratante;
     private String contratado;
     private String numeroContrato;
     private String descricao;
-    private double valor;
-    private LocalDate celebracao;
-    private LocalDate inicio;
-    private LocalDate termino;
-    private String cpf;
-    
-    private final DateTimeFormatter formatoData = DateTimeFormatter.ofPattern("dd/MM/yyyy");
-    private final Locale localBrasil = new Locale("pt", "BR");
-    
-    public contrato(int id, String contratante, String contratado, String numeroContrato, 
-                   String descricao, double valor, LocalDate celebracao, 
+    private long centavos;
+    private int celebracao;
+    private int inicio;
+    private int termino;
+    private long cpf;         // ValidaCPF.INVALIDO quando o texto não está no formato ddd.ddd.ddd-dd
+    private String cpfTexto;  // só preenchido nesse caso
+
+    public contrato(int id, String contratante, String contratado, String numeroContrato,
+                   String descricao, double valor, LocalDate celebracao,
                    LocalDate inicio, LocalDate termino, String cpf) {
         this.id = id;
-        this.contratante = contratante;
-        this.contratado = contratado;
+        this.contratante = compartilhar(contratante);
+        this.contratado = compartilhar(contratado);
         this.numeroContrato = numeroContrato;
         this.descricao = descricao;
-        this.valor = valor;
+        this.centavos = paraCentavos(valor);
+        this.celebracao = dia(celebracao);
+        this.inicio = dia(inicio);
+        this.termino = dia(termino);
+        guardarCpf(cpf);
+    }
+
+    private contrato(int id, String contratante, String contratado, String numeroContrato,
+                     String descricao, long centavos, int celebracao, int inicio, int termino,
+                     long cpf, String cpfTexto) {
+        this.id = id;
+        this.contratante = compartilhar(contratante);
+        this.contratado = compartilhar(contratado);
+        this.numeroContrato = numeroContrato;
+        this.descricao = descricao;
+        this.centavos = centavos;
         this.celebracao = celebracao;
         this.inicio = inicio;
         this.termino = termino;
         this.cpf = cpf;
+        this.cpfTexto = cpfTexto;
     }
-    
+
+    // Monta o contrato direto da forma compacta (formato binário), sem LocalDate nem double
+    static contrato compacto(int id, String contratante, String contratado, String numeroContrato,
+                             String descricao, long centavos, int celebracao, int inicio, int termino,
+                             long cpf, String cpfTexto) {
+        return new contrato(id, contratante, contratado, numeroContrato, descricao,
+                            centavos, celebracao, inicio, termino, cpf, cpfTexto);
+    }
+
+    // Idem com o CPF em texto (leitura do .txt): empacotado quando está no formato ddd.ddd.ddd-dd
+    static contrato compacto(int id, String contratante, String contratado, String numeroContrato,
+                             String descricao, long centavos, int celebracao, int inicio, int termino,
+                             String cpf) {
+        contrato novo = new contrato(id, contratante, contratado, numeroContrato, descricao,
+                                     centavos, celebracao, inicio, termino, ValidaCPF.INVALIDO, null);
+        novo.guardarCpf(cpf);
+        return novo;
+    }
+
+    // Cópia para edição: o contrato já publicado no repositório nunca é alterado no lugar
+    public contrato copiar() {
+        return new contrato(id, contratante, contratado, numeroContrato, descricao,
+                            centavos, celebracao, inicio, termino, cpf, cpfTexto);
+    }
+
     // Valida se as datas estão consistentes
     public boolean validarDatas() {
-        if (celebracao.isAfter(termino)) {
+        if (celebracao > termino) {
             return false;
         }
-        if (inicio.isAfter(termino)) {
+        if (inicio > termino) {
             return false;
         }
-        if (termino.isBefore(celebracao) || termino.isBefore(inicio)) {
+        if (termino < celebracao || termino < inicio) {
             return false;
         }
         return true;
     }
-    
+
     // Getters e Setters
     public int getId() {
         return id;
     }
-    
+
     public String getContratante() {
         return contratante;
     }
-    
+
     public void setContratante(String contratante) {
-        this.contratante = contratante;
+        this.contratante = compartilhar(contratante);
     }
-    
+
     public String getContratado() {
         return contratado;
     }
-    
+
     public void setContratado(String contratado) {
-        this.contratado = contratado;
+        this.contratado = compartilhar(contratado);
     }
-    
+
     public String getNumeroContrato() {
         return numeroContrato;
     }
-    
+
     public void setNumeroContrato(String numeroContrato) {
         this.numeroContrato = numeroContrato;
     }
-    
+
     public String getDescricao() {
         return descricao;
     }
-    
+
     public void setDescricao(String descricao) {
         this.descricao = descricao;
     }
-    
+
+    // Arredondado aos centavos (ver paraCentavos)
     public double getValor() {
-        return valor;
+        return centavos / 100.0;
     }
-    
+
     public void setValor(double valor) {
-        this.valor = valor;
+        this.centavos = paraCentavos(valor);
     }
-    
+
+    public long getCentavos() {
+        return centavos;
+    }
+
     public String getValorFormatado() {
-        return NumberFormat.getCurrencyInstance(localBrasil).format(valor);
+        return FormatoTexto.formatarValor(centavos, new StringBuilder(24)).toString();
     }
-    
+
     public LocalDate getCelebracao() {
-        return celebracao;
+        return LocalDate.ofEpochDay(celebracao);
     }
-    
+
     public void setCelebracao(LocalDate celebracao) {
-        this.celebracao = celebracao;
+        this.celebracao = dia(celebracao);
     }
-    
+
     public String getCelebracaoFormatada() {
-        return celebracao.format(formatoData);
+        return FormatoTexto.formatarData(celebracao, new StringBuilder(10)).toString();
     }
-    
+
+    public int getCelebracaoDia() {
+        return celebracao;
+    }
+
     public LocalDate getInicio() {
-        return inicio;
+        return LocalDate.ofEpochDay(inicio);
     }
-    
+
     public void setInicio(LocalDate inicio) {
-        this.inicio = inicio;
+        this.inicio = dia(inicio);
     }
-    
+
     public String getInicioFormatado() {
-        return inicio.format(formatoData);
+        return FormatoTexto.formatarData(inicio, new StringBuilder(10)).toString();
+    }
+
+    public int getInicioDia() {
+        return inicio;
     }
-    
+
     public LocalDate getTermino() {
-        return termino;
+        return LocalDate.ofEpochDay(termino);
     }
-    
+
     public void setTermino(LocalDate termino) {
-        this.termino = termino;
+        this.termino = dia(termino);
     }
-    
+
     public String getTerminoFormatado() {
-        return termino.format(formatoData);
+        return FormatoTexto.formatarData(termino, new StringBuilder(10)).toString();
     }
-    
+
+    public int getTerminoDia() {
+        return termino;
+    }
+
     public String getCpf() {
-        return cpf;
+        return cpf == ValidaCPF.INVALIDO ? cpfTexto : ValidaCPF.formatar(cpf);
     }
-    
+
     public void setCpf(String cpf) {
-        this.cpf = cpf;
+        guardarCpf(cpf);
+    }
+
+    // ValidaCPF.INVALIDO quando o CPF não está guardado no formato ddd.ddd.ddd-dd
+    public long getCpfEmpacotado() {
+        return cpf;
     }
-    
+
+    // Linha do .txt e da listagem (ver FormatoTexto)
     @Override
     public String toString() {
-        return id + "|" + contratante + "|" + contratado + "|" + cpf + "|" + numeroContrato + "|" + 
-               getValorFormatado() + "|" + getCelebracaoFormatada() + "|" + 
-               getInicioFormatado() + "|" + getTerminoFormatado() + "|" + descricao;
+        return FormatoTexto.escrever(this, new StringBuilder(160)).toString();
+    }
+
+    // HALF_EVEN sobre o valor binário exato, o mesmo arredondamento do NumberFormat
+    static long paraCentavos(double valor) {
+        if (!(Math.abs(valor) <= VALOR_MAXIMO)) {
+            throw new IllegalArgumentException("Valor fora do intervalo suportado: " + valor);
+        }
+        long centavos = Math.round(valor * 100);
+        if (centavos / 100.0 == valor) {
+            return centavos;
+        }
+        return new BigDecimal(valor).setScale(2, RoundingMode.HALF_EVEN).unscaledValue().longValue();
+    }
+
+    private static int dia(LocalDate data) {
+        return (int) data.toEpochDay();
+    }
+
+    // O mesmo contratante aparece em muitos contratos: uma única String para todos. A tabela é
+    // desta classe (não a do String.intern(), da JVM inteira) e limitada: cheia, os nomes novos
+    // só deixam de ser compartilhados
+    private static String compartilhar(String nome) {
+        if (nome == null) {
+            return null;
+        }
+        String canonico = NOMES.get(nome);
+        if (canonico == null && NOMES.size() < NOMES_MAXIMO) {
+            canonico = NOMES.putIfAbsent(nome, nome);
+        }
+        return canonico != null ? canonico : nome;
+    }
+
+    private void guardarCpf(String cpf) {
+        long empacotado = cpf != null && formatoPadrao(cpf) ? ValidaCPF.empacotar(cpf) : ValidaCPF.INVALIDO;
+        if (empacotado != ValidaCPF.INVALIDO) {
+            this.cpf = empacotado;
+            this.cpfTexto = null;
+        } else {
+            this.cpf = ValidaCPF.INVALIDO;
+            this.cpfTexto = cpf;
+        }
+    }
+
+    // Só "ddd.ddd.ddd-dd" pode ser reconstruído a partir do long
+    private static boolean formatoPadrao(String cpf) {
+        if (cpf.length() != 14 || cpf.charAt(3) != '.' || cpf.charAt(7) != '.' || cpf.charAt(11) != '-') {
+            return false;
+        }
+        for (int i = 0; i < 14; i++) {
+            if (i != 3 && i != 7 && i != 11 && (cpf.charAt(i) < '0' || cpf.charAt(i) > '9')) {
+                return false;
+            }
+        }
+        return true;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,182 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// Arquivo morto: blocos acrescentados em várias vezes, busca e pesquisa por ano, acréscimo
+// interrompido e, no repositório, o arquivamento com exclusões no diário e falhas do snapshot
+class AcervoContratosTest {
+    @TempDir
+    Path pasta;
+
+    private final ContratosAleatorios aleatorios = new ContratosAleatorios(21);
+
+    @Test
+    void acrescentarBuscarEPesquisar() throws IOException {
+        Path arquivo = pasta.resolve("contratos.acervo");
+        ContratosAleatorios gerador = new ContratosAleatorios(20);
+        TreeMap<Integer, contrato> esperados = new TreeMap<>();
+        try (AcervoContratos acervo = AcervoContratos.abrir(arquivo)) {
+            for (int vez = 0; vez < 3; vez++) {
+                List<contrato> lote = new ArrayList<>();
+                for (int i = 0; i < 700; i++) {
+                    // Um terço dos IDs volta a ser arquivado: vale a versão mais recente
+                    int id = vez > 0 && i % 3 == 0 ? 1 + i : 1 + vez * 1_000 + i;
+                    contrato contrato = gerador.novo(id);
+                    lote.add(contrato);
+                    esperados.put(id, contrato);
+                }
+                acervo.acrescentar(lote);
+            }
+        }
+
+        // Um acréscimo interrompido deixa bytes depois do tamanho registrado
+        Files.write(arquivo, new byte[] {1, 2, 3}, StandardOpenOption.APPEND);
+
+        try (AcervoContratos acervo = AcervoContratos.abrir(arquivo)) {
+            assertEquals(esperados.lastKey(), acervo.getMaiorId());
+            conferir(acervo, esperados);
+            contrato extra = gerador.novo(5_000);
+            acervo.acrescentar(List.of(extra));
+            esperados.put(extra.getId(), extra);
+        }
+        try (AcervoContratos acervo = AcervoContratos.abrir(arquivo)) {
+            conferir(acervo, esperados);
+        }
+    }
+
+    @Test
+    void arquivarNoRepositorio() throws IOException {
+        RepositorioContratos repositorio = repositorio();
+        Map<Integer, contrato> criados = criar(repositorio);
+        LocalDate limite = LocalDate.of(2015, 1, 1);
+        int vencidos = (int) criados.values().stream().filter(c -> c.getTermino().isBefore(limite)).count();
+        try {
+            assertEquals(vencidos, repositorio.arquivar(limite));
+            assertEquals(criados.size() - vencidos, repositorio.tamanho());
+            for (contrato contrato : criados.values()) {
+                boolean arquivado = contrato.getTermino().isBefore(limite);
+                assertEquals(arquivado, repositorio.estaArquivado(contrato.getId()));
+                assertEquals(contrato.toString(), repositorio.buscar(contrato.getId()).toString());
+            }
+            assertEquals(vencidos, repositorio.pesquisarArquivados(null, c -> true, 10).total);
+            // Arquivados são só de leitura e seus IDs não são reaproveitados
+            contrato arquivado = criados.values().stream().filter(c -> c.getTermino().isBefore(limite)).findFirst().get();
+            assertFalse(repositorio.excluir(arquivado.getId()));
+            assertEquals(criados.size() + 1, repositorio.criar(this::aleatorio).getId());
+        } finally {
+            repositorio.fechar();
+        }
+
+        // O arquivo principal, depois do snapshot, só tem os ativos
+        for (String linha : Files.readAllLines(pasta.resolve("contratos.txt"), Charset.defaultCharset())) {
+            contrato lido = FormatoTexto.ler(linha);
+            assertFalse(lido.getTermino().isBefore(limite), linha);
+        }
+        RepositorioContratos reaberto = repositorio();
+        try {
+            assertEquals(criados.size() + 1 - vencidos, reaberto.tamanho());
+        } finally {
+            reaberto.fechar();
+        }
+    }
+
+    // Sem o snapshot, as exclusões no diário ainda tiram os arquivados dos ativos na próxima carga
+    @Test
+    void falhaNoSnapshot() throws IOException {
+        RepositorioContratos repositorio = repositorio();
+        Map<Integer, contrato> criados = criar(repositorio);
+        LocalDate limite = LocalDate.of(2015, 1, 1);
+        List<Integer> vencidos = new ArrayList<>();
+        criados.values().stream().filter(c -> c.getTermino().isBefore(limite)).forEach(c -> vencidos.add(c.getId()));
+
+        Path temporario = pasta.resolve("contratos.txt.tmp");
+        Files.createDirectories(temporario.resolve("ocupado"));
+        try {
+            assertThrows(IOException.class, () -> repositorio.arquivar(limite));
+        } finally {
+            repositorio.fechar();
+        }
+
+        StringBuilder diario = new StringBuilder();
+        for (String sufixo : new String[] {".diario.1", ".diario"}) {
+            Path geracao = pasta.resolve("contratos.txt" + sufixo);
+            if (Files.exists(geracao)) {
+                diario.append(Files.readString(geracao, Charset.defaultCharset()));
+            }
+        }
+        for (int id : vencidos) {
+            assertTrue(diario.indexOf("D|" + id + System.lineSeparator()) >= 0, "D|" + id);
+        }
+
+        Files.delete(temporario.resolve("ocupado"));
+        Files.delete(temporario);
+        RepositorioContratos reaberto = repositorio();
+        try {
+            assertEquals(criados.size() - vencidos.size(), reaberto.tamanho());
+            for (int id : vencidos) {
+                assertTrue(reaberto.estaArquivado(id), "ID " + id);
+            }
+        } finally {
+            reaberto.fechar();
+        }
+    }
+
+    private static void conferir(AcervoContratos acervo, TreeMap<Integer, contrato> esperados) throws IOException {
+        assertEquals(esperados.size(), acervo.quantidade());
+        for (contrato contrato : esperados.values()) {
+            assertTrue(acervo.contem(contrato.getId()));
+            assertEquals(ContratosAleatorios.linha(contrato), ContratosAleatorios.linha(acervo.buscar(contrato.getId())));
+        }
+        assertNull(acervo.buscar(esperados.lastKey() + 1));
+
+        int ano = esperados.firstEntry().getValue().getTermino().getYear();
+        List<String> doAno = new ArrayList<>();
+        esperados.values().stream()
+                 .filter(c -> c.getTermino().getYear() == ano && c.getContratante().startsWith("Ana"))
+                 .sorted(Comparator.comparingInt(contrato::getTerminoDia).thenComparingInt(contrato::getId))
+                 .forEach(c -> doAno.add(ContratosAleatorios.linha(c)));
+        AcervoContratos.Resultado resultado = acervo.pesquisar(ano, c -> c.getContratante().startsWith("Ana"), 3);
+        assertEquals(doAno.size(), resultado.total);
+        List<String> obtidos = new ArrayList<>();
+        resultado.contratos.forEach(c -> obtidos.add(ContratosAleatorios.linha(c)));
+        assertEquals(doAno.subList(0, Math.min(3, doAno.size())), obtidos);
+    }
+
+    private RepositorioContratos repositorio() {
+        RepositorioContratos repositorio = new RepositorioContratos(
+            pasta.resolve("contratos.txt").toString(), pasta.resolve("contratos.bin").toString(), false, null, 0,
+            false, 0, null, pasta.resolve("contratos.acervo").toString());
+        assertTrue(repositorio.carregar());
+        return repositorio;
+    }
+
+    private contrato aleatorio(int id) {
+        return aleatorios.novo(id);
+    }
+
+    private Map<Integer, contrato> criar(RepositorioContratos repositorio) throws IOException {
+        Map<Integer, contrato> criados = new TreeMap<>();
+        for (int i = 0; i < 2_000; i++) {
+            contrato criado = repositorio.criar(this::aleatorio);
+            criados.put(criado.getId(), criado);
+        }
+        return criados;
+    }
+}
@@ -0,0 +1,171 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// Alertas de cada antecedência com um relógio controlado: os dias perdidos são recuperados pelo
+// estado gravado, um dia já processado não repete alertas e uma edição de termino que já
+// deveria ter alertado é notificada na hora
+class AgendaVencimentosTest {
+    private static final int[] ANTECEDENCIAS = {30, 7, 1};
+
+    @TempDir
+    Path pasta;
+
+    private final Relogio relogio = new Relogio(LocalDate.of(2024, 6, 10));
+    private RepositorioContratos repositorio;
+    private final List<contrato> contratos = new ArrayList<>();
+
+    @AfterEach
+    void fechar() {
+        if (repositorio != null) {
+            repositorio.fechar();
+        }
+    }
+
+    @Test
+    void diasPerdidosERepeticao() throws IOException {
+        iniciarRepositorio();
+        Path log = pasta.resolve("alertas.log");
+        AgendaVencimentos agenda = nova();
+        try {
+            assertEquals(esperados(relogio.hoje.minusDays(1), relogio.hoje), agenda.processarAgora());
+            assertEquals(0, agenda.processarAgora());
+
+            LocalDate anterior = relogio.hoje;
+            relogio.hoje = relogio.hoje.plusDays(5);
+            assertEquals(esperados(anterior, relogio.hoje), agenda.processarAgora());
+        } finally {
+            agenda.parar();
+        }
+
+        // Depois de reiniciar, o estado gravado evita repetir o dia e recupera os dias sem execução
+        AgendaVencimentos reiniciada = nova();
+        try {
+            assertEquals(0, reiniciada.processarAgora());
+            LocalDate anterior = relogio.hoje;
+            relogio.hoje = relogio.hoje.plusDays(9);
+            assertEquals(esperados(anterior, relogio.hoje), reiniciada.processarAgora());
+        } finally {
+            reiniciada.parar();
+        }
+
+        int total = esperados(LocalDate.of(2024, 6, 9), relogio.hoje);
+        List<String> linhas = Files.readAllLines(log, Charset.defaultCharset());
+        assertEquals(total, linhas.size());
+        assertTrue(linhas.get(0).matches("\\d\\d/\\d\\d/\\d{4} \\d\\d:\\d\\d:\\d\\d \\| alerta de (30|7|1) dia\\(s\\)"
+                                         + " \\| vence em \\d\\d/\\d\\d/\\d{4} \\(\\d+ dia\\(s\\)\\) \\| \\d+\\|.*"),
+                   linhas.get(0));
+    }
+
+    @Test
+    void edicaoJaVencidaNotificadaNaHora() throws IOException {
+        iniciarRepositorio();
+        Path log = pasta.resolve("alertas.log");
+        AgendaVencimentos agenda = nova();
+        try {
+            agenda.iniciar();
+            agenda.processarAgora(); // espera o processamento da partida
+            long antes = Files.readAllLines(log, Charset.defaultCharset()).size();
+
+            contrato criado = repositorio.criar(id -> contrato(id, relogio.hoje.plusDays(3)));
+            contrato editado = criado.copiar();
+            editado.setTermino(relogio.hoje.plusDays(1));
+            repositorio.atualizar(editado);
+            contrato distante = repositorio.criar(id -> contrato(id, relogio.hoje.plusDays(200)));
+            agenda.processarAgora(); // as notificações rodam na thread da agenda
+
+            List<String> linhas = Files.readAllLines(log, Charset.defaultCharset());
+            assertEquals(antes + 2, linhas.size());
+            assertTrue(linhas.get(linhas.size() - 2).contains("alerta de 7 dia(s)"));
+            assertTrue(linhas.get(linhas.size() - 2).endsWith(" | " + criado));
+            assertTrue(linhas.get(linhas.size() - 1).contains("alerta de 1 dia(s)"));
+            assertTrue(linhas.get(linhas.size() - 1).endsWith(" | " + editado));
+            assertTrue(linhas.stream().noneMatch(l -> l.endsWith(" | " + distante)));
+        } finally {
+            agenda.parar();
+        }
+    }
+
+    @Test
+    void lerAntecedencias() {
+        assertEquals(3, AgendaVencimentos.lerAntecedencias(" 30, 7 ,1").length);
+        assertEquals(0, AgendaVencimentos.lerAntecedencias("nenhum").length);
+        assertEquals(0, AgendaVencimentos.lerAntecedencias("30,sete").length);
+    }
+
+    private void iniciarRepositorio() throws IOException {
+        repositorio = new RepositorioContratos(pasta.resolve("contratos.txt").toString(),
+                                               pasta.resolve("contratos.bin").toString(), false, null, 0,
+                                               false, 0, null, pasta.resolve("arquivo-morto").toString());
+        repositorio.carregar();
+        Random random = new Random(17);
+        for (int i = 0; i < 600; i++) {
+            LocalDate termino = LocalDate.of(2024, 6, 1).plusDays(random.nextInt(100));
+            contratos.add(repositorio.criar(id -> contrato(id, termino)));
+        }
+    }
+
+    private AgendaVencimentos nova() {
+        return new AgendaVencimentos(repositorio, ANTECEDENCIAS, pasta.resolve("alertas.log"),
+                                     pasta.resolve("alertas.estado"), relogio);
+    }
+
+    // Alertas dos dias (de, ate]: termino igual a um desses dias mais a antecedência
+    private int esperados(LocalDate de, LocalDate ate) {
+        int total = 0;
+        for (contrato contrato : contratos) {
+            for (int antecedencia : ANTECEDENCIAS) {
+                LocalDate alerta = contrato.getTermino().minusDays(antecedencia);
+                if (alerta.isAfter(de) && !alerta.isAfter(ate)) {
+                    total++;
+                }
+            }
+        }
+        return total;
+    }
+
+    private static contrato contrato(int id, LocalDate termino) {
+        return new contrato(id, "Ana Souza", "Beta Ltda", "N-" + id, "manutenção", 100, termino.minusYears(1),
+                            termino.minusYears(1), termino, "529.982.247-25");
+    }
+
+    // Meio-dia do dia corrente, que o teste avança
+    private static final class Relogio extends Clock {
+        volatile LocalDate hoje; // lido pela thread da agenda
+
+        Relogio(LocalDate hoje) {
+            this.hoje = hoje;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zona) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return hoje.atTime(12, 0).toInstant(ZoneOffset.UTC);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+// Os totais mantidos a cada criação, edição e exclusão, e os do recálculo em paralelo, são os
+// mesmos de uma soma direta sobre os contratos vivos
+class AgregadosContratosTest {
+    @Test
+    void incrementalIgualAVarredura() {
+        ContratosAleatorios aleatorios = new ContratosAleatorios(12);
+        Random random = new Random(12);
+        AgregadosContratos agregados = new AgregadosContratos();
+        Map<Integer, contrato> vivos = new HashMap<>();
+        for (int passo = 0; passo < 30_000; passo++) {
+            int id = 1 + random.nextInt(5_000);
+            contrato atual = vivos.get(id);
+            if (atual == null) {
+                contrato novo = aleatorios.novo(id);
+                vivos.put(id, novo);
+                agregados.adicionar(novo);
+            } else if (random.nextInt(3) == 0) {
+                vivos.remove(id);
+                agregados.remover(atual);
+            } else {
+                contrato editado = atual.copiar();
+                contrato outro = aleatorios.novo(id);
+                editado.setContratante(outro.getContratante());
+                editado.setValor(outro.getValor());
+                editado.setTermino(outro.getTermino());
+                agregados.remover(atual);
+                vivos.put(id, editado);
+                agregados.adicionar(editado);
+            }
+            // O valor em vigor acompanha as alterações entre consultas no mesmo dia
+            if (passo % 1_000 == 0) {
+                LocalDate dia = LocalDate.of(2000, 1, 1).plusDays(random.nextInt(15_000));
+                conferirEmVigor(agregados, vivos.values(), dia);
+            }
+        }
+        conferir(agregados, vivos.values());
+
+        AgregadosContratos recalculados = new AgregadosContratos();
+        recalculados.recalcular(vivos.values());
+        conferir(recalculados, vivos.values());
+    }
+
+    // Consultas em dias para frente e para trás somam só as variações entre os dois dias
+    @Test
+    void emVigorEmDiasSeguidos() {
+        ContratosAleatorios aleatorios = new ContratosAleatorios(13);
+        List<contrato> contratos = new ArrayList<>();
+        for (int id = 1; id <= 50_000; id++) {
+            contratos.add(aleatorios.novo(id));
+        }
+        AgregadosContratos agregados = new AgregadosContratos();
+        agregados.recalcular(contratos);
+        Random random = new Random(13);
+        LocalDate dia = LocalDate.of(2020, 1, 1);
+        for (int i = 0; i < 200; i++) {
+            dia = dia.plusDays(random.nextInt(4_001) - 2_000);
+            conferirEmVigor(agregados, contratos, dia);
+        }
+    }
+
+    private static void conferir(AgregadosContratos agregados, Iterable<contrato> contratos) {
+        Map<String, long[]> porContratante = new HashMap<>();
+        Map<String, long[]> porContratado = new HashMap<>();
+        Map<Integer, long[]> porMes = new TreeMap<>();
+        long[] geral = new long[2];
+        for (contrato c : contratos) {
+            somar(porContratante.computeIfAbsent(c.getContratante(), k -> new long[2]), c);
+            somar(porContratado.computeIfAbsent(c.getContratado(), k -> new long[2]), c);
+            LocalDate celebracao = c.getCelebracao();
+            somar(porMes.computeIfAbsent(celebracao.getYear() * 100 + celebracao.getMonthValue(), k -> new long[2]), c);
+            somar(geral, c);
+        }
+        assertEquals(geral[0], agregados.getGeral().getCentavos());
+        assertEquals(geral[1], agregados.getGeral().getQuantidade());
+        assertEquals(texto(porContratante), texto(agregados.getPorContratante()));
+        assertEquals(texto(porContratado), texto(agregados.getPorContratado()));
+        assertEquals(texto(porMes), texto(agregados.getPorMes()));
+        for (Map.Entry<Integer, long[]> mes : porMes.entrySet()) {
+            AgregadosContratos.Total total = agregados.porMes(mes.getKey() / 100, mes.getKey() % 100);
+            assertEquals(mes.getValue()[0], total.getCentavos());
+        }
+    }
+
+    private static void conferirEmVigor(AgregadosContratos agregados, Iterable<contrato> contratos, LocalDate dia) {
+        long[] esperado = new long[2];
+        for (contrato c : contratos) {
+            if (!c.getInicio().isAfter(dia) && !c.getTermino().isBefore(dia)) {
+                somar(esperado, c);
+            }
+        }
+        AgregadosContratos.Total emVigor = agregados.emVigor(dia);
+        assertEquals(esperado[0], emVigor.getCentavos(), dia.toString());
+        assertEquals(esperado[1], emVigor.getQuantidade(), dia.toString());
+    }
+
+    private static void somar(long[] total, contrato contrato) {
+        total[0] += contrato.getCentavos();
+        total[1]++;
+    }
+
+    // Compara como texto ordenado; chaves que voltaram a zero não podem sobrar
+    private static String texto(Map<?, ?> mapa) {
+        TreeMap<String, String> ordenado = new TreeMap<>();
+        mapa.forEach((chave, valor) -> ordenado.put(String.valueOf(chave), valor instanceof long[] total
+            ? total[0] + "/" + total[1]
+            : ((AgregadosContratos.Total) valor).getCentavos() + "/" + ((AgregadosContratos.Total) valor).getQuantidade()));
+        return ordenado.toString();
+    }
+}
@@ -0,0 +1,116 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// B+tree em disco comparada a um TreeMap: inserções (em ordem e fora dela), substituições,
+// exclusões e registros no transbordo, com um cache pequeno e reabrindo o arquivo
+class ArvoreContratosTest {
+    private static final int PAGINAS_EM_CACHE = 8; // força checkpoints durante as gravações
+
+    @TempDir
+    Path pasta;
+
+    private final ContratosAleatorios aleatorios = new ContratosAleatorios(20);
+
+    @Test
+    void idsCrescentes() throws IOException {
+        Path arquivo = pasta.resolve("crescentes.db");
+        TreeMap<Integer, String> modelo = new TreeMap<>();
+        try (ArvoreContratos arvore = new ArvoreContratos(arquivo, PAGINAS_EM_CACHE)) {
+            for (int id = 1; id <= 20_000; id++) {
+                gravar(arvore, modelo, aleatorios.novo(id));
+            }
+            conferir(arvore, modelo);
+            arvore.descarregar();
+        }
+        try (ArvoreContratos arvore = new ArvoreContratos(arquivo, PAGINAS_EM_CACHE)) {
+            conferir(arvore, modelo);
+        }
+    }
+
+    @Test
+    void insercoesEExclusoesAleatorias() throws IOException {
+        Path arquivo = pasta.resolve("aleatorio.db");
+        TreeMap<Integer, String> modelo = new TreeMap<>();
+        Random random = new Random(21);
+        for (int rodada = 0; rodada < 3; rodada++) {
+            try (ArvoreContratos arvore = new ArvoreContratos(arquivo, PAGINAS_EM_CACHE)) {
+                conferir(arvore, modelo);
+                for (int i = 0; i < 10_000; i++) {
+                    int id = random.nextInt(8_000) - 1_000;
+                    if (random.nextInt(3) == 0) {
+                        contrato removido = arvore.remover(id);
+                        String esperado = modelo.remove(id);
+                        assertEquals(esperado, removido == null ? null : ContratosAleatorios.linha(removido));
+                    } else {
+                        gravar(arvore, modelo, random.nextInt(50) == 0
+                            ? aleatorios.comDescricaoLonga(id) : aleatorios.novo(id));
+                    }
+                }
+                conferir(arvore, modelo);
+                arvore.descarregar();
+            }
+        }
+    }
+
+    @Test
+    void esvaziarEReaproveitar() throws IOException {
+        Path arquivo = pasta.resolve("vazio.db");
+        TreeMap<Integer, String> modelo = new TreeMap<>();
+        try (ArvoreContratos arvore = new ArvoreContratos(arquivo, PAGINAS_EM_CACHE)) {
+            for (int id = 1; id <= 3_000; id++) {
+                gravar(arvore, modelo, id % 7 == 0 ? aleatorios.comDescricaoLonga(id) : aleatorios.novo(id));
+            }
+            for (int id = 1; id <= 3_000; id++) {
+                arvore.remover(id);
+                modelo.remove(id);
+            }
+            conferir(arvore, modelo);
+            assertFalse(arvore.iterator().hasNext());
+
+            gravar(arvore, modelo, aleatorios.novo(42));
+            conferir(arvore, modelo);
+            arvore.limpar();
+            modelo.clear();
+            conferir(arvore, modelo);
+            arvore.descarregar();
+        }
+        try (ArvoreContratos arvore = new ArvoreContratos(arquivo, PAGINAS_EM_CACHE)) {
+            conferir(arvore, modelo);
+        }
+    }
+
+    private static void gravar(ArvoreContratos arvore, TreeMap<Integer, String> modelo, contrato contrato) {
+        contrato anterior = arvore.gravar(contrato);
+        String esperado = modelo.put(contrato.getId(), ContratosAleatorios.linha(contrato));
+        assertEquals(esperado, anterior == null ? null : ContratosAleatorios.linha(anterior));
+    }
+
+    private static void conferir(ArvoreContratos arvore, TreeMap<Integer, String> modelo) {
+        assertEquals(modelo.size(), arvore.tamanho());
+        List<String> linhas = new ArrayList<>();
+        for (contrato contrato : arvore) {
+            linhas.add(ContratosAleatorios.linha(contrato));
+        }
+        assertEquals(new ArrayList<>(modelo.values()), linhas);
+        for (Map.Entry<Integer, String> entrada : modelo.entrySet()) {
+            assertTrue(arvore.contem(entrada.getKey()));
+            assertEquals(entrada.getValue(), ContratosAleatorios.linha(arvore.buscar(entrada.getKey())));
+        }
+        int ausente = modelo.isEmpty() ? 1 : modelo.lastKey() + 1;
+        assertFalse(arvore.contem(ausente));
+        assertNull(arvore.buscar(ausente));
+    }
+}
@@ -0,0 +1,107 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// O carregador em paralelo deve chegar ao mesmo resultado da leitura linha a linha com o
+// leitor padrão: mesmas linhas, na mesma ordem, com fatias cortadas em qualquer ponto do
+// arquivo, quebras "\n", "\r\n" e "\r" misturadas e linhas fora do caminho rápido
+class CarregadorContratosTest {
+    @TempDir
+    Path pasta;
+
+    @Test
+    void igualAoSequencial() throws IOException {
+        ContratosAleatorios aleatorios = new ContratosAleatorios(6);
+        Random random = new Random(6);
+        StringBuilder texto = new StringBuilder();
+        for (int id = 1; id <= 60_000; id++) {
+            String linha = ContratosAleatorios.linha(aleatorios.novo(id));
+            switch (random.nextInt(40)) {
+                case 0 -> linha = " " + linha.replace("|", " | ");      // campos com espaços
+                case 1 -> linha = linha.replace("R$\u00A0", "");   // valor sem o prefixo
+                case 2 -> linha = linha.substring(0, linha.indexOf('|')); // campos faltando
+                case 3 -> linha = "";
+                default -> { }
+            }
+            String[] quebras = {"\n", "\r\n", "\r"};
+            texto.append(linha).append(quebras[random.nextInt(10) == 0 ? 1 + random.nextInt(2) : 0]);
+        }
+        for (Charset charset : List.of(StandardCharsets.UTF_8, StandardCharsets.ISO_8859_1)) {
+            Path arquivo = pasta.resolve("contratos-" + charset.name() + ".txt");
+            Files.writeString(arquivo, texto, charset);
+            conferir(arquivo, charset);
+        }
+    }
+
+    // Como na leitura sequencial, o carregamento para na primeira linha inválida
+    @Test
+    void paraNaPrimeiraLinhaInvalida() throws IOException {
+        ContratosAleatorios aleatorios = new ContratosAleatorios(7);
+        StringBuilder texto = new StringBuilder();
+        for (int id = 1; id <= 30_000; id++) {
+            String linha = ContratosAleatorios.linha(aleatorios.novo(id));
+            if (id == 20_000) {
+                linha = linha.replaceFirst("\\|(\\d\\d)/", "|99/");
+            }
+            texto.append(linha).append('\n');
+        }
+        Path arquivo = pasta.resolve("contratos.txt");
+        Files.writeString(arquivo, texto, StandardCharsets.UTF_8);
+
+        CarregadorContratos.Resultado resultado = conferir(arquivo, StandardCharsets.UTF_8);
+        assertEquals(DateTimeParseException.class, resultado.erro.getClass());
+        assertEquals(19_999, resultado.contratos.size());
+    }
+
+    @Test
+    void arquivoVazio() throws IOException {
+        Path arquivo = Files.createFile(pasta.resolve("vazio.txt"));
+        CarregadorContratos.Resultado resultado =
+            CarregadorContratos.carregar(arquivo, StandardCharsets.UTF_8, FormatoTexto::ler);
+        assertNull(resultado.erro);
+        assertEquals(0, resultado.contratos.size());
+    }
+
+    private static CarregadorContratos.Resultado conferir(Path arquivo, Charset charset) throws IOException {
+        List<String> esperadas = new ArrayList<>();
+        int maxId = 0;
+        Class<?> erro = null;
+        try (BufferedReader reader = Files.newBufferedReader(arquivo, charset)) {
+            String linha;
+            while ((linha = reader.readLine()) != null) {
+                contrato contrato;
+                try {
+                    contrato = FormatoTexto.ler(linha);
+                } catch (IllegalArgumentException | DateTimeParseException e) {
+                    erro = e.getClass();
+                    break;
+                }
+                if (contrato != null) {
+                    esperadas.add(ContratosAleatorios.linha(contrato));
+                    maxId = Math.max(maxId, contrato.getId());
+                }
+            }
+        }
+
+        CarregadorContratos.Resultado resultado = CarregadorContratos.carregar(arquivo, charset, FormatoTexto::ler);
+        List<String> obtidas = new ArrayList<>();
+        resultado.contratos.forEach(c -> obtidas.add(ContratosAleatorios.linha(c)));
+        assertEquals(esperadas, obtidas);
+        assertEquals(maxId, resultado.maxId);
+        assertEquals(erro, resultado.erro == null ? null : resultado.erro.getClass());
+        return resultado;
+    }
+}
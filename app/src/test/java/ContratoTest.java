@@ -0,0 +1,107 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.NumberFormat;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+// A forma compacta devolve o mesmo texto da classe anterior (NumberFormat pt-BR e dd/MM/yyyy);
+// getValor() volta arredondado aos centavos e os nomes das partes são compartilhados
+class ContratoTest {
+    private static final NumberFormat MOEDA = NumberFormat.getCurrencyInstance(new Locale("pt", "BR"));
+    private static final DateTimeFormatter DATA = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    private static final String[] CPFS = {"529.982.247-25", "52998224725", "000.000.000-00", "", "529.982.247-2x"};
+
+    @Test
+    void mesmoTextoDeAntes() {
+        Random random = new Random(11);
+        for (int i = 0; i < 100_000; i++) {
+            double valor = valor(random);
+            LocalDate celebracao = LocalDate.of(1900, 1, 1).plusDays(random.nextInt(80_000));
+            LocalDate inicio = celebracao.plusDays(random.nextInt(100));
+            LocalDate termino = inicio.plusDays(random.nextInt(2_000));
+            String cpf = CPFS[random.nextInt(CPFS.length)];
+            contrato contrato = new contrato(i, "Ana " + i % 50, "Beta", "N-" + i, "desc " + i, valor,
+                                             celebracao, inicio, termino, cpf);
+
+            // Só o negativo que arredonda a zero perde o sinal: o texto segue os centavos guardados
+            String valorFormatado = MOEDA.format(contrato.getCentavos() == 0 ? 0 : valor);
+            assertEquals(valorFormatado, contrato.getValorFormatado(), "valor " + valor);
+            assertEquals(i + "|Ana " + i % 50 + "|Beta|" + cpf + "|N-" + i + "|" + valorFormatado + "|"
+                         + celebracao.format(DATA) + "|" + inicio.format(DATA) + "|" + termino.format(DATA)
+                         + "|desc " + i, contrato.toString());
+            assertEquals(celebracao, contrato.getCelebracao());
+            assertEquals(inicio, contrato.getInicio());
+            assertEquals(termino, contrato.getTermino());
+            assertEquals(cpf, contrato.getCpf());
+        }
+    }
+
+    // O que a listagem mostrava (HALF_EVEN do NumberFormat) é agora o próprio valor
+    @Test
+    void valorArredondadoAosCentavos() {
+        Random random = new Random(12);
+        for (int i = 0; i < 100_000; i++) {
+            double valor = valor(random);
+            contrato contrato = new contrato(1, "A", "B", "N", "D", valor, LocalDate.EPOCH, LocalDate.EPOCH,
+                                             LocalDate.EPOCH, CPFS[0]);
+            BigDecimal esperado = new BigDecimal(valor).setScale(2, RoundingMode.HALF_EVEN);
+            assertEquals(esperado.unscaledValue().longValue(), contrato.getCentavos(), "valor " + valor);
+            assertEquals(esperado.doubleValue(), contrato.getValor(), "valor " + valor);
+        }
+        contrato meio = new contrato(1, "A", "B", "N", "D", 0.125, LocalDate.EPOCH, LocalDate.EPOCH,
+                                     LocalDate.EPOCH, CPFS[0]);
+        assertEquals(0.12, meio.getValor());
+        meio.setValor(2.675); // 2.67499999... em binário
+        assertEquals(2.67, meio.getValor());
+        meio.setValor(-0.003);
+        assertEquals("R$\u00A00,00", meio.getValorFormatado());
+
+        assertThrows(IllegalArgumentException.class, () -> meio.setValor(contrato.VALOR_MAXIMO * 2));
+        assertThrows(IllegalArgumentException.class, () -> meio.setValor(Double.NaN));
+    }
+
+    @Test
+    void nomesCompartilhados() {
+        String nome = new String("Construtora Horizonte");
+        contrato primeiro = new contrato(1, nome, new String("Beta"), "N-1", "D", 1, LocalDate.EPOCH,
+                                         LocalDate.EPOCH, LocalDate.EPOCH, CPFS[0]);
+        contrato segundo = new contrato(2, new String(nome), "Gama", "N-2", "D", 1, LocalDate.EPOCH,
+                                        LocalDate.EPOCH, LocalDate.EPOCH, CPFS[0]);
+        assertSame(primeiro.getContratante(), segundo.getContratante());
+        segundo.setContratado(new String("Beta"));
+        assertSame(primeiro.getContratado(), segundo.getContratado());
+    }
+
+    // A cópia é independente do contrato publicado
+    @Test
+    void copiar() {
+        contrato original = new contrato(1, "A", "B", "N-1", "D", 10.5, LocalDate.of(2024, 1, 1),
+                                         LocalDate.of(2024, 2, 1), LocalDate.of(2025, 1, 1), "529.982.247-2x");
+        contrato copia = original.copiar();
+        assertEquals(original.toString(), copia.toString());
+        copia.setDescricao("outra");
+        copia.setCpf("529.982.247-25");
+        copia.setTermino(LocalDate.of(2026, 1, 1));
+        assertEquals("D", original.getDescricao());
+        assertEquals("529.982.247-2x", original.getCpf());
+        assertEquals(LocalDate.of(2025, 1, 1), original.getTermino());
+    }
+
+    // Valores com mais de duas casas, negativos e perto do limite
+    private static double valor(Random random) {
+        return switch (random.nextInt(4)) {
+            case 0 -> random.nextInt(1_000_000) / 100.0;
+            case 1 -> random.nextDouble() * 100_000;
+            case 2 -> -random.nextInt(100_000) / 1000.0;
+            default -> Math.floor(random.nextDouble() * contrato.VALOR_MAXIMO) / 1000.0;
+        };
+    }
+}
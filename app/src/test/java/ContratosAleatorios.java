@@ -0,0 +1,85 @@
+import java.time.LocalDate;
+import java.util.Random;
+
+// Contratos válidos e determinísticos (mesma semente = mesmos contratos) para os testes
+final class ContratosAleatorios {
+    private static final String[] NOMES = {
+        "Ana Souza", "Bruno Lima", "Fábio Nunes", "João Pereira", "Ângela Conceição", "Beta Ltda"
+    };
+    private static final String[] PALAVRAS = {
+        "serviço", "de", "manutenção", "predial", "limpeza", "obra", "ação", "nº", "12", "elétrica"
+    };
+    private static final LocalDate BASE = LocalDate.of(1990, 1, 1);
+
+    private final Random random;
+
+    ContratosAleatorios(long semente) {
+        this.random = new Random(semente);
+    }
+
+    contrato novo(int id) {
+        LocalDate celebracao = BASE.plusDays(random.nextInt(40_000));
+        LocalDate inicio = celebracao.plusDays(random.nextInt(60));
+        LocalDate termino = inicio.plusDays(random.nextInt(2_000));
+        double valor = random.nextInt(4) == 0
+            ? Math.round(random.nextDouble() * contrato.VALOR_MAXIMO) / 100.0
+            : 1 + random.nextInt(10_000_000) / 100.0;
+        return new contrato(id, nome(), nome(), "N-" + random.nextInt(100_000), descricao(),
+                            valor, celebracao, inicio, termino, cpf());
+    }
+
+    // Textos longos o bastante para ir para o transbordo da árvore
+    contrato comDescricaoLonga(int id) {
+        contrato base = novo(id);
+        StringBuilder descricao = new StringBuilder();
+        while (descricao.length() < 3_000) {
+            descricao.append(PALAVRAS[random.nextInt(PALAVRAS.length)]).append(' ');
+        }
+        base.setDescricao(descricao.toString().trim());
+        return base;
+    }
+
+    private String nome() {
+        return NOMES[random.nextInt(NOMES.length)] + (random.nextBoolean() ? "" : " " + random.nextInt(100));
+    }
+
+    private String descricao() {
+        StringBuilder descricao = new StringBuilder();
+        for (int i = random.nextInt(6); i >= 0; i--) {
+            descricao.append(PALAVRAS[random.nextInt(PALAVRAS.length)]).append(i > 0 ? " " : "");
+        }
+        return descricao.toString();
+    }
+
+    // Quase sempre válido e formatado; às vezes só os dígitos (guardado como texto)
+    private String cpf() {
+        int[] d = new int[11];
+        for (int i = 0; i < 9; i++) {
+            d[i] = random.nextInt(10);
+        }
+        d[9] = digitoVerificador(d, 9);
+        d[10] = digitoVerificador(d, 10);
+        StringBuilder cpf = new StringBuilder(14);
+        for (int i = 0; i < 11; i++) {
+            cpf.append(d[i]);
+        }
+        String digitos = cpf.toString();
+        if (random.nextInt(10) == 0) {
+            return digitos;
+        }
+        return ValidaCPF.formatar(ValidaCPF.empacotar(digitos));
+    }
+
+    private static int digitoVerificador(int[] d, int n) {
+        int soma = 0;
+        for (int i = 0; i < n; i++) {
+            soma += d[i] * (n + 1 - i);
+        }
+        int resto = soma * 10 % 11;
+        return resto == 10 ? 0 : resto;
+    }
+
+    static String linha(contrato contrato) {
+        return FormatoTexto.escrever(contrato, new StringBuilder()).toString();
+    }
+}
@@ -0,0 +1,121 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// Reprodução do diário: ordem das gerações, exclusões, registro truncado por uma queda e compactação
+class DiarioContratosTest {
+    @TempDir
+    Path pasta;
+
+    private final ContratosAleatorios aleatorios = new ContratosAleatorios(30);
+
+    @Test
+    void reproduzNaOrdemDosRegistros() throws IOException {
+        String arquivo = pasta.resolve("contratos.txt").toString();
+        contrato primeiro = aleatorios.novo(1);
+        contrato segundo = aleatorios.novo(2);
+        contrato terceiro = aleatorios.novo(3);
+        contrato primeiroEditado = aleatorios.novo(1);
+
+        DiarioContratos diario = new DiarioContratos(arquivo);
+        diario.registrar(List.of(DiarioContratos.gravacao(primeiro), DiarioContratos.gravacao(segundo),
+                                 DiarioContratos.gravacao(terceiro)));
+        diario.registrar(List.of(DiarioContratos.exclusao(2), DiarioContratos.gravacao(primeiroEditado)));
+        diario.fechar();
+
+        assertTrue(new DiarioContratos(arquivo).possuiPendencias());
+        assertEquals(linhas(primeiroEditado, terceiro), reproduzir(arquivo));
+    }
+
+    @Test
+    void registroTruncadoEIgnorado() throws IOException {
+        String arquivo = pasta.resolve("contratos.txt").toString();
+        contrato primeiro = aleatorios.novo(1);
+        contrato segundo = aleatorios.novo(2);
+
+        DiarioContratos diario = new DiarioContratos(arquivo);
+        diario.registrar(List.of(DiarioContratos.gravacao(primeiro)));
+        diario.fechar();
+        // Queda no meio de uma escrita: a última linha fica sem quebra
+        Files.writeString(Path.of(arquivo + ".diario"), "P|9|Ana|Be", Charset.defaultCharset(),
+                          StandardOpenOption.APPEND);
+
+        DiarioContratos reaberto = new DiarioContratos(arquivo);
+        reaberto.registrar(List.of(DiarioContratos.gravacao(segundo)));
+        reaberto.fechar();
+        assertEquals(linhas(primeiro, segundo), reproduzir(arquivo));
+    }
+
+    // A geração rotacionada (.diario.1) de uma compactação interrompida vem antes da atual
+    @Test
+    void geracaoEmCompactacaoVemPrimeiro() throws IOException {
+        String arquivo = pasta.resolve("contratos.txt").toString();
+        contrato antigo = aleatorios.novo(5);
+        contrato novo = aleatorios.novo(5);
+        contrato outro = aleatorios.novo(6);
+        String quebra = System.lineSeparator();
+        Files.writeString(Path.of(arquivo + ".diario.1"),
+                          DiarioContratos.gravacao(antigo) + quebra + DiarioContratos.gravacao(outro) + quebra,
+                          Charset.defaultCharset());
+        Files.writeString(Path.of(arquivo + ".diario"),
+                          DiarioContratos.gravacao(novo) + quebra + DiarioContratos.exclusao(6) + quebra,
+                          Charset.defaultCharset());
+
+        assertEquals(linhas(novo), reproduzir(arquivo));
+    }
+
+    @Test
+    void compactacaoGravaOSnapshotEDescartaODiario() throws IOException {
+        Path dados = pasta.resolve("contratos.txt");
+        Map<Integer, contrato> estado = new LinkedHashMap<>();
+        DiarioContratos diario = new DiarioContratos(dados.toString());
+        for (int id = 1; id <= 1_000; id++) {
+            contrato contrato = aleatorios.novo(id);
+            estado.put(id, contrato);
+            diario.registrar(List.of(DiarioContratos.gravacao(contrato)));
+        }
+        diario.compactar(new ArrayList<>(estado.values()));
+        diario.aguardarCompactacao();
+        diario.fechar();
+
+        assertFalse(new DiarioContratos(dados.toString()).possuiPendencias());
+        List<String> gravadas = Files.readAllLines(dados, Charset.defaultCharset());
+        assertEquals(linhas(estado.values().toArray(new contrato[0])), gravadas);
+    }
+
+    // Estado final reproduzido por um diário novo, como na abertura do repositório
+    private static List<String> reproduzir(String arquivo) throws IOException {
+        Map<Integer, contrato> estado = new LinkedHashMap<>();
+        DiarioContratos diario = new DiarioContratos(arquivo);
+        diario.reproduzir(FormatoTexto::ler,
+                          contrato -> estado.put(contrato.getId(), contrato),
+                          estado::remove);
+        diario.fechar();
+        List<String> linhas = new ArrayList<>();
+        for (contrato contrato : estado.values()) {
+            linhas.add(ContratosAleatorios.linha(contrato));
+        }
+        return linhas;
+    }
+
+    private static List<String> linhas(contrato... contratos) {
+        List<String> linhas = new ArrayList<>();
+        for (contrato contrato : contratos) {
+            linhas.add(ContratosAleatorios.linha(contrato));
+        }
+        return linhas;
+    }
+}
@@ -0,0 +1,103 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+// O CSV exportado volta pela importação com os mesmos campos; o JSON Lines, os filtros e a
+// escolha de campos são conferidos contra o texto esperado e contra uma varredura
+class ExportadorContratosTest {
+    private static final String[] NOMES = {"Ana Souza", "Bruno Lima", "Ângela Conceição", "Beta Ltda"};
+    private static final String[] DESCRICOES = {"manutenção", "obra; fase 2", "\"urgente\"", "nº 12"};
+
+    @Test
+    void csvVoltaPelaImportacao() throws IOException {
+        List<contrato> contratos = contratos(2_000);
+        ExportadorContratos.Formato formato = ExportadorContratos.Formato.CSV;
+        ExportadorContratos exportador = new ExportadorContratos(formato, ExportadorContratos.camposPadrao(formato));
+        StringWriter destino = new StringWriter();
+        exportador.cabecalho(destino);
+        assertEquals(contratos.size(), exportador.exportar(contratos, c -> true, destino));
+
+        String[] linhas = destino.toString().split("\n");
+        assertEquals("contratante;contratado;numeroContrato;descricao;cpf;celebracao;inicio;termino;valor", linhas[0]);
+        for (int i = 0; i < contratos.size(); i++) {
+            contrato original = contratos.get(i);
+            contrato importado = ImportadorContratos.interpretar(linhas[i + 1]).criar(original.getId());
+            assertEquals(ContratosAleatorios.linha(original), ContratosAleatorios.linha(importado), linhas[i + 1]);
+        }
+    }
+
+    @Test
+    void jsonLines() throws IOException {
+        contrato contrato = new contrato(7, "Ana \"A\" Souza", "Beta\\Ltda", "N-1", "linha\ttab\u0001",
+                                         6500.5, LocalDate.of(2024, 2, 1), LocalDate.of(2024, 3, 1),
+                                         LocalDate.of(2025, 3, 1), "529.982.247-25");
+        ExportadorContratos.Formato formato = ExportadorContratos.Formato.JSONL;
+        StringWriter destino = new StringWriter();
+        new ExportadorContratos(formato, ExportadorContratos.camposPadrao(formato))
+            .exportar(List.of(contrato), c -> true, destino);
+        assertEquals("{\"id\":7,\"contratante\":\"Ana \\\"A\\\" Souza\",\"contratado\":\"Beta\\\\Ltda\","
+                     + "\"numeroContrato\":\"N-1\",\"descricao\":\"linha\\ttab\\u0001\",\"cpf\":\"529.982.247-25\","
+                     + "\"celebracao\":\"2024-02-01\",\"inicio\":\"2024-03-01\",\"termino\":\"2025-03-01\","
+                     + "\"valor\":6500.50}\n", destino.toString());
+    }
+
+    @Test
+    void filtrosECampos() throws IOException {
+        List<contrato> contratos = contratos(3_000);
+        List<ExportadorContratos.Campo> campos = new ArrayList<>();
+        String[] args = {"exportar", "csv", "destino.csv", "--de", "01/01/2021", "--ate", "31/12/2022",
+                         "--contratante", "ANGELA", "--valor-min", "1000", "--valor-max", "50000.5",
+                         "--campos", "id, valor"};
+        ExportadorContratos.Filtro filtro = ExportadorContratos.lerOpcoes(args, 3, campos);
+        assertEquals(List.of(ExportadorContratos.Campo.ID, ExportadorContratos.Campo.VALOR), campos);
+
+        StringBuilder esperado = new StringBuilder();
+        for (contrato c : contratos) {
+            LocalDate celebracao = c.getCelebracao();
+            if (!celebracao.isBefore(LocalDate.of(2021, 1, 1)) && !celebracao.isAfter(LocalDate.of(2022, 12, 31))
+                    && c.getContratante().startsWith("Ângela") && c.getCentavos() >= 100_000
+                    && c.getCentavos() <= 5_000_050) {
+                esperado.append(c.getId()).append(';')
+                        .append(c.getCentavos() / 100).append('.').append(String.format("%02d", c.getCentavos() % 100))
+                        .append('\n');
+            }
+        }
+        StringWriter destino = new StringWriter();
+        new ExportadorContratos(ExportadorContratos.Formato.CSV, campos).exportar(contratos, filtro, destino);
+        assertEquals(esperado.toString(), destino.toString());
+    }
+
+    @Test
+    void opcoesInvalidas() {
+        List<ExportadorContratos.Campo> campos = new ArrayList<>();
+        assertThrows(IllegalArgumentException.class,
+                     () -> ExportadorContratos.lerOpcoes(new String[] {"--de", "01/01/2024", "--ate"}, 0, campos));
+        assertThrows(IllegalArgumentException.class,
+                     () -> ExportadorContratos.lerOpcoes(new String[] {"--ordem", "id"}, 0, campos));
+        assertThrows(IllegalArgumentException.class,
+                     () -> ExportadorContratos.lerOpcoes(new String[] {"--campos", "id,idade"}, 0, campos));
+    }
+
+    // Nomes só com letras e espaços, como a importação exige
+    private static List<contrato> contratos(int quantidade) {
+        Random random = new Random(quantidade);
+        List<contrato> contratos = new ArrayList<>();
+        for (int id = 1; id <= quantidade; id++) {
+            LocalDate celebracao = LocalDate.of(2020, 1, 1).plusDays(random.nextInt(1_500));
+            LocalDate termino = celebracao.plusDays(1 + random.nextInt(700));
+            contratos.add(new contrato(id, NOMES[random.nextInt(NOMES.length)], NOMES[random.nextInt(NOMES.length)],
+                                       "CT-" + id, DESCRICOES[random.nextInt(DESCRICOES.length)],
+                                       1 + random.nextInt(10_000_000) / 100.0, celebracao, celebracao, termino,
+                                       "529.982.247-25"));
+        }
+        return contratos;
+    }
+}
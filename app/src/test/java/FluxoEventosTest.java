@@ -0,0 +1,92 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+// Anel pequeno com assinantes lentos: tudo chega, na ordem, e o fechamento espera a entrega
+class FluxoEventosTest {
+    private final ContratosAleatorios aleatorios = new ContratosAleatorios(40);
+
+    // Guarda as sequências recebidas; "pausa" atrasa cada lote para forçar a contrapressão
+    private static final class Coletor implements FluxoEventos.Assinante {
+        final List<EventoContrato> recebidos = new ArrayList<>();
+        final int pausa;
+        volatile boolean encerrado;
+        int maiorLote;
+
+        Coletor(int pausa) {
+            this.pausa = pausa;
+        }
+
+        @Override
+        public void receber(List<EventoContrato> eventos) {
+            maiorLote = Math.max(maiorLote, eventos.size());
+            recebidos.addAll(eventos);
+            if (pausa > 0) {
+                try {
+                    Thread.sleep(pausa);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        @Override
+        public void encerrar() {
+            encerrado = true;
+        }
+    }
+
+    @Test
+    void entregaTudoEmOrdemAosAssinantes() {
+        FluxoEventos fluxo = new FluxoEventos(8, 3);
+        Coletor rapido = new Coletor(0);
+        Coletor lento = new Coletor(1);
+        fluxo.assinar("rapido", rapido);
+        fluxo.assinar("lento", lento);
+
+        List<EventoContrato> publicados = new ArrayList<>();
+        for (int seq = 1; seq <= 500; seq++) {
+            EventoContrato evento = new EventoContrato(seq, EventoContrato.Tipo.CRIADO, null, aleatorios.novo(seq));
+            publicados.add(evento);
+            // Lotes maiores que o anel inteiro também passam, aos poucos
+            if (seq % 20 == 0) {
+                fluxo.publicar(publicados.subList(seq - 20, seq));
+            }
+        }
+        fluxo.fechar();
+
+        for (Coletor coletor : List.of(rapido, lento)) {
+            assertTrue(coletor.encerrado);
+            assertTrue(coletor.maiorLote <= 3, "lote maior que o máximo: " + coletor.maiorLote);
+            assertEquals(publicados.size(), coletor.recebidos.size());
+            for (int i = 0; i < publicados.size(); i++) {
+                assertSame(publicados.get(i), coletor.recebidos.get(i));
+            }
+        }
+    }
+
+    @Test
+    void assinanteNovoSoRecebeOQueVemDepois() {
+        FluxoEventos fluxo = new FluxoEventos(16, 16);
+        contrato anterior = aleatorios.novo(1);
+        contrato atual = aleatorios.novo(1);
+        fluxo.publicar(List.of(new EventoContrato(1, EventoContrato.Tipo.CRIADO, null, anterior)));
+        Coletor coletor = new Coletor(0);
+        fluxo.assinar("tardio", coletor);
+        fluxo.publicar(List.of(new EventoContrato(2, EventoContrato.Tipo.ALTERADO, anterior, atual)));
+        fluxo.fechar();
+
+        assertEquals(1, coletor.recebidos.size());
+        EventoContrato evento = coletor.recebidos.get(0);
+        assertEquals(2, evento.getSequencia());
+        assertEquals(EventoContrato.Tipo.ALTERADO, evento.getTipo());
+        assertEquals(1, evento.getId());
+        assertSame(anterior, evento.getAnterior());
+        assertSame(atual, evento.getAtual());
+    }
+}
@@ -0,0 +1,129 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// Ida e volta pelo formato binário (arquivo com vários blocos de buffer e registro avulso), os
+// conversores de e para o texto e a recusa de arquivos corrompidos sem alocações absurdas
+class FormatoBinarioTest {
+    private static final int PRIMEIRO_TAMANHO = 12 + 32; // cabeçalho + parte fixa do primeiro registro
+
+    @TempDir
+    Path pasta;
+
+    @Test
+    void idaEVolta() throws IOException {
+        List<contrato> contratos = contratos(40_000);
+        Path arquivo = pasta.resolve("contratos.bin");
+        FormatoBinario.salvar(contratos, arquivo);
+
+        List<contrato> lidos = FormatoBinario.carregar(arquivo);
+        assertEquals(linhas(contratos), linhas(lidos));
+        for (int i = 0; i < contratos.size(); i++) {
+            assertEquals(contratos.get(i).getCentavos(), lidos.get(i).getCentavos());
+            assertEquals(contratos.get(i).getCpfEmpacotado(), lidos.get(i).getCpfEmpacotado());
+        }
+    }
+
+    @Test
+    void registroAvulso() throws IOException {
+        for (contrato original : contratos(200)) {
+            contrato lido = FormatoBinario.decodificar(ByteBuffer.wrap(FormatoBinario.codificar(original)));
+            assertEquals(ContratosAleatorios.linha(original), ContratosAleatorios.linha(lido));
+        }
+    }
+
+    // texto -> binário -> texto devolve o mesmo arquivo
+    @Test
+    void conversores() throws IOException {
+        List<contrato> contratos = contratos(5_000);
+        Path texto = pasta.resolve("contratos.txt");
+        FormatoTexto.Codificador codificador = new FormatoTexto.Codificador(StandardCharsets.UTF_8);
+        try (OutputStream saida = Files.newOutputStream(texto)) {
+            for (contrato contrato : contratos) {
+                codificador.escrever(contrato, saida);
+            }
+        }
+
+        Path binario = pasta.resolve("contratos.bin");
+        Path deVolta = pasta.resolve("de-volta.txt");
+        assertEquals(contratos.size(), FormatoBinario.textoParaBinario(texto, binario, StandardCharsets.UTF_8,
+                                                                       FormatoTexto::ler));
+        assertEquals(contratos.size(), FormatoBinario.binarioParaTexto(binario, deVolta, StandardCharsets.UTF_8));
+        assertArrayEquals(Files.readAllBytes(texto), Files.readAllBytes(deVolta));
+    }
+
+    @Test
+    void tamanhoDeTextoCorrompido() throws IOException {
+        Path arquivo = pasta.resolve("contratos.bin");
+        FormatoBinario.salvar(contratos(10), arquivo);
+        byte[] original = Files.readAllBytes(arquivo);
+
+        for (int tamanho : new int[] {-1, Integer.MIN_VALUE, original.length, Integer.MAX_VALUE - 8}) {
+            byte[] bytes = original.clone();
+            ByteBuffer.wrap(bytes).putInt(PRIMEIRO_TAMANHO, tamanho);
+            Files.write(arquivo, bytes);
+            IOException erro = assertThrows(IOException.class, () -> FormatoBinario.carregar(arquivo));
+            assertEquals("Arquivo binário de contratos corrompido: texto com " + tamanho + " bytes", erro.getMessage());
+
+            ByteBuffer registro = ByteBuffer.wrap(bytes, 12, bytes.length - 12).slice();
+            assertThrows(IOException.class, () -> FormatoBinario.decodificar(registro));
+        }
+    }
+
+    @Test
+    void arquivoTruncado() throws IOException {
+        Path arquivo = pasta.resolve("contratos.bin");
+        FormatoBinario.salvar(contratos(10), arquivo);
+        byte[] bytes = Files.readAllBytes(arquivo);
+        for (int corte : new int[] {bytes.length - 1, PRIMEIRO_TAMANHO + 2, 20}) {
+            Files.write(arquivo, Arrays.copyOf(bytes, corte));
+            assertThrows(IOException.class, () -> FormatoBinario.carregar(arquivo), "cortado em " + corte);
+        }
+    }
+
+    @Test
+    void cabecalhoInvalido() throws IOException {
+        Path arquivo = pasta.resolve("contratos.bin");
+        Files.writeString(arquivo, "1|Ana|Beta|529.982.247-25|N-1|R$ 1,00|01/01/2024|01/01/2024|01/01/2025\n");
+        assertThrows(IOException.class, () -> FormatoBinario.carregar(arquivo));
+
+        FormatoBinario.salvar(contratos(1), arquivo);
+        byte[] bytes = Files.readAllBytes(arquivo);
+        bytes[5] = 9; // versão
+        Files.write(arquivo, bytes);
+        assertThrows(IOException.class, () -> FormatoBinario.carregar(arquivo));
+    }
+
+    // Inclui descrições longas, CPFs guardados como texto e caracteres fora do plano básico
+    private static List<contrato> contratos(int quantidade) {
+        ContratosAleatorios aleatorios = new ContratosAleatorios(quantidade);
+        List<contrato> contratos = new ArrayList<>();
+        for (int id = 1; id <= quantidade; id++) {
+            contrato contrato = id % 500 == 0 ? aleatorios.comDescricaoLonga(id) : aleatorios.novo(id);
+            if (id % 3 == 0) {
+                contrato.setDescricao(contrato.getDescricao() + " 📄");
+            }
+            contratos.add(contrato);
+        }
+        return contratos;
+    }
+
+    private static List<String> linhas(List<contrato> contratos) {
+        List<String> linhas = new ArrayList<>();
+        contratos.forEach(c -> linhas.add(ContratosAleatorios.linha(c)));
+        return linhas;
+    }
+}
@@ -0,0 +1,217 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.NumberFormat;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// O formato escrito à mão deve continuar idêntico ao do NumberFormat / DateTimeFormatter e
+// ser lido de volta, sem perdas, pelo leitor de linhas e pelo carregador em paralelo
+class FormatoTextoTest {
+    private static final Charset[] CHARSETS = {
+        StandardCharsets.UTF_8, StandardCharsets.ISO_8859_1, StandardCharsets.US_ASCII,
+        StandardCharsets.UTF_16, Charset.forName("windows-1252")
+    };
+
+    @TempDir
+    Path pasta;
+
+    @Test
+    void valorIgualAoNumberFormat() {
+        NumberFormat moeda = NumberFormat.getCurrencyInstance(new Locale("pt", "BR"));
+        Random random = new Random(1);
+        List<Long> valores = new ArrayList<>(List.of(0L, 1L, -50L, 99L, 100L, 100_000L, 1_000_000_000_000_000L));
+        for (int i = 0; i < 100_000; i++) {
+            long centavos = random.nextLong() % 10_000_000_000_000_000L;
+            valores.add(random.nextBoolean() ? centavos : centavos % (1L << random.nextInt(40)));
+        }
+        for (long centavos : valores) {
+            String esperado = moeda.format(BigDecimal.valueOf(centavos, 2));
+            assertEquals(esperado, FormatoTexto.formatarValor(centavos, new StringBuilder()).toString());
+        }
+    }
+
+    @Test
+    void dataIgualAoDateTimeFormatter() {
+        DateTimeFormatter formato = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+        Random random = new Random(2);
+        int primeiro = (int) LocalDate.of(-50, 1, 1).toEpochDay();
+        int ultimo = (int) LocalDate.of(10_050, 12, 31).toEpochDay();
+        for (int i = 0; i < 200_000; i++) {
+            int dia = primeiro + random.nextInt(ultimo - primeiro);
+            assertEquals(LocalDate.ofEpochDay(dia).format(formato),
+                         FormatoTexto.formatarData(dia, new StringBuilder()).toString());
+        }
+        for (int ano = 1; ano <= 9_999; ano++) {
+            for (int mes = 1; mes <= 12; mes++) {
+                LocalDate data = LocalDate.of(ano, mes, 1);
+                int dia = (int) data.toEpochDay();
+                assertEquals(data.format(formato), FormatoTexto.formatarData(dia, new StringBuilder()).toString());
+                assertEquals(dia, FormatoTexto.diaDaEpoca(ano, mes, 1));
+            }
+        }
+    }
+
+    // Dia além do fim do mês vai para o último dia, como o ResolverStyle.SMART
+    @Test
+    void diaDaEpocaAjustaOFimDoMes() {
+        assertEquals(LocalDate.of(2023, 4, 30).toEpochDay(), FormatoTexto.diaDaEpoca(2023, 4, 31));
+        assertEquals(LocalDate.of(2024, 2, 29).toEpochDay(), FormatoTexto.diaDaEpoca(2024, 2, 31));
+        assertEquals(LocalDate.of(1900, 2, 28).toEpochDay(), FormatoTexto.diaDaEpoca(1900, 2, 29));
+    }
+
+    @Test
+    void linhaIdaEVoltaPeloLeitor() {
+        ContratosAleatorios aleatorios = new ContratosAleatorios(3);
+        for (int id = 1; id <= 20_000; id++) {
+            contrato original = aleatorios.novo(id);
+            String linha = ContratosAleatorios.linha(original);
+            contrato lido = FormatoTexto.ler(linha);
+            assertEquals(linha, ContratosAleatorios.linha(lido));
+            assertEquals(original.getCentavos(), lido.getCentavos());
+            assertEquals(original.getTerminoDia(), lido.getTerminoDia());
+            assertEquals(original.getCpfEmpacotado(), lido.getCpfEmpacotado());
+        }
+    }
+
+    @Test
+    void linhaConhecida() {
+        contrato contrato = new contrato(7, "João Silva", "Beta Ltda", "N-1", "serviço de manutenção", 6500,
+                                         LocalDate.of(2023, 1, 2), LocalDate.of(2023, 2, 1), LocalDate.of(2024, 2, 1),
+                                         "529.982.247-25");
+        String esperado = "7|João Silva|Beta Ltda|529.982.247-25|N-1|R$\u00A06.500,00|02/01/2023|01/02/2023|01/02/2024"
+                          + "|serviço de manutenção";
+        assertEquals(esperado, ContratosAleatorios.linha(contrato));
+        assertEquals(esperado, contrato.toString());
+    }
+
+    @Test
+    void linhaIncompletaNaoViraContrato() {
+        assertNull(FormatoTexto.ler("1|Ana|Beta|529.982.247-25"));
+    }
+
+    // Mesmo contrato, ou a mesma exceção, que o antigo leitor por split e replaceAll (cópia abaixo),
+    // inclusive nas linhas fora do formato gravado pelo codificador
+    @Test
+    void leitorIgualAoSplit() {
+        String[] ids = {"7", " 7 ", "+7", "-7", "007", "2147483647", "2147483648", "", "x", "\u0667"};
+        String[] valores = {"R$\u00A06.500,00", "-R$ 0,50", "6500", "1.234,5", "0,005", "0,125", "12,345678",
+                            "99999999999999,99", "1e3", "", "R$", "1,2,3", "10000000000000,01", " 3,99 "};
+        String[] datas = {"02/01/2023", " 02/01/2023 ", "31/04/2023", "29/02/2023", "1/2/2023", "00/01/2023",
+                          "01/13/2023", "2023-01-02", "01/01/0000", "31/12/9999", ""};
+        String[] cpfs = {"529.982.247-25", "52998224725", " 529.982.247-25 ", ""};
+        String[] caudas = {"", "|descrição", "| descrição ", "|", "||", "|descrição|extra", "||extra", "|  "};
+        Random aleatorio = new Random(11);
+        for (int i = 0; i < 20_000; i++) {
+            String linha = ids[aleatorio.nextInt(ids.length)] + "| Ana |Beta|" + cpfs[aleatorio.nextInt(cpfs.length)]
+                           + "|N-1|" + valores[aleatorio.nextInt(valores.length)]
+                           + "|" + datas[aleatorio.nextInt(datas.length)]
+                           + "|" + datas[aleatorio.nextInt(datas.length)]
+                           + "|" + datas[aleatorio.nextInt(datas.length)]
+                           + caudas[aleatorio.nextInt(caudas.length)];
+            if (aleatorio.nextInt(20) == 0) {
+                linha = linha.substring(0, aleatorio.nextInt(linha.length() + 1));
+            }
+            contrato esperado;
+            try {
+                esperado = lerComSplit(linha);
+            } catch (RuntimeException e) {
+                final String entrada = linha;
+                assertEquals(e.getClass(), assertThrows(RuntimeException.class, () -> FormatoTexto.ler(entrada)).getClass(),
+                             linha);
+                continue;
+            }
+            contrato lido = FormatoTexto.ler(linha);
+            if (esperado == null) {
+                assertNull(lido, linha);
+                continue;
+            }
+            assertEquals(ContratosAleatorios.linha(esperado), ContratosAleatorios.linha(lido), linha);
+            assertEquals(esperado.getCentavos(), lido.getCentavos(), linha);
+            assertEquals(esperado.getCpfEmpacotado(), lido.getCpfEmpacotado(), linha);
+        }
+    }
+
+    // O leitor anterior ao FormatoTexto.ler
+    private static contrato lerComSplit(String linha) {
+        String[] dados = linha.split("\\|");
+        if (dados.length < 9) {
+            return null;
+        }
+        DateTimeFormatter formato = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+        int id = Integer.parseInt(dados[0].trim());
+        double valor = Double.parseDouble(dados[5].trim().replaceAll("[^\\d,]", "").replace(",", "."));
+        LocalDate celebracao = LocalDate.parse(dados[6].trim(), formato);
+        LocalDate inicio = LocalDate.parse(dados[7].trim(), formato);
+        LocalDate termino = LocalDate.parse(dados[8].trim(), formato);
+        return new contrato(id, dados[1].trim(), dados[2].trim(), dados[4].trim(),
+                            dados.length > 9 ? dados[9].trim() : "", valor, celebracao, inicio, termino,
+                            dados[3].trim());
+    }
+
+    // O arquivo inteiro decodifica para as mesmas linhas (no UTF-16, sem uma marca de ordem por linha)
+    @Test
+    void codificadorIgualAoToString() throws IOException {
+        ContratosAleatorios aleatorios = new ContratosAleatorios(4);
+        List<contrato> contratos = new ArrayList<>();
+        for (int id = -5; id <= 5_000; id++) {
+            contratos.add(aleatorios.novo(id));
+        }
+        for (Charset charset : CHARSETS) {
+            FormatoTexto.Codificador codificador = new FormatoTexto.Codificador(charset);
+            ByteArrayOutputStream obtido = new ByteArrayOutputStream();
+            StringBuilder esperado = new StringBuilder();
+            for (contrato contrato : contratos) {
+                codificador.escrever(contrato, obtido);
+                esperado.append(ContratosAleatorios.linha(contrato)).append(System.lineSeparator());
+            }
+            // No ASCII as letras acentuadas viram '?' dos dois lados
+            String decodificado = new String(esperado.toString().getBytes(charset), charset);
+            assertEquals(decodificado, new String(obtido.toByteArray(), charset), charset.name());
+        }
+    }
+
+    @Test
+    void carregadorLeOQueOCodificadorEscreve() throws IOException {
+        ContratosAleatorios aleatorios = new ContratosAleatorios(5);
+        List<contrato> contratos = new ArrayList<>();
+        for (int id = 1; id <= 50_000; id++) {
+            contratos.add(aleatorios.novo(id));
+        }
+        for (Charset charset : List.of(StandardCharsets.UTF_8, StandardCharsets.ISO_8859_1)) {
+            Path arquivo = pasta.resolve("contratos-" + charset.name() + ".txt");
+            FormatoTexto.Codificador codificador = new FormatoTexto.Codificador(charset);
+            try (OutputStream saida = Files.newOutputStream(arquivo)) {
+                for (contrato contrato : contratos) {
+                    codificador.escrever(contrato, saida);
+                }
+            }
+
+            CarregadorContratos.Resultado resultado =
+                CarregadorContratos.carregar(arquivo, charset, FormatoTexto::ler);
+            assertNull(resultado.erro);
+            assertEquals(contratos.size(), resultado.contratos.size());
+            for (int i = 0; i < contratos.size(); i++) {
+                assertEquals(ContratosAleatorios.linha(contratos.get(i)),
+                             ContratosAleatorios.linha(resultado.contratos.get(i)));
+            }
+            assertEquals(contratos.size(), resultado.maxId);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// Cada campo aceito pela importação precisa voltar igual depois de gravado na linha do
+// contratos.txt e lido de novo; o que quebraria a linha ('|', quebras, controles) é recusado
+class ImportadorContratosTest {
+    private static final String[] CAMPOS = {
+        "Ana Souza", "Beta Ltda", "CT-2024/01", "Serviço de manutenção", "529.982.247-25",
+        "01/02/2024", "01/03/2024", "01/03/2025", "6500.50"
+    };
+    private static final String[] NOMES = {"Contratante", "Contratado", "Número do contrato", "Descrição"};
+
+    @TempDir
+    Path pasta;
+
+    @Test
+    void camposIdaEVoltaPeloArquivo() {
+        String[][] valores = {
+            {"Ana Souza", "ÂNGELA CONCEIÇÃO", "Fábio  de Sá"},
+            {"Beta Ltda", "Irmãos Ávila", "Zé"},
+            {"CT-2024/01", "\"CT;2\"", "nº 12  a", "'x'"},
+            {"Serviço de manutenção", "\"aspas \"\"duplas\"\" e ; no meio\"", "R$ 10,00 - 50% à vista", "   "},
+        };
+        for (int campo = 0; campo < valores.length; campo++) {
+            for (String valor : valores[campo]) {
+                String[] campos = CAMPOS.clone();
+                campos[campo] = valor;
+                if (valor.isBlank()) {
+                    assertThrows(IllegalArgumentException.class, () -> ImportadorContratos.interpretar(String.join(";", campos)));
+                    continue;
+                }
+                contrato criado = ImportadorContratos.interpretar(String.join(";", campos)).criar(7);
+                contrato lido = FormatoTexto.ler(FormatoTexto.escrever(criado, new StringBuilder()).toString());
+                assertEquals(criado.getContratante(), lido.getContratante(), valor);
+                assertEquals(criado.getContratado(), lido.getContratado(), valor);
+                assertEquals(criado.getNumeroContrato(), lido.getNumeroContrato(), valor);
+                assertEquals(criado.getDescricao(), lido.getDescricao(), valor);
+                assertEquals(criado.getCpf(), lido.getCpf(), valor);
+                assertEquals(criado.getCentavos(), lido.getCentavos(), valor);
+                assertEquals(criado.getTermino(), lido.getTermino(), valor);
+            }
+        }
+    }
+
+    // Sem a recusa, "servico|extra" voltaria cortado, "CT|2" quebraria a carga e uma quebra de
+    // linha entre aspas partiria o registro em dois. Controles nas pontas já saem no trim
+    @Test
+    void recusaOQueQuebraALinha() {
+        String[] proibidos = {"servico|extra", "CT|2", "\"linha\nnova\"", "\"com\rretorno\"", "tab\tno meio",
+                              "nu\u0000lo", "escape\u001B[0m", "del\u007F", "c\u0085um"};
+        for (int campo = 0; campo < NOMES.length; campo++) {
+            for (String valor : proibidos) {
+                String[] campos = CAMPOS.clone();
+                campos[campo] = campo < 2 ? valor.replaceAll("[^\\p{L}|\"\\p{Cc}]", "") : valor;
+                IllegalArgumentException erro = assertThrows(IllegalArgumentException.class,
+                    () -> ImportadorContratos.interpretar(String.join(";", campos)), NOMES[campo] + ": " + valor);
+                assertTrue(erro.getMessage().startsWith(NOMES[campo]), erro.getMessage());
+            }
+        }
+        String[] campos = CAMPOS.clone();
+        campos[4] = "529.982.247-25|";
+        assertThrows(IllegalArgumentException.class, () -> ImportadorContratos.interpretar(String.join(";", campos)));
+    }
+
+    @Test
+    void loteComCabecalhoERejeitadas() throws IOException {
+        List<String> linhas = new ArrayList<>();
+        linhas.add("contratante;contratado;numeroContrato;descricao;cpf;celebracao;inicio;termino;valor");
+        for (int i = 0; i < 2_000; i++) {
+            String[] campos = CAMPOS.clone();
+            campos[2] = "CT-" + i;
+            switch (i % 100) {
+                case 1 -> campos[4] = "111.111.111-11";
+                case 2 -> campos[7] = "31/13/2025";
+                case 3 -> campos[8] = "0";
+                case 4 -> campos[3] = "com|barra";
+                default -> { }
+            }
+            linhas.add(String.join(";", campos));
+        }
+        linhas.add("");
+        linhas.add("so;tres;colunas");
+        linhas.add("\"quebra;no;meio");
+        linhas.add("de;registro\";x;529.982.247-25;01/02/2024;01/03/2024;01/03/2025;1");
+        Path origem = pasta.resolve("importar.csv");
+        Path rejeitados = pasta.resolve("rejeitados.txt");
+        Files.write(origem, linhas, StandardCharsets.UTF_8);
+
+        List<ImportadorContratos.Candidato> aceitos = new ArrayList<>();
+        try (ImportadorContratos importador = new ImportadorContratos(origem, rejeitados, StandardCharsets.UTF_8)) {
+            List<ImportadorContratos.Candidato> lote;
+            while ((lote = importador.proximoLote()) != null) {
+                aceitos.addAll(lote);
+            }
+            assertEquals(2_003, importador.getLidas());
+            assertEquals(83, importador.getRejeitadas());
+        }
+        assertEquals(1_920, aceitos.size());
+        assertEquals("CT-0", aceitos.get(0).criar(1).getNumeroContrato());
+        List<String> motivos = Files.readAllLines(rejeitados, StandardCharsets.UTF_8);
+        assertEquals(83, motivos.size());
+        assertTrue(motivos.get(0).startsWith("linha 3: CPF inválido!"), motivos.get(0));
+        assertTrue(motivos.get(82).startsWith("linha 2005: A linha deve ter 9 colunas"), motivos.get(82));
+    }
+
+    // Bytes inválidos no charset rejeitam só a linha em que aparecem
+    @Test
+    void bytesInvalidos() throws IOException {
+        byte[] valida = String.join(";", CAMPOS).getBytes(StandardCharsets.UTF_8);
+        byte[] invalida = String.join(";", CAMPOS).replace("Ana", "An\u0001").getBytes(StandardCharsets.UTF_8);
+        invalida[2] = (byte) 0xC3; // início de um caractere de dois bytes sem a continuação
+        Path origem = pasta.resolve("importar.csv");
+        try (var saida = Files.newOutputStream(origem)) {
+            saida.write(valida);
+            saida.write('\n');
+            saida.write(invalida);
+            saida.write('\n');
+            saida.write(valida);
+        }
+        Path rejeitados = pasta.resolve("rejeitados.txt");
+        try (ImportadorContratos importador = new ImportadorContratos(origem, rejeitados, StandardCharsets.UTF_8)) {
+            assertEquals(2, importador.proximoLote().size());
+            assertNull(importador.proximoLote());
+            assertEquals(1, importador.getRejeitadas());
+        }
+        assertTrue(Files.readString(rejeitados, StandardCharsets.UTF_8).startsWith("linha 2: A linha contém bytes inválidos"));
+    }
+}
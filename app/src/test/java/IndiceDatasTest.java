@@ -0,0 +1,67 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+// As árvores de intervalos comparadas a uma varredura, depois de inclusões e exclusões
+class IndiceDatasTest {
+    private static final LocalDate BASE = LocalDate.of(2020, 1, 1);
+
+    @Test
+    void igualAVarredura() {
+        IndiceDatas indice = new IndiceDatas();
+        Map<Integer, contrato> contratos = new HashMap<>();
+        Random random = new Random(4);
+        for (int i = 0; i < 20_000; i++) {
+            int id = random.nextInt(3_000);
+            contrato anterior = contratos.remove(id);
+            if (anterior != null) {
+                indice.remover(anterior);
+            }
+            if (random.nextInt(4) > 0) {
+                contrato novo = novo(id, random);
+                contratos.put(id, novo);
+                indice.adicionar(novo);
+            }
+        }
+
+        List<contrato> todos = List.copyOf(contratos.values());
+        for (int i = 0; i < 500; i++) {
+            LocalDate data = BASE.plusDays(random.nextInt(1_200) - 100);
+            assertArrayEquals(todos.stream().filter(c -> !c.getInicio().isAfter(data) && !c.getTermino().isBefore(data))
+                                   .mapToInt(contrato::getId).sorted().toArray(),
+                              indice.vigentesEm(data), "vigentes em " + data);
+
+            LocalDate ate = data.plusDays(random.nextInt(90));
+            assertArrayEquals(porVencimento(todos.stream().filter(c -> !c.getTermino().isBefore(data)
+                                                                       && !c.getTermino().isAfter(ate))
+                                                 .collect(Collectors.toList())),
+                              indice.vencendoEntre(data, ate), "vencendo entre " + data + " e " + ate);
+
+            assertArrayEquals(porVencimento(todos.stream().filter(c -> c.getTermino().isBefore(data))
+                                                 .collect(Collectors.toList())),
+                              indice.vencidosAntes(data), "vencidos antes de " + data);
+        }
+    }
+
+    // Ordem de vencimento; no mesmo dia, por ID
+    private static int[] porVencimento(List<contrato> contratos) {
+        return contratos.stream()
+                        .sorted(Comparator.comparing(contrato::getTermino).thenComparingInt(contrato::getId))
+                        .mapToInt(contrato::getId).toArray();
+    }
+
+    // Intervalos curtos e longos, muitos no mesmo dia de término
+    private static contrato novo(int id, Random random) {
+        LocalDate inicio = BASE.plusDays(random.nextInt(1_000));
+        LocalDate termino = inicio.plusDays(random.nextBoolean() ? random.nextInt(5) : random.nextInt(400));
+        return new contrato(id, "Ana", "Beta", "N-" + id, "", 100, inicio, inicio, termino, "529.982.247-25");
+    }
+}
@@ -0,0 +1,144 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+// Busca no índice invertido (E, OU, prefixo, relevância e limite) contra a contagem direta das
+// palavras de cada descrição, depois de inclusões em lote, edições e exclusões
+class IndiceTextoTest {
+    private static final String[] PALAVRAS = {
+        "Serviço", "de", "manutenção", "predial", "limpeza", "obra", "obras", "ação", "nº", "12", "elétrica",
+        "MANUTENCAO", "manutenção-preventiva", "reforma", "re"
+    };
+    private static final String[] CONSULTAS = {
+        "manutencao", "Manutenção predial", "obra ou limpeza", "manu*", "ob*", "re*", "e*", "de de",
+        "acao ou obra* ou 12", "inexistente", "inexistente ou predial", "ELÉTRICA 12", "preventiva manu*",
+        "servico obra limpeza", "x*", "ou"
+    };
+
+    @Test
+    void igualAContagemDireta() {
+        Random random = new Random(16);
+        IndiceTexto indice = new IndiceTexto();
+        Map<Integer, String> descricoes = new TreeMap<>();
+
+        // Carga em lote, em ordem de ID
+        List<contrato> lote = new ArrayList<>();
+        for (int id = 1; id <= 3_000; id++) {
+            lote.add(contrato(id, descricao(random)));
+            descricoes.put(id, lote.get(lote.size() - 1).getDescricao());
+        }
+        String[][] termos = new String[lote.size()][];
+        for (int i = 0; i < lote.size(); i++) {
+            termos[i] = IndiceTexto.termos(lote.get(i).getDescricao());
+        }
+        indice.adicionarTodos(lote, termos);
+        conferir(indice, descricoes);
+
+        for (int passo = 0; passo < 5_000; passo++) {
+            int id = 1 + random.nextInt(4_000);
+            String atual = descricoes.get(id);
+            if (atual != null) {
+                indice.remover(contrato(id, atual));
+                descricoes.remove(id);
+            }
+            if (atual == null || random.nextBoolean()) {
+                String nova = descricao(random);
+                indice.adicionar(contrato(id, nova));
+                descricoes.put(id, nova);
+            }
+        }
+        conferir(indice, descricoes);
+
+        for (int id : new ArrayList<>(descricoes.keySet())) {
+            indice.remover(contrato(id, descricoes.remove(id)));
+        }
+        assertEquals(0, indice.quantidadeDeTermos());
+    }
+
+    @Test
+    void separar() {
+        assertEquals(List.of("manutencao", "eletrica", "nº12", "a", "b"),
+                     IndiceTexto.separar("Manutenção ELÉTRICA, nº12 (a/b)"));
+        assertEquals(List.of(List.of("obra", "predial"), List.of("limp*")),
+                     IndiceTexto.interpretar("  Obra-predial OU limp* "));
+    }
+
+    private static void conferir(IndiceTexto indice, Map<Integer, String> descricoes) {
+        for (String consulta : CONSULTAS) {
+            List<long[]> esperados = new ArrayList<>(); // {pontos, id}
+            for (Map.Entry<Integer, String> entrada : descricoes.entrySet()) {
+                int pontos = pontuar(consulta, entrada.getValue());
+                if (pontos > 0) {
+                    esperados.add(new long[] {pontos, entrada.getKey()});
+                }
+            }
+            esperados.sort((a, b) -> a[0] != b[0] ? Long.compare(b[0], a[0]) : Long.compare(a[1], b[1]));
+            for (int limite : new int[] {0, 1, 10, Integer.MAX_VALUE}) {
+                IndiceTexto.Resultado resultado = indice.buscar(consulta, limite);
+                int k = Math.min(limite, esperados.size());
+                int[] ids = new int[k];
+                int[] pontos = new int[k];
+                for (int i = 0; i < k; i++) {
+                    pontos[i] = (int) esperados.get(i)[0];
+                    ids[i] = (int) esperados.get(i)[1];
+                }
+                assertEquals(esperados.size(), resultado.total, consulta);
+                assertArrayEquals(ids, resultado.ids, consulta);
+                assertArrayEquals(pontos, resultado.pontos, consulta);
+            }
+        }
+    }
+
+    // Maior pontuação entre os grupos que casaram; num grupo, todos os termos precisam aparecer
+    private static int pontuar(String consulta, String descricao) {
+        Map<String, Integer> frequencias = new HashMap<>();
+        for (String termo : IndiceTexto.separar(descricao)) {
+            frequencias.merge(termo, 1, Integer::sum);
+        }
+        int melhor = 0;
+        for (List<String> grupo : IndiceTexto.interpretar(consulta)) {
+            int soma = 0;
+            for (String termo : grupo) {
+                int frequencia = 0;
+                for (Map.Entry<String, Integer> entrada : frequencias.entrySet()) {
+                    boolean casa = termo.endsWith("*")
+                        ? entrada.getKey().startsWith(termo.substring(0, termo.length() - 1))
+                        : entrada.getKey().equals(termo);
+                    if (casa) {
+                        frequencia += entrada.getValue();
+                    }
+                }
+                if (frequencia == 0) {
+                    soma = 0;
+                    break;
+                }
+                soma += frequencia;
+            }
+            melhor = Math.max(melhor, soma);
+        }
+        return melhor;
+    }
+
+    private static String descricao(Random random) {
+        String[] palavras = new String[random.nextInt(8)];
+        for (int i = 0; i < palavras.length; i++) {
+            palavras[i] = PALAVRAS[random.nextInt(PALAVRAS.length)];
+        }
+        return String.join(random.nextInt(5) == 0 ? ", " : " ", Arrays.asList(palavras));
+    }
+
+    private static contrato contrato(int id, String descricao) {
+        contrato contrato = new ContratosAleatorios(id).novo(id);
+        contrato.setDescricao(descricao);
+        return contrato;
+    }
+}
@@ -0,0 +1,95 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+// Os índices por CPF, número e prefixo de nome comparados a uma varredura de todos os contratos,
+// com a normalização escrita do jeito direto (Normalizer + replaceAll)
+class IndicesSecundariosTest {
+    private final ContratosAleatorios aleatorios = new ContratosAleatorios(3);
+
+    @Test
+    void igualAVarredura() {
+        IndicesSecundarios indices = new IndicesSecundarios();
+        Map<Integer, contrato> contratos = new HashMap<>();
+        Random random = new Random(3);
+        for (int i = 0; i < 5_000; i++) {
+            int id = random.nextInt(2_000);
+            contrato anterior = contratos.remove(id);
+            if (anterior != null) {
+                indices.remover(anterior);
+            }
+            if (random.nextInt(5) > 0) {
+                contrato novo = aleatorios.novo(id);
+                contratos.put(id, novo);
+                indices.adicionar(novo);
+            }
+        }
+        conferir(indices, contratos, random);
+    }
+
+    @Test
+    void loteIgualAUmPorUm() {
+        IndicesSecundarios indices = new IndicesSecundarios();
+        Map<Integer, contrato> contratos = new HashMap<>();
+        for (int id = 1; id <= 500; id++) {
+            contrato novo = aleatorios.novo(id);
+            contratos.put(id, novo);
+            indices.adicionar(novo);
+        }
+        IndicesSecundarios.Chaves[] lote = new IndicesSecundarios.Chaves[1_500];
+        for (int i = 0; i < lote.length; i++) {
+            contrato novo = aleatorios.novo(501 + i);
+            contratos.put(novo.getId(), novo);
+            lote[i] = IndicesSecundarios.chaves(novo);
+        }
+        indices.adicionarTodos(lote);
+        conferir(indices, contratos, new Random(4));
+    }
+
+    @Test
+    void normalizacao() {
+        assertEquals("joao silva", IndicesSecundarios.normalizarNome("  João \t Silva "));
+        assertEquals("angela conceicao", IndicesSecundarios.normalizarNome("ÂNGELA  CONCEIÇÃO"));
+        assertEquals("N-12A", IndicesSecundarios.normalizarNumero(" n-12a "));
+    }
+
+    private void conferir(IndicesSecundarios indices, Map<Integer, contrato> contratos, Random random) {
+        List<contrato> todos = new ArrayList<>(contratos.values());
+        for (int i = 0; i < 300; i++) {
+            contrato alvo = todos.get(random.nextInt(todos.size()));
+
+            String digitos = alvo.getCpf().replaceAll("\\D", "");
+            assertArrayEquals(filtrar(todos, c -> c.getCpf().replaceAll("\\D", "").equals(digitos)),
+                              indices.buscarPorCpf(digitos));
+
+            String numero = alvo.getNumeroContrato().toLowerCase(Locale.ROOT);
+            assertArrayEquals(filtrar(todos, c -> c.getNumeroContrato().equalsIgnoreCase(numero)),
+                              indices.buscarPorNumero(numero));
+
+            String nome = normalizar(alvo.getContratante());
+            String prefixo = nome.substring(0, 1 + random.nextInt(nome.length())).trim(); // a consulta também é aparada
+            assertArrayEquals(filtrar(todos, c -> normalizar(c.getContratante()).startsWith(prefixo)
+                                                  || normalizar(c.getContratado()).startsWith(prefixo)),
+                              indices.buscarPorNome(prefixo.toUpperCase(Locale.ROOT)));
+        }
+        assertArrayEquals(new int[0], indices.buscarPorNome("zzz"));
+    }
+
+    private static String normalizar(String nome) {
+        return Normalizer.normalize(nome.trim(), Normalizer.Form.NFD).replaceAll("\\p{M}", "")
+                         .replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private static int[] filtrar(List<contrato> contratos, java.util.function.Predicate<contrato> filtro) {
+        return contratos.stream().filter(filtro).mapToInt(contrato::getId).sorted().toArray();
+    }
+}
@@ -0,0 +1,141 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+// O mapa persistente comparado a modelos simples: LinkedHashMap para a ordem de cadastro e
+// TreeMap para a ordem de ID. Versões antigas não podem mudar depois de outras gravações
+class MapaContratosTest {
+    private final ContratosAleatorios aleatorios = new ContratosAleatorios(10);
+
+    @Test
+    void vazio() {
+        assertEquals(0, MapaContratos.VAZIO.tamanho());
+        assertNull(MapaContratos.VAZIO.buscar(1));
+        assertNull(MapaContratos.VAZIO.naPosicao(0));
+        assertFalse(MapaContratos.VAZIO.iterator().hasNext());
+        assertFalse(MapaContratos.VAZIO.emOrdemDeId().iterator().hasNext());
+    }
+
+    @Test
+    void iguaisAosModelos() {
+        for (int faixa : new int[] {40, 5_000, 2_000_000_000}) {
+            exercitar(new Random(faixa), faixa);
+        }
+    }
+
+    // Em um lote os nós são alterados no lugar; a versão tirada com versaoAtual() no meio dele não muda
+    @Test
+    void iguaisAosModelosEmLote() {
+        TabelaVersionada tabela = new TabelaVersionada();
+        Map<Integer, contrato> modelo = new LinkedHashMap<>();
+        Random random = new Random(11);
+        tabela.iniciarLote();
+        List<MapaContratos> versoes = new ArrayList<>();
+        List<List<contrato>> esperadas = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            int id = random.nextInt(3_000) - 500;
+            if (random.nextInt(4) == 0) {
+                assertSame(modelo.remove(id), tabela.remover(id));
+            } else {
+                contrato novo = aleatorios.novo(id);
+                assertSame(modelo.put(id, novo), tabela.gravar(novo));
+            }
+            if (i % 1_000 == 0) {
+                versoes.add(tabela.versaoAtual());
+                esperadas.add(new ArrayList<>(modelo.values()));
+            }
+        }
+        assertEquals(0, tabela.instantaneo().tamanho(), "o lote só é publicado no fim");
+        tabela.concluirLote();
+        conferir(tabela.instantaneo(), modelo);
+        for (int v = 0; v < versoes.size(); v++) {
+            assertEquals(esperadas.get(v), lista(versoes.get(v)));
+        }
+    }
+
+    // Substituir mantém o lugar na ordem de cadastro; remover e gravar de novo vai para o fim
+    @Test
+    void ordemDeCadastro() {
+        MapaContratos mapa = MapaContratos.VAZIO;
+        for (int id : new int[] {30, 10, -5, 20}) {
+            mapa = mapa.gravar(aleatorios.novo(id));
+        }
+        mapa = mapa.gravar(aleatorios.novo(10));
+        assertEquals(List.of(30, 10, -5, 20), ids(mapa));
+        mapa = mapa.remover(30).gravar(aleatorios.novo(30));
+        assertEquals(List.of(10, -5, 20, 30), ids(mapa));
+        List<Integer> porId = new ArrayList<>();
+        mapa.emOrdemDeId().forEach(contrato -> porId.add(contrato.getId()));
+        assertEquals(List.of(-5, 10, 20, 30), porId);
+    }
+
+    private void exercitar(Random random, int faixa) {
+        MapaContratos mapa = MapaContratos.VAZIO;
+        Map<Integer, contrato> modelo = new LinkedHashMap<>();
+        List<MapaContratos> versoes = new ArrayList<>();
+        List<Map<Integer, contrato>> esperadas = new ArrayList<>();
+        for (int i = 0; i < 30_000; i++) {
+            int id = random.nextInt(faixa) - (random.nextInt(5) == 0 ? faixa / 2 : 0);
+            if (random.nextInt(3) == 0 && !modelo.isEmpty() && random.nextBoolean()) {
+                id = modelo.keySet().iterator().next(); // remove também IDs que existem
+            }
+            if (random.nextInt(3) == 0) {
+                mapa = mapa.remover(id);
+                modelo.remove(id);
+            } else {
+                contrato novo = aleatorios.novo(id);
+                mapa = mapa.gravar(novo);
+                modelo.put(id, novo);
+            }
+            if (i % 3_000 == 0) {
+                versoes.add(mapa);
+                esperadas.add(new LinkedHashMap<>(modelo));
+            }
+        }
+        conferir(mapa, modelo);
+        for (int v = 0; v < versoes.size(); v++) {
+            conferir(versoes.get(v), esperadas.get(v));
+        }
+    }
+
+    private static void conferir(MapaContratos mapa, Map<Integer, contrato> modelo) {
+        assertEquals(modelo.size(), mapa.tamanho());
+        assertEquals(new ArrayList<>(modelo.values()), lista(mapa));
+
+        List<contrato> porId = new ArrayList<>();
+        mapa.emOrdemDeId().forEach(porId::add);
+        assertEquals(new ArrayList<>(new TreeMap<>(modelo).values()), porId);
+
+        int posicao = 0;
+        for (contrato contrato : modelo.values()) {
+            assertSame(contrato, mapa.naPosicao(posicao++));
+            assertSame(contrato, mapa.buscar(contrato.getId()));
+            assertTrue(mapa.contem(contrato.getId()));
+        }
+        assertNull(mapa.naPosicao(posicao));
+        assertNull(mapa.naPosicao(-1));
+    }
+
+    private static List<contrato> lista(MapaContratos mapa) {
+        List<contrato> contratos = new ArrayList<>();
+        mapa.forEach(contratos::add);
+        return contratos;
+    }
+
+    private static List<Integer> ids(MapaContratos mapa) {
+        List<Integer> ids = new ArrayList<>();
+        mapa.forEach(contrato -> ids.add(contrato.getId()));
+        return ids;
+    }
+}
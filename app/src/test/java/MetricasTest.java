@@ -0,0 +1,126 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.jupiter.api.Test;
+
+// Faixas e percentis do histograma contra os valores exatos, registro concorrente sem perdas,
+// contadores de rejeição e de erro de leitura e a exposição por JMX
+class MetricasTest {
+    @Test
+    void faixas() {
+        Random random = new Random(18);
+        for (int i = 0; i < 200_000; i++) {
+            long valor = random.nextLong() >>> (22 + random.nextInt(42));
+            int indice = Metricas.Histograma.indice(valor);
+            long limite = Metricas.Histograma.limiteSuperior(indice);
+            assertTrue(limite >= valor && (indice == 0 || Metricas.Histograma.limiteSuperior(indice - 1) < valor),
+                       "valor " + valor);
+            assertTrue(limite - valor <= Math.max(0, valor / 64), "valor " + valor);
+        }
+        for (long valor = 0; valor < 128; valor++) {
+            assertEquals(valor, Metricas.Histograma.limiteSuperior(Metricas.Histograma.indice(valor)));
+        }
+    }
+
+    @Test
+    void percentis() {
+        Random random = new Random(19);
+        Metricas.Histograma histograma = new Metricas.Histograma();
+        long[] valores = new long[100_000];
+        for (int i = 0; i < valores.length; i++) {
+            valores[i] = (long) Math.exp(random.nextGaussian() * 2 + 10); // latências com cauda longa
+            histograma.registrar(valores[i]);
+        }
+        Arrays.sort(valores);
+        for (double percentil : new double[] {0, 1, 50, 90, 99, 99.9, 100}) {
+            long exato = valores[(int) Math.max(0, Math.round(percentil / 100 * valores.length) - 1)];
+            long aproximado = histograma.percentil(percentil);
+            assertTrue(aproximado >= exato && aproximado <= exato + exato / 64, percentil + ": " + aproximado
+                       + " para " + exato);
+        }
+        assertEquals(valores[valores.length - 1], histograma.getMaximo());
+        assertEquals(Arrays.stream(valores).sum(), histograma.getSoma());
+
+        Metricas.Histograma extremos = new Metricas.Histograma();
+        extremos.registrar(-5);
+        extremos.registrar(Long.MAX_VALUE);
+        assertEquals(0, extremos.percentil(50));
+        assertEquals((1L << 42) - 1, extremos.getMaximo());
+        assertEquals(0, new Metricas.Histograma().getP99());
+    }
+
+    @Test
+    void registroConcorrente() throws Exception {
+        Metricas.Histograma histograma = new Metricas.Histograma();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            Future<?>[] tarefas = new Future<?>[8];
+            for (int t = 0; t < tarefas.length; t++) {
+                tarefas[t] = executor.submit(() -> {
+                    for (int i = 1; i <= 100_000; i++) {
+                        histograma.registrar(i);
+                    }
+                });
+            }
+            for (Future<?> tarefa : tarefas) {
+                tarefa.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(800_000, histograma.getQuantidade());
+        assertEquals(8 * 5_000_050_000L, histograma.getSoma());
+        assertEquals(100_000, histograma.getMaximo());
+    }
+
+    @Test
+    void contadores() {
+        long cpf = Metricas.getRejeicoes(Metricas.Rejeicao.CPF);
+        long valor = Metricas.getRejeicoes(Metricas.Rejeicao.VALOR);
+        assertThrows(IllegalArgumentException.class, () -> ImportadorContratos.interpretar(
+            "Ana;Beta;N-1;D;111.111.111-11;01/01/2024;01/01/2024;01/01/2025;10"));
+        assertThrows(IllegalArgumentException.class, () -> ImportadorContratos.interpretar(
+            "Ana;Beta;N-1;D;529.982.247-25;01/01/2024;01/01/2024;01/01/2025;0"));
+        assertEquals(cpf + 1, Metricas.getRejeicoes(Metricas.Rejeicao.CPF));
+        assertEquals(valor + 1, Metricas.getRejeicoes(Metricas.Rejeicao.VALOR));
+
+        long termino = Metricas.getErrosDeLeitura(Metricas.Campo.TERMINO);
+        long campos = Metricas.getErrosDeLeitura(Metricas.Campo.CAMPOS);
+        assertThrows(DateTimeParseException.class, () -> FormatoTexto.ler(
+            "1|Ana|Beta|529.982.247-25|N-1|R$ 10,00|01/01/2024|01/01/2024|1a/02/2025|D"));
+        FormatoTexto.ler("1|Ana|Beta");
+        assertEquals(termino + 1, Metricas.getErrosDeLeitura(Metricas.Campo.TERMINO));
+        assertEquals(campos + 1, Metricas.getErrosDeLeitura(Metricas.Campo.CAMPOS));
+
+        Metricas.registrarCarga(1_000, 500_000_000);
+        assertEquals(2_000, Metricas.getRegistrosPorSegundo(), 1e-9);
+    }
+
+    // O registro no JMX roda em segundo plano
+    @Test
+    void jmx() throws Exception {
+        Metricas.Operacao.BUSCAR_ID.registrar(System.nanoTime() - 1_000);
+        Metricas.registrarJmx();
+        MBeanServer servidor = ManagementFactory.getPlatformMBeanServer();
+        ObjectName contadores = new ObjectName("contratos:type=Contadores");
+        for (int i = 0; i < 500 && !servidor.isRegistered(contadores); i++) {
+            Thread.sleep(10);
+        }
+        assertTrue(servidor.isRegistered(contadores));
+        ObjectName latencia = new ObjectName("contratos:type=Latencia,name=" + Metricas.Operacao.BUSCAR_ID.getNome());
+        assertTrue((Long) servidor.getAttribute(latencia, "Quantidade") >= 1);
+        assertTrue((Long) servidor.getAttribute(latencia, "P99") >= 1_000);
+    }
+}
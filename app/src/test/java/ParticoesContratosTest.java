@@ -0,0 +1,170 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// Partições por ano de celebração: só os anos alterados são regravados, um contrato que muda de
+// ano sai do arquivo antigo, uma gravação que falha volta a marcar os anos e a faixa de anos
+// percorre os contratos em ordem de ID; no repositório, os arquivos por ano voltam na carga
+class ParticoesContratosTest {
+    @TempDir
+    Path pasta;
+
+    @Test
+    void soOsAnosAlterados() throws IOException {
+        ParticoesContratos particoes = new ParticoesContratos(pasta.resolve("contratos").toString(),
+                                                              StandardCharsets.UTF_8);
+        ContratosAleatorios aleatorios = new ContratosAleatorios(21);
+        Random random = new Random(21);
+        TreeMap<Integer, contrato> esperados = new TreeMap<>();
+        for (int id = 1; id <= 3_000; id++) {
+            contrato contrato = aleatorios.novo(id);
+            particoes.gravar(null, contrato);
+            esperados.put(id, contrato);
+        }
+        particoes.gravar(particoes.retirarAlterados());
+        conferirArquivos(particoes, esperados);
+        assertFalse(particoes.possuiAlteracoes());
+
+        // Edições (algumas mudam o ano de celebração) e exclusões marcam só os anos tocados
+        Set<Integer> tocados = new TreeSet<>();
+        for (int i = 0; i < 50; i++) {
+            int id = 1 + random.nextInt(3_000);
+            contrato anterior = esperados.get(id);
+            if (anterior == null) {
+                continue;
+            }
+            tocados.add(ParticoesContratos.ano(anterior));
+            if (random.nextInt(4) == 0) {
+                particoes.remover(anterior);
+                esperados.remove(id);
+            } else {
+                contrato editado = anterior.copiar();
+                editado.setCelebracao(anterior.getCelebracao().plusYears(random.nextInt(3)));
+                particoes.gravar(anterior, editado);
+                esperados.put(id, editado);
+                tocados.add(ParticoesContratos.ano(editado));
+            }
+        }
+        TreeMap<Integer, MapaContratos> versoes = particoes.retirarAlterados();
+        assertEquals(tocados, versoes.keySet());
+        particoes.gravar(versoes);
+        conferirArquivos(particoes, esperados);
+
+        Random faixas = new Random(22);
+        for (int i = 0; i < 50; i++) {
+            Integer de = faixas.nextInt(5) == 0 ? null : 1990 + faixas.nextInt(120);
+            Integer ate = faixas.nextInt(5) == 0 ? null : 1990 + faixas.nextInt(120);
+            List<Integer> esperado = new ArrayList<>();
+            for (contrato contrato : esperados.values()) {
+                int ano = ParticoesContratos.ano(contrato);
+                if ((de == null || ano >= de) && (ate == null || ano <= ate)) {
+                    esperado.add(contrato.getId());
+                }
+            }
+            List<Integer> obtido = new ArrayList<>();
+            particoes.celebradosEntre(de, ate).forEach(c -> obtido.add(c.getId()));
+            assertEquals(esperado, obtido, de + " a " + ate);
+        }
+    }
+
+    @Test
+    void falhaVoltaAMarcar() throws IOException {
+        ParticoesContratos particoes = new ParticoesContratos(pasta.resolve("contratos").toString(),
+                                                              StandardCharsets.UTF_8);
+        ContratosAleatorios aleatorios = new ContratosAleatorios(23);
+        for (int id = 1; id <= 500; id++) {
+            particoes.gravar(null, aleatorios.novo(id));
+        }
+        TreeMap<Integer, MapaContratos> versoes = particoes.retirarAlterados();
+        int ano = versoes.lastKey();
+        Path temporario = Path.of(particoes.arquivo(ano) + ".tmp");
+        Files.createDirectories(temporario.resolve("ocupado"));
+        assertThrows(IOException.class, () -> particoes.gravar(versoes));
+
+        Files.delete(temporario.resolve("ocupado"));
+        Files.delete(temporario);
+        TreeMap<Integer, MapaContratos> novamente = particoes.retirarAlterados();
+        assertEquals(versoes.keySet(), novamente.keySet());
+        particoes.gravar(novamente);
+        assertEquals(versoes.keySet(), particoes.existentes().keySet());
+    }
+
+    @Test
+    void repositorioParticionado() throws IOException {
+        String base = pasta.resolve("contratos").toString();
+        ContratosAleatorios aleatorios = new ContratosAleatorios(24);
+        List<String> criados = new ArrayList<>();
+        RepositorioContratos repositorio = repositorio(base);
+        try {
+            for (int i = 0; i < 1_000; i++) {
+                criados.add(repositorio.criar(aleatorios::novo).toString());
+            }
+            repositorio.salvar();
+        } finally {
+            repositorio.fechar();
+        }
+        assertTrue(new ParticoesContratos(base, StandardCharsets.UTF_8).existentes().size() > 1);
+
+        RepositorioContratos reaberto = repositorio(base);
+        try {
+            List<String> lidos = new ArrayList<>();
+            reaberto.percorrer(contratos -> contratos.forEach(c -> lidos.add(c.toString())));
+            assertEquals(new TreeSet<>(criados), new TreeSet<>(lidos));
+
+            List<String> faixa = new ArrayList<>();
+            LocalDate de = LocalDate.of(2000, 1, 1);
+            LocalDate ate = LocalDate.of(2009, 12, 31);
+            reaberto.percorrerCelebradosEntre(de, ate, contratos -> contratos.forEach(c -> faixa.add(c.toString())));
+            List<String> esperado = new ArrayList<>();
+            for (String linha : criados) {
+                LocalDate celebracao = FormatoTexto.ler(linha).getCelebracao();
+                if (!celebracao.isBefore(de) && !celebracao.isAfter(ate)) {
+                    esperado.add(linha);
+                }
+            }
+            assertEquals(new TreeSet<>(esperado), new TreeSet<>(faixa));
+        } finally {
+            reaberto.fechar();
+        }
+    }
+
+    // Cada arquivo tem exatamente os contratos do seu ano
+    private static void conferirArquivos(ParticoesContratos particoes, TreeMap<Integer, contrato> esperados)
+            throws IOException {
+        TreeMap<Integer, Set<String>> porAno = new TreeMap<>();
+        for (contrato contrato : esperados.values()) {
+            porAno.computeIfAbsent(ParticoesContratos.ano(contrato), a -> new TreeSet<>())
+                  .add(ContratosAleatorios.linha(contrato));
+        }
+        TreeMap<Integer, Set<String>> emDisco = new TreeMap<>();
+        for (Map.Entry<Integer, Path> arquivo : particoes.existentes().entrySet()) {
+            emDisco.put(arquivo.getKey(), new TreeSet<>(Files.readAllLines(arquivo.getValue(), StandardCharsets.UTF_8)));
+        }
+        assertEquals(porAno, emDisco);
+    }
+
+    private RepositorioContratos repositorio(String base) {
+        RepositorioContratos repositorio = new RepositorioContratos(
+            pasta.resolve("contratos.txt").toString(), pasta.resolve("contratos.bin").toString(), false, null, 0,
+            false, 0, base, pasta.resolve("contratos.acervo").toString());
+        assertTrue(repositorio.carregar());
+        return repositorio;
+    }
+}
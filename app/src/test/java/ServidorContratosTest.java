@@ -0,0 +1,127 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// CRUD pelo serviço HTTP sobre um repositório em pasta temporária; corpos que quebrariam a
+// linha do contratos.txt respondem 400 e uma falha de gravação responde 500 sem o detalhe
+class ServidorContratosTest {
+    private static final String CORPO = "Ana Souza;Beta Ltda;CT-1;Serviço de manutenção;529.982.247-25;"
+                                        + "01/02/2024;01/03/2024;01/03/2025;6500.50";
+
+    @TempDir
+    Path pasta;
+
+    private final HttpClient cliente = HttpClient.newHttpClient();
+    private RepositorioContratos repositorio;
+    private ServidorContratos servidor;
+
+    @AfterEach
+    void parar() {
+        if (servidor != null) {
+            servidor.parar();
+        }
+        if (repositorio != null) {
+            repositorio.fechar();
+        }
+    }
+
+    @Test
+    void criarBuscarAtualizarExcluir() throws Exception {
+        iniciar();
+        HttpResponse<String> criado = enviar("POST", "", CORPO);
+        assertEquals(201, criado.statusCode());
+        assertEquals("/contratos/1", criado.headers().firstValue("Location").orElse(null));
+        assertTrue(criado.body().startsWith("1|Ana Souza|Beta Ltda|529.982.247-25|CT-1|"), criado.body());
+
+        assertEquals(criado.body(), enviar("GET", "/1", null).body());
+        HttpResponse<String> atualizado = enviar("PUT", "/1", CORPO.replace("CT-1", "CT-2"));
+        assertEquals(200, atualizado.statusCode());
+        assertTrue(atualizado.body().contains("|CT-2|"), atualizado.body());
+        assertEquals(atualizado.body(), enviar("GET", "/1", null).body());
+
+        HttpResponse<String> listagem = enviar("GET", "?pagina=1&itens=5", null);
+        assertEquals("1", listagem.headers().firstValue("X-Total-Contratos").orElse(null));
+        assertEquals(atualizado.body(), listagem.body());
+
+        assertEquals(204, enviar("DELETE", "/1", null).statusCode());
+        assertEquals(404, enviar("GET", "/1", null).statusCode());
+        assertEquals(404, enviar("PUT", "/1", CORPO).statusCode());
+        assertEquals(405, enviar("PATCH", "/1", CORPO).statusCode());
+
+        // O que foi gravado volta na próxima carga
+        assertEquals(201, enviar("POST", "", CORPO).statusCode());
+        servidor.parar();
+        repositorio.fechar();
+        iniciar();
+        assertTrue(enviar("GET", "/2", null).body().startsWith("2|Ana Souza|"));
+    }
+
+    @Test
+    void corpoInvalido() throws Exception {
+        iniciar();
+        String[] corpos = {
+            CORPO.replace("Serviço de manutenção", "servico|extra"),
+            CORPO.replace("CT-1", "CT|2"),
+            CORPO.replace("CT-1", "\"CT\n2\""),
+            CORPO.replace("Beta Ltda", "Beta\u0000Ltda"),
+            CORPO.replace("529.982.247-25", "111.111.111-11"),
+            "so;tres;colunas",
+        };
+        for (String corpo : corpos) {
+            assertEquals(400, enviar("POST", "", corpo).statusCode(), corpo);
+        }
+        assertEquals(201, enviar("POST", "", CORPO).statusCode());
+        for (String corpo : corpos) {
+            assertEquals(400, enviar("PUT", "/1", corpo).statusCode(), corpo);
+        }
+        assertFalse(enviar("GET", "/1", null).body().contains("|2|"));
+        assertEquals(400, enviar("GET", "?pagina=0", null).statusCode());
+        assertEquals(404, enviar("GET", "/abc", null).statusCode());
+    }
+
+    // O caminho do arquivo e a mensagem do sistema ficam só no console do servidor
+    @Test
+    void falhaDeGravacaoSemDetalhe() throws Exception {
+        iniciar();
+        Path diario = pasta.resolve("contratos.txt.diario");
+        Files.deleteIfExists(diario);
+        Files.createDirectory(diario);
+        repositorio.fechar();
+        repositorio = null;
+        servidor.parar();
+        iniciar();
+
+        HttpResponse<String> resposta = enviar("POST", "", CORPO);
+        assertEquals(500, resposta.statusCode());
+        assertEquals("Erro interno ao gravar os dados.\n", resposta.body());
+    }
+
+    private void iniciar() throws IOException {
+        repositorio = new RepositorioContratos(pasta.resolve("contratos.txt").toString(),
+                                               pasta.resolve("contratos.bin").toString(), false, null, 0,
+                                               false, 0, null, pasta.resolve("arquivo-morto").toString());
+        repositorio.carregar();
+        servidor = ServidorContratos.iniciar(repositorio, 0);
+    }
+
+    private HttpResponse<String> enviar(String metodo, String caminho, String corpo) throws Exception {
+        URI uri = URI.create("http://localhost:" + servidor.getPorta() + "/contratos" + caminho);
+        HttpRequest.BodyPublisher publicador = corpo == null
+            ? HttpRequest.BodyPublishers.noBody()
+            : HttpRequest.BodyPublishers.ofString(corpo);
+        return cliente.send(HttpRequest.newBuilder(uri).method(metodo, publicador).build(),
+                            HttpResponse.BodyHandlers.ofString());
+    }
+}
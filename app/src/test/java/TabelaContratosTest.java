@@ -0,0 +1,91 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+// A tabela por ID comparada a um LinkedHashMap: mesmo conteúdo e mesma ordem de cadastro,
+// inclusive depois de muitas exclusões (reorganização) e com IDs que colidem no hash
+class TabelaContratosTest {
+    private final ContratosAleatorios aleatorios = new ContratosAleatorios(2);
+
+    @Test
+    void vazia() {
+        TabelaContratos tabela = new TabelaContratos();
+        assertTrue(tabela.estaVazia());
+        assertNull(tabela.buscar(0));
+        assertNull(tabela.remover(0));
+        assertFalse(tabela.iterator().hasNext());
+    }
+
+    @Test
+    void igualAoLinkedHashMap() {
+        for (int faixa : new int[] {50, 10_000, Integer.MAX_VALUE}) {
+            TabelaContratos tabela = new TabelaContratos();
+            Map<Integer, contrato> modelo = new LinkedHashMap<>();
+            Random random = new Random(faixa);
+            for (int i = 0; i < 50_000; i++) {
+                int id = faixa == Integer.MAX_VALUE ? random.nextInt() : random.nextInt(faixa) - faixa / 4;
+                int operacao = random.nextInt(10);
+                if (operacao < 3) {
+                    assertSame(modelo.remove(id), tabela.remover(id));
+                } else if (operacao < 7) {
+                    contrato novo = aleatorios.novo(id);
+                    assertSame(modelo.put(id, novo), tabela.gravar(novo));
+                } else {
+                    assertSame(modelo.get(id), tabela.buscar(id));
+                    assertEquals(modelo.containsKey(id), tabela.contem(id));
+                }
+            }
+            assertEquals(modelo.size(), tabela.tamanho());
+            assertEquals(new ArrayList<>(modelo.values()), lista(tabela));
+        }
+    }
+
+    // Múltiplos da capacidade caem no mesmo ponto de partida da sondagem
+    @Test
+    void colisoes() {
+        TabelaContratos tabela = new TabelaContratos();
+        for (int i = 0; i < 1_000; i++) {
+            tabela.gravar(aleatorios.novo(i << 16));
+        }
+        for (int i = 0; i < 1_000; i += 2) {
+            tabela.remover(i << 16);
+        }
+        for (int i = 0; i < 1_000; i++) {
+            assertEquals(i % 2 == 1, tabela.contem(i << 16), "id " + (i << 16));
+        }
+        assertEquals(500, tabela.tamanho());
+    }
+
+    @Test
+    void substituirMantemOLugar() {
+        TabelaContratos tabela = new TabelaContratos();
+        for (int id = 1; id <= 3; id++) {
+            tabela.gravar(aleatorios.novo(id));
+        }
+        contrato novo = aleatorios.novo(2);
+        tabela.gravar(novo);
+        List<contrato> ordem = lista(tabela);
+        assertSame(novo, ordem.get(1));
+        assertEquals(List.of(1, 2, 3), List.of(ordem.get(0).getId(), ordem.get(1).getId(), ordem.get(2).getId()));
+
+        tabela.limpar();
+        assertTrue(tabela.estaVazia());
+        assertNull(tabela.buscar(2));
+    }
+
+    private static List<contrato> lista(TabelaContratos tabela) {
+        List<contrato> contratos = new ArrayList<>();
+        tabela.forEach(contratos::add);
+        return contratos;
+    }
+}
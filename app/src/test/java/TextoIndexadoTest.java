@@ -0,0 +1,127 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// O .txt lido sob demanda mostra o mesmo que a leitura completa (a última linha de um ID vale),
+// com cache pequeno, alterações em memória, regravação e índice reaproveitado ou refeito
+class TextoIndexadoTest {
+    @TempDir
+    Path pasta;
+
+    @Test
+    void igualALeituraCompleta() throws IOException {
+        Path arquivo = pasta.resolve("contratos.txt");
+        TreeMap<Integer, String> esperado = escrever(arquivo, 20_000);
+
+        try (TextoIndexado texto = TextoIndexado.abrir(arquivo, StandardCharsets.UTF_8, 100)) {
+            conferir(esperado, texto);
+            assertEquals(esperado.lastKey(), texto.getMaiorId());
+            assertNull(texto.buscar(esperado.lastKey() + 1));
+
+            // Trechos lidos em separado somam a base inteira
+            List<String> trechos = new ArrayList<>();
+            for (int de = 0; de < texto.quantidadeNaBase(); de += 3_001) {
+                texto.base(de, Math.min(de + 3_001, texto.quantidadeNaBase()))
+                     .forEach(c -> trechos.add(ContratosAleatorios.linha(c)));
+            }
+            assertEquals(new ArrayList<>(esperado.values()), trechos);
+        }
+    }
+
+    @Test
+    void alteracoesERegravacao() throws IOException {
+        Path arquivo = pasta.resolve("contratos.txt");
+        TreeMap<Integer, String> esperado = escrever(arquivo, 5_000);
+        TreeMap<Integer, String> base = new TreeMap<>(esperado);
+        ContratosAleatorios aleatorios = new ContratosAleatorios(16);
+        Random random = new Random(16);
+
+        try (TextoIndexado texto = TextoIndexado.abrir(arquivo, StandardCharsets.UTF_8, 50)) {
+            for (int i = 0; i < 3_000; i++) {
+                int id = 1 + random.nextInt(esperado.lastKey() + 200);
+                if (random.nextInt(3) == 0) {
+                    boolean existia = esperado.remove(id) != null;
+                    assertEquals(existia, texto.remover(id) != null);
+                } else {
+                    contrato contrato = aleatorios.novo(id);
+                    texto.gravar(contrato);
+                    esperado.put(id, ContratosAleatorios.linha(contrato));
+                }
+            }
+            conferir(esperado, texto);
+            assertTrue(texto.possuiAlteracoes());
+            for (Map.Entry<Integer, String> original : base.entrySet()) {
+                assertEquals(original.getValue(), ContratosAleatorios.linha(texto.buscarNaBase(original.getKey())));
+            }
+
+            texto.regravar();
+            assertFalse(texto.possuiAlteracoes());
+            assertEquals(esperado.size(), texto.quantidadeNaBase());
+            conferir(esperado, texto);
+        }
+
+        // O índice gravado na regravação é reaproveitado; com o .txt alterado, é refeito
+        Path indice = Path.of(arquivo + ".indice");
+        FileTime gravado = Files.getLastModifiedTime(indice);
+        try (TextoIndexado texto = TextoIndexado.abrir(arquivo, StandardCharsets.UTF_8, 50)) {
+            conferir(esperado, texto);
+        }
+        assertEquals(gravado, Files.getLastModifiedTime(indice));
+
+        contrato novo = new ContratosAleatorios(17).novo(esperado.lastKey() + 1);
+        Files.writeString(arquivo, ContratosAleatorios.linha(novo) + "\n", StandardCharsets.UTF_8,
+                          StandardOpenOption.APPEND);
+        esperado.put(novo.getId(), ContratosAleatorios.linha(novo));
+        try (TextoIndexado texto = TextoIndexado.abrir(arquivo, StandardCharsets.UTF_8, 50)) {
+            conferir(esperado, texto);
+        }
+    }
+
+    // IDs repetidos (vale a última linha), quebras "\r\n" e linhas curtas ou vazias ignoradas
+    private static TreeMap<Integer, String> escrever(Path arquivo, int quantidade) throws IOException {
+        ContratosAleatorios aleatorios = new ContratosAleatorios(quantidade);
+        Random random = new Random(quantidade);
+        TreeMap<Integer, String> esperado = new TreeMap<>();
+        StringBuilder texto = new StringBuilder();
+        for (int i = 1; i <= quantidade; i++) {
+            int id = random.nextInt(20) == 0 ? 1 + random.nextInt(i) : i;
+            String linha = ContratosAleatorios.linha(aleatorios.novo(id));
+            esperado.put(id, linha);
+            texto.append(linha).append(random.nextInt(10) == 0 ? "\r\n" : "\n");
+            if (random.nextInt(50) == 0) {
+                texto.append(random.nextBoolean() ? "\n" : "7|curta\n");
+            }
+        }
+        Files.writeString(arquivo, texto, StandardCharsets.UTF_8);
+        return esperado;
+    }
+
+    private static void conferir(TreeMap<Integer, String> esperado, TextoIndexado texto) {
+        assertEquals(esperado.size(), texto.tamanho());
+        TreeMap<Integer, String> percorrido = new TreeMap<>();
+        for (contrato contrato : texto) {
+            assertNull(percorrido.put(contrato.getId(), ContratosAleatorios.linha(contrato)));
+        }
+        assertEquals(esperado, percorrido);
+        for (Map.Entry<Integer, String> entrada : esperado.entrySet()) {
+            assertTrue(texto.contem(entrada.getKey()));
+            assertEquals(entrada.getValue(), ContratosAleatorios.linha(texto.buscar(entrada.getKey())));
+        }
+    }
+}
@@ -0,0 +1,153 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+// A validação sem regex deve dar o mesmo resultado que a versão original (cópia abaixo) para
+// qualquer texto, inclusive com letras, dígitos de outros alfabetos e dígitos a mais ou a menos
+class ValidaCPFTest {
+    private static final char[] ALFABETO = {
+        '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', '.', '-', ' ', '/', 'a', 'X', '٣', '５', '²'
+    };
+
+    @Test
+    void igualAoOriginal() {
+        Random random = new Random(5);
+        for (int i = 0; i < 200_000; i++) {
+            String cpf = i % 2 == 0 ? valido(random) : aleatorio(random);
+            if (i % 7 == 0) {
+                cpf = trocarUmDigito(cpf, random);
+            }
+            boolean esperado = validarOriginal(cpf);
+            assertEquals(esperado, ValidaCPF.validarCPF(cpf), cpf);
+            assertEquals(esperado, ValidaCPF.validarCPF(cpf.toCharArray(), 0, cpf.length()), cpf);
+            byte[] bytes = cpf.getBytes(StandardCharsets.UTF_8);
+            assertEquals(esperado, ValidaCPF.validarCPF(bytes, 0, bytes.length), cpf);
+        }
+    }
+
+    @Test
+    void todosIguaisSaoInvalidos() {
+        for (char d = '0'; d <= '9'; d++) {
+            String cpf = String.valueOf(d).repeat(11);
+            assertFalse(ValidaCPF.validarCPF(cpf), cpf);
+            assertFalse(validarOriginal(cpf), cpf);
+        }
+    }
+
+    @Test
+    void empacotarEFormatar() {
+        assertEquals(10579991644L, ValidaCPF.empacotar("105.799.916-44"));
+        assertEquals(52998224725L, ValidaCPF.empacotar("x529 982 247/25"));
+        assertEquals(ValidaCPF.INVALIDO, ValidaCPF.empacotar("529.982.247-2"));
+        assertEquals(ValidaCPF.INVALIDO, ValidaCPF.empacotar("529.982.247-250"));
+        assertEquals("052.998.224-72", ValidaCPF.formatar(5299822472L));
+        assertEquals("529.982.247-25", ValidaCPF.imprimeCPF("52998224725"));
+        assertTrue(ValidaCPF.validarEmpacotado(ValidaCPF.empacotar("529.982.247-25")));
+        assertFalse(ValidaCPF.validarEmpacotado(ValidaCPF.INVALIDO));
+    }
+
+    @Test
+    void loteMarcaOsInvalidos() {
+        Random random = new Random(6);
+        CharSequence[] cpfs = new CharSequence[1_000];
+        BitSet esperado = new BitSet();
+        for (int i = 0; i < cpfs.length; i++) {
+            cpfs[i] = random.nextBoolean() ? valido(random) : aleatorio(random);
+            if (i % 97 == 0) {
+                cpfs[i] = null;
+            }
+            if (cpfs[i] == null || !validarOriginal(cpfs[i].toString())) {
+                esperado.set(i);
+            }
+        }
+        assertEquals(esperado, ValidaCPF.validarLote(cpfs, false));
+        assertEquals(esperado, ValidaCPF.validarLote(cpfs, true));
+
+        List<Integer> posicoes = new ArrayList<>();
+        int invalidos = ValidaCPF.validarLote(java.util.Arrays.stream(cpfs), (cpf, posicao) -> posicoes.add(posicao));
+        assertEquals(esperado.cardinality(), invalidos);
+        assertEquals(esperado.stream().boxed().toList(), posicoes);
+    }
+
+    private static String valido(Random random) {
+        int[] d = new int[11];
+        for (int i = 0; i < 9; i++) {
+            d[i] = random.nextInt(10);
+        }
+        for (int n = 9; n <= 10; n++) {
+            int soma = 0;
+            for (int i = 0; i < n; i++) {
+                soma += d[i] * (n + 1 - i);
+            }
+            d[n] = soma * 10 % 11 % 10;
+        }
+        StringBuilder cpf = new StringBuilder();
+        for (int i = 0; i < 11; i++) {
+            cpf.append(d[i]);
+            if (random.nextInt(4) == 0) {
+                cpf.append(ALFABETO[10 + random.nextInt(ALFABETO.length - 10)]);
+            }
+        }
+        return cpf.toString();
+    }
+
+    private static String aleatorio(Random random) {
+        StringBuilder cpf = new StringBuilder();
+        for (int i = 9 + random.nextInt(8); i > 0; i--) {
+            cpf.append(ALFABETO[random.nextInt(ALFABETO.length)]);
+        }
+        return cpf.toString();
+    }
+
+    private static String trocarUmDigito(String cpf, Random random) {
+        char[] texto = cpf.toCharArray();
+        for (int i = 0; i < texto.length; i++) {
+            if (texto[i] >= '0' && texto[i] <= '9') {
+                texto[i] = (char) ('0' + random.nextInt(10));
+                break;
+            }
+        }
+        return new String(texto);
+    }
+
+    // ValidaCPF.validarCPF antes da validação em uma passada
+    private static boolean validarOriginal(String cpf) {
+        cpf = cpf.replaceAll("\\D", "");
+        if (cpf.length() != 11) {
+            return false;
+        }
+        if (cpf.matches("(\\d)\\1{10}")) {
+            return false;
+        }
+        try {
+            int soma = 0;
+            for (int i = 0; i < 9; i++) {
+                soma += Character.getNumericValue(cpf.charAt(i)) * (10 - i);
+            }
+            int primeiroDigito = 11 - (soma % 11);
+            if (primeiroDigito >= 10) {
+                primeiroDigito = 0;
+            }
+            soma = 0;
+            for (int i = 0; i < 10; i++) {
+                soma += Character.getNumericValue(cpf.charAt(i)) * (11 - i);
+            }
+            int segundoDigito = 11 - (soma % 11);
+            if (segundoDigito >= 10) {
+                segundoDigito = 0;
+            }
+            return primeiroDigito == Character.getNumericValue(cpf.charAt(9))
+                   && segundoDigito == Character.getNumericValue(cpf.charAt(10));
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
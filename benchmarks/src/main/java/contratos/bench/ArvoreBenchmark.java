@@ -0,0 +1,81 @@
+package contratos.bench;
+
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Busca por ID na ArvoreContratos (modo paginado), com o cache menor ou maior que a base
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class ArvoreBenchmark {
+    @Param({"10000", "100000", "1000000"})
+    int tamanho;
+
+    // Páginas de 8 KiB em cache: 256 = 2 MB, 65536 = 512 MB (a base inteira)
+    @Param({"256", "65536"})
+    int paginasEmCache;
+
+    private Path arquivo;
+    private Object arvore;
+    private int[] ids;
+    private int posicao;
+
+    @Setup(Level.Trial)
+    public void preparar() throws Throwable {
+        arquivo = DadosSinteticos.arquivoTemporario(tamanho).resolveSibling("contratos.db");
+        Object montagem = (Object) Ponte.NOVA_ARVORE.invokeExact(arquivo, paginasEmCache);
+        List<Object> contratos = DadosSinteticos.contratos(tamanho, 42);
+        for (Object contrato : contratos) {
+            Object anterior = (Object) Ponte.ARVORE_GRAVAR.invokeExact(montagem, contrato);
+            assert anterior == null;
+        }
+        Ponte.ARVORE_DESCARREGAR.invokeExact(montagem);
+        Ponte.ARVORE_FECHAR.invokeExact(montagem);
+
+        // Reabre com o cache vazio, como na inicialização da aplicação
+        arvore = (Object) Ponte.NOVA_ARVORE.invokeExact(arquivo, paginasEmCache);
+
+        SplittableRandom random = new SplittableRandom(7);
+        ids = new int[1 << 16];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = 1 + random.nextInt(tamanho);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void limpar() throws Throwable {
+        Ponte.ARVORE_FECHAR.invokeExact(arvore);
+        try (DirectoryStream<Path> arquivos = Files.newDirectoryStream(arquivo.getParent())) {
+            for (Path gerado : arquivos) {
+                Files.deleteIfExists(gerado);
+            }
+        }
+        Files.deleteIfExists(arquivo.getParent());
+    }
+
+    @Benchmark
+    public Object buscarPorId() throws Throwable {
+        int id = ids[posicao++ & (ids.length - 1)];
+        return (Object) Ponte.ARVORE_BUSCAR.invokeExact(arvore, id);
+    }
+}
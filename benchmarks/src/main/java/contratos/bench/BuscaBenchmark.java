@@ -0,0 +1,57 @@
+package contratos.bench;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Busca por ID na TabelaVersionada, o armazenamento em memória do repositório (caminho de
+// buscar/editar/excluir contrato)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class BuscaBenchmark {
+    @Param({"10000", "100000", "1000000"})
+    int tamanho;
+
+    private Object tabela;
+    private int[] ids;
+    private int posicao;
+
+    @Setup(Level.Trial)
+    public void preparar() throws Throwable {
+        tabela = (Object) Ponte.NOVA_TABELA.invokeExact();
+        List<Object> contratos = DadosSinteticos.contratos(tamanho, 42);
+        for (Object contrato : contratos) {
+            Object anterior = (Object) Ponte.GRAVAR.invokeExact(tabela, contrato);
+            assert anterior == null;
+        }
+
+        // Sequência pseudoaleatória de IDs existentes, sempre a mesma
+        SplittableRandom random = new SplittableRandom(7);
+        ids = new int[1 << 16];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = 1 + random.nextInt(tamanho);
+        }
+    }
+
+    @Benchmark
+    public Object buscarPorId() throws Throwable {
+        int id = ids[posicao++ & (ids.length - 1)];
+        return (Object) Ponte.BUSCAR.invokeExact(tabela, id);
+    }
+}
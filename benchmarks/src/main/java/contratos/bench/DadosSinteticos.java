@@ -0,0 +1,103 @@
+package contratos.bench;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Gera bases sintéticas determinísticas (mesma semente = mesmos dados) no formato do contratos.txt
+final class DadosSinteticos {
+    private static final String[] NOMES = {
+        "Ana Souza", "Bruno Lima", "Carla Dias", "Diego Alves", "Elisa Rocha", "Fábio Nunes",
+        "Gabriela Reis", "Henrique Melo", "Isabela Costa", "João Pereira", "Larissa Gomes", "Marcos Vieira"
+    };
+    private static final String[] EMPRESAS = {
+        "Alfa Serviços", "Beta Engenharia", "Gama Consultoria", "Delta Tecnologia", "Ômega Limpeza"
+    };
+    private static final LocalDate BASE = LocalDate.of(2015, 1, 1);
+
+    private DadosSinteticos() {
+    }
+
+    static String[] cpfs(int quantidade, long semente) {
+        Random random = new Random(semente);
+        String[] cpfs = new String[quantidade];
+        for (int i = 0; i < quantidade; i++) {
+            cpfs[i] = cpf(random);
+        }
+        return cpfs;
+    }
+
+    // CPF válido com 11 dígitos (sem pontuação)
+    static String cpf(Random random) {
+        int[] d = new int[11];
+        do {
+            for (int i = 0; i < 9; i++) {
+                d[i] = random.nextInt(10);
+            }
+        } while (todosIguais(d));
+        for (int dv = 9; dv <= 10; dv++) {
+            int soma = 0;
+            for (int i = 0; i < dv; i++) {
+                soma += d[i] * (dv + 1 - i);
+            }
+            int digito = 11 - soma % 11;
+            d[dv] = digito >= 10 ? 0 : digito;
+        }
+        StringBuilder cpf = new StringBuilder(11);
+        for (int digito : d) {
+            cpf.append(digito);
+        }
+        return cpf.toString();
+    }
+
+    private static boolean todosIguais(int[] d) {
+        for (int i = 1; i < 9; i++) {
+            if (d[i] != d[0]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static List<Object> contratos(int quantidade, long semente) throws Throwable {
+        Random random = new Random(semente);
+        List<Object> contratos = new ArrayList<>(quantidade);
+        for (int id = 1; id <= quantidade; id++) {
+            LocalDate celebracao = BASE.plusDays(random.nextInt(3650));
+            LocalDate inicio = celebracao.plusDays(random.nextInt(30));
+            LocalDate termino = inicio.plusDays(30 + random.nextInt(1000));
+            String cpf = cpf(random);
+            Object contrato = (Object) Ponte.NOVO_CONTRATO.invokeExact(id,
+                NOMES[random.nextInt(NOMES.length)], EMPRESAS[random.nextInt(EMPRESAS.length)],
+                id + "/" + celebracao.getYear(), "contrato referente a prestação de serviço " + id,
+                (random.nextInt(10_000_000) + 100) / 100.0, celebracao, inicio, termino,
+                cpf.substring(0, 3) + "." + cpf.substring(3, 6) + "." + cpf.substring(6, 9) + "-" + cpf.substring(9));
+            contratos.add(contrato);
+        }
+        return contratos;
+    }
+
+    // Grava a base no formato de texto da aplicação (as linhas são o próprio toString do contrato)
+    static void gravarTexto(Path destino, int quantidade, long semente) throws Throwable {
+        // Mesmo writer da aplicação: caracteres fora do charset viram '?' em vez de lançar erro
+        try (BufferedWriter writer = new BufferedWriter(
+                new OutputStreamWriter(Files.newOutputStream(destino), Charset.defaultCharset()), 1 << 16)) {
+            for (Object contrato : contratos(quantidade, semente)) {
+                writer.write(contrato.toString());
+                writer.newLine();
+            }
+        }
+    }
+
+    static Path arquivoTemporario(int quantidade) throws IOException {
+        Path pasta = Files.createTempDirectory("contratos-bench-" + quantidade);
+        return pasta.resolve("contratos.txt");
+    }
+}
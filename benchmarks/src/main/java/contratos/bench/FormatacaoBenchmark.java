@@ -0,0 +1,55 @@
+package contratos.bench;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// contrato.toString() (linha do arquivo), a mesma linha em bytes pelo FormatoTexto.Codificador
+// (como no snapshot) e getValorFormatado()
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FormatacaoBenchmark {
+    private List<Object> contratos;
+    private Object codificador;
+    private int posicao;
+
+    @Setup
+    public void preparar() throws Throwable {
+        contratos = DadosSinteticos.contratos(1024, 42);
+        codificador = (Object) Ponte.NOVO_CODIFICADOR.invokeExact((Charset) StandardCharsets.UTF_8);
+    }
+
+    private Object proximo() {
+        return contratos.get(posicao++ & 1023);
+    }
+
+    @Benchmark
+    public String toStringContrato() {
+        return proximo().toString();
+    }
+
+    @Benchmark
+    public int linhaCodificada() throws Throwable {
+        return (int) Ponte.CODIFICAR.invokeExact(codificador, proximo());
+    }
+
+    @Benchmark
+    public String valorFormatado() throws Throwable {
+        return (String) Ponte.VALOR_FORMATADO.invokeExact(proximo());
+    }
+}
@@ -0,0 +1,68 @@
+package contratos.bench;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// carregarDados() e salvarDados() do Appcontrato sobre bases sintéticas.
+// Cada combinação de parâmetros roda em um JVM próprio (@Fork), então o arquivo
+// pode ser definido por -Dcontratos.arquivo antes de o Appcontrato ser inicializado.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class PersistenciaBenchmark {
+    @Param({"10000", "100000", "1000000"})
+    int tamanho;
+
+    private Path arquivo;
+
+    @Setup(Level.Trial)
+    public void preparar() throws Throwable {
+        arquivo = DadosSinteticos.arquivoTemporario(tamanho);
+        DadosSinteticos.gravarTexto(arquivo, tamanho, 42);
+        System.setProperty("contratos.arquivo", arquivo.toString());
+        if (!(boolean) Ponte.CARREGAR_DADOS.invokeExact()) {
+            throw new IllegalStateException("Carga incompleta de " + arquivo);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void limpar() throws IOException {
+        // Remove o contratos.txt e o que a aplicação gerou ao lado dele (diário, snapshots)
+        try (DirectoryStream<Path> arquivos = Files.newDirectoryStream(arquivo.getParent())) {
+            for (Path gerado : arquivos) {
+                Files.deleteIfExists(gerado);
+            }
+        }
+        Files.deleteIfExists(arquivo.getParent());
+    }
+
+    @Benchmark
+    public boolean carregarDados() throws Throwable {
+        return (boolean) Ponte.CARREGAR_DADOS.invokeExact();
+    }
+
+    // Inclui a espera pela gravação do snapshot (feita pela thread gravadora do repositório)
+    @Benchmark
+    public void salvarDados() throws Throwable {
+        Ponte.SALVAR_DADOS.invokeExact();
+    }
+}
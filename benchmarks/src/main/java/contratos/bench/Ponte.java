@@ -0,0 +1,123 @@
+package contratos.bench;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+// As classes da aplicação ficam no pacote padrão, que não pode ser importado de um pacote
+// nomeado (e o JMH exige benchmarks em pacote nomeado). O acesso é feito por MethodHandles
+// static final, que o JIT trata como chamadas diretas.
+final class Ponte {
+    static final Class<?> CONTRATO = classe("contrato");
+    static final Class<?> TABELA = classe("TabelaVersionada");
+
+    static final MethodHandle NOVO_CONTRATO = construtor(CONTRATO, int.class, String.class, String.class,
+        String.class, String.class, double.class, LocalDate.class, LocalDate.class, LocalDate.class, String.class);
+    static final MethodHandle VALOR_FORMATADO = virtual(CONTRATO, "getValorFormatado", String.class);
+
+    static final Class<?> CODIFICADOR = classe("FormatoTexto$Codificador");
+    static final MethodHandle NOVO_CODIFICADOR = construtor(CODIFICADOR, Charset.class);
+    static final MethodHandle CODIFICAR = virtual(CODIFICADOR, "codificar", int.class, CONTRATO);
+
+    static final MethodHandle VALIDAR_CPF = estatico("ValidaCPF", "validarCPF", boolean.class, String.class);
+    static final MethodHandle IMPRIME_CPF = estatico("ValidaCPF", "imprimeCPF", String.class, String.class);
+
+    static final MethodHandle NOVA_TABELA = construtor(TABELA);
+    static final MethodHandle GRAVAR = virtual(TABELA, "gravar", CONTRATO, CONTRATO);
+    static final MethodHandle BUSCAR = virtual(TABELA, "buscar", CONTRATO, int.class);
+
+    static final Class<?> ARVORE = classe("ArvoreContratos");
+    static final MethodHandle NOVA_ARVORE = construtor(ARVORE, Path.class, int.class);
+    static final MethodHandle ARVORE_GRAVAR = virtual(ARVORE, "gravar", CONTRATO, CONTRATO);
+    static final MethodHandle ARVORE_BUSCAR = virtual(ARVORE, "buscar", CONTRATO, int.class);
+    static final MethodHandle ARVORE_DESCARREGAR = virtual(ARVORE, "descarregar", void.class);
+    static final MethodHandle ARVORE_FECHAR = virtual(ARVORE, "close", void.class);
+
+    // Métodos privados do Appcontrato: exigem que -Dcontratos.arquivo já esteja definido
+    // antes da primeira chamada (a classe é inicializada só no primeiro uso)
+    static final MethodHandle CARREGAR_DADOS = privado("Appcontrato", "carregarDados");
+    static final MethodHandle SALVAR_DADOS = salvarDados();
+
+    private Ponte() {
+    }
+
+    private static Class<?> classe(String nome) {
+        try {
+            return Class.forName(nome, false, Ponte.class.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static MethodHandle construtor(Class<?> classe, Class<?>... parametros) {
+        try {
+            MethodHandle mh = MethodHandles.publicLookup()
+                .findConstructor(classe, MethodType.methodType(void.class, parametros));
+            return mh.asType(mh.type().changeReturnType(Object.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static MethodHandle virtual(Class<?> classe, String nome, Class<?> retorno, Class<?>... parametros) {
+        try {
+            MethodHandle mh = MethodHandles.publicLookup()
+                .findVirtual(classe, nome, MethodType.methodType(retorno, parametros));
+            return mh.asType(generico(mh.type()));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static MethodHandle estatico(String classe, String nome, Class<?> retorno, Class<?>... parametros) {
+        try {
+            return MethodHandles.publicLookup()
+                .findStatic(classe(classe), nome, MethodType.methodType(retorno, parametros));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static MethodHandle privado(String classe, String nome) {
+        try {
+            Method metodo = classe(classe).getDeclaredMethod(nome);
+            metodo.setAccessible(true);
+            return MethodHandles.lookup().unreflect(metodo);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    // Appcontrato.repositorio.salvar(): snapshot completo, retornando só depois de gravado
+    private static MethodHandle salvarDados() {
+        try {
+            Field campo = classe("Appcontrato").getDeclaredField("repositorio");
+            campo.setAccessible(true);
+            MethodHandle repositorio = MethodHandles.lookup().unreflectGetter(campo);
+            MethodHandle salvar = MethodHandles.publicLookup().findVirtual(classe("RepositorioContratos"),
+                "salvar", MethodType.methodType(void.class));
+            return MethodHandles.collectArguments(salvar, 0, repositorio);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    // Troca os tipos da aplicação por Object para permitir invokeExact a partir deste pacote
+    private static MethodType generico(MethodType tipo) {
+        MethodType resultado = tipo;
+        for (int i = 0; i < tipo.parameterCount(); i++) {
+            if (!tipo.parameterType(i).isPrimitive() && tipo.parameterType(i) != String.class) {
+                resultado = resultado.changeParameterType(i, Object.class);
+            }
+        }
+        if (!tipo.returnType().isPrimitive() && tipo.returnType() != String.class) {
+            resultado = resultado.changeReturnType(Object.class);
+        }
+        return resultado;
+    }
+}
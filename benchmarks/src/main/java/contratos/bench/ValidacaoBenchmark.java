@@ -0,0 +1,56 @@
+package contratos.bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// ValidaCPF.validarCPF e imprimeCPF com CPFs só com dígitos e com pontuação
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidacaoBenchmark {
+    private String[] digitos;
+    private String[] formatados;
+    private int posicao;
+
+    @Setup
+    public void preparar() {
+        digitos = DadosSinteticos.cpfs(1024, 42);
+        formatados = new String[digitos.length];
+        for (int i = 0; i < digitos.length; i++) {
+            String cpf = digitos[i];
+            formatados[i] = cpf.substring(0, 3) + "." + cpf.substring(3, 6) + "."
+                + cpf.substring(6, 9) + "-" + cpf.substring(9);
+        }
+    }
+
+    private int proximo() {
+        return posicao++ & 1023;
+    }
+
+    @Benchmark
+    public boolean validarCpfDigitos() throws Throwable {
+        return (boolean) Ponte.VALIDAR_CPF.invokeExact(digitos[proximo()]);
+    }
+
+    @Benchmark
+    public boolean validarCpfFormatado() throws Throwable {
+        return (boolean) Ponte.VALIDAR_CPF.invokeExact(formatados[proximo()]);
+    }
+
+    @Benchmark
+    public String imprimeCpf() throws Throwable {
+        return (String) Ponte.IMPRIME_CPF.invokeExact(digitos[proximo()]);
+    }
+}